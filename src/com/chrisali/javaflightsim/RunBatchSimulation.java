@@ -0,0 +1,96 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.EnumSet;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.chrisali.javaflightsim.simulation.BatchSimulationRunner;
+import com.chrisali.javaflightsim.simulation.SimulationContext;
+import com.chrisali.javaflightsim.simulation.flightcontrols.analysis.AnalysisControls;
+import com.chrisali.javaflightsim.simulation.setup.Options;
+import com.chrisali.javaflightsim.simulation.setup.SimulationConfiguration;
+import com.chrisali.javaflightsim.simulation.utilities.CSVExporter;
+import com.chrisali.javaflightsim.simulation.utilities.FileUtilities;
+
+/**
+ * Runner class to start Java Flight Simulator headlessly in batch mode, with no GUI or out the window display. The simulation and 
+ * analysis control configurations are read from a configuration directory, the simulation is run in Analysis Mode by 
+ * {@link BatchSimulationRunner}, and its output is written to a CSV file in an output directory. Aircraft are read from the Aircraft 
+ * directory as usual
+ * 
+ * <p>Usage: RunBatchSimulation [config directory] [output directory] [time compression]</p>
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class RunBatchSimulation {
+	private static final Logger logger = LogManager.getLogger(RunBatchSimulation.class);
+	
+	private static final String USAGE = "Usage: RunBatchSimulation [config directory] [output directory] [time compression (default: unlimited)]";
+	
+	public static void main(String[] args) {
+		if (args.length < 2) {
+			System.err.println(USAGE);
+			System.exit(1);
+		}
+		
+		String configDirectory = args[0];
+		File outputDirectory = new File(args[1]);
+		double timeCompression = args.length > 2 ? Double.parseDouble(args[2]) : BatchSimulationRunner.UNLIMITED;
+		
+		logger.debug("===============================================");
+		logger.debug("Java Flight Simulator v0.4a by Christopher Ali");
+		logger.debug("===============================================");
+		
+		SimulationConfiguration configuration = FileUtilities.readSimulationConfiguration(configDirectory);
+		AnalysisControls analysisControls = FileUtilities.readAnalysisControls(configDirectory);
+		
+		if (configuration == null || analysisControls == null) {
+			System.err.println("Could not read configuration from " + configDirectory + "!");
+			System.exit(1);
+		}
+		
+		configuration.updateOptions(EnumSet.of(Options.ANALYSIS_MODE));
+		
+		BatchSimulationRunner runner = new BatchSimulationRunner(new SimulationContext(configuration, analysisControls), timeCompression);
+		runner.run();
+		
+		File outputFile = new File(outputDirectory, configuration.getSelectedAircraft() + ".csv");
+		try {
+			outputDirectory.mkdirs();
+			
+			// Full precision, since batch output is analyzed offline
+			CSVExporter exporter = new CSVExporter();
+			exporter.setSignificantDigits(17);
+			exporter.export(runner.getSimulation().getLogsOutBuffer(), outputFile);
+		} catch (IOException e) {
+			logger.error("Could not save simulation output to " + outputFile + "!", e);
+			System.exit(1);
+		}
+		
+		System.out.printf("Simulated %.1f sec in %.3f sec; output saved to %s%n", 
+						  runner.getTimeMS().get() / 1000.0, runner.getWallTimeSec(), outputFile.getPath());
+	}
+}
@@ -32,8 +32,11 @@ import com.chrisali.javaflightsim.lwjgl.LWJGLWorld;
 import com.chrisali.javaflightsim.simulation.SimulationRunner;
 import com.chrisali.javaflightsim.simulation.integration.Integrate6DOFEquations;
 import com.chrisali.javaflightsim.simulation.integration.SimOuts;
+import com.chrisali.javaflightsim.simulation.recording.FlightRecording;
 import com.chrisali.javaflightsim.simulation.setup.SimulationConfiguration;
 import com.chrisali.javaflightsim.simulation.setup.Trimming;
+import com.chrisali.javaflightsim.simulation.utilities.CSVExporter;
+import com.chrisali.javaflightsim.simulation.utilities.ExportProgressListener;
 import com.chrisali.javaflightsim.simulation.utilities.FileUtilities;
 import com.chrisali.javaflightsim.swing.GuiFrame;
 import com.chrisali.javaflightsim.swing.consoletable.ConsoleTablePanel;
@@ -115,6 +118,39 @@ public class LWJGLSwingSimulationController implements SimulationController {
 		runnerThread.start();
 	}
 	
+	/**
+	 * Replays a recorded flight through the OTW display and flight data listeners on the simulation runner thread, without 
+	 * running the simulation itself. Playback is paused, seeked and sped up through {@link SimulationRunner#getFlightReplay()}
+	 * 
+	 * @param recording
+	 */
+	public void startReplay(FlightRecording recording) {
+		if (runner != null && runner.isRunning()) {
+			logger.warn("Simulation is already running! Please wait until it has finished");
+			return;
+		}
+		
+		configuration = FileUtilities.readSimulationConfiguration();
+		
+		logger.debug("Starting flight replay...");
+		runner = new SimulationRunner(this, recording);
+		
+		runnerThread = new Thread(runner);
+		runnerThread.start();
+	}
+	
+	/**
+	 * @return runner of the simulation or replay, or null if neither has been started
+	 */
+	public SimulationRunner getRunner() { return runner; }
+	
+	/**
+	 * @return simulation being run, or null if none has been started or a recorded flight is being replayed
+	 */
+	private Integrate6DOFEquations getSimulation() {
+		return (runner != null) ? runner.getSimulation() : null;
+	}
+	
 	/**
 	 * Stops simulation and data transfer threads (if running), closes the raw data {@link ConsoleTablePanel},
 	 * {@link SimulationWindow}, and opens the main menus window again
@@ -130,18 +166,18 @@ public class LWJGLSwingSimulationController implements SimulationController {
 	}
 	
 	/**
-	 * @return ArrayList of simulation output data 
+	 * @return ArrayList of simulation output data, or null if no simulation is running; a replay keeps no logs 
 	 * @see SimOuts
 	 */
 	public List<Map<SimOuts, Double>> getLogsOut() {
-		return (runner != null && runner.isRunning()) ? runner.getSimulation().getLogsOut() : null;
+		return (getSimulation() != null && runner.isRunning()) ? getSimulation().getLogsOut() : null;
 	}
 	
 	/**
 	 * @return if simulation was able to clear data kept in logsOut
 	 */
 	public boolean clearLogsOut() {
-		return (runner != null && runner.isRunning()) ? runner.getSimulation().clearLogsOut() : false;
+		return (getSimulation() != null && runner.isRunning()) ? getSimulation().clearLogsOut() : false;
 	}
 		
 	//=============================== Plotting =============================================================
@@ -183,6 +219,11 @@ public class LWJGLSwingSimulationController implements SimulationController {
 	 */
 	@Override
 	public void initializeConsole() {
+		if (getSimulation() == null) {
+			logger.warn("No simulation is running whose data can be displayed in the console!");
+			return;
+		}
+		
 		try {
 			logger.debug("Starting flight data console...");
 			
@@ -204,18 +245,22 @@ public class LWJGLSwingSimulationController implements SimulationController {
 	}
 	
 	/**
-	 * Saves the raw data in the console window to a .csv file 
+	 * Saves a snapshot of the raw data in the console window to a .csv file on a background thread, so that neither the
+	 * console nor the simulation wait on it 
 	 * 
 	 * @param file
-	 * @throws IOException
+	 * @param progressListener notified of the export's progress and completion, or of an error if no simulation has been run
 	 */
-	public void saveConsoleOutput(File file) throws IOException {
+	public void saveConsoleOutput(File file, ExportProgressListener progressListener) {
+		if (getSimulation() == null) {
+			progressListener.onExportFinished(file, new IOException("No simulation has been run whose console output can be saved!"));
+			return;
+		}
+		
 		logger.debug("Saving console output to: " + file.getAbsolutePath());
 		
-		try {			
-			FileUtilities.saveToCSVFile(file, runner.getSimulation().getLogsOut());
-		} catch (Exception e) {
-			logger.error("An error occurred while saving console output!", e);
-		}
+		CSVExporter exporter = new CSVExporter();
+		exporter.setProgressListener(progressListener);
+		exporter.exportAsync(getSimulation().getLogsOutBuffer(), file);
 	}
 }
@@ -2,17 +2,18 @@ package com.chrisali.javaflightsim.interfaces;
 
 /**
  * Interface to support various implementations of an OTW (out-the-window) display
- * for Java Flight Simulator
+ * for Java Flight Simulator. Displays run on their own render thread, which initializes all assets 
+ * and rendering processes for the OTW engine and renders until stopped
  */
-public interface OTWWorld extends Steppable {
+public interface OTWWorld extends Runnable {
 
 	/**
-	 * @return Height of terrain at the aircraft's current position
+	 * @return Height of terrain at the aircraft's current position; safe to call from any thread
 	 */
 	public float getTerrainHeight();
 	
 	/**
-	 * Initializes all assets and rendering processes for the OTW engine
+	 * Requests the render thread to stop and clean up the OTW engine
 	 */
-	public void init();
+	public void stop();
 }
\ No newline at end of file
@@ -19,11 +19,14 @@
  ******************************************************************************/
 package com.chrisali.javaflightsim.interfaces;
 
+import com.chrisali.javaflightsim.simulation.RateGroup;
+import com.chrisali.javaflightsim.simulation.RateGroupScheduler;
 import com.chrisali.javaflightsim.simulation.integration.Integrate6DOFEquations;
 
 /**
  * To replace threading, this interface allows objects run at various rates slower than {@link Integrate6DOFEquations} 
- * master rate by step updating in a master loop only when the current time meets a certain window 
+ * master rate by step updating in a master loop only on frames when their {@link RateGroup} is due, as scheduled by 
+ * {@link RateGroupScheduler}
  * 
  * @author Christopher
  *
@@ -36,11 +39,10 @@ public interface Steppable {
 	public void step();
 	
 	/**
-	 * To emulate running synchronously at a different rate, define a modulus value here so that this object only updates every x 
-	 * times the simulation steps
+	 * To emulate running synchronously at a different rate, declare the rate group this object belongs to so that it only updates 
+	 * every x times the simulation steps
 	 * 
-	 * @param simTimeMS simulation time in milliseconds
-	 * @return if the implementing object can step update at this point in time
+	 * @return rate group the implementing object steps in
 	 */
-	public boolean canStepNow(int simTimeMS);
+	public RateGroup getRateGroup();
 }
@@ -20,11 +20,13 @@
 package com.chrisali.javaflightsim.lwjgl;
 
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -60,25 +62,31 @@ import com.chrisali.javaflightsim.lwjgl.terrain.Terrain;
 import com.chrisali.javaflightsim.lwjgl.terrain.TerrainCollection;
 import com.chrisali.javaflightsim.lwjgl.textures.ModelTexture;
 import com.chrisali.javaflightsim.lwjgl.utilities.OTWDirectories;
-import com.chrisali.javaflightsim.simulation.SimulationRunner;
-import com.chrisali.javaflightsim.simulation.datatransfer.FlightData;
-import com.chrisali.javaflightsim.simulation.datatransfer.FlightDataListener;
+import com.chrisali.javaflightsim.simulation.RateGroup;
+import com.chrisali.javaflightsim.simulation.datatransfer.FlightDataPublisher;
+import com.chrisali.javaflightsim.simulation.datatransfer.FlightDataSnapshot;
 import com.chrisali.javaflightsim.simulation.datatransfer.FlightDataType;
+import com.chrisali.javaflightsim.simulation.datatransfer.TripleBuffer;
 import com.chrisali.javaflightsim.simulation.setup.CameraMode;
 import com.chrisali.javaflightsim.simulation.setup.SimulationConfiguration;
 import com.chrisali.javaflightsim.simulation.utilities.FileUtilities;
 
 /**
  * Out the window display for Java Flight Sim. It utilizes LWJGL to create a 3D world in OpenGL. 
- * This runs in a simulation runner thread that receives data from {@link FlightData} via {@link FlightDataListener} 
+ * This runs in its own render thread, which owns the OpenGL context, at the display's frame rate. Flight data is read from 
+ * {@link FlightDataSnapshot} objects published by {@link FlightDataPublisher} through a {@link TripleBuffer}, and is 
+ * interpolated between the two latest snapshots so that motion stays smooth when the display and simulation rates differ  
  * 
  * @author Christopher Ali
  *
  */
-public class LWJGLWorld implements FlightDataListener, OTWWorld {
+public class LWJGLWorld implements OTWWorld {
 	
 	private static final Logger logger = LogManager.getLogger(LWJGLWorld.class);
 	
+	// Furthest past the latest snapshot, as a fraction of the interval between snapshots, that flight data is extrapolated  
+	private static final double MAX_EXTRAPOLATION = 2.0;
+	
 	private Loader loader;
 	private MasterRenderer masterRenderer;
 	
@@ -102,29 +110,75 @@ public class LWJGLWorld implements FlightDataListener, OTWWorld {
 	
 	private SimulationConfiguration configuration;
 	
+	// Flight data snapshots; previous and latest are owned by the render thread
+	private TripleBuffer<FlightDataSnapshot> snapshots;
+	private FlightDataSnapshot previous = new FlightDataSnapshot();
+	private FlightDataSnapshot latest = new FlightDataSnapshot();
+	private Map<FlightDataType, Double> flightData = new EnumMap<>(FlightDataType.class);
+	
+	private volatile float terrainHeight = 0.0f;
+	private volatile boolean running = false;
+	private final CountDownLatch initialized = new CountDownLatch(1);
+	
 	// Event Listeners
 	private List<WindowClosedListener> windowClosedListeners = new ArrayList<>();
 			
 	/**
-	 * Sets up OTW display with {@link SimulationConfiguration} provided by {@link SimulationController} 
+	 * Sets up OTW display with {@link SimulationConfiguration} provided by {@link SimulationController}, which reads 
+	 * flight data from snapshots published to a {@link TripleBuffer}
 	 * 
 	 * @param controller
+	 * @param snapshots
 	 */
-	public LWJGLWorld(SimulationController controller) {
+	public LWJGLWorld(SimulationController controller, TripleBuffer<FlightDataSnapshot> snapshots) {
 		configuration = controller.getConfiguration();
+		this.snapshots = snapshots;
 	}	
 	
+	/**
+	 * Render loop of the LWJGL process; initializes the display on the calling thread and then renders frames on it until 
+	 * {@link #stop()} is called or the window is closed 
+	 */
+	@Override
+	public void run() {
+		running = true;
+		
+		init();
+		initialized.countDown();
+		
+		while (running) {
+			step();
+			
+			if(Display.isCloseRequested() || Keyboard.isKeyDown(Keyboard.KEY_Q)) {
+				running = false;
+				fireWindowClosed();
+			}
+		}
+		
+		cleanUp();
+	}
+	
 	@Override
-	public boolean canStepNow(int simTimeMS) {
-		return simTimeMS % 1 == 0;
+	public void stop() {
+		running = false;
+	}
+	
+	/**
+	 * Blocks until the render thread has finished initializing the display and loading assets, successfully or not
+	 * 
+	 * @throws InterruptedException
+	 */
+	public void awaitInitialization() throws InterruptedException {
+		initialized.await();
 	}
 
 	/**
-	 * Main game loop of the LWJGL process, whose stepping is controlled by the {@link SimulationRunner} object's thread
+	 * Renders a single frame with flight data interpolated from the latest snapshots
 	 */
-	@Override
-	public void step() {
+	private void step() {
 		try {
+			updateFlightData();
+			
 			ParticleMaster.update(camera);
 			
 			masterRenderer.renderWholeScene(entities, terrainCollection.getTerrainTree(), 
@@ -140,24 +194,18 @@ public class LWJGLWorld implements FlightDataListener, OTWWorld {
 		} catch (Exception e) {
 			logger.error("Error encountered while running LWJGL display!", e);
 		}
-		
-		if(Display.isCloseRequested() || Keyboard.isKeyDown(Keyboard.KEY_Q)) {
-			fireWindowClosed();
-			cleanUp();
-		}
 	}
 	
 	/**
-	 * Called just before main simulation loop runs, initializes all assets and processes
+	 * Called by the render thread before the render loop runs, initializes all assets and processes
 	 */
-	@Override
-	public void init() {
+	private void init() {
 		try { 
 			startUp(); 
 			loadAssets(); 
 		} catch (Exception e) {
 			logger.fatal("Error encountered when setting up LWJGL display!", e);
-			cleanUp();
+			running = false;
 		}
 	}
 	
@@ -188,7 +236,7 @@ public class LWJGLWorld implements FlightDataListener, OTWWorld {
 	private void startUp() {
 		logger.debug("Starting up LWJGL display...");
 		DisplayManager.createDisplay();
-		DisplayManager.setFrameRateLimit(configuration.getSimulationRateHz());
+		DisplayManager.setFrameRateLimit(RateGroup.DISPLAY.getRateHz());
 		DisplayManager.setHeight(configuration.getDisplayConfiguration().getDisplayHeight());
 		DisplayManager.setWidth(configuration.getDisplayConfiguration().getDisplayWidth());
 		DisplayManager.setAaSamples(configuration.getDisplayConfiguration().isUseAntiAliasing() ? 2 : 0);
@@ -286,11 +334,58 @@ public class LWJGLWorld implements FlightDataListener, OTWWorld {
 		soundCollection = new SoundCollection(configuration);
 	}
 	
+	/**
+	 * @return Height of terrain at the aircraft's position as of the last rendered frame
+	 */
 	@Override
-	public synchronized float getTerrainHeight() {
-		if (terrainCollection == null)
-			return 0.0f;
+	public float getTerrainHeight() {
+		return terrainHeight;
+	}
+	
+	/**
+	 * Takes the latest snapshot if one was published since the last frame, and moves ownship, camera, sounds and 
+	 * interface using flight data interpolated to the current time. The display shows the previous snapshot at the time the latest 
+	 * was published, reaching the latest one interval later, so it runs that interval behind the simulation and only extrapolates 
+	 * if publishing stalls 
+	 */
+	private void updateFlightData() {
+		if (snapshots.update()) {
+			previous.copyFrom(latest);
+			latest.copyFrom(snapshots.getReadBuffer());
+		}
+		
+		// Nothing published yet
+		if (latest.getPublishedNanos() == 0)
+			return;
+		
+		long interval = latest.getPublishedNanos() - previous.getPublishedNanos();
+		double fraction = 1.0;
+		
+		if (previous.getPublishedNanos() != 0 && interval > 0)
+			fraction = Math.min((double) (System.nanoTime() - latest.getPublishedNanos()) / interval, MAX_EXTRAPOLATION);
+		
+		FlightDataSnapshot.interpolate(previous, latest, fraction, flightData);
+		
+		// Update sound gains/volumes with flight data
+		soundCollection.update(flightData);
+		
+		// Ownship movement; let camera track ownhip 1-1 for now
+		ownship.move(flightData);
+		camera.move(configuration);
+
+		// Record flight data into text string to display on OTW screen 
+		simTexts.update(flightData, configuration, camera, ownship);
+		
+		// Instrument Panel
+		panel.update(flightData);
 		
+		terrainHeight = calculateTerrainHeight();
+	}
+	
+	/**
+	 * @return Height of terrain at ownship's current position
+	 */
+	private float calculateTerrainHeight() {
 		TreeMap<String, Terrain> terrainTree = terrainCollection.getTerrainTree();
 		Vector3f position = ownship.getPosition();
 		
@@ -300,26 +395,6 @@ public class LWJGLWorld implements FlightDataListener, OTWWorld {
 		// If outside world bounds, return 0 as terrain height
 		return (currentTerrain == null) ? 0.0f : currentTerrain.getTerrainHeight(position.x, position.z);
 	}
-
-	@Override
-	public void onFlightDataReceived(FlightData flightData) {
-		Map<FlightDataType, Double> receivedFlightData = flightData.getFlightData();
-		
-		if (!receivedFlightData.containsValue(null) && receivedFlightData != null) {
-			// Update sound gains/volumes with flight data
-			soundCollection.update(receivedFlightData);
-			
-			// Ownship movement; let camera track ownhip 1-1 for now
-			ownship.move(receivedFlightData);
-			camera.move(configuration);
-
-			// Record flight data into text string to display on OTW screen 
-			simTexts.update(receivedFlightData, configuration, camera, ownship);
-			
-			// Instrument Panel
-			panel.update(receivedFlightData);
-		}
-	}
 	
 	// =============================== Events =====================================
 	
@@ -0,0 +1,139 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.chrisali.javaflightsim.interfaces.Steppable;
+import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControlsStateManager;
+import com.chrisali.javaflightsim.simulation.integration.Integrate6DOFEquations;
+import com.chrisali.javaflightsim.simulation.integration.SimOuts;
+import com.chrisali.javaflightsim.simulation.setup.IntegratorConfig;
+import com.chrisali.javaflightsim.simulation.setup.Options;
+
+/**
+ * Headless counterpart of {@link SimulationRunner} for batch runs in Analysis Mode. It steps the same {@link Steppable} 
+ * simulation components in their {@link RateGroup}s, but never references the LWJGL out the window display or a {@link com.chrisali.javaflightsim.interfaces.SimulationController}, 
+ * so neither LWJGL nor Swing classes are loaded, and it does not pause between steps. 
+ * 
+ * <p>A time compression factor can be given to pace the run to a multiple of real time (e.g. 50 runs 50 seconds of simulation 
+ * per second); with no time compression the simulation runs as fast as possible</p>
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class BatchSimulationRunner implements Runnable {
+	
+	private static final Logger logger = LogManager.getLogger(BatchSimulationRunner.class);
+	private static final int TO_MILLISEC = 1000;
+	
+	/**
+	 * Time compression factor that runs the simulation as fast as possible
+	 */
+	public static final double UNLIMITED = 0.0;
+	
+	private final FlightControlsStateManager flightControlsManager;
+	private final Integrate6DOFEquations simulation;
+	private final RateGroupScheduler rateGroups;
+	
+	private final AtomicInteger timeMS;
+	private final double dt;
+	private final int endTimeMS;
+	private final double timeCompression;
+	
+	private long wallTimeNanos;
+	
+	/**
+	 * Creates a batch runner for a context, which must be configured with {@link Options#ANALYSIS_MODE}
+	 * 
+	 * @param context
+	 * @param timeCompression multiple of real time to pace the run to, or {@link #UNLIMITED}
+	 */
+	public BatchSimulationRunner(SimulationContext context, double timeCompression) {
+		if (!context.getConfiguration().getSimulationOptions().contains(Options.ANALYSIS_MODE))
+			throw new IllegalArgumentException("Batch simulations can only be run in " + Options.ANALYSIS_MODE + "!");
+		
+		this.timeCompression = timeCompression;
+		
+		Map<IntegratorConfig, Double> integratorConfig = context.getConfiguration().getIntegratorConfig();
+		timeMS 		= new AtomicInteger(integratorConfig.get(IntegratorConfig.STARTTIME).intValue() * TO_MILLISEC);
+		dt 			= integratorConfig.get(IntegratorConfig.DT);
+		endTimeMS 	= integratorConfig.get(IntegratorConfig.ENDTIME).intValue() * TO_MILLISEC;
+		
+		logger.debug("Initializing flight controls manager...");
+		flightControlsManager = new FlightControlsStateManager(context, timeMS);
+		
+		logger.debug("Initializing simulation...");
+		simulation = new Integrate6DOFEquations(flightControlsManager.getControlsState(), context);
+		
+		rateGroups = new RateGroupScheduler(dt);
+		rateGroups.add(flightControlsManager);
+		rateGroups.add(simulation);
+	}
+	
+	/**
+	 * Runs the simulation from start to end time, pacing each step to the time compression factor if one was given
+	 */
+	@Override
+	public void run() {
+		logger.debug("Running batch simulation" + (timeCompression > 0 ? " at " + timeCompression + "x real time..." : "..."));
+		
+		final int startTimeMS = timeMS.get();
+		final long startNanos = System.nanoTime();
+		
+		for (long frame = 0; timeMS.get() < endTimeMS; frame++) {
+			rateGroups.step(frame);
+			
+			// Simulation time is kept as a frame count so that it does not drift from the integrator's time 
+			double simTimeSec = (frame + 1) * dt;
+			timeMS.set(startTimeMS + (int) Math.round(simTimeSec * TO_MILLISEC));
+			
+			// Wait until wall time catches up with the compressed simulation time, if running ahead of it
+			if (timeCompression > 0) {
+				long targetNanos = startNanos + (long) (TimeUnit.SECONDS.toNanos(1) * simTimeSec / timeCompression);
+				long aheadNanos = targetNanos - System.nanoTime();
+				if (aheadNanos > 0)
+					LockSupport.parkNanos(aheadNanos);
+			}
+		}
+		
+		wallTimeNanos = System.nanoTime() - startNanos;
+		
+		logger.debug(String.format("Batch simulation completed in %.3f sec", getWallTimeSec()));
+	}
+	
+	public Integrate6DOFEquations getSimulation() { return simulation; }
+	
+	public List<Map<SimOuts, Double>> getLogsOut() { return simulation.getLogsOut(); }
+	
+	public AtomicInteger getTimeMS() { return timeMS; }
+	
+	/**
+	 * @return wall time taken by the last call of {@link #run()} (sec)
+	 */
+	public double getWallTimeSec() { return wallTimeNanos / 1e9; }
+}
@@ -0,0 +1,39 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation;
+
+/**
+ * Provides Enums to set how {@link RealTimeScheduler} recovers when a frame overruns its deadline:
+ * 
+ *	<p>CATCH_UP - Keeps deadlines anchored to the start of the run and runs late frames back to back until caught up, so that 
+ *	simulation time does not drift from wall time; if more than the maximum catch up time behind, the scheduler rebases instead</p>
+ *	<p>REBASE - Moves the next deadline one frame after the late frame completed, so frames are never run back to back; 
+ *	simulation time falls behind wall time by the time overrun</p>
+ */
+public enum OverrunPolicy {
+	CATCH_UP ("Catch Up"),
+	REBASE	 ("Rebase");
+	
+	private final String policy;
+	
+	OverrunPolicy(String policy) {this.policy = policy;}
+	
+	public String toString() {return policy;}
+}
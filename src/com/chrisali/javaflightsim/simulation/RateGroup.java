@@ -0,0 +1,76 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation;
+
+import com.chrisali.javaflightsim.interfaces.Steppable;
+
+/**
+ * Provides Enums for the rate groups that {@link Steppable} components are declared in, each with the rate (Hz) it should 
+ * step at. Rates are met with an integer divider of the simulation rate (1/dt), so each group steps on a fixed pattern of 
+ * simulation frames:
+ * 
+ *	<p>PHYSICS - Integration of the equations of motion; steps every frame</p>
+ *	<p>CONTROLS - Polling of input devices or generation of analysis control inputs</p>
+ *	<p>DISPLAY - Out the window rendering and the flight data that moves the ownship and its instruments</p>
+ *	<p>ENVIRONMENT - Feedback of terrain height from the out the window display to the simulation</p>
+ */
+public enum RateGroup {
+	PHYSICS 	("Physics", 	120) {
+		/**
+		 * Physics integrates one time step of dt each frame, so it steps every frame whatever the simulation rate 
+		 */
+		@Override
+		public int getDivider(double dt) { return 1; }
+	},
+	CONTROLS 	("Controls", 	60),
+	DISPLAY 	("Display", 	60),
+	ENVIRONMENT ("Environment", 10);
+	
+	private final String group;
+	private final int rateHz;
+	
+	RateGroup(String group, int rateHz) {
+		this.group = group;
+		this.rateHz = rateHz;
+	}
+	
+	/**
+	 * @return desired rate (Hz) of this group; nominal for {@link RateGroup#PHYSICS}, which always runs at the simulation rate
+	 */
+	public int getRateHz() { return rateHz; }
+	
+	/**
+	 * @param dt simulation time step (sec)
+	 * @return number of simulation frames between each step of this group, at least 1
+	 */
+	public int getDivider(double dt) {
+		return (int) Math.max(1, Math.round(1.0 / (dt * rateHz)));
+	}
+	
+	/**
+	 * @param dt simulation time step (sec)
+	 * @return actual rate (Hz) this group steps at after dividing the simulation rate
+	 */
+	public double getActualRateHz(double dt) {
+		return 1.0 / (dt * getDivider(dt));
+	}
+	
+	public String toString() {return group;}
+}
@@ -0,0 +1,83 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.chrisali.javaflightsim.interfaces.Steppable;
+
+/**
+ * Steps {@link Steppable} components at the rates of the {@link RateGroup}s they declare. Each component steps on frames that 
+ * are a multiple of its group's integer divider of the simulation rate, in the order the components were added, so the pattern 
+ * of steps depends only on the frame number and is the same for every run
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class RateGroupScheduler {
+	
+	private static final Logger logger = LogManager.getLogger(RateGroupScheduler.class);
+	
+	private final double dt;
+	
+	private final List<Steppable> components = new ArrayList<>();
+	private int[] dividers = new int[0];
+	
+	/**
+	 * @param dt simulation time step (sec), which is the time between frames
+	 */
+	public RateGroupScheduler(double dt) {
+		this.dt = dt;
+	}
+	
+	/**
+	 * Adds a component to step at the rate of its {@link RateGroup}; components are stepped in the order added
+	 * 
+	 * @param component
+	 */
+	public void add(Steppable component) {
+		RateGroup rateGroup = component.getRateGroup();
+		
+		logger.debug(String.format("Stepping %s in %s rate group at %.1f Hz", component.getClass().getSimpleName(), 
+								   rateGroup, rateGroup.getActualRateHz(dt)));
+		
+		components.add(component);
+		
+		dividers = Arrays.copyOf(dividers, components.size());
+		dividers[components.size() - 1] = rateGroup.getDivider(dt);
+	}
+	
+	/**
+	 * Steps every component whose rate group is due on this frame
+	 * 
+	 * @param frame number of frames since the start of the simulation
+	 */
+	public void step(long frame) {
+		for (int i = 0; i < dividers.length; i++) {
+			if (frame % dividers[i] == 0)
+				components.get(i).step();
+		}
+	}
+}
@@ -0,0 +1,158 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import com.chrisali.javaflightsim.simulation.utilities.LatencyHistogram;
+
+/**
+ * Paces a simulation loop to real time using absolute deadlines on {@link System#nanoTime()}. Frame n is due at the start time 
+ * plus n frame periods, so the time taken by each step, and rounding of the frame period, never accumulate into drift as they 
+ * would by sleeping for a fixed time each frame. The thread parks with {@link LockSupport#parkNanos(long)} until shortly before 
+ * each deadline, then optionally spins for the final slice to wake on time. Frames that overrun their deadline are recovered 
+ * from according to the {@link OverrunPolicy} set.
+ * 
+ * <p>Simulation time is kept as a frame count and is available in nanoseconds. The latency of each frame (from its deadline to 
+ * the end of its step) and the amount by which overrunning frames were late are published as {@link LatencyHistogram}s</p>
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class RealTimeScheduler {
+	
+	private static final long HISTOGRAM_BUCKET_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+	private static final int HISTOGRAM_BUCKETS = 2000;
+	
+	private final long framePeriodNanos;
+	
+	private OverrunPolicy overrunPolicy = OverrunPolicy.CATCH_UP;
+	private long spinNanos = TimeUnit.MICROSECONDS.toNanos(200);
+	private long maxCatchUpNanos = TimeUnit.MILLISECONDS.toNanos(250);
+	
+	private long frame;
+	private long deadlineNanos;
+	private volatile long overruns;
+	
+	private final LatencyHistogram latencyHistogram = new LatencyHistogram(HISTOGRAM_BUCKET_NANOS, HISTOGRAM_BUCKETS);
+	private final LatencyHistogram overrunHistogram = new LatencyHistogram(HISTOGRAM_BUCKET_NANOS, HISTOGRAM_BUCKETS);
+	
+	/**
+	 * @param framePeriodSec time between frames (sec); typically the integration time step
+	 */
+	public RealTimeScheduler(double framePeriodSec) {
+		framePeriodNanos = Math.round(framePeriodSec * TimeUnit.SECONDS.toNanos(1));
+	}
+	
+	/**
+	 * Resets simulation time to 0 and makes the first frame due immediately
+	 */
+	public void start() {
+		frame = 0;
+		overruns = 0;
+		deadlineNanos = System.nanoTime();
+		
+		latencyHistogram.reset();
+		overrunHistogram.reset();
+	}
+	
+	/**
+	 * Blocks until the current frame's deadline; returns immediately if it has already passed
+	 */
+	public void awaitFrame() {
+		long remainingNanos;
+		while ((remainingNanos = deadlineNanos - System.nanoTime()) > spinNanos)
+			LockSupport.parkNanos(remainingNanos - spinNanos);
+		
+		// Spin for the final slice, as parking may oversleep by more than the slice itself
+		while (deadlineNanos - System.nanoTime() > 0);
+	}
+	
+	/**
+	 * Ends the current frame after all components have stepped, recording its latency, and advances simulation time by one frame. 
+	 * If the next frame is already late, the overrun is recorded and the next deadline set according to the {@link OverrunPolicy}
+	 */
+	public void completeFrame() {
+		long nowNanos = System.nanoTime();
+		latencyHistogram.record(nowNanos - deadlineNanos);
+		
+		frame++;
+		deadlineNanos += framePeriodNanos;
+		
+		long lateNanos = nowNanos - deadlineNanos;
+		if (lateNanos > 0) {
+			overruns++;
+			overrunHistogram.record(lateNanos);
+			
+			if (overrunPolicy == OverrunPolicy.REBASE || lateNanos > maxCatchUpNanos)
+				deadlineNanos = nowNanos + framePeriodNanos;
+		}
+	}
+	
+	/**
+	 * @return simulation time (ns) elapsed since {@link #start()}, as the number of frames completed times the frame period
+	 */
+	public long getSimTimeNanos() { return frame * framePeriodNanos; }
+	
+	/**
+	 * @return simulation time (ms) elapsed since {@link #start()}, rounded to the nearest millisecond
+	 */
+	public int getSimTimeMS() { return (int) ((getSimTimeNanos() + 500_000) / 1_000_000); }
+	
+	public long getFrame() { return frame; }
+	
+	public long getFramePeriodNanos() { return framePeriodNanos; }
+	
+	/**
+	 * @return histogram of time (ns) from each frame's deadline until all of its components had stepped
+	 */
+	public LatencyHistogram getLatencyHistogram() { return latencyHistogram; }
+	
+	/**
+	 * @return histogram of time (ns) past its deadline at which each overrunning frame could start
+	 */
+	public LatencyHistogram getOverrunHistogram() { return overrunHistogram; }
+	
+	/**
+	 * @return number of frames that overran their deadline
+	 */
+	public long getOverruns() { return overruns; }
+	
+	public OverrunPolicy getOverrunPolicy() { return overrunPolicy; }
+	
+	public void setOverrunPolicy(OverrunPolicy overrunPolicy) { this.overrunPolicy = overrunPolicy; }
+	
+	/**
+	 * @param spinNanos final slice (ns) before each deadline spent spinning instead of parked; 0 to never spin
+	 */
+	public void setSpinNanos(long spinNanos) { this.spinNanos = Math.max(0, spinNanos); }
+	
+	/**
+	 * @param maxCatchUpNanos how far behind (ns) {@link OverrunPolicy#CATCH_UP} may fall before rebasing instead
+	 */
+	public void setMaxCatchUpNanos(long maxCatchUpNanos) { this.maxCatchUpNanos = maxCatchUpNanos; }
+	
+	@Override
+	public String toString() {
+		return String.format("%d frames, %d overruns (%s)%nLatency: %s%nOverrun: %s", frame, overruns, overrunPolicy, 
+							 latencyHistogram, overrunHistogram);
+	}
+}
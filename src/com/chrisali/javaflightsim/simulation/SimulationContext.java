@@ -0,0 +1,105 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation;
+
+import com.chrisali.javaflightsim.interfaces.SimulationController;
+import com.chrisali.javaflightsim.simulation.aircraft.Aerodynamics;
+import com.chrisali.javaflightsim.simulation.aircraft.Aircraft;
+import com.chrisali.javaflightsim.simulation.enviroment.Environment;
+import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControlsStateManager;
+import com.chrisali.javaflightsim.simulation.flightcontrols.SimEvents;
+import com.chrisali.javaflightsim.simulation.flightcontrols.analysis.AnalysisControls;
+import com.chrisali.javaflightsim.simulation.integration.Integrate6DOFEquations;
+import com.chrisali.javaflightsim.simulation.setup.SimulationConfiguration;
+import com.chrisali.javaflightsim.simulation.setup.Trimming;
+import com.chrisali.javaflightsim.simulation.utilities.FileUtilities;
+
+/**
+ * Owns all state belonging to a single simulation: its {@link SimulationConfiguration}, the {@link Aircraft} read from it, the {@link Aerodynamics} 
+ * calculated for that aircraft, the {@link Environment} it flies through, the {@link AnalysisControls} flown in Analysis Mode and the 
+ * {@link SimEvents} that pause and reset it. It is passed to 
+ * {@link Integrate6DOFEquations}, {@link FlightControlsStateManager} and {@link Trimming} in place of the static state they used to share, 
+ * so that any number of independent simulations can run concurrently in one JVM, each on its own thread. A context is not thread-safe 
+ * itself, and should only be used by the thread running its simulation
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class SimulationContext {
+	
+	private final SimulationConfiguration configuration;
+	private final Aircraft aircraft;
+	private final Aerodynamics aerodynamics;
+	private final Environment environment;
+	private final AnalysisControls analysisControls;
+	private final SimEvents simEvents;
+	
+	/**
+	 * Creates a context for a simulation run without a {@link SimulationController}, such as in batch or analysis runs; 
+	 * stop and plot events are ignored
+	 * 
+	 * @param configuration
+	 */
+	public SimulationContext(SimulationConfiguration configuration) {
+		this(configuration, FileUtilities.readAnalysisControls(), null);
+	}
+	
+	/**
+	 * Creates a context for a simulation run without a {@link SimulationController}, flying the {@link AnalysisControls} given 
+	 * instead of those read from the SimConfig directory
+	 * 
+	 * @param configuration
+	 * @param analysisControls
+	 */
+	public SimulationContext(SimulationConfiguration configuration, AnalysisControls analysisControls) {
+		this(configuration, analysisControls, null);
+	}
+	
+	/**
+	 * Creates a context for a simulation run by a {@link SimulationController}, using its configuration
+	 * 
+	 * @param simController
+	 */
+	public SimulationContext(SimulationController simController) {
+		this(simController.getConfiguration(), FileUtilities.readAnalysisControls(), simController);
+	}
+	
+	private SimulationContext(SimulationConfiguration configuration, AnalysisControls analysisControls, SimulationController simController) {
+		this.configuration = configuration;
+		this.analysisControls = analysisControls;
+		
+		aircraft 	 = FileUtilities.readAircraftConfiguration(configuration.getSelectedAircraft());
+		aerodynamics = new Aerodynamics(aircraft);
+		environment  = new Environment();
+		simEvents 	 = new SimEvents(configuration.getSimulationOptions(), simController);
+	}
+
+	public SimulationConfiguration getConfiguration() { return configuration; }
+
+	public Aircraft getAircraft() { return aircraft; }
+
+	public Aerodynamics getAerodynamics() { return aerodynamics; }
+
+	public Environment getEnvironment() { return environment; }
+
+	public AnalysisControls getAnalysisControls() { return analysisControls; }
+
+	public SimEvents getSimEvents() { return simEvents; }
+}
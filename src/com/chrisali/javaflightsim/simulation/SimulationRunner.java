@@ -19,6 +19,11 @@
  ******************************************************************************/
 package com.chrisali.javaflightsim.simulation;
 
+import java.io.File;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.EnumSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -34,12 +39,21 @@ import com.chrisali.javaflightsim.simulation.datatransfer.EnvironmentData;
 import com.chrisali.javaflightsim.simulation.datatransfer.EnvironmentDataListener;
 import com.chrisali.javaflightsim.simulation.datatransfer.FlightData;
 import com.chrisali.javaflightsim.simulation.datatransfer.FlightDataListener;
+import com.chrisali.javaflightsim.simulation.datatransfer.FlightDataPublisher;
+import com.chrisali.javaflightsim.simulation.datatransfer.FlightDataSnapshot;
+import com.chrisali.javaflightsim.simulation.datatransfer.SeqLockBuffer;
+import com.chrisali.javaflightsim.simulation.datatransfer.TripleBuffer;
 import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControlsState;
 import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControlsStateManager;
 import com.chrisali.javaflightsim.simulation.integration.Integrate6DOFEquations;
+import com.chrisali.javaflightsim.simulation.integration.SimOuts;
+import com.chrisali.javaflightsim.simulation.recording.FlightRecorder;
+import com.chrisali.javaflightsim.simulation.recording.FlightRecording;
+import com.chrisali.javaflightsim.simulation.recording.FlightReplay;
 import com.chrisali.javaflightsim.simulation.setup.IntegratorConfig;
 import com.chrisali.javaflightsim.simulation.setup.Options;
 import com.chrisali.javaflightsim.simulation.setup.SimulationConfiguration;
+import com.chrisali.javaflightsim.simulation.utilities.SimDirectories;
 
 /**
  * Main runner thread for JavaFlightSimulator that combines all {@link Steppable} components into a single thread so that they can run
@@ -52,23 +66,31 @@ public class SimulationRunner implements Runnable, WindowClosedListener {
 	
 	private static final Logger logger = LogManager.getLogger(SimulationRunner.class);
 	private static final int TO_MILLISEC = 1000;
+	private static final long RENDER_THREAD_JOIN_MS = 5000;
 
 	private SimulationController simController;
+	private SimulationContext context;
 	
 	private FlightControlsStateManager flightControlsManager;
 	private Integrate6DOFEquations simulation;
+	private FlightReplay flightReplay;
+	private SeqLockBuffer<SimOuts> simOutBuffer;
 	private LWJGLWorld outTheWindow;
+	private Thread renderThread;
 	
 	private FlightData flightData;
+	private FlightDataPublisher flightDataPublisher;
+	private FlightRecorder flightRecorder;
 	private EnvironmentData environmentData;
 	
 	private Map<IntegratorConfig, Double> integratorConfig;
 	private Set<Options> options;	
 		
 	private AtomicInteger timeMS = new AtomicInteger(0);
-	private int frameStepMS;
+	private int startTimeMS;
 	private int endTimeMS;
-	private int threadPauseMS;
+	private RealTimeScheduler scheduler;
+	private RateGroupScheduler rateGroups;
 	
 	private boolean running = false;
 	
@@ -81,30 +103,104 @@ public class SimulationRunner implements Runnable, WindowClosedListener {
 	public SimulationRunner(SimulationController simController) {
 		this.simController = simController;
 		
-		SimulationConfiguration configuration = simController.getConfiguration();
+		context = new SimulationContext(simController);
+		
+		SimulationConfiguration configuration = context.getConfiguration();
 		integratorConfig = configuration.getIntegratorConfig();
 		options = configuration.getSimulationOptions();
 		
 		configureSimulationTime();
 		
 		logger.debug("Initializing flight controls manager...");
-		flightControlsManager = new FlightControlsStateManager(simController, timeMS);
+		flightControlsManager = new FlightControlsStateManager(context, timeMS);
 		
 		logger.debug("Initializing simulation...");
-		simulation = new Integrate6DOFEquations(flightControlsManager.getControlsState(), configuration);
+		simulation = new Integrate6DOFEquations(flightControlsManager.getControlsState(), context);
+		simOutBuffer = simulation.getSimOutBuffer();
+		
+		rateGroups.add(flightControlsManager);
+		rateGroups.add(simulation);
+		
+		if (options.contains(Options.FLIGHT_RECORDER))
+			configureFlightRecorder(configuration);
+		
+		configureFlightData();
+	}
+	
+	/**
+	 * Constructor that replays a recorded flight through the OTW display and flight data listeners in place of the simulation;
+	 * no physics are run and the replay continues until stopped, so {@link SimulationRunner#getSimulation()} and 
+	 * {@link SimulationRunner#getFlightControls()} are unavailable. Playback is controlled through 
+	 * {@link SimulationRunner#getFlightReplay()}
+	 * 
+	 * @param simController
+	 * @param recording flight recording to replay
+	 */
+	public SimulationRunner(SimulationController simController, FlightRecording recording) {
+		this.simController = simController;
+		
+		context = new SimulationContext(simController);
+		
+		SimulationConfiguration configuration = context.getConfiguration();
+		integratorConfig = configuration.getIntegratorConfig();
+		options = EnumSet.copyOf(configuration.getSimulationOptions());
+		
+		// A replay is only of use when watched, and runs until it is stopped
+		options.remove(Options.ANALYSIS_MODE);
+		options.remove(Options.CONSOLE_DISPLAY);
+		options.remove(Options.FLIGHT_RECORDER);
+		
+		configureSimulationTime();
+		endTimeMS = Integer.MAX_VALUE;
+		
+		logger.debug("Initializing flight replay...");
+		flightReplay = new FlightReplay(recording, integratorConfig.get(IntegratorConfig.DT));
+		simOutBuffer = flightReplay.getSimOutBuffer();
+		
+		rateGroups.add(flightReplay);
+		
+		configureFlightData();
+	}
+	
+	/**
+	 * Sets up {@link FlightData} to read from the simOut buffer of the simulation or replay outside of analysis mode, so 
+	 * that {@link FlightDataListener} objects can be added before the runner starts
+	 */
+	private void configureFlightData() {
+		if (!options.contains(Options.ANALYSIS_MODE))
+			flightData = new FlightData(simOutBuffer);
+	}
+	
+	/**
+	 * Sets up a {@link FlightRecorder} to record every step of the simulation to the recordings directory, in files named after
+	 * the aircraft and the time the simulation was set up 
+	 * 
+	 * @param configuration
+	 */
+	private void configureFlightRecorder(SimulationConfiguration configuration) {
+		String name = configuration.getSelectedAircraft() + "-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
+		
+		try {
+			logger.debug("Initializing flight recorder...");
+			flightRecorder = new FlightRecorder(simulation, new File(SimDirectories.RECORDINGS.toString()), name);
+			rateGroups.add(flightRecorder);
+		} catch (IOException e) {
+			logger.error("Unable to start flight recorder! Continuing without recording...", e);
+		}
 	}
 	
 	/**
 	 * Sets running parameters (start/end time and frame step time) for the timulation. Time is kept as an AtomicInteger to ensure
-	 * atomic incrementation
+	 * atomic incrementation, and is set each frame from the {@link RealTimeScheduler}'s simulation clock
 	 */
 	public void configureSimulationTime() {
 		// Set up running parameters for simulation
-		timeMS = new AtomicInteger(integratorConfig.get(IntegratorConfig.STARTTIME).intValue() * TO_MILLISEC);
+		startTimeMS = integratorConfig.get(IntegratorConfig.STARTTIME).intValue() * TO_MILLISEC;
+		timeMS = new AtomicInteger(startTimeMS);
 		
-		// Pause thread for frameStepMS milliseconds to emulate real time operation in normal mode
-		frameStepMS = (int) (integratorConfig.get(IntegratorConfig.DT) * TO_MILLISEC);
-		threadPauseMS = (!options.contains(Options.ANALYSIS_MODE)) ? frameStepMS : 1;
+		// Frames are paced to real time by the scheduler in normal mode; analysis mode runs as fast as possible
+		scheduler = new RealTimeScheduler(integratorConfig.get(IntegratorConfig.DT));
+		rateGroups = new RateGroupScheduler(integratorConfig.get(IntegratorConfig.DT));
 		
 		// Run forever as a pilot in the loop simulation 
 		if (!options.contains(Options.ANALYSIS_MODE) && options.contains(Options.UNLIMITED_FLIGHT))
@@ -122,23 +218,37 @@ public class SimulationRunner implements Runnable, WindowClosedListener {
 		} else {
 			logger.debug("Running simulation in Normal Mode...");
 						
-			logger.debug("Initializing LWJGL world...");
-			outTheWindow = new LWJGLWorld(simController);
-			outTheWindow.addWindowClosedListener(this);
-			outTheWindow.init();
-
 			logger.debug("Initializing flight data transfer...");
-			flightData = new FlightData(simulation);
-			flightData.addFlightDataListener(outTheWindow);
+			TripleBuffer<FlightDataSnapshot> snapshots = new TripleBuffer<>(FlightDataSnapshot::new);
+			flightDataPublisher = new FlightDataPublisher(simOutBuffer, snapshots);
+			
+			logger.debug("Starting LWJGL world render thread...");
+			outTheWindow = new LWJGLWorld(simController, snapshots);
+			outTheWindow.addWindowClosedListener(this);
+			renderThread = new Thread(outTheWindow, "LWJGL Render");
+			renderThread.start();
+			
+			try {
+				outTheWindow.awaitInitialization();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
 
-			logger.debug("Initializing environment data transfer...");
-			environmentData = new EnvironmentData(outTheWindow);
-			environmentData.addEnvironmentDataListener(simulation);		
+			// Terrain height is only needed by the simulation's ground reaction model
+			if (simulation != null) {
+				logger.debug("Initializing environment data transfer...");
+				environmentData = new EnvironmentData(outTheWindow);
+				environmentData.addEnvironmentDataListener(simulation);
+				rateGroups.add(environmentData);
+			}
+			
+			rateGroups.add(flightDataPublisher);
+			rateGroups.add(flightData);
 		}
 	}
 	
 	/**
-	 * Main runner loop where {@link Steppable} components are step updated each iteration of the loop depending on the current value of time
+	 * Main runner loop where {@link Steppable} components are step updated each iteration of the loop when their {@link RateGroup} is due
 	 */
 	@Override
 	public void run() {
@@ -149,27 +259,19 @@ public class SimulationRunner implements Runnable, WindowClosedListener {
 		if (options.contains(Options.CONSOLE_DISPLAY))
 			simController.initializeConsole();
 
+		scheduler.start();
+		
 		while (running && timeMS.get() < endTimeMS) {
 			try {
-				// Step update each component if allowed to based on the current time 
-				if (flightControlsManager.canStepNow(timeMS.get()))
-					flightControlsManager.step();
-					
-				if (simulation.canStepNow(timeMS.get()))
-					simulation.step();
+				// Wait for this frame's deadline to run in real time in normal mode
+				if (!options.contains(Options.ANALYSIS_MODE))
+					scheduler.awaitFrame();
 				
-				if (flightData != null && flightData.canStepNow(timeMS.get()))
-					flightData.step();
+				// Step update each component whose rate group is due on this frame
+				rateGroups.step(scheduler.getFrame());
 				
-				if (environmentData != null && environmentData.canStepNow(timeMS.get()))
-					environmentData.step();
-				
-				if (outTheWindow != null && outTheWindow.canStepNow(timeMS.get()))
-					outTheWindow.step();
-				
-				Thread.sleep((long)(threadPauseMS));
-
-				timeMS.addAndGet(frameStepMS);
+				scheduler.completeFrame();
+				timeMS.set(startTimeMS + scheduler.getSimTimeMS());
 			} catch (Exception ez) {
 				logger.error("Exception encountered while running Simulation Runner thread. Attempting to continue...", ez);
 				
@@ -177,12 +279,41 @@ public class SimulationRunner implements Runnable, WindowClosedListener {
 			} 
 		}
 		
+		logger.debug("Simulation timing: " + scheduler);
+		
+		stopRenderThread();
+		
+		if (flightData != null)
+			flightData.stop();
+		
+		if (environmentData != null)
+			environmentData.stop();
+		
+		if (flightRecorder != null)
+			flightRecorder.close();
+		
 		if (options.contains(Options.ANALYSIS_MODE))
 			simController.plotSimulation();
 		
 		running = false;
 	}
 			
+	/**
+	 * Stops the OTW display's render thread, if running, and waits for it to clean up and close its display
+	 */
+	private void stopRenderThread() {
+		if (renderThread == null)
+			return;
+		
+		outTheWindow.stop();
+		
+		try {
+			renderThread.join(RENDER_THREAD_JOIN_MS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+			
 	/**
 	 * When LWJGL OTW window is closed, this event is fired
 	 */
@@ -211,12 +342,35 @@ public class SimulationRunner implements Runnable, WindowClosedListener {
 			environmentData.addEnvironmentDataListener(listener);
 	}
 		
+	/**
+	 * @return simulation run by this runner, or null if replaying a recorded flight
+	 */
 	public Integrate6DOFEquations getSimulation() { return simulation; }
 	
-	public FlightControlsState getFlightControls() { return flightControlsManager.getControlsState(); }
+	public SimulationContext getContext() { return context; }
+	
+	/**
+	 * @return flight controls of the simulation, or null if replaying a recorded flight
+	 */
+	public FlightControlsState getFlightControls() { return (flightControlsManager == null) ? null : flightControlsManager.getControlsState(); }
+	
+	/**
+	 * @return replay run by this runner, or null if running the simulation
+	 */
+	public FlightReplay getFlightReplay() { return flightReplay; }
 
 	public AtomicInteger getTimeMS() { return timeMS; }
 	
+	/**
+	 * @return scheduler pacing this runner, which publishes its latency and overrun metrics
+	 */
+	public RealTimeScheduler getScheduler() { return scheduler; }
+	
+	/**
+	 * @return recorder of this simulation, or null if {@link Options#FLIGHT_RECORDER} is not set
+	 */
+	public FlightRecorder getFlightRecorder() { return flightRecorder; }
+	
 	/**
 	 * @return If out the window display is running
 	 */
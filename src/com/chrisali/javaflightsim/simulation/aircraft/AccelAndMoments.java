@@ -19,139 +19,150 @@
  ******************************************************************************/
 package com.chrisali.javaflightsim.simulation.aircraft;
 
-import java.util.Map;
-import java.util.Set;
-
-import org.apache.commons.math3.geometry.euclidean.threed.Vector3D;
-
-import com.chrisali.javaflightsim.simulation.enviroment.EnvironmentParameters;
-import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControl;
 import com.chrisali.javaflightsim.simulation.integration.Integrate6DOFEquations;
 import com.chrisali.javaflightsim.simulation.integration.IntegrateGroundReaction;
 import com.chrisali.javaflightsim.simulation.propulsion.Engine;
+import com.chrisali.javaflightsim.simulation.utilities.Dual;
 import com.chrisali.javaflightsim.simulation.utilities.SaturationUtilities;
 
 /**
- * Calculates total accelerations and moments experienced by the aircraft in the simulation. The init method creates an
- * {@link Aerodynamics} object to calculate aerodynamic forces and moments, which are then added to other various forces 
- * (ground reaction, wind, engine, etc) to yield accelerations and moments used by {@link Integrate6DOFEquations} in its 
- * numerical integration
+ * Calculates total accelerations and moments experienced by the aircraft in the simulation. The aerodynamic forces and moments,
+ * calculated once per evaluation into an {@link AeroState} by the simulation's {@link Aerodynamics}, are added to other various 
+ * forces (ground reaction, wind, engine, etc) to yield accelerations and moments used by {@link Integrate6DOFEquations} in its 
+ * numerical integration. This class holds no state; all results are written into arrays supplied by the caller
  * @see Source: <i>Small Unmanned Aircraft: Theory and Practice by Beard, R.W. and McLain, T.W.</i>
  */
 public class AccelAndMoments {
 	
-	private static Aerodynamics aero;
-	
-	private static double[] linearAccelerations = new double[3];
-	private static double[] totalMoments 		= new double[3];
-	
-	/**
-	 * Initializes {@link AccelAndMoments}. It uses the {@link Aircraft} argument to create an {@link Aerodynamics} object, 
-	 * which calculates aerodynamic forces and moments associated with the Aircraft object passed in
-	 *  
-	 * @param aircraft
-	 */
-	public static void init(Aircraft aircraft) {aero = new Aerodynamics(aircraft);}
-	
-	
 	/**
 	 * Calculates the total linear acceleration experienced by the aircraft (ft/sec^2)
 	 * 
-	 * @param windParameters
-	 * @param angularRates
-	 * @param environmentParameters
-	 * @param controls
-	 * @param alphaDot
-	 * @param engineList
-	 * @param aircraft
+	 * @param aeroState
+	 * @param engines
+	 * @param model
 	 * @param groundReaction
-	 * @param heightAGL
+	 * @param linearAccelerations array to write results into
 	 * @return linearAccelerations
 	 */
-	public static double[] calculateLinearAccelerations(double[] windParameters,
-									         		    double[] angularRates,
-									         		    Map<EnvironmentParameters, Double> environmentParameters,
-									         		    Map<FlightControl, Double> controls,
-									         		    double alphaDot,
-									         		    Set<Engine> engineList,
-									         		    Aircraft aircraft,
-									         		    IntegrateGroundReaction groundReaction,
-									         		    double heightAGL) {
+	public static double[] calculateLinearAccelerations(AeroState aeroState,
+														Engine[] engines,
+														AircraftModel model,
+														IntegrateGroundReaction groundReaction,
+														double[] linearAccelerations) {
+		double[] aeroForces   = aeroState.bodyForces;
+		double[] groundForces = groundReaction.getTotalGroundForces();
 		
-		Vector3D aeroForceVector = new Vector3D(aero.calculateBodyForces(windParameters, 
-																	     angularRates, 
-																	     environmentParameters, 
-																	     controls, 
-																	     alphaDot,
-																	     heightAGL));
+		// Sum the thrust of each engine
+		double engineForceX = 0, engineForceY = 0, engineForceZ = 0;
+		for (Engine engine : engines) {
+			double[] thrust = engine.getEngineThrust();
+			engineForceX += thrust[0];
+			engineForceY += thrust[1];
+			engineForceZ += thrust[2];
+		}
 		
-		Vector3D groundForceVector = new Vector3D(groundReaction.getTotalGroundForces());
+		double inverseMass = model.getInverseTotalMass();
 		
-		// Create a vector of engine force, iterate through engineList and add the thrust of each engine in list
-		Vector3D engineForceVector = Vector3D.ZERO;
-		for (Engine engine : engineList)
-			engineForceVector = engineForceVector.add(new Vector3D(engine.getEngineThrust()));
-
-		linearAccelerations = aeroForceVector.add(engineForceVector).add(groundForceVector)
-											 .scalarMultiply(1/aircraft.getMassProperty(MassProperties.TOTAL_MASS))
-											 .toArray(); 
+		linearAccelerations[0] = (aeroForces[0] + engineForceX + groundForces[0]) * inverseMass;
+		linearAccelerations[1] = (aeroForces[1] + engineForceY + groundForces[1]) * inverseMass;
+		linearAccelerations[2] = (aeroForces[2] + engineForceZ + groundForces[2]) * inverseMass;
 		
 		return SaturationUtilities.limitLinearAccelerations(linearAccelerations);
 	}
 	
+	/**
+	 * Calculates the total linear acceleration experienced by an airborne aircraft (ft/sec^2), along with its derivatives
+	 * 
+	 * @param aeroForces aerodynamic forces in the body frame (lbf)
+	 * @param engineForces total thrust of all engines (lbf)
+	 * @param model
+	 * @param linearAccelerations array to write results into
+	 * @return linearAccelerations
+	 */
+	public static Dual[] calculateLinearAccelerations(Dual[] aeroForces,
+													  Dual[] engineForces,
+													  AircraftModel model,
+													  Dual[] linearAccelerations) {
+		double inverseMass = model.getInverseTotalMass();
+		double[] limited = new double[3];
+		
+		for (int i = 0; i < 3; i++) {
+			linearAccelerations[i] = aeroForces[i].add(engineForces[i]).multiply(inverseMass);
+			limited[i] = linearAccelerations[i].getValue();
+		}
+		
+		return SaturationUtilities.limit(linearAccelerations, SaturationUtilities.limitLinearAccelerations(limited));
+	}
+	
 	/**
 	 * Calculates the total moment experienced by the aircraft (lb ft)
 	 * 
-	 * @param windParameters
-	 * @param angularRates
-	 * @param environmentParameters
-	 * @param controls
-	 * @param alphaDot
-	 * @param engineList
-	 * @param aircraft
+	 * @param aeroState
+	 * @param engines
+	 * @param model
 	 * @param groundReaction
-	 * @param heightAGL
+	 * @param totalMoments array to write results into
 	 * @return totalMoments
 	 */
-	public static double[] calculateTotalMoments(double[] windParameters,
-											     double[] angularRates,
-											     Map<EnvironmentParameters, Double> environmentParameters,
-											     Map<FlightControl, Double> controls,
-											     double alphaDot,
-											     Set<Engine> engineList,
-											     Aircraft aircraft,
-											     IntegrateGroundReaction groundReaction,
-											     double heightAGL) {
-
-		Vector3D aeroForceVector = new Vector3D(aero.calculateBodyForces(windParameters, 
-																	     angularRates, 
-																	     environmentParameters, 
-																	     controls, 
-																	     alphaDot,
-																	     heightAGL));
+	public static double[] calculateTotalMoments(AeroState aeroState,
+												 Engine[] engines,
+												 AircraftModel model,
+												 IntegrateGroundReaction groundReaction,
+												 double[] totalMoments) {
+		double[] aeroForces    = aeroState.bodyForces;
+		double[] aeroMoments   = aeroState.aeroMoments;
+		double[] aeroMomentArm = model.getAeroMomentArm();
+		double[] groundMoments = groundReaction.getTotalGroundMoments();
 		
-		// Apache Commons vector methods only accept primitive double[] arrays
-		Vector3D acVector = new Vector3D(aircraft.getAerodynamicCenter());
-		Vector3D cgVector = new Vector3D(aircraft.getCenterOfGravity());
+		// Sum the moment of each engine
+		double engineMomentL = 0, engineMomentM = 0, engineMomentN = 0;
+		for (Engine engine : engines) {
+			double[] moment = engine.getEngineMoment();
+			engineMomentL += moment[0];
+			engineMomentM += moment[1];
+			engineMomentN += moment[2];
+		}
 		
-		Vector3D aeroForceCrossProd = Vector3D.crossProduct(aeroForceVector, acVector.subtract(cgVector));
+		// Moments from aerodynamic forces acting at the aerodynamic center (force x arm)
+		double aeroForceMomentL = aeroForces[1]*aeroMomentArm[2] - aeroForces[2]*aeroMomentArm[1];
+		double aeroForceMomentM = aeroForces[2]*aeroMomentArm[0] - aeroForces[0]*aeroMomentArm[2];
+		double aeroForceMomentN = aeroForces[0]*aeroMomentArm[1] - aeroForces[1]*aeroMomentArm[0];
 		
-		Vector3D aeroMomentVector = new Vector3D(aero.calculateAeroMoments(windParameters, 
-																		   angularRates, 
-																		   environmentParameters, 
-																		   controls, 
-																		   alphaDot)); 
+		totalMoments[0] = aeroMoments[0] + engineMomentL + aeroForceMomentL + groundMoments[0];
+		totalMoments[1] = aeroMoments[1] + engineMomentM + aeroForceMomentM + groundMoments[1];
+		totalMoments[2] = aeroMoments[2] + engineMomentN + aeroForceMomentN + groundMoments[2];
 		
-		Vector3D groundMomentVector = new Vector3D(groundReaction.getTotalGroundMoments());
+		return SaturationUtilities.limitTotalMoments(totalMoments); 
+	}
+	
+	/**
+	 * Calculates the total moment experienced by an airborne aircraft (lb ft), along with its derivatives
+	 * 
+	 * @param aeroForces aerodynamic forces in the body frame (lbf)
+	 * @param aeroMoments aerodynamic moments (lb ft)
+	 * @param engineMoments total moment of all engines (lb ft)
+	 * @param model
+	 * @param totalMoments array to write results into
+	 * @return totalMoments
+	 */
+	public static Dual[] calculateTotalMoments(Dual[] aeroForces,
+											   Dual[] aeroMoments,
+											   Dual[] engineMoments,
+											   AircraftModel model,
+											   Dual[] totalMoments) {
+		double[] aeroMomentArm = model.getAeroMomentArm();
 		
-		// Create a vector of engine moment, iterate through engineList and add the moment of each engine in list
-		Vector3D engineMoment = Vector3D.ZERO;
-		for (Engine engine : engineList)
-			engineMoment = engineMoment.add(new Vector3D(engine.getEngineMoment()));
+		// Moments from aerodynamic forces acting at the aerodynamic center (force x arm)
+		Dual aeroForceMomentL = aeroForces[1].multiply(aeroMomentArm[2]).subtract(aeroForces[2].multiply(aeroMomentArm[1]));
+		Dual aeroForceMomentM = aeroForces[2].multiply(aeroMomentArm[0]).subtract(aeroForces[0].multiply(aeroMomentArm[2]));
+		Dual aeroForceMomentN = aeroForces[0].multiply(aeroMomentArm[1]).subtract(aeroForces[1].multiply(aeroMomentArm[0]));
 		
-		totalMoments = aeroMomentVector.add(engineMoment).add(aeroForceCrossProd).add(groundMomentVector)
-									   .toArray();
+		totalMoments[0] = aeroMoments[0].add(engineMoments[0]).add(aeroForceMomentL);
+		totalMoments[1] = aeroMoments[1].add(engineMoments[1]).add(aeroForceMomentM);
+		totalMoments[2] = aeroMoments[2].add(engineMoments[2]).add(aeroForceMomentN);
 		
-		return SaturationUtilities.limitTotalMoments(totalMoments); 
+		double[] limited = {totalMoments[0].getValue(), totalMoments[1].getValue(), totalMoments[2].getValue()};
+		
+		return SaturationUtilities.limit(totalMoments, SaturationUtilities.limitTotalMoments(limited));
 	}
 }
@@ -0,0 +1,77 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.aircraft;
+
+/**
+ * Holds the results of a single evaluation of the aircraft's aerodynamics by {@link Aerodynamics#calculateAeroState(double[], double[], com.chrisali.javaflightsim.simulation.enviroment.AtmosphereState, com.chrisali.javaflightsim.simulation.flightcontrols.FlightControlsSnapshot, double, double, AeroState)}: 
+ * the dynamic pressure, force and moment coefficients, and the resulting body forces and aerodynamic moments. It is allocated once by its owner and overwritten on 
+ * every evaluation, so that the linear accelerations, total moments and logging in {@link AccelAndMoments} and the integrator can share the same results 
+ * without repeating the interpolation of stability derivatives or creating garbage
+ * 
+ * @author Christopher Ali
+ *
+ * @see Aerodynamics
+ */
+public class AeroState {
+	
+	// Dynamic Pressure (lbf/ft^2)
+	double qBar;
+	
+	// Force Coefficients
+	double cl;
+	double cd;
+	double cy;
+	
+	// Moment Coefficients
+	double cRoll;
+	double cm;
+	double cn;
+	
+	// Forces in body frame {x, y, z} (lbf), and moments {L, M, N} (ft*lbf)
+	final double[] bodyForces   = new double[3];
+	final double[] aeroMoments  = new double[3];
+	
+	// Wind to body direction cosine matrix ([row][column])
+	final double[][] wind2BodyDCM = new double[3][3];
+	
+	public double getQBar() { return qBar; }
+	
+	public double getCL() { return cl; }
+	
+	public double getCD() { return cd; }
+	
+	public double getCY() { return cy; }
+	
+	public double getCRoll() { return cRoll; }
+	
+	public double getCM() { return cm; }
+	
+	public double getCN() { return cn; }
+	
+	/**
+	 * @return aerodynamic forces {x, y, z} in the body frame (lbf); must not be modified
+	 */
+	public double[] getBodyForces() { return bodyForces; }
+	
+	/**
+	 * @return aerodynamic moments {L, M, N} about the aerodynamic center (ft*lbf); must not be modified
+	 */
+	public double[] getAeroMoments() { return aeroMoments; }
+}
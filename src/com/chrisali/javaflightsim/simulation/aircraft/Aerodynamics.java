@@ -19,23 +19,20 @@
  ******************************************************************************/
 package com.chrisali.javaflightsim.simulation.aircraft;
 
-import java.util.Map;
-
-import org.apache.commons.math3.analysis.interpolation.PiecewiseBicubicSplineInterpolatingFunction;
-import org.apache.commons.math3.exception.OutOfRangeException;
-import org.apache.logging.log4j.LogManager;
-import org.apache.logging.log4j.Logger;
-
-import com.chrisali.javaflightsim.simulation.enviroment.EnvironmentParameters;
+import com.chrisali.javaflightsim.simulation.enviroment.AtmosphereState;
 import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControl;
+import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControlsSnapshot;
+import com.chrisali.javaflightsim.simulation.utilities.Dual;
 import com.chrisali.javaflightsim.simulation.utilities.SixDOFUtilities;
 
 /**
  * This class calculates aerodynamic forces and moments in the stability coordinate frame. The aerodynamic forces are then converted to the 
- * body frame to calculate accelerations and moments in {@link AccelAndMoments}. The stability derivatives are {@link LookupTable} objects,
- * which are either constant or linerally interpolatable 
+ * body frame to calculate accelerations and moments in {@link AccelAndMoments}. The stability derivatives and wing geometry are read from 
+ * the {@link AircraftModel} compiled from the {@link Aircraft}; those that vary with angle of attack and flap deflection are {@link LookupTable} 
+ * objects, which are either constant or linerally interpolatable. Tables with more dimensions are interpolated at the flight condition 
+ * described by {@link TableAxis}, which is updated once per calculation of the {@link AeroState}
  * 
- * @param EnumMap controls                            
+ * @param FlightControlsSnapshot controls                            
  * @param windParameters 								
  * @param angularRates
  * @param double alphaDot
@@ -43,21 +40,30 @@ import com.chrisali.javaflightsim.simulation.utilities.SixDOFUtilities;
  *  
  * @see Aircraft
  * @see StabilityDerivatives
- * @see PiecewiseBicubicSplineInterpolatingFunction
+ * @see LookupTable
  * @see Source: Source: <i>Small Unmanned Aircraft: Theory and Practice by Beard, R.W. and McLain, T.W.</i>
  */
 public class Aerodynamics {
 	
-	private static final Logger logger = LogManager.getLogger(Aerodynamics.class);
-	
 	private Aircraft aircraft;
 	
+	private AircraftModel model;
+	
+	// Current flight condition that tables are interpolated at
+	private TablePoint tablePoint = new TablePoint();
+	
+	// Flight condition along each TableAxis, and the gradient of a table along them, when calculating derivatives
+	private Dual[] tableAxes = new Dual[TableAxis.values().length];
+	private double[] tableGradient = new double[TableAxis.values().length];
+	
 	/**
 	 * Aerodynamics constructor. Takes the aerodynamic parameters of an {@link Aircraft} object to generate aerodynamic forces and moments
 	 * 
 	 * @param aircraft
 	 */
-	public Aerodynamics(Aircraft aircraft) {this.aircraft = aircraft;}
+	public Aerodynamics(Aircraft aircraft) {
+		this.aircraft = aircraft;
+	}
 	
 	/**
 	 *  Calculates the aircraft's total lift coefficient (CL)
@@ -71,17 +77,17 @@ public class Aerodynamics {
 	 */
 	private double calculateCL(double[] angularRates,
 						  	   double[] windParameters,
-						  	   Map<FlightControl, Double> controls,
+						  	   FlightControlsSnapshot controls,
 						  	   double alphaDot,
 						  	   double heightAGL) {
-		double rotaryTerm = aircraft.getWingGeometry(WingGeometry.C_BAR)/(2*windParameters[0]);
+		double rotaryTerm = model.halfCBar/windParameters[0];
 		
-		return calculateInterpStabDer(windParameters, controls, StabilityDerivatives.CL_ALPHA)*windParameters[2]*groundEffect(heightAGL)+
-			   aircraft.getStabilityDerivative(StabilityDerivatives.CL_0).getValue()+	
-			   aircraft.getStabilityDerivative(StabilityDerivatives.CL_Q).getValue()*angularRates[1]*rotaryTerm+
-			   aircraft.getStabilityDerivative(StabilityDerivatives.CL_ALPHA_DOT).getValue()*alphaDot*rotaryTerm+
-			   aircraft.getStabilityDerivative(StabilityDerivatives.CL_D_ELEV).getValue()*controls.get(FlightControl.ELEVATOR)+	
-			   aircraft.getStabilityDerivative(StabilityDerivatives.CL_D_FLAP).getValue()*controls.get(FlightControl.FLAPS);		
+		return interpolate(model.clAlpha)*windParameters[2]*groundEffect(heightAGL)+
+			   model.cl0+	
+			   model.clQ*angularRates[1]*rotaryTerm+
+			   model.clAlphaDot*alphaDot*rotaryTerm+
+			   model.clDElev*controls.get(FlightControl.ELEVATOR)+	
+			   model.clDFlap*controls.get(FlightControl.FLAPS);		
 	}
 	
 	/**
@@ -92,9 +98,9 @@ public class Aerodynamics {
 	 * @return CY
 	 */
 	private double calculateCY(double[] windParameters,
-						 	   Map<FlightControl, Double> controls) {
-		return aircraft.getStabilityDerivative(StabilityDerivatives.CY_BETA).getValue()*windParameters[1]+
-			   aircraft.getStabilityDerivative(StabilityDerivatives.CY_D_RUD).getValue()*controls.get(FlightControl.RUDDER);	
+						 	   FlightControlsSnapshot controls) {
+		return model.cyBeta*windParameters[1]+
+			   model.cyDRud*controls.get(FlightControl.RUDDER);	
 	}
 	
 	/**
@@ -106,13 +112,13 @@ public class Aerodynamics {
 	 * @return CD
 	 */
 	private double calculateCD(double[] windParameters,
-					 	  	   Map<FlightControl, Double> controls,
+					 	  	   FlightControlsSnapshot controls,
 					 	  	   double heightAGL) {
-		return calculateInterpStabDer(windParameters, controls, StabilityDerivatives.CD_ALPHA)*Math.abs(windParameters[2])/groundEffect(heightAGL)+ // Need absolute value to prevent negative drag at negative alpha
-			   aircraft.getStabilityDerivative(StabilityDerivatives.CD_0).getValue()+
-			   aircraft.getStabilityDerivative(StabilityDerivatives.CD_D_FLAP).getValue()*controls.get(FlightControl.FLAPS)+
-			   aircraft.getStabilityDerivative(StabilityDerivatives.CD_D_ELEV).getValue()*controls.get(FlightControl.ELEVATOR)+
-			   aircraft.getStabilityDerivative(StabilityDerivatives.CD_D_GEAR).getValue()*controls.get(FlightControl.GEAR);		
+		return interpolate(model.cdAlpha)*Math.abs(windParameters[2])/groundEffect(heightAGL)+ // Need absolute value to prevent negative drag at negative alpha
+			   model.cd0+
+			   model.cdDFlap*controls.get(FlightControl.FLAPS)+
+			   model.cdDElev*controls.get(FlightControl.ELEVATOR)+
+			   model.cdDGear*controls.get(FlightControl.GEAR);		
 	}
 	
 	/**
@@ -125,14 +131,14 @@ public class Aerodynamics {
 	 */
 	private double calculateCRoll(double[] angularRates,
 					  	    	  double[] windParameters,
-					  	    	  Map<FlightControl, Double> controls) {
-		double helixAngle = aircraft.getWingGeometry(WingGeometry.B_WING)/(2*windParameters[0]);
+					  	    	  FlightControlsSnapshot controls) {
+		double helixAngle = model.halfBWing/windParameters[0];
 		
-		return aircraft.getStabilityDerivative(StabilityDerivatives.CROLL_BETA).getValue()*windParameters[1]+
-			   aircraft.getStabilityDerivative(StabilityDerivatives.CROLL_P).getValue()*angularRates[0]*helixAngle+
-			   aircraft.getStabilityDerivative(StabilityDerivatives.CROLL_R).getValue()*angularRates[2]*helixAngle+
-			   aircraft.getStabilityDerivative(StabilityDerivatives.CROLL_D_AIL).getValue()*controls.get(FlightControl.AILERON)+
-			   aircraft.getStabilityDerivative(StabilityDerivatives.CROLL_D_RUD).getValue()*controls.get(FlightControl.RUDDER);
+		return model.crollBeta*windParameters[1]+
+			   model.crollP*angularRates[0]*helixAngle+
+			   model.crollR*angularRates[2]*helixAngle+
+			   model.crollDAil*controls.get(FlightControl.AILERON)+
+			   model.crollDRud*controls.get(FlightControl.RUDDER);
 	}
 	
 	/**
@@ -146,16 +152,16 @@ public class Aerodynamics {
 	 */
 	private double calculateCM(double[] angularRates,
 						 	   double[] windParameters,
-						 	   Map<FlightControl, Double> controls,
+						 	   FlightControlsSnapshot controls,
 						 	   double alphaDot) {
-		double rotaryTerm = aircraft.getWingGeometry(WingGeometry.C_BAR)/(2*windParameters[0]);
+		double rotaryTerm = model.halfCBar/windParameters[0];
 		
-		return calculateInterpStabDer(windParameters, controls, StabilityDerivatives.CM_ALPHA)*windParameters[2]+
-			   aircraft.getStabilityDerivative(StabilityDerivatives.CM_0).getValue()+
-			   aircraft.getStabilityDerivative(StabilityDerivatives.CM_Q).getValue()*angularRates[1]*rotaryTerm+
-			   aircraft.getStabilityDerivative(StabilityDerivatives.CM_ALPHA_DOT).getValue()*alphaDot*rotaryTerm+
-			   aircraft.getStabilityDerivative(StabilityDerivatives.CM_D_ELEV).getValue()*controls.get(FlightControl.ELEVATOR)+
-			   aircraft.getStabilityDerivative(StabilityDerivatives.CM_D_FLAP).getValue()*controls.get(FlightControl.FLAPS);
+		return interpolate(model.cmAlpha)*windParameters[2]+
+			   model.cm0+
+			   model.cmQ*angularRates[1]*rotaryTerm+
+			   model.cmAlphaDot*alphaDot*rotaryTerm+
+			   model.cmDElev*controls.get(FlightControl.ELEVATOR)+
+			   model.cmDFlap*controls.get(FlightControl.FLAPS);
 	}
 	
 	/**
@@ -168,19 +174,20 @@ public class Aerodynamics {
 	 */
 	private double calculateCN(double[] angularRates,
 						 	   double[] windParameters,
-						 	   Map<FlightControl, Double> controls) {
-		double helixAngle = aircraft.getWingGeometry(WingGeometry.B_WING)/(2*windParameters[0]);
+						 	   FlightControlsSnapshot controls) {
+		double helixAngle = model.halfBWing/windParameters[0];
 		
-		return aircraft.getStabilityDerivative(StabilityDerivatives.CN_BETA).getValue()*windParameters[1]+
-			   aircraft.getStabilityDerivative(StabilityDerivatives.CN_P).getValue()*angularRates[0]*helixAngle+
-			   aircraft.getStabilityDerivative(StabilityDerivatives.CN_R).getValue()*angularRates[2]*helixAngle+
-			   aircraft.getStabilityDerivative(StabilityDerivatives.CN_D_AIL).getValue()*controls.get(FlightControl.AILERON)+
-			   aircraft.getStabilityDerivative(StabilityDerivatives.CN_D_RUD).getValue()*controls.get(FlightControl.RUDDER);	
+		return model.cnBeta*windParameters[1]+
+			   model.cnP*angularRates[0]*helixAngle+
+			   model.cnR*angularRates[2]*helixAngle+
+			   model.cnDAil*controls.get(FlightControl.AILERON)+
+			   model.cnDRud*controls.get(FlightControl.RUDDER);	
 	}
 	
 	/**
 	 * Gets the type of value contained in the specified key of the {@link StabilityDerivatives} EnumMap and 
-	 * interpolates it using {@link LookupTable#interpolate(double, double)} 
+	 * interpolates it using {@link LookupTable#interpolate(TablePoint)}. Flight conditions other than those in windParameters and 
+	 * controls are taken from the last call of {@link Aerodynamics#calculateAeroState}
 	 *  
 	 * @param windParameters
 	 * @param controls
@@ -188,19 +195,35 @@ public class Aerodynamics {
 	 * @return interpStabDer
 	 */
 	public Double calculateInterpStabDer(double[] windParameters,
-			 							 Map<FlightControl, Double> controls,
+			 							 FlightControlsSnapshot controls,
 			 							 StabilityDerivatives stabDer) {
-		Double interpStabDer;		
-		LookupTable lookup = aircraft.getStabilityDerivative(stabDer);
+		updateTablePoint(windParameters, controls);
 		
-		try {
-			interpStabDer = lookup.interpolate(windParameters[2], controls.get(FlightControl.FLAPS));
-		} catch (OutOfRangeException e) {
-			logger.error("Number out of range for interpolation! Returning 0 for value.");
-			return 0.0;
-		}
-		
-		return interpStabDer;
+		return interpolate(aircraft.getStabilityDerivative(stabDer));
+	}
+	
+	/**
+	 * Updates the flight condition that {@link LookupTable} objects are interpolated at with angle of attack, sideslip angle, 
+	 * flap deflection and gear position 
+	 *  
+	 * @param windParameters
+	 * @param controls
+	 */
+	private void updateTablePoint(double[] windParameters, FlightControlsSnapshot controls) {
+		tablePoint.set(TableAxis.ALPHA, windParameters[2])
+				  .set(TableAxis.BETA, windParameters[1])
+				  .set(TableAxis.FLAP, controls.get(FlightControl.FLAPS))
+				  .set(TableAxis.GEAR, controls.get(FlightControl.GEAR));
+	}
+	
+	/**
+	 * Interpolates a {@link LookupTable} using {@link LookupTable#interpolate(TablePoint)} at the current flight condition
+	 *  
+	 * @param lookup
+	 * @return interpolated stability derivative
+	 */
+	private double interpolate(LookupTable lookup) {
+		return lookup.interpolate(tablePoint);
 	}
 	
 	/**
@@ -211,7 +234,7 @@ public class Aerodynamics {
 	 * @return adjustment to CL_alpha and CD_alpha
 	 */
 	private double groundEffect(double heightAGL) {
-		double normalizedHeightAGL = heightAGL/aircraft.getWingGeometry(WingGeometry.B_WING);
+		double normalizedHeightAGL = heightAGL*model.inverseBWing;
 		if (normalizedHeightAGL < 1.0)
 			return 1 - (Math.atan(15*(normalizedHeightAGL-1)) / 10);
 		else
@@ -219,56 +242,261 @@ public class Aerodynamics {
 	}
 	
 	/**
-	 * Calculates aerodynamic forces experienced by the aircraft, converted from the wind frame to the body
-	 * frame by using {@link SixDOFUtilities#wind2Body(double[])}
+	 * Calculates the aerodynamic forces and moments with the same model as {@link Aerodynamics#calculateAeroState}, along with their 
+	 * derivatives. Tables are differentiated along each {@link TableAxis} by {@link LookupTable#interpolate(TablePoint, double[])}, 
+	 * and those derivatives are chained to the flight condition of each axis
+	 * 
+	 * @param windParameters {vTrue,beta,alpha}
+	 * @param angularRates {p,q,r}
+	 * @param density (slug/ft^3)
+	 * @param speedOfSound (ft/sec)
+	 * @param controls value of each flight control, indexed by {@link FlightControl} ordinal
+	 * @param alphaDot
+	 * @param heightAGL
+	 * @param bodyForces array to write aerodynamic forces in the body frame (lbf) into
+	 * @param aeroMoments array to write aerodynamic moments (lb ft) into
+	 */
+	public void calculateAeroForces(Dual[] windParameters,
+									Dual[] angularRates,
+									Dual density,
+									Dual speedOfSound,
+									Dual[] controls,
+									Dual alphaDot,
+									Dual heightAGL,
+									Dual[] bodyForces,
+									Dual[] aeroMoments) {
+		model = aircraft.getAircraftModel();
+		
+		tableAxes[TableAxis.ALPHA.ordinal()]	  = windParameters[2];
+		tableAxes[TableAxis.BETA.ordinal()]		  = windParameters[1];
+		tableAxes[TableAxis.FLAP.ordinal()]		  = controls[FlightControl.FLAPS.ordinal()];
+		tableAxes[TableAxis.GEAR.ordinal()]		  = controls[FlightControl.GEAR.ordinal()];
+		tableAxes[TableAxis.MACH.ordinal()]		  = windParameters[0].divide(speedOfSound);
+		tableAxes[TableAxis.HEIGHT_AGL.ordinal()] = heightAGL;
+		
+		for (TableAxis axis : TableAxis.values())
+			tablePoint.set(axis, tableAxes[axis.ordinal()].getValue());
+		
+		Dual qBar = density.multiply(windParameters[0]).multiply(windParameters[0]).divide(2);
+		
+		Dual cl    = calculateCL(angularRates, windParameters, controls, alphaDot, heightAGL);
+		Dual cd    = calculateCD(windParameters, controls, heightAGL);
+		Dual cy    = calculateCY(windParameters, controls);
+		Dual cRoll = calculateCRoll(angularRates, windParameters, controls);
+		Dual cm    = calculateCM(angularRates, windParameters, controls, alphaDot);
+		Dual cn    = calculateCN(angularRates, windParameters, controls);
+		
+		Dual sinBeta  = windParameters[1].sin(), cosBeta  = windParameters[1].cos();
+		Dual sinAlpha = windParameters[2].sin(), cosAlpha = windParameters[2].cos();
+		
+		// Negative L and D to switch body directions and position in array swapped
+		Dual dragForce = qBar.multiply(cd).multiply(-model.sWing);
+		Dual sideForce = qBar.multiply(cy).multiply( model.sWing);
+		Dual liftForce = qBar.multiply(cl).multiply(-model.sWing);
+		
+		bodyForces[0] = dragForce.multiply(cosBeta.multiply(cosAlpha))
+						.subtract(sideForce.multiply(sinBeta.multiply(cosAlpha)))
+						.subtract(liftForce.multiply(sinAlpha));
+		bodyForces[1] = dragForce.multiply(sinBeta).add(sideForce.multiply(cosBeta));
+		bodyForces[2] = dragForce.multiply(cosBeta.multiply(sinAlpha))
+						.subtract(sideForce.multiply(sinBeta.multiply(sinAlpha)))
+						.add(liftForce.multiply(cosAlpha));
+		
+		aeroMoments[0] = qBar.multiply(cRoll).multiply(model.sWingBWing);
+		aeroMoments[1] = qBar.multiply(cm).multiply(model.sWingCBar);
+		aeroMoments[2] = qBar.multiply(cn).multiply(model.sWingBWing);
+	}
+	
+	/**
+	 * Calculates the aircraft's total lift coefficient (CL) with its derivatives, which come from every argument and from 
+	 * CL_alpha's table
 	 * 
-	 * @param windParameters
 	 * @param angularRates
-	 * @param environmentParameters
+	 * @param windParameters
 	 * @param controls
 	 * @param alphaDot
 	 * @param heightAGL
-	 * @return bodyForces
+	 * @return CL
 	 */
-	public double[] calculateBodyForces(double[] windParameters,
-									  	double[] angularRates,
-										Map<EnvironmentParameters, Double> environmentParameters,
-									    Map<FlightControl, Double> controls,
-										double alphaDot,
-										double heightAGL) {
-		double qBar = environmentParameters.get(EnvironmentParameters.RHO)*Math.pow(windParameters[0], 2)/2;
+	private Dual calculateCL(Dual[] angularRates, Dual[] windParameters, Dual[] controls, Dual alphaDot, Dual heightAGL) {
+		Dual rotaryTerm = windParameters[0].reciprocal(model.halfCBar);
 		
-		double[][] w2bDCM = SixDOFUtilities.wind2Body(windParameters);
+		return differentiate(model.clAlpha).multiply(windParameters[2]).multiply(groundEffect(heightAGL))
+			   .add(model.cl0)
+			   .add(angularRates[1].multiply(rotaryTerm).multiply(model.clQ))
+			   .add(alphaDot.multiply(rotaryTerm).multiply(model.clAlphaDot))
+			   .add(controls[FlightControl.ELEVATOR.ordinal()].multiply(model.clDElev))
+			   .add(controls[FlightControl.FLAPS.ordinal()].multiply(model.clDFlap));
+	}
+	
+	/**
+	 * Calculates the aircraft's total side force coefficient (CY) with its derivatives, which come from sideslip and rudder
+	 * 
+	 * @param windParameters
+	 * @param controls
+	 * @return CY
+	 */
+	private Dual calculateCY(Dual[] windParameters, Dual[] controls) {
+		return windParameters[1].multiply(model.cyBeta)
+			   .add(controls[FlightControl.RUDDER.ordinal()].multiply(model.cyDRud));
+	}
+	
+	/**
+	 * Calculates the aircraft's total drag coefficient (CD) with its derivatives, which come from every argument and from 
+	 * CD_alpha's table
+	 * 
+	 * @param windParameters
+	 * @param controls
+	 * @param heightAGL
+	 * @return CD
+	 */
+	private Dual calculateCD(Dual[] windParameters, Dual[] controls, Dual heightAGL) {
+		return differentiate(model.cdAlpha).multiply(windParameters[2].abs()).divide(groundEffect(heightAGL))
+			   .add(model.cd0)
+			   .add(controls[FlightControl.FLAPS.ordinal()].multiply(model.cdDFlap))
+			   .add(controls[FlightControl.ELEVATOR.ordinal()].multiply(model.cdDElev))
+			   .add(controls[FlightControl.GEAR.ordinal()].multiply(model.cdDGear));
+	}
+	
+	/**
+	 * Calculates the aircraft's total roll moment coefficient (Cl) with its derivatives, which come from true airspeed, 
+	 * sideslip, roll and yaw rates, aileron and rudder
+	 * 
+	 * @param angularRates
+	 * @param windParameters
+	 * @param controls
+	 * @return Croll
+	 */
+	private Dual calculateCRoll(Dual[] angularRates, Dual[] windParameters, Dual[] controls) {
+		Dual helixAngle = windParameters[0].reciprocal(model.halfBWing);
 		
-		// Negative L and D to switch body directions and position in array swapped
-		double[] aeroForces = {-qBar*calculateCD(windParameters, controls, heightAGL)*aircraft.getWingGeometry(WingGeometry.S_WING),
-				   			    qBar*calculateCY(windParameters, controls)*aircraft.getWingGeometry(WingGeometry.S_WING),
-							   -qBar*calculateCL(angularRates, windParameters, controls, alphaDot, heightAGL)*aircraft.getWingGeometry(WingGeometry.S_WING)};
+		return windParameters[1].multiply(model.crollBeta)
+			   .add(angularRates[0].multiply(helixAngle).multiply(model.crollP))
+			   .add(angularRates[2].multiply(helixAngle).multiply(model.crollR))
+			   .add(controls[FlightControl.AILERON.ordinal()].multiply(model.crollDAil))
+			   .add(controls[FlightControl.RUDDER.ordinal()].multiply(model.crollDRud));
+	}
+	
+	/**
+	 * Calculates the aircraft's total pitch moment coefficient (CM) with its derivatives, which come from every argument and from 
+	 * CM_alpha's table
+	 * 
+	 * @param angularRates
+	 * @param windParameters
+	 * @param controls
+	 * @param alphaDot
+	 * @return CM
+	 */
+	private Dual calculateCM(Dual[] angularRates, Dual[] windParameters, Dual[] controls, Dual alphaDot) {
+		Dual rotaryTerm = windParameters[0].reciprocal(model.halfCBar);
 		
-		return new double[] {aeroForces[0]*w2bDCM[0][0]+aeroForces[1]*w2bDCM[0][1]+aeroForces[2]*w2bDCM[0][2],
-							 aeroForces[0]*w2bDCM[1][0]+aeroForces[1]*w2bDCM[1][1]+aeroForces[2]*w2bDCM[1][2],
-							 aeroForces[0]*w2bDCM[2][0]+aeroForces[1]*w2bDCM[2][1]+aeroForces[2]*w2bDCM[2][2]};
+		return differentiate(model.cmAlpha).multiply(windParameters[2])
+			   .add(model.cm0)
+			   .add(angularRates[1].multiply(rotaryTerm).multiply(model.cmQ))
+			   .add(alphaDot.multiply(rotaryTerm).multiply(model.cmAlphaDot))
+			   .add(controls[FlightControl.ELEVATOR.ordinal()].multiply(model.cmDElev))
+			   .add(controls[FlightControl.FLAPS.ordinal()].multiply(model.cmDFlap));
 	}
 	
 	/**
-	 * Calculates aerodynamic moments experienced by the aircraft
+	 * Calculates the aircraft's total yaw moment coefficient (CN) with its derivatives, which come from true airspeed, 
+	 * sideslip, roll and yaw rates, aileron and rudder
+	 * 
+	 * @param angularRates
+	 * @param windParameters
+	 * @param controls
+	 * @return CN
+	 */
+	private Dual calculateCN(Dual[] angularRates, Dual[] windParameters, Dual[] controls) {
+		Dual helixAngle = windParameters[0].reciprocal(model.halfBWing);
+		
+		return windParameters[1].multiply(model.cnBeta)
+			   .add(angularRates[0].multiply(helixAngle).multiply(model.cnP))
+			   .add(angularRates[2].multiply(helixAngle).multiply(model.cnR))
+			   .add(controls[FlightControl.AILERON.ordinal()].multiply(model.cnDAil))
+			   .add(controls[FlightControl.RUDDER.ordinal()].multiply(model.cnDRud));
+	}
+	
+	/**
+	 * Interpolates a {@link LookupTable} at the current flight condition, and chains its gradient along each {@link TableAxis} 
+	 * to the derivatives of that flight condition
+	 * 
+	 * @param lookup
+	 * @return interpolated stability derivative
+	 */
+	private Dual differentiate(LookupTable lookup) {
+		return Dual.chain(lookup.interpolate(tablePoint, tableGradient), tableGradient, tableAxes);
+	}
+	
+	/**
+	 * Calculates the ground effect adjustment to CL_alpha and CD_alpha as {@link Aerodynamics#groundEffect(double)} does, with its 
+	 * derivatives with respect to height above ground; out of ground effect it is a constant 1
+	 * 
+	 * @param heightAGL
+	 * @return adjustment to CL_alpha and CD_alpha
+	 */
+	private Dual groundEffect(Dual heightAGL) {
+		Dual normalizedHeightAGL = heightAGL.multiply(model.inverseBWing);
+		if (normalizedHeightAGL.getValue() < 1.0)
+			return normalizedHeightAGL.subtract(1).multiply(15).atan().divide(-10).add(1);
+		else
+			return Dual.constant(1.0, heightAGL.getVariables());
+	}
+	
+	/**
+	 * Calculates the dynamic pressure and the aerodynamic force and moment coefficients experienced by the aircraft, and uses them
+	 * to calculate aerodynamic forces, converted from the wind frame to the body frame by using {@link SixDOFUtilities#wind2Body(double[], double[][])},
+	 * and aerodynamic moments. Each coefficient is calculated only once, and all results are written into the {@link AeroState} passed in 
 	 * 
 	 * @param windParameters
 	 * @param angularRates
-	 * @param environmentParameters
+	 * @param atmosphereState
 	 * @param controls
 	 * @param alphaDot
-	 * @return aerodynamicMoments
+	 * @param heightAGL
+	 * @param aeroState object to write results into
+	 * @return aeroState
 	 */
-	public double[] calculateAeroMoments(double[] windParameters,
-									     double[] angularRates,
-									     Map<EnvironmentParameters, Double> environmentParameters,
-									     Map<FlightControl, Double> controls,
-									     double alphaDot) {
-		double qBar = environmentParameters.get(EnvironmentParameters.RHO)*Math.pow(windParameters[0], 2)/2;
+	public AeroState calculateAeroState(double[] windParameters,
+									  	double[] angularRates,
+										AtmosphereState atmosphereState,
+									    FlightControlsSnapshot controls,
+										double alphaDot,
+										double heightAGL,
+										AeroState aeroState) {
+		model = aircraft.getAircraftModel();
+		
+		updateTablePoint(windParameters, controls);
+		tablePoint.set(TableAxis.MACH, windParameters[0]/atmosphereState.getSpeedOfSound())
+				  .set(TableAxis.HEIGHT_AGL, heightAGL);
+		
+		double qBar = atmosphereState.getDensity()*windParameters[0]*windParameters[0]/2;
+		
+		aeroState.qBar  = qBar;
+		aeroState.cl    = calculateCL(angularRates, windParameters, controls, alphaDot, heightAGL);
+		aeroState.cd    = calculateCD(windParameters, controls, heightAGL);
+		aeroState.cy    = calculateCY(windParameters, controls);
+		aeroState.cRoll = calculateCRoll(angularRates, windParameters, controls);
+		aeroState.cm    = calculateCM(angularRates, windParameters, controls, alphaDot);
+		aeroState.cn    = calculateCN(angularRates, windParameters, controls);
+		
+		double[][] w2bDCM = SixDOFUtilities.wind2Body(windParameters, aeroState.wind2BodyDCM);
+		
+		// Negative L and D to switch body directions and position in array swapped
+		double dragForce = -qBar*aeroState.cd*model.sWing;
+		double sideForce =  qBar*aeroState.cy*model.sWing;
+		double liftForce = -qBar*aeroState.cl*model.sWing;
+		
+		double[] bodyForces = aeroState.bodyForces;
+		bodyForces[0] = dragForce*w2bDCM[0][0]+sideForce*w2bDCM[0][1]+liftForce*w2bDCM[0][2];
+		bodyForces[1] = dragForce*w2bDCM[1][0]+sideForce*w2bDCM[1][1]+liftForce*w2bDCM[1][2];
+		bodyForces[2] = dragForce*w2bDCM[2][0]+sideForce*w2bDCM[2][1]+liftForce*w2bDCM[2][2];
+		
+		double[] aeroMoments = aeroState.aeroMoments;
+		aeroMoments[0] = qBar*aeroState.cRoll*model.sWingBWing;
+		aeroMoments[1] = qBar*aeroState.cm*model.sWingCBar;
+		aeroMoments[2] = qBar*aeroState.cn*model.sWingBWing;
 		
-		return new double[] {qBar*calculateCRoll(angularRates, windParameters, controls)*aircraft.getWingGeometry(WingGeometry.S_WING)*aircraft.getWingGeometry(WingGeometry.B_WING), 
-							 qBar*calculateCM(angularRates, windParameters, controls, alphaDot)*aircraft.getWingGeometry(WingGeometry.S_WING)*aircraft.getWingGeometry(WingGeometry.C_BAR), 
-						 	 qBar*calculateCN(angularRates, windParameters, controls)*aircraft.getWingGeometry(WingGeometry.S_WING)*aircraft.getWingGeometry(WingGeometry.B_WING)};					
+		return aeroState;
 	}
 }
@@ -20,6 +20,7 @@
 package com.chrisali.javaflightsim.simulation.aircraft;
 
 import java.io.File;
+import java.util.Collections;
 import java.util.EnumMap;
 import java.util.LinkedHashSet;
 import java.util.Map;
@@ -55,6 +56,9 @@ public class Aircraft implements Saveable {
 	private Map<WingGeometry, Double> 		  	   wingGeometry;
 	private Map<MassProperties, Double> 	  	   massProps;
 	private Map<GroundReaction, Double>		  	   groundReaction;
+	
+	@JsonIgnore
+	private volatile AircraftModel aircraftModel;
 
 	/**
 	 * Custom aircraft constructor. It uses files located in <p><br><code>Aircraft\</code></br></p>
@@ -160,7 +164,10 @@ public class Aircraft implements Saveable {
 	 * @param massProp
 	 */
 	@JsonIgnore
-	public void setMassProperty(MassProperties massProp, Double value) {massProps.put(massProp, value);}
+	public void setMassProperty(MassProperties massProp, Double value) {
+		massProps.put(massProp, value);
+		aircraftModel = null;
+	}
 	
 	/**
 	 * Updates the MassProperties config file with weight percentages
@@ -182,27 +189,61 @@ public class Aircraft implements Saveable {
 		} catch (Exception e) {
 			logger.error("Error updating mass properties!", e);
 		}
+		
+		aircraftModel = null;
 	}
 	
-	public Map<MassProperties, Double> getMassProps() {return massProps;}
+	/**
+	 * Returns the {@link AircraftModel} compiled from this aircraft's parameters, which should be used by any calculations run 
+	 * on every step of the simulation. The model is compiled on the first call, and again only after the mass properties
+	 * or other parameters of this aircraft have been changed
+	 * 
+	 * @return compiled aircraft model
+	 */
+	@JsonIgnore
+	public AircraftModel getAircraftModel() {
+		AircraftModel model = aircraftModel;
+		
+		if (model == null) {
+			logger.debug("Compiling aircraft model for " + name + "...");
+			aircraftModel = model = new AircraftModel(this);
+		}
+		
+		return model;
+	}
+	
+	/**
+	 * @return read-only view of the mass properties; change them with {@link Aircraft#setMassProperty(MassProperties, Double)} 
+	 * or {@link Aircraft#setMassProps(Map)} so that the {@link AircraftModel} is recompiled
+	 */
+	public Map<MassProperties, Double> getMassProps() {return Collections.unmodifiableMap(massProps);}
 
-	public void setMassProps(Map<MassProperties, Double> massProps) { this.massProps = massProps; }
+	public void setMassProps(Map<MassProperties, Double> massProps) { this.massProps = massProps; aircraftModel = null; }
 			
-	public Map<StabilityDerivatives, LookupTable> getStabDerivs() { return stabDerivs; }
+	/**
+	 * @return read-only view of the stability derivatives; change them with {@link Aircraft#setStabDerivs(Map)}
+	 */
+	public Map<StabilityDerivatives, LookupTable> getStabDerivs() { return Collections.unmodifiableMap(stabDerivs); }
 
-	public void setStabDerivs(Map<StabilityDerivatives, LookupTable> stabDerivs) { this.stabDerivs = stabDerivs;	}
+	public void setStabDerivs(Map<StabilityDerivatives, LookupTable> stabDerivs) { this.stabDerivs = stabDerivs; aircraftModel = null; }
 
-	public Map<WingGeometry, Double> getWingGeometry() { return wingGeometry; }
+	/**
+	 * @return read-only view of the wing geometry; change it with {@link Aircraft#setWingGeometry(Map)}
+	 */
+	public Map<WingGeometry, Double> getWingGeometry() { return Collections.unmodifiableMap(wingGeometry); }
 
-	public void setWingGeometry(Map<WingGeometry, Double> wingGeometry) { this.wingGeometry = wingGeometry;	}
+	public void setWingGeometry(Map<WingGeometry, Double> wingGeometry) { this.wingGeometry = wingGeometry; aircraftModel = null; }
 	
-	public Map<GroundReaction, Double> getGroundReaction() {return groundReaction;}
+	/**
+	 * @return read-only view of the ground reaction parameters; change them with {@link Aircraft#setGroundReaction(Map)}
+	 */
+	public Map<GroundReaction, Double> getGroundReaction() {return Collections.unmodifiableMap(groundReaction);}
 
-	public void setGroundReaction(Map<GroundReaction, Double> groundReaction) { this.groundReaction = groundReaction; }
+	public void setGroundReaction(Map<GroundReaction, Double> groundReaction) { this.groundReaction = groundReaction; aircraftModel = null; }
 	
 	public Set<Engine> getEngines() { return engines; }
 
-	public void setEngines(Set<Engine> engines) { this.engines = engines; }
+	public void setEngines(Set<Engine> engines) { this.engines = engines; aircraftModel = null; }
 
 	public String getName() { return name; }
 	
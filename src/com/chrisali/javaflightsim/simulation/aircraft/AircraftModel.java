@@ -0,0 +1,256 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.aircraft;
+
+import java.util.Map;
+
+import com.chrisali.javaflightsim.simulation.integration.Integrate6DOFEquations;
+import com.chrisali.javaflightsim.simulation.integration.IntegrateGroundReaction;
+import com.chrisali.javaflightsim.simulation.propulsion.Engine;
+import com.chrisali.javaflightsim.simulation.utilities.SixDOFUtilities;
+
+/**
+ * Immutable, compiled form of an {@link Aircraft} used by the force and moment calculations run on every step of the simulation. 
+ * All values that {@link Aerodynamics}, {@link AccelAndMoments}, {@link IntegrateGroundReaction} and {@link Integrate6DOFEquations}
+ * need are copied out of the Aircraft's EnumMaps into primitive fields when this object is constructed, and constant terms such 
+ * as the aerodynamic center's moment arm, the inverse of mass and the inertia coefficients are calculated ahead of time.
+ * 
+ * <p>An AircraftModel is obtained through {@link Aircraft#getAircraftModel()}, which recompiles it only after the Aircraft's mass 
+ * properties or other parameters have been changed. Arrays returned by this class are shared and must not be modified</p>
+ * 
+ * @author Christopher Ali
+ *
+ * @see Aircraft
+ */
+public class AircraftModel {
+	
+	// Stability Derivatives (1/rad); only the alpha derivatives can be tables, which Aerodynamics interpolates
+	final LookupTable clAlpha;
+	final double cl0;
+	final double clQ;
+	final double clAlphaDot;
+	final double clDElev;
+	final double clDFlap;
+	
+	final double cyBeta;
+	final double cyDRud;
+	
+	final LookupTable cdAlpha;
+	final double cd0;
+	final double cdDElev;
+	final double cdDFlap;
+	final double cdDGear;
+	
+	final double crollBeta;
+	final double crollP;
+	final double crollR;
+	final double crollDAil;
+	final double crollDRud;
+	
+	final LookupTable cmAlpha;
+	final double cm0;
+	final double cmQ;
+	final double cmAlphaDot;
+	final double cmDElev;
+	final double cmDFlap;
+	
+	final double cnBeta;
+	final double cnP;
+	final double cnR;
+	final double cnDAil;
+	final double cnDRud;
+	
+	// Wing Geometry
+	final double halfCBar;
+	final double halfBWing;
+	final double inverseBWing;
+	final double sWing;
+	final double sWingBWing;
+	final double sWingCBar;
+	
+	// Mass Properties
+	private final double totalMass;
+	private final double inverseTotalMass;
+	private final double[] centerOfGravity;
+	private final double[] aerodynamicCenter;
+	private final double[] aeroMomentArm;
+	private final double[] inertiaCoeffs;
+	
+	// Ground Reaction {nose, left, right}
+	private final double[][] gearPositions;
+	private final double[] gearDamping;
+	private final double[] gearSpring;
+	private final double brakingForce;
+	
+	// Propulsion
+	private final Engine[] engines;
+	
+	/**
+	 * Compiles the parameters of an {@link Aircraft} into primitive fields
+	 * 
+	 * @param aircraft
+	 */
+	public AircraftModel(Aircraft aircraft) {
+		Map<StabilityDerivatives, LookupTable> stabDerivs = aircraft.getStabDerivs();
+		
+		clAlpha    = stabDerivs.get(StabilityDerivatives.CL_ALPHA);
+		cl0 	   = constantValue(stabDerivs, StabilityDerivatives.CL_0);
+		clQ 	   = constantValue(stabDerivs, StabilityDerivatives.CL_Q);
+		clAlphaDot = constantValue(stabDerivs, StabilityDerivatives.CL_ALPHA_DOT);
+		clDElev    = constantValue(stabDerivs, StabilityDerivatives.CL_D_ELEV);
+		clDFlap    = constantValue(stabDerivs, StabilityDerivatives.CL_D_FLAP);
+		
+		cyBeta 	   = constantValue(stabDerivs, StabilityDerivatives.CY_BETA);
+		cyDRud 	   = constantValue(stabDerivs, StabilityDerivatives.CY_D_RUD);
+		
+		cdAlpha    = stabDerivs.get(StabilityDerivatives.CD_ALPHA);
+		cd0 	   = constantValue(stabDerivs, StabilityDerivatives.CD_0);
+		cdDElev    = constantValue(stabDerivs, StabilityDerivatives.CD_D_ELEV);
+		cdDFlap    = constantValue(stabDerivs, StabilityDerivatives.CD_D_FLAP);
+		cdDGear    = constantValue(stabDerivs, StabilityDerivatives.CD_D_GEAR);
+		
+		crollBeta  = constantValue(stabDerivs, StabilityDerivatives.CROLL_BETA);
+		crollP 	   = constantValue(stabDerivs, StabilityDerivatives.CROLL_P);
+		crollR 	   = constantValue(stabDerivs, StabilityDerivatives.CROLL_R);
+		crollDAil  = constantValue(stabDerivs, StabilityDerivatives.CROLL_D_AIL);
+		crollDRud  = constantValue(stabDerivs, StabilityDerivatives.CROLL_D_RUD);
+		
+		cmAlpha    = stabDerivs.get(StabilityDerivatives.CM_ALPHA);
+		cm0 	   = constantValue(stabDerivs, StabilityDerivatives.CM_0);
+		cmQ 	   = constantValue(stabDerivs, StabilityDerivatives.CM_Q);
+		cmAlphaDot = constantValue(stabDerivs, StabilityDerivatives.CM_ALPHA_DOT);
+		cmDElev    = constantValue(stabDerivs, StabilityDerivatives.CM_D_ELEV);
+		cmDFlap    = constantValue(stabDerivs, StabilityDerivatives.CM_D_FLAP);
+		
+		cnBeta 	   = constantValue(stabDerivs, StabilityDerivatives.CN_BETA);
+		cnP 	   = constantValue(stabDerivs, StabilityDerivatives.CN_P);
+		cnR 	   = constantValue(stabDerivs, StabilityDerivatives.CN_R);
+		cnDAil 	   = constantValue(stabDerivs, StabilityDerivatives.CN_D_AIL);
+		cnDRud 	   = constantValue(stabDerivs, StabilityDerivatives.CN_D_RUD);
+		
+		double cBar  = aircraft.getWingGeometry(WingGeometry.C_BAR);
+		double bWing = aircraft.getWingGeometry(WingGeometry.B_WING);
+		
+		sWing 		 = aircraft.getWingGeometry(WingGeometry.S_WING);
+		halfCBar 	 = cBar / 2;
+		halfBWing 	 = bWing / 2;
+		inverseBWing = 1 / bWing;
+		sWingBWing 	 = sWing * bWing;
+		sWingCBar 	 = sWing * cBar;
+		
+		totalMass 		  = aircraft.getMassProperty(MassProperties.TOTAL_MASS);
+		inverseTotalMass  = 1 / totalMass;
+		centerOfGravity   = aircraft.getCenterOfGravity();
+		aerodynamicCenter = aircraft.getAerodynamicCenter();
+		aeroMomentArm 	  = new double[] {aerodynamicCenter[0] - centerOfGravity[0],
+										  aerodynamicCenter[1] - centerOfGravity[1],
+										  aerodynamicCenter[2] - centerOfGravity[2]};
+		inertiaCoeffs 	  = SixDOFUtilities.calculateInertiaCoeffs(aircraft.getInertiaValues());
+		
+		Map<GroundReaction, Double> groundReaction = aircraft.getGroundReaction();
+		
+		gearPositions = new double[][] {{groundReaction.get(GroundReaction.NOSE_X),  groundReaction.get(GroundReaction.NOSE_Y),  groundReaction.get(GroundReaction.NOSE_Z)},
+										{groundReaction.get(GroundReaction.LEFT_X),  groundReaction.get(GroundReaction.LEFT_Y),  groundReaction.get(GroundReaction.LEFT_Z)},
+										{groundReaction.get(GroundReaction.RIGHT_X), groundReaction.get(GroundReaction.RIGHT_Y), groundReaction.get(GroundReaction.RIGHT_Z)}};
+		gearDamping   = new double[] {groundReaction.get(GroundReaction.NOSE_DAMPING), 
+									  groundReaction.get(GroundReaction.LEFT_DAMPING), 
+									  groundReaction.get(GroundReaction.RIGHT_DAMPING)};
+		gearSpring    = new double[] {groundReaction.get(GroundReaction.NOSE_SPRING), 
+									  groundReaction.get(GroundReaction.LEFT_SPRING), 
+									  groundReaction.get(GroundReaction.RIGHT_SPRING)};
+		brakingForce  = groundReaction.get(GroundReaction.BRAKING_FORCE);
+		
+		engines = aircraft.getEngines().toArray(new Engine[aircraft.getEngines().size()]);
+	}
+	
+	/**
+	 * @param stabDerivs
+	 * @param stabDer
+	 * @return constant value of a stability derivative, or 0 if it is not defined for this aircraft
+	 * @throws IllegalArgumentException if the stability derivative is defined as a table, which {@link Aerodynamics} would not interpolate
+	 */
+	private static double constantValue(Map<StabilityDerivatives, LookupTable> stabDerivs, StabilityDerivatives stabDer) {
+		LookupTable lookup = stabDerivs.get(stabDer);
+		
+		if (lookup == null)
+			return 0.0;
+		
+		if (lookup.getLookupValues() != null || lookup.getTableValues() != null)
+			throw new IllegalArgumentException(stabDer + " can only be a constant value; only " + StabilityDerivatives.CL_ALPHA + ", " 
+											   + StabilityDerivatives.CD_ALPHA + " and " + StabilityDerivatives.CM_ALPHA + " can be tables!");
+		
+		return lookup.getValue() == null ? 0.0 : lookup.getValue();
+	}
+	
+	/**
+	 * @return total mass of the aircraft (slug)
+	 */
+	public double getTotalMass() { return totalMass; }
+	
+	/**
+	 * @return 1/mass of the aircraft (1/slug)
+	 */
+	public double getInverseTotalMass() { return inverseTotalMass; }
+	
+	/**
+	 * @return {x, y, z} position of the center of gravity (ft)
+	 */
+	public double[] getCenterOfGravity() { return centerOfGravity; }
+	
+	/**
+	 * @return {x, y, z} position of the aerodynamic center (ft)
+	 */
+	public double[] getAerodynamicCenter() { return aerodynamicCenter; }
+	
+	/**
+	 * @return {x, y, z} vector from the center of gravity to the aerodynamic center (ft)
+	 */
+	public double[] getAeroMomentArm() { return aeroMomentArm; }
+	
+	/**
+	 * @return inertia coefficients calculated by {@link SixDOFUtilities#calculateInertiaCoeffs(double[])}
+	 */
+	public double[] getInertiaCoeffs() { return inertiaCoeffs; }
+	
+	/**
+	 * @return {nose, left, right}{x, y, z} positions of the landing gear relative to the center of gravity (ft)
+	 */
+	public double[][] getGearPositions() { return gearPositions; }
+	
+	/**
+	 * @return {nose, left, right} damping of the landing gear struts
+	 */
+	public double[] getGearDamping() { return gearDamping; }
+	
+	/**
+	 * @return {nose, left, right} spring constants of the landing gear struts
+	 */
+	public double[] getGearSpring() { return gearSpring; }
+	
+	/**
+	 * @return braking force of the main landing gear (lbf)
+	 */
+	public double getBrakingForce() { return brakingForce; }
+	
+	/**
+	 * @return array of the aircraft's {@link Engine} objects, in the same order as {@link Aircraft#getEngines()}
+	 */
+	public Engine[] getEngines() { return engines; }
+}
@@ -0,0 +1,37 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.aircraft;
+
+/**
+ * Provides Enums to select how a {@link LookupTable} handles values that lie outside of the range of its breakpoints:
+ * 
+ *	<p>CLAMP - limits the value to the first or last breakpoint, returning the value at the edge of the table</p>
+ *	<p>EXTRAPOLATE - continues the interpolating polynomial of the cell at the edge of the table beyond its breakpoints</p>
+ */
+public enum Extrapolation {
+	CLAMP 		("Clamp"),
+	EXTRAPOLATE ("Extrapolate");
+	
+	private final String extrapolation;
+	
+	Extrapolation(String extrapolation) {this.extrapolation = extrapolation;}
+	
+	public String toString() {return extrapolation;}
+}
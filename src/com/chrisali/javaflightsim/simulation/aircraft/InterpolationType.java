@@ -0,0 +1,40 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.aircraft;
+
+/**
+ * Provides Enums to select how a {@link LookupTable} interpolates between its breakpoints:
+ * 
+ *	<p>LINEAR - bilinear interpolation within each cell of the table, or multilinear for tables defined by axes, which weighs 
+ *	2^N breakpoints for N axes</p>
+ *	<p>BICUBIC - Akima spline interpolation along angle, then along flap, over the window of breakpoints around each cell
+ *	of the table, as done by Apache Commons' PiecewiseBicubicSplineInterpolatingFunction. Tables defined by axes use cubic
+ *	Hermite interpolation along each axis instead, which weighs 4^N breakpoints for N axes</p>
+ */
+public enum InterpolationType {
+	LINEAR 	("Linear"),
+	BICUBIC ("Bicubic");
+	
+	private final String interpolationType;
+	
+	InterpolationType(String interpolationType) {this.interpolationType = interpolationType;}
+	
+	public String toString() {return interpolationType;}
+}
@@ -19,6 +19,9 @@
  ******************************************************************************/
 package com.chrisali.javaflightsim.simulation.aircraft;
 
+import java.util.Arrays;
+
+import org.apache.commons.math3.analysis.interpolation.AkimaSplineInterpolator;
 import org.apache.commons.math3.analysis.interpolation.PiecewiseBicubicSplineInterpolatingFunction;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -30,9 +33,24 @@ import com.fasterxml.jackson.annotation.JsonInclude.Include;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 /**
- * Wrapper for the Apache Commons' PiecewiseBicubicSplineInterpolatingFunction that allows a double value to be
- * interpolated for two given breakpoints. It is also capable of returning a single value if no interpolation 
- * arrays are specified upon construction
+ * Table that allows a double value to be interpolated for two given breakpoints; an angle (breakPointAngle) and 
+ * the deflection of a control surface (breakPointFlap). It is also capable of returning a single value if no 
+ * interpolation arrays are specified upon construction.
+ * 
+ * <p>Tables with more dimensions are defined by axes instead, each indexed by a flight condition named by {@link TableAxis}, 
+ * with an array of breakpoints for each axis and a single array of values in row-major order, where the last axis varies
+ * fastest. These are interpolated by a {@link TableGrid} with {@link LookupTable#interpolate(TablePoint)}</p>
+ * 
+ * <p>When the table is created, polynomial coefficients between its breakpoints are calculated ahead of time for the 
+ * selected {@link InterpolationType}, so that interpolating a value only requires finding the cell that the breakpoints 
+ * lie in and evaluating its polynomials. Cells are found with a hunt search that starts from the cell found in the 
+ * previous call, which is usually the same or a neighboring cell from one step of the simulation to the next. Values 
+ * outside the range of breakpoints are handled according to the table's {@link Extrapolation} setting, rather than by 
+ * throwing an exception</p>
+ * 
+ * <p>{@link InterpolationType#BICUBIC} tables reproduce Apache Commons' {@link PiecewiseBicubicSplineInterpolatingFunction}, 
+ * which this class previously wrapped: Akima splines along angle through the five columns of flap breakpoints nearest 
+ * to the point, followed by an Akima spline along flap through the results</p>
  * 
  * @author Christopher
  *
@@ -43,6 +61,9 @@ public class LookupTable {
 	@JsonIgnore
 	private static final Logger logger = LogManager.getLogger(LookupTable.class);
 	
+	// Number of breakpoints in the window around each cell that Akima splines are fitted through
+	private static final int AKIMA_POINTS = 5;
+	
 	private String name;
 	
 	private double[] breakPointFlap;
@@ -53,8 +74,34 @@ public class LookupTable {
 
 	private Double value;
 	
+	private InterpolationType interpolationType;
+	
+	private Extrapolation extrapolation;
+	
+	private TableAxis[] axes;
+	
+	private double[][] breakPoints;
+	
+	private double[] tableValues;
+	
+	@JsonIgnore
+	private TableGrid grid;
+	
+	// Polynomial coefficients stored row-major; by [angle cell][flap cell][coefficient] for bilinear tables, 
+	// and by [angle cell][flap breakpoint][coefficient] for bicubic tables
 	@JsonIgnore
-	private PiecewiseBicubicSplineInterpolatingFunction pbsif;
+	private double[] coefficients;
+	
+	@JsonIgnore
+	private boolean bicubic;
+	
+	// Indices of the cells found in the previous call; only used as starting points of the hunt search, so
+	// a stale value written by another thread only costs a longer search
+	@JsonIgnore
+	private int lastAngleIndex;
+	
+	@JsonIgnore
+	private int lastFlapIndex;
 	
 	public LookupTable() {}
 
@@ -67,6 +114,24 @@ public class LookupTable {
 		this.value = value;
 		this.name = name;
 	}
+	
+	/**
+	 * Creates a LookupTable capable of interpolating in two dimensions; one for an angle of deflection, the other
+	 * for deflection of a control surface. Interpolation is bicubic, and values outside of the table are clamped
+	 * 
+	 * @param breakPointAngle
+	 * @param breakPointFlap
+	 * @param lookupValues
+	 * @param defaultValue
+	 * @param name
+	 */
+	public LookupTable(double[] breakPointAngle, 
+					   double[] breakPointFlap, 
+					   double[][] lookupValues, 
+					   double defaultValue,
+					   String name) {
+		this(breakPointAngle, breakPointFlap, lookupValues, defaultValue, name, null, null);
+	}
 		
 	/**
 	 * Creates a LookupTable capable of interpolating in two dimensions; one for an angle of deflection, the other
@@ -77,42 +142,517 @@ public class LookupTable {
 	 * @param lookupValues
 	 * @param defaultValue
 	 * @param name
+	 * @param interpolationType method of interpolation; bicubic if null
+	 * @param extrapolation handling of values outside of the table; clamped if null
+	 */
+	public LookupTable(double[] breakPointAngle, 
+					   double[] breakPointFlap, 
+					   double[][] lookupValues, 
+					   double defaultValue,
+					   String name,
+					   InterpolationType interpolationType,
+					   Extrapolation extrapolation) {
+		this(breakPointAngle, breakPointFlap, lookupValues, defaultValue, name, interpolationType, extrapolation, null, null, null);
+	}
+	
+	/**
+	 * Creates a LookupTable capable of interpolating in any number of dimensions, each indexed by a flight condition
+	 * 
+	 * @param axes flight condition that each dimension of the table is indexed by
+	 * @param breakPoints strictly increasing breakpoints of each axis
+	 * @param tableValues values at each combination of breakpoints, in row-major order
+	 * @param name
+	 * @param interpolationType method of interpolation; bicubic if null
+	 * @param extrapolation handling of values outside of the table; clamped if null
+	 * @throws IllegalArgumentException if the breakpoints and values do not describe a valid table
 	 */
+	public LookupTable(TableAxis[] axes,
+					   double[][] breakPoints,
+					   double[] tableValues,
+					   String name,
+					   InterpolationType interpolationType,
+					   Extrapolation extrapolation) {
+		this(null, null, null, 0.0, name, interpolationType, extrapolation, axes, breakPoints, tableValues);
+	}
+	
 	@JsonCreator
-	public LookupTable(@JsonProperty(required=false, value="breakPointAngle") double[] breakPointAngle, 
-					   @JsonProperty(required=false, value="breakPointFlap") double[] breakPointFlap, 
-					   @JsonProperty(required=false, value="lookupValues") double[][] lookupValues, 
-					   @JsonProperty(required=false, value="value") double defaultValue,
-					   @JsonProperty(required=false, value="name") String name) {
+	private LookupTable(@JsonProperty(required=false, value="breakPointAngle") double[] breakPointAngle, 
+					    @JsonProperty(required=false, value="breakPointFlap") double[] breakPointFlap, 
+					    @JsonProperty(required=false, value="lookupValues") double[][] lookupValues, 
+					    @JsonProperty(required=false, value="value") double defaultValue,
+					    @JsonProperty(required=false, value="name") String name,
+					    @JsonProperty(required=false, value="interpolationType") InterpolationType interpolationType,
+					    @JsonProperty(required=false, value="extrapolation") Extrapolation extrapolation,
+					    @JsonProperty(required=false, value="axes") TableAxis[] axes,
+					    @JsonProperty(required=false, value="breakPoints") double[][] breakPoints,
+					    @JsonProperty(required=false, value="tableValues") double[] tableValues) {
 		this.breakPointAngle = breakPointAngle;
 		this.breakPointFlap = breakPointFlap;
 		this.lookupValues = lookupValues;
 		this.value = defaultValue;
 		this.name = name;
+		this.interpolationType = interpolationType;
+		this.extrapolation = extrapolation;
+		this.axes = axes;
+		this.breakPoints = breakPoints;
+		this.tableValues = tableValues;
 		
-		if (breakPointAngle != null && breakPointFlap != null && lookupValues != null) {
-			logger.debug("Creating an interpolating lookup table for " + name + "...");
-			pbsif = new PiecewiseBicubicSplineInterpolatingFunction(breakPointAngle, breakPointFlap, lookupValues);
+		calculateCoefficients();
+	}
+	
+	/**
+	 * Calculates the polynomial coefficients of each cell of the table if all interpolation arrays have been specified.
+	 * For {@link InterpolationType#LINEAR} tables, these are the four bilinear coefficients of each cell; for 
+	 * {@link InterpolationType#BICUBIC} tables, these are the four coefficients of the cubic along angle through each
+	 * column of flap breakpoints of each angle cell
+	 */
+	private void calculateCoefficients() {
+		if (axes != null && breakPoints != null && tableValues != null) {
+			logger.debug("Creating an interpolating " + axes.length + "-dimensional lookup table for " + name + "...");
+			grid = new TableGrid(axes, breakPoints, tableValues, interpolationType, extrapolation);
+		} else {
+			grid = null;
+		}
+		
+		if (breakPointAngle == null || breakPointFlap == null || lookupValues == null) {
+			coefficients = null;
+			return;
+		}
+		
+		logger.debug("Creating an interpolating lookup table for " + name + "...");
+		
+		final int nAngle = breakPointAngle.length;
+		final int nFlap  = breakPointFlap.length;
+		final int angleCells = Math.max(nAngle - 1, 1);
+		final int flapCells  = Math.max(nFlap - 1, 1);
+		
+		lastAngleIndex = lastFlapIndex = 0;
+		bicubic = interpolationType != InterpolationType.LINEAR;
+		
+		if (!bicubic) {
+			double[] coefficients = new double[angleCells * flapCells * 4];
+			
+			for (int i = 0; i < angleCells; i++) {
+				for (int j = 0; j < flapCells; j++) {
+					int i1 = Math.min(i + 1, nAngle - 1), j1 = Math.min(j + 1, nFlap - 1);
+					int offset = (i * flapCells + j) * 4;
+					
+					double f00 = lookupValues[i][j],  f01 = lookupValues[i][j1];
+					double f10 = lookupValues[i1][j], f11 = lookupValues[i1][j1];
+					
+					coefficients[offset]     = f00;
+					coefficients[offset + 1] = f10 - f00;
+					coefficients[offset + 2] = f01 - f00;
+					coefficients[offset + 3] = f11 - f10 - f01 + f00;
+				}
+			}
+			
+			this.coefficients = coefficients;
+		} else {
+			double[] coefficients = new double[angleCells * nFlap * 4];
+			double[] column = new double[nAngle];
+			double[] slopes = new double[2];
+			
+			for (int j = 0; j < nFlap; j++) {
+				for (int i = 0; i < nAngle; i++)
+					column[i] = lookupValues[i][j];
+				
+				for (int i = 0; i < angleCells; i++) {
+					int i1 = Math.min(i + 1, nAngle - 1);
+					double h = breakPointAngle[i1] - breakPointAngle[i];
+					
+					calculateCellSlopes(breakPointAngle, column, i, slopes);
+					
+					int offset = (i * nFlap + j) * 4;
+					double d0 = slopes[0] * h, d1 = slopes[1] * h;
+					
+					coefficients[offset]     = column[i];
+					coefficients[offset + 1] = d0;
+					coefficients[offset + 2] = 3 * (column[i1] - column[i]) - 2 * d0 - d1;
+					coefficients[offset + 3] = 2 * (column[i] - column[i1]) + d0 + d1;
+				}
+			}
+			
+			this.coefficients = coefficients;
 		}
 	}
-
+	
+	/**
+	 * Calculates the slopes at both ends of a cell along one axis of the table from the Akima spline fitted through the 
+	 * window of breakpoints around the cell
+	 * 
+	 * @param x breakpoints
+	 * @param y values at each breakpoint
+	 * @param cell index of the cell's first breakpoint
+	 * @param slopes array to write the slopes at the cell's first and second breakpoints into
+	 */
+	private static void calculateCellSlopes(double[] x, double[] y, int cell, double[] slopes) {
+		final int n = x.length;
+		final int window = Math.min(n, AKIMA_POINTS);
+		final int start  = Math.min(Math.max(cell - 1, 0), n - window);
+		
+		double[] v = new double[AKIMA_POINTS];
+		System.arraycopy(y, start, v, 0, window);
+		
+		slopes[0] = calculateSlope(x, start, window, cell - start, v[0], v[1], v[2], v[3], v[4]);
+		slopes[1] = calculateSlope(x, start, window, Math.min(cell + 1, n - 1) - start, v[0], v[1], v[2], v[3], v[4]);
+	}
+	
+	/**
+	 * Calculates the slope at a breakpoint of the Akima spline fitted through a window of up to five breakpoints, using the 
+	 * same method as Apache Commons' {@link AkimaSplineInterpolator}: the middle breakpoint of a five point window uses 
+	 * Akima's weighted average of the neighboring differences, and the others use a three point difference. Windows of 
+	 * three or four points use a three point difference for every breakpoint, two points a two point difference
+	 * 
+	 * @param x breakpoints
+	 * @param start index in x of the window's first breakpoint
+	 * @param window number of breakpoints in the window
+	 * @param position position within the window of the breakpoint to calculate the slope at
+	 * @param v0 value at the window's first breakpoint
+	 * @param v1 value at the window's second breakpoint
+	 * @param v2 value at the window's third breakpoint
+	 * @param v3 value at the window's fourth breakpoint
+	 * @param v4 value at the window's fifth breakpoint
+	 * @return slope at x[start + position]
+	 */
+	private static double calculateSlope(double[] x, int start, int window, int position, 
+										 double v0, double v1, double v2, double v3, double v4) {
+		if (window == 1)
+			return 0;
+		else if (window == 2)
+			return (v1 - v0) / (x[start + 1] - x[start]);
+		
+		if (window == AKIMA_POINTS && position == 2) {
+			final double x1 = x[start + 1], x2 = x[start + 2], x3 = x[start + 3];
+			
+			final double differenceMinus2 = (v1 - v0) / (x1 - x[start]);
+			final double differenceMinus1 = (v2 - v1) / (x2 - x1);
+			final double difference 	  = (v3 - v2) / (x3 - x2);
+			final double differencePlus1  = (v4 - v3) / (x[start + 4] - x3);
+			
+			final double weightMinus = Math.abs(differenceMinus1 - differenceMinus2);
+			final double weightPlus  = Math.abs(differencePlus1 - difference);
+			
+			if (weightPlus == 0.0 && weightMinus == 0.0)
+				return (((x3 - x2) * differenceMinus1) + ((x2 - x1) * difference)) / (x3 - x1);
+			else
+				return ((weightPlus * differenceMinus1) + (weightMinus * difference)) / (weightPlus + weightMinus);
+		}
+		
+		final int first = (window == AKIMA_POINTS) ? ((position < 2) ? 0 : 2) : Math.min(Math.max(position - 1, 0), window - 3);
+		final double x0 = x[start + first];
+		
+		return differentiateThreePoint(x[start + position] - x0, x[start + first + 1] - x0, x[start + first + 2] - x0,
+									   select(first, v0, v1, v2, v3, v4), 
+									   select(first + 1, v0, v1, v2, v3, v4), 
+									   select(first + 2, v0, v1, v2, v3, v4));
+	}
+	
+	/**
+	 * Calculates the slope at a point from the parabola passing through three samples
+	 * 
+	 * @param t distance of point from the first sample
+	 * @param t1 distance of second sample from the first sample
+	 * @param t2 distance of third sample from the first sample
+	 * @param y0 value of first sample
+	 * @param y1 value of second sample
+	 * @param y2 value of third sample
+	 * @return slope at point
+	 */
+	private static double differentiateThreePoint(double t, double t1, double t2, double y0, double y1, double y2) {
+		double a = (y2 - y0 - (t2 / t1 * (y1 - y0))) / (t2 * t2 - t1 * t2);
+		double b = (y1 - y0 - a * t1 * t1) / t1;
+		
+		return (2 * a * t) + b;
+	}
+	
+	/**
+	 * @return value of v0 to v4 at the given position
+	 */
+	private static double select(int position, double v0, double v1, double v2, double v3, double v4) {
+		switch (position) {
+		case 0:  return v0;
+		case 1:  return v1;
+		case 2:  return v2;
+		case 3:  return v3;
+		default: return v4;
+		}
+	}
+	
+	/**
+	 * Evaluates the cubic along angle of a column of a {@link InterpolationType#BICUBIC} table
+	 * 
+	 * @param coefficients
+	 * @param offset index in coefficients of the cubic's constant term
+	 * @param t normalized angle within the cell
+	 * @return interpolated value
+	 */
+	private static double evaluateCubic(double[] coefficients, int offset, double t) {
+		return ((coefficients[offset + 3] * t + coefficients[offset + 2]) * t + coefficients[offset + 1]) * t + coefficients[offset];
+	}
+	
 	/**
+	 * @param coefficients
+	 * @param offset index in coefficients of the cubic's constant term
+	 * @param t normalized angle within the cell
+	 * @return derivative of the cubic along angle of a column of a {@link InterpolationType#BICUBIC} table with respect to t
+	 */
+	private static double differentiateCubic(double[] coefficients, int offset, double t) {
+		return (3 * coefficients[offset + 3] * t + 2 * coefficients[offset + 2]) * t + coefficients[offset + 1];
+	}
+	
+	/**
+	 * Calculates the rate of change of the slope found by {@link LookupTable#calculateSlope} as the values of the window change at 
+	 * the rates given. Every slope is linear in the values except Akima's weighted average, whose weights are absolute differences
+	 * 
+	 * @param x breakpoints
+	 * @param start index in x of the window's first breakpoint
+	 * @param window number of breakpoints in the window
+	 * @param position position within the window of the breakpoint to calculate the slope at
+	 * @param v values at the window's breakpoints
+	 * @param dv rates of change of the values
+	 * @return rate of change of the slope at x[start + position]
+	 */
+	private static double differentiateSlope(double[] x, int start, int window, int position, double[] v, double[] dv) {
+		if (window != AKIMA_POINTS || position != 2)
+			return calculateSlope(x, start, window, position, dv[0], dv[1], dv[2], dv[3], dv[4]);
+		
+		final double x1 = x[start + 1], x2 = x[start + 2], x3 = x[start + 3];
+		final double h0 = x1 - x[start], h1 = x2 - x1, h2 = x3 - x2, h3 = x[start + 4] - x3;
+		
+		final double differenceMinus2 = (v[1] - v[0]) / h0, rateMinus2 = (dv[1] - dv[0]) / h0;
+		final double differenceMinus1 = (v[2] - v[1]) / h1, rateMinus1 = (dv[2] - dv[1]) / h1;
+		final double difference 	  = (v[3] - v[2]) / h2, rate 	   = (dv[3] - dv[2]) / h2;
+		final double differencePlus1  = (v[4] - v[3]) / h3, ratePlus1  = (dv[4] - dv[3]) / h3;
+		
+		final double weightMinus = Math.abs(differenceMinus1 - differenceMinus2);
+		final double weightPlus  = Math.abs(differencePlus1 - difference);
+		
+		if (weightPlus == 0.0 && weightMinus == 0.0)
+			return ((h2 * rateMinus1) + (h1 * rate)) / (x3 - x1);
+		
+		final double weightMinusRate = Math.signum(differenceMinus1 - differenceMinus2) * (rateMinus1 - rateMinus2);
+		final double weightPlusRate  = Math.signum(differencePlus1 - difference) * (ratePlus1 - rate);
+		
+		final double weights = weightPlus + weightMinus;
+		final double slope = ((weightPlus * differenceMinus1) + (weightMinus * difference)) / weights;
+		
+		return (weightPlusRate * differenceMinus1 + weightPlus * rateMinus1 + weightMinusRate * difference + weightMinus * rate 
+				- slope * (weightPlusRate + weightMinusRate)) / weights;
+	}
+	
+	/**
+	 * Finds the index i of the cell that x lies in, such that breakPoints[i] <= x < breakPoints[i+1], by hunting 
+	 * outwards from the cell found in the previous search, and then bisecting. Values outside of the breakpoints return 
+	 * the first or last cell 
+	 * 
+	 * @param breakPoints
+	 * @param x
+	 * @param lastIndex cell found in the previous search
+	 * @return index of cell
+	 */
+	static int huntIndex(double[] breakPoints, double x, int lastIndex) {
+		final int lastCell = breakPoints.length - 2;
+		
+		if (lastCell <= 0)
+			return 0;
+		
+		int low  = (lastIndex < 0 || lastIndex > lastCell) ? 0 : lastIndex;
+		int high;
+		
+		if (x >= breakPoints[low]) {
+			if (low == lastCell || x < breakPoints[low + 1])
+				return low;
+			
+			// Hunt up with increasing step size until x is bracketed
+			int step = 1;
+			high = low + 1;
+			while (high <= lastCell && x >= breakPoints[high]) {
+				low = high;
+				step <<= 1;
+				high = low + step;
+			}
+			if (high > lastCell)
+				high = lastCell + 1;
+		} else {
+			if (low == 0)
+				return 0;
+			
+			// Hunt down with increasing step size until x is bracketed
+			int step = 1;
+			high = low;
+			low = high - 1;
+			while (low > 0 && x < breakPoints[low]) {
+				high = low;
+				step <<= 1;
+				low = high - step;
+			}
+			if (low < 0)
+				low = 0;
+		}
+		
+		// Bisect until breakPoints[low] <= x < breakPoints[high], high = low + 1
+		while (high - low > 1) {
+			int middle = (low + high) >>> 1;
+			if (x >= breakPoints[middle])
+				low = middle;
+			else
+				high = middle;
+		}
+		
+		return Math.min(low, lastCell);
+	}
+	
+	/**
+	 * Interpolates the table at the current flight condition. Two dimensional tables use the {@link TableAxis#ALPHA} and 
+	 * {@link TableAxis#FLAP} values of the point
+	 * 
+	 * @param point flight condition to interpolate at
+	 * @return an interpolated value if the table has interpolation arrays, otherwise returns a constant value
+	 */
+	public double interpolate(TablePoint point) {
+		final TableGrid grid = this.grid;
+		
+		if (grid != null)
+			return grid.interpolate(point);
+		
+		return interpolate(point.values[TableAxis.ALPHA.ordinal()], point.values[TableAxis.FLAP.ordinal()], null);
+	}
+	
+	/**
+	 * Interpolates the table at the current flight condition, along with its exact partial derivatives with respect to each 
+	 * {@link TableAxis}. Outside of a table that is not extrapolated, the value is held constant, so its derivative there is zero
+	 * 
+	 * @param point flight condition to interpolate at
+	 * @param gradient array indexed by {@link TableAxis} ordinal to write partial derivatives into; zero for conditions the table does not depend on
+	 * @return an interpolated value if the table has interpolation arrays, otherwise returns a constant value
+	 */
+	public double interpolate(TablePoint point, double[] gradient) {
+		Arrays.fill(gradient, 0.0);
+		
+		final TableGrid grid = this.grid;
+		
+		if (grid != null)
+			return grid.interpolate(point, gradient);
+		
+		return interpolate(point.values[TableAxis.ALPHA.ordinal()], point.values[TableAxis.FLAP.ordinal()], gradient);
+	}
+	
+	/**
+	 * @param angle
+	 * @param flap
+	 * @return an interpolated value if the table has interpolation arrays, otherwise returns a constant value. 
+	 * Tables defined by axes are interpolated with all flight conditions other than angle of attack and flap deflection set to 0
+	 */
+	public double interpolate(double angle, double flap) {
+		if (grid != null)
+			return grid.interpolate(new TablePoint().set(TableAxis.ALPHA, angle).set(TableAxis.FLAP, flap));
+		
+		return interpolate(angle, flap, null);
+	}
+	
+	/**
+	 * Interpolates a table defined by angle and flap breakpoints, and optionally its partial derivatives
+	 * 
 	 * @param angle
 	 * @param flap
-	 * @return an interpolated Double value if an interpolating function has been initialized, otherwise returns a constant value
+	 * @param gradient array indexed by {@link TableAxis} ordinal to write the partial derivatives with respect to angle and flap 
+	 * into, or null if they are not needed
+	 * @return interpolated value
 	 */
-	public Double interpolate(double angle, double flap) {	
-		Double interp = value;
+	private double interpolate(double angle, double flap, double[] gradient) {	
+		final double[] coefficients = this.coefficients;
 		
-		if (pbsif != null)
-			interp = pbsif.value(angle, flap);
+		if (coefficients == null) {
+			if (value == null) {
+				logger.error("Null value encountered in interpolation of " + name + "! Returning 0...");			
+				return 0.0;
+			}
+			return value;
+		}
+		
+		final double[] breakPointAngle = this.breakPointAngle;
+		final double[] breakPointFlap  = this.breakPointFlap;
+		final int nAngle = breakPointAngle.length;
+		final int nFlap  = breakPointFlap.length;
+		
+		boolean angleClamped = false, flapClamped = false;
+		if (extrapolation != Extrapolation.EXTRAPOLATE) {
+			angleClamped = angle < breakPointAngle[0] || angle > breakPointAngle[nAngle - 1];
+			flapClamped  = flap  < breakPointFlap[0]  || flap  > breakPointFlap[nFlap - 1];
+			
+			angle = (angle < breakPointAngle[0]) ? breakPointAngle[0] : (angle > breakPointAngle[nAngle - 1]) ? breakPointAngle[nAngle - 1] : angle;
+			flap  = (flap  < breakPointFlap[0])  ? breakPointFlap[0]  : (flap  > breakPointFlap[nFlap - 1])   ? breakPointFlap[nFlap - 1]   : flap;
+		}
+		
+		final int i = huntIndex(breakPointAngle, angle, lastAngleIndex);
+		final int j = huntIndex(breakPointFlap, flap, lastFlapIndex);
+		lastAngleIndex = i;
+		lastFlapIndex  = j;
+		
+		// Normalized coordinates within the cell
+		final double t = (nAngle > 1) ? (angle - breakPointAngle[i]) / (breakPointAngle[i + 1] - breakPointAngle[i]) : 0;
+		final double u = (nFlap > 1)  ? (flap - breakPointFlap[j])   / (breakPointFlap[j + 1] - breakPointFlap[j])   : 0;
+		
+		// Derivatives of the normalized coordinates with respect to angle and flap
+		final double dtdAngle = (nAngle > 1 && !angleClamped) ? 1 / (breakPointAngle[i + 1] - breakPointAngle[i]) : 0;
+		final double dudFlap  = (nFlap > 1 && !flapClamped)   ? 1 / (breakPointFlap[j + 1] - breakPointFlap[j])   : 0;
+		
+		if (!bicubic) {
+			final int offset = (i * Math.max(nFlap - 1, 1) + j) * 4;
+			
+			if (gradient != null) {
+				gradient[TableAxis.ALPHA.ordinal()] = (coefficients[offset + 1] + coefficients[offset + 3] * u) * dtdAngle;
+				gradient[TableAxis.FLAP.ordinal()]  = (coefficients[offset + 2] + coefficients[offset + 3] * t) * dudFlap;
+			}
+			
+			return coefficients[offset] + coefficients[offset + 1] * t + (coefficients[offset + 2] + coefficients[offset + 3] * t) * u;
+		}
+		
+		// Interpolate along angle the columns in the window of flap breakpoints around the cell...
+		final int window = Math.min(nFlap, AKIMA_POINTS);
+		final int start  = Math.min(Math.max(j - 1, 0), nFlap - window);
+		final int offset = (i * nFlap + start) * 4;
+		
+		final double v0 = evaluateCubic(coefficients, offset, t);
+		if (nFlap == 1) {
+			if (gradient != null)
+				gradient[TableAxis.ALPHA.ordinal()] = differentiateCubic(coefficients, offset, t) * dtdAngle;
+			
+			return v0;
+		}
+		
+		final double v1 = evaluateCubic(coefficients, offset + 4, t);
+		final double v2 = (window > 2) ? evaluateCubic(coefficients, offset + 8, t)  : 0;
+		final double v3 = (window > 3) ? evaluateCubic(coefficients, offset + 12, t) : 0;
+		final double v4 = (window > 4) ? evaluateCubic(coefficients, offset + 16, t) : 0;
+		
+		// ...then interpolate along flap with the Akima spline through them
+		final int position = j - start;
+		final double h  = breakPointFlap[j + 1] - breakPointFlap[j];
+		final double y0 = select(position, v0, v1, v2, v3, v4);
+		final double y1 = select(position + 1, v0, v1, v2, v3, v4);
+		final double d0 = calculateSlope(breakPointFlap, start, window, position, v0, v1, v2, v3, v4) * h;
+		final double d1 = calculateSlope(breakPointFlap, start, window, position + 1, v0, v1, v2, v3, v4) * h;
 		
-		if (interp == null) {
-			logger.error("Null value encountered in interpolation of " + name + "! Returning 0...");			
-			interp = 0.0;
+		if (gradient != null) {
+			gradient[TableAxis.FLAP.ordinal()] = ((3 * (2 * (y0 - y1) + d0 + d1) * u + 2 * (3 * (y1 - y0) - 2 * d0 - d1)) * u + d0) * dudFlap;
+			
+			// The spline along flap is linear in its values and slopes, whose derivatives along angle follow from those of the columns
+			double[] v  = {v0, v1, v2, v3, v4};
+			double[] dv = new double[AKIMA_POINTS];
+			for (int k = 0; k < window; k++)
+				dv[k] = differentiateCubic(coefficients, offset + 4 * k, t);
+			
+			final double dy0 = dv[position], dy1 = dv[position + 1];
+			final double dd0 = differentiateSlope(breakPointFlap, start, window, position, v, dv) * h;
+			final double dd1 = differentiateSlope(breakPointFlap, start, window, position + 1, v, dv) * h;
+			
+			gradient[TableAxis.ALPHA.ordinal()] = (((((2 * (dy0 - dy1) + dd0 + dd1) * u) + (3 * (dy1 - dy0) - 2 * dd0 - dd1)) * u + dd0) * u + dy0) 
+												  * dtdAngle;
 		}
 		
-		return interp;
+		return ((((2 * (y0 - y1) + d0 + d1) * u) + (3 * (y1 - y0) - 2 * d0 - d1)) * u + d0) * u + y0;
 	}
 		
 	public String getName() { return name; }
@@ -128,13 +668,72 @@ public class LookupTable {
 
 	public double[] getBreakPointFlap() { return breakPointFlap; }
 
-	public void setBreakPointFlap(double[] breakPointFlap) { this.breakPointFlap = breakPointFlap; }
+	public void setBreakPointFlap(double[] breakPointFlap) { 
+		this.breakPointFlap = breakPointFlap;
+		calculateCoefficients();
+	}
 
 	public double[] getBreakPointAngle() { return breakPointAngle; }
 
-	public void setBreakPointAngle(double[] breakPointAngle) { this.breakPointAngle = breakPointAngle; }
+	public void setBreakPointAngle(double[] breakPointAngle) { 
+		this.breakPointAngle = breakPointAngle;
+		calculateCoefficients();
+	}
 
 	public double[][] getLookupValues() { return lookupValues; }
 
-	public void setLookupValues(double[][] lookUpValues) { this.lookupValues = lookUpValues; }	
+	public void setLookupValues(double[][] lookUpValues) { 
+		this.lookupValues = lookUpValues;
+		calculateCoefficients();
+	}
+	
+	/**
+	 * @return method of interpolation used by this table; null if not specified, in which case {@link InterpolationType#BICUBIC} is used
+	 */
+	public InterpolationType getInterpolationType() { return interpolationType; }
+	
+	public void setInterpolationType(InterpolationType interpolationType) { 
+		this.interpolationType = interpolationType;
+		calculateCoefficients();
+	}
+	
+	/**
+	 * @return handling of values outside of this table's breakpoints; null if not specified, in which case {@link Extrapolation#CLAMP} is used
+	 */
+	public Extrapolation getExtrapolation() { return extrapolation; }
+	
+	public void setExtrapolation(Extrapolation extrapolation) { 
+		this.extrapolation = extrapolation;
+		calculateCoefficients();
+	}
+	
+	/**
+	 * @return flight condition that each dimension of an N-dimensional table is indexed by
+	 */
+	public TableAxis[] getAxes() { return axes; }
+	
+	public void setAxes(TableAxis[] axes) {
+		this.axes = axes;
+		calculateCoefficients();
+	}
+	
+	/**
+	 * @return breakpoints of each axis of an N-dimensional table
+	 */
+	public double[][] getBreakPoints() { return breakPoints; }
+	
+	public void setBreakPoints(double[][] breakPoints) {
+		this.breakPoints = breakPoints;
+		calculateCoefficients();
+	}
+	
+	/**
+	 * @return values of an N-dimensional table in row-major order
+	 */
+	public double[] getTableValues() { return tableValues; }
+	
+	public void setTableValues(double[] tableValues) {
+		this.tableValues = tableValues;
+		calculateCoefficients();
+	}
 }
@@ -0,0 +1,47 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.aircraft;
+
+/**
+ * Provides Enums to identify the flight condition that each axis of an N-dimensional {@link LookupTable} is indexed by. 
+ * {@link Aerodynamics} sets the value of each in a {@link TablePoint} to the current flight condition, which is then passed 
+ * to {@link LookupTable#interpolate(TablePoint)}:
+ * 
+ *	<p>ALPHA - angle of attack (rad)</p>
+ *	<p>BETA - sideslip angle (rad)</p>
+ *	<p>FLAP - flap deflection (rad)</p>
+ *	<p>GEAR - landing gear position (0 retracted to 1 extended)</p>
+ *	<p>MACH - Mach number</p>
+ *	<p>HEIGHT_AGL - height above ground level (ft)</p>
+ */
+public enum TableAxis {
+	ALPHA 	   ("Alpha"),
+	BETA 	   ("Beta"),
+	FLAP 	   ("Flap"),
+	GEAR 	   ("Gear"),
+	MACH 	   ("Mach"),
+	HEIGHT_AGL ("Height AGL");
+	
+	private final String tableAxis;
+	
+	TableAxis(String tableAxis) {this.tableAxis = tableAxis;}
+	
+	public String toString() {return tableAxis;}
+}
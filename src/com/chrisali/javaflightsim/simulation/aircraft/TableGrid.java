@@ -0,0 +1,346 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.aircraft;
+
+/**
+ * Interpolation engine of an N-dimensional {@link LookupTable}. Values are stored in a single flat array in row-major order,
+ * where the last axis varies fastest, and are addressed with the stride of each axis. 
+ * 
+ * <p>Interpolation is done as a weighted sum of the values at the breakpoints surrounding a point. The weight of each breakpoint 
+ * is a polynomial in the point's normalized position within its cell along each axis, whose coefficients are calculated for 
+ * every cell when the grid is created; {@link InterpolationType#LINEAR} uses the two breakpoints of the cell, and 
+ * {@link InterpolationType#BICUBIC} a cubic Hermite polynomial through the four breakpoints around the cell, with slopes 
+ * from three point differences. Along each axis, the cell is found by a hunt search starting from the cell found in the 
+ * previous call, so the cost of finding it does not grow with the size of the table</p>
+ * 
+ * <p>The weights being summed are held in the caller's {@link TablePoint}, so interpolation does not allocate, and a grid can be 
+ * shared by simulations running in parallel</p>
+ * 
+ * @author Christopher Ali
+ *
+ * @see LookupTable
+ */
+final class TableGrid {
+	
+	private final int[] axes;
+	
+	private final double[][] breakPoints;
+	
+	private final double[] values;
+	
+	private final int[] strides;
+	
+	private final boolean extrapolate;
+	
+	// Number of breakpoints weighted along each axis, and the first of them for each cell
+	private final int[] windowSizes;
+	
+	private final int[][] windowStarts;
+	
+	// Coefficients of the weight polynomials along each axis, stored by [axis][cell][breakpoint in window][power of t]
+	private final double[][] weightCoefficients;
+	
+	// For each combination of the breakpoints weighted along all but the last axis, offset in values from the first 
+	// breakpoint of each window, and index in TablePoint's weights of the weight of the breakpoint along each axis
+	private final int[] combinationOffsets;
+	
+	private final int[] combinationWeights;
+	
+	// Cells found in the previous call; only used as starting points of the hunt search, so a stale 
+	// value written by another thread only costs a longer search
+	private final int[] lastIndices;
+	
+	/**
+	 * Creates a grid for interpolation of an N-dimensional table
+	 * 
+	 * @param axes flight condition that each dimension of the table is indexed by
+	 * @param breakPoints strictly increasing breakpoints of each axis
+	 * @param values values at each combination of breakpoints, in row-major order
+	 * @param interpolationType method of interpolation; bicubic if null
+	 * @param extrapolation handling of values outside of the table; clamped if null
+	 * @throws IllegalArgumentException if the breakpoints and values do not describe a valid table
+	 */
+	TableGrid(TableAxis[] axes, double[][] breakPoints, double[] values, InterpolationType interpolationType, Extrapolation extrapolation) {
+		final int dimensions = axes.length;
+		
+		if (dimensions == 0)
+			throw new IllegalArgumentException("A table needs at least one axis");
+		
+		if (breakPoints == null || breakPoints.length != dimensions)
+			throw new IllegalArgumentException("A table with " + dimensions + " axes needs " + dimensions + " arrays of breakpoints");
+		
+		for (int d = 0; d < dimensions; d++) {
+			if (axes[d] == null)
+				throw new IllegalArgumentException("Each axis of a table must have a flight condition");
+			
+			for (int e = 0; e < d; e++) {
+				if (axes[d] == axes[e])
+					throw new IllegalArgumentException("Each axis of a table must be a different flight condition");
+			}
+		}
+		
+		this.axes = new int[dimensions];
+		this.breakPoints = breakPoints;
+		this.values = values;
+		this.strides = new int[dimensions];
+		this.extrapolate = extrapolation == Extrapolation.EXTRAPOLATE;
+		this.windowSizes = new int[dimensions];
+		this.windowStarts = new int[dimensions][];
+		this.weightCoefficients = new double[dimensions][];
+		this.lastIndices = new int[dimensions];
+		
+		int size = 1;
+		for (int d = dimensions - 1; d >= 0; d--) {
+			double[] axisBreakPoints = breakPoints[d];
+			
+			if (axisBreakPoints == null || axisBreakPoints.length == 0)
+				throw new IllegalArgumentException("Axis " + axes[d] + " has no breakpoints");
+			
+			for (int i = 1; i < axisBreakPoints.length; i++) {
+				if (axisBreakPoints[i] <= axisBreakPoints[i - 1])
+					throw new IllegalArgumentException("Breakpoints of axis " + axes[d] + " must be strictly increasing");
+			}
+			
+			this.axes[d] = axes[d].ordinal();
+			strides[d] = size;
+			size *= axisBreakPoints.length;
+			
+			calculateWeightCoefficients(d, interpolationType != InterpolationType.LINEAR);
+		}
+		
+		if (values == null || values.length != size)
+			throw new IllegalArgumentException("Table needs " + size + " values for its breakpoints, but has " 
+											   + (values == null ? 0 : values.length));
+		
+		int combinations = 1;
+		for (int d = 0; d < dimensions - 1; d++)
+			combinations *= windowSizes[d];
+		
+		combinationOffsets = new int[combinations];
+		combinationWeights = new int[combinations * (dimensions - 1)];
+		
+		for (int c = 0; c < combinations; c++) {
+			// Breakpoint along each axis is a digit of the combination, with the first axis as its most significant digit
+			for (int d = dimensions - 2, remainder = c; d >= 0; d--) {
+				int k = remainder % windowSizes[d];
+				remainder /= windowSizes[d];
+				
+				combinationOffsets[c] += k * strides[d];
+				combinationWeights[c * (dimensions - 1) + d] = d * 4 + k;
+			}
+		}
+	}
+	
+	/**
+	 * Calculates the breakpoints weighted for each cell of an axis, and the polynomial coefficients of their weights
+	 * 
+	 * @param d index of axis
+	 * @param cubic if cubic Hermite weights should be used, otherwise linear
+	 */
+	private void calculateWeightCoefficients(int d, boolean cubic) {
+		final double[] x = breakPoints[d];
+		final int n = x.length;
+		final int cells = Math.max(n - 1, 1);
+		final int window = (n == 1) ? 1 : (cubic && n > 2) ? Math.min(n, 4) : 2;
+		
+		windowSizes[d] = window;
+		windowStarts[d] = new int[cells];
+		weightCoefficients[d] = new double[cells * window * 4];
+		
+		// Hermite basis polynomials in t for the value and scaled slope at each end of a cell
+		final double[] h00 = {1, 0, -3,  2};
+		final double[] h10 = {0, 1, -2,  1};
+		final double[] h01 = {0, 0,  3, -2};
+		final double[] h11 = {0, 0, -1,  1};
+		
+		for (int i = 0; i < cells; i++) {
+			final int start = (window == 4) ? Math.min(Math.max(i - 1, 0), n - 4) : (window == 3) ? 0 : i;
+			final int offset = i * window * 4;
+			
+			windowStarts[d][i] = start;
+			
+			if (window == 1) {
+				weightCoefficients[d][offset] = 1;
+				continue;
+			} else if (window == 2) {
+				weightCoefficients[d][offset] 	  =  1;
+				weightCoefficients[d][offset + 1] = -1;
+				weightCoefficients[d][offset + 5] =  1;
+				continue;
+			}
+			
+			final double h = x[i + 1] - x[i];
+			
+			for (int k = 0; k < window; k++) {
+				final int j = start + k;
+				final double slope0 = slopeWeight(x, i, j) * h;
+				final double slope1 = slopeWeight(x, i + 1, j) * h;
+				
+				for (int p = 0; p < 4; p++) {
+					weightCoefficients[d][offset + k * 4 + p] = (j == i ? h00[p] : 0) + (j == i + 1 ? h01[p] : 0) 
+															  + slope0 * h10[p] + slope1 * h11[p];
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Calculates the weight of the value at breakpoint j in the slope at breakpoint k, where the slope is the derivative of 
+	 * the parabola through breakpoint k and its neighbors, or the three breakpoints at the end of the axis
+	 * 
+	 * @param x breakpoints
+	 * @param k breakpoint to calculate the slope at
+	 * @param j breakpoint whose value is weighted
+	 * @return weight of value j 
+	 */
+	private static double slopeWeight(double[] x, int k, int j) {
+		final int a = Math.min(Math.max(k - 1, 0), x.length - 3);
+		
+		if (j < a || j > a + 2)
+			return 0;
+		
+		// Derivative of the Lagrange polynomial of breakpoint j, evaluated at breakpoint k
+		double xj = x[j], numerator = 0, denominator = 1;
+		for (int m = a; m <= a + 2; m++) {
+			if (m == j)
+				continue;
+			numerator += x[k] - x[m];
+			denominator *= xj - x[m];
+		}
+		
+		return numerator / denominator;
+	}
+	
+	/**
+	 * @param point flight condition to interpolate at
+	 * @return interpolated value
+	 */
+	double interpolate(TablePoint point) {
+		weigh(point, false);
+		
+		return sum(point, point.weights);
+	}
+	
+	/**
+	 * Interpolates a value and its partial derivatives with respect to each axis. The derivative along an axis is the sum of the 
+	 * values weighted as usual along every other axis, but by the derivatives of their weights along it; it is zero outside of a 
+	 * table that is not extrapolated, where the value is held constant
+	 * 
+	 * @param point flight condition to interpolate at
+	 * @param gradient array indexed by {@link TableAxis} ordinal to write partial derivatives into; axes not in the table are left unchanged
+	 * @return interpolated value
+	 */
+	double interpolate(TablePoint point, double[] gradient) {
+		weigh(point, true);
+		
+		final double[] weights = point.weights;
+		final double[] slopeWeights = point.slopeWeights;
+		
+		for (int d = 0; d < axes.length; d++) {
+			System.arraycopy(weights, 0, slopeWeights, 0, weights.length);
+			System.arraycopy(point.slopes, d * 4, slopeWeights, d * 4, 4);
+			
+			gradient[axes[d]] = sum(point, slopeWeights);
+		}
+		
+		return sum(point, weights);
+	}
+	
+	/**
+	 * Finds the cell of each axis that a point lies in, and the weights of the breakpoints around it
+	 * 
+	 * @param point flight condition to interpolate at
+	 * @param differentiate if the derivatives of the weights should be found as well
+	 */
+	private void weigh(TablePoint point, boolean differentiate) {
+		final double[] values = point.values;
+		final int[] starts = point.starts;
+		final double[] weights = point.weights;
+		final double[] slopes = point.slopes;
+		
+		for (int d = 0; d < axes.length; d++) {
+			final double[] x = breakPoints[d];
+			final int n = x.length;
+			
+			double value = values[axes[d]];
+			final boolean clamped = !extrapolate && (value < x[0] || value > x[n - 1]);
+			if (clamped)
+				value = (value < x[0]) ? x[0] : x[n - 1];
+			
+			final int i = LookupTable.huntIndex(x, value, lastIndices[d]);
+			lastIndices[d] = i;
+			
+			final double t = (n > 1) ? (value - x[i]) / (x[i + 1] - x[i]) : 0;
+			final double[] coefficients = weightCoefficients[d];
+			final int window = windowSizes[d];
+			
+			starts[d] = windowStarts[d][i];
+			
+			for (int k = 0, offset = i * window * 4; k < window; k++, offset += 4)
+				weights[d * 4 + k] = ((coefficients[offset + 3] * t + coefficients[offset + 2]) * t + coefficients[offset + 1]) * t + coefficients[offset];
+			
+			if (!differentiate)
+				continue;
+			
+			// Chain rule through the normalized position within the cell
+			final double dtdx = (n > 1 && !clamped) ? 1 / (x[i + 1] - x[i]) : 0;
+			for (int k = 0, offset = i * window * 4; k < window; k++, offset += 4)
+				slopes[d * 4 + k] = ((3 * coefficients[offset + 3] * t + 2 * coefficients[offset + 2]) * t + coefficients[offset + 1]) * dtdx;
+		}
+	}
+	
+	/**
+	 * Sums the weighted values of the breakpoints around a point. Each combination of the breakpoints weighted along all but
+	 * the last axis is weighted by the product of their weights, and the breakpoints along the last axis, which are contiguous 
+	 * in values, are summed in an inner loop
+	 * 
+	 * @param point holding the first breakpoint weighted along each axis
+	 * @param weights weight of each breakpoint along each axis
+	 * @return weighted sum of values
+	 */
+	private double sum(TablePoint point, double[] weights) {
+		final int[] starts = point.starts;
+		final int dimensions = axes.length;
+		final int last = dimensions - 1;
+		final int lastWindow = windowSizes[last];
+		final int lastWeights = last * 4;
+		
+		int base = starts[last];
+		for (int d = 0; d < last; d++)
+			base += starts[d] * strides[d];
+		
+		double sum = 0;
+		for (int c = 0, w = 0; c < combinationOffsets.length; c++, w += last) {
+			double weight = 1.0;
+			for (int d = 0; d < last; d++)
+				weight *= weights[combinationWeights[w + d]];
+			
+			final int offset = base + combinationOffsets[c];
+			
+			double lastSum = 0;
+			for (int k = 0; k < lastWindow; k++)
+				lastSum += weights[lastWeights + k] * values[offset + k];
+			
+			sum += weight * lastSum;
+		}
+		
+		return sum;
+	}
+}
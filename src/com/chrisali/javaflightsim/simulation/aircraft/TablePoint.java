@@ -0,0 +1,63 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.aircraft;
+
+/**
+ * Flight condition at which {@link LookupTable} objects are interpolated, holding a value for each {@link TableAxis}. 
+ * Also holds the weights and breakpoints that a {@link TableGrid} sums while interpolating an N-dimensional table,
+ * so that interpolation does not allocate. A TablePoint is owned by its caller and reused on every step, like 
+ * {@link AeroState}; each thread interpolating tables needs its own
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class TablePoint {
+	
+	private static final int AXES = TableAxis.values().length;
+	
+	final double[] values = new double[AXES];
+	
+	// First breakpoint weighted and weights of up to four breakpoints along each axis
+	final int[] starts 	   = new int[AXES];
+	final double[] weights = new double[AXES * 4];
+	
+	// Derivatives of the weights with respect to each axis, and the weights summed to find the derivative along one of them
+	final double[] slopes 		= new double[AXES * 4];
+	final double[] slopeWeights = new double[AXES * 4];
+	
+	/**
+	 * @param axis
+	 * @return value of the flight condition for the specified axis
+	 */
+	public double get(TableAxis axis) { return values[axis.ordinal()]; }
+	
+	/**
+	 * Sets the value of the flight condition for the specified axis
+	 * 
+	 * @param axis
+	 * @param value
+	 * @return this TablePoint
+	 */
+	public TablePoint set(TableAxis axis, double value) {
+		values[axis.ordinal()] = value;
+		
+		return this;
+	}
+}
@@ -19,10 +19,6 @@
  ******************************************************************************/
 package com.chrisali.javaflightsim.simulation.datatransfer;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.EnumMap;
-import java.util.List;
 import java.util.Map;
 
 import org.apache.logging.log4j.LogManager;
@@ -31,20 +27,26 @@ import org.apache.logging.log4j.Logger;
 import com.chrisali.javaflightsim.interfaces.OTWWorld;
 import com.chrisali.javaflightsim.interfaces.Steppable;
 import com.chrisali.javaflightsim.lwjgl.LWJGLWorld;
+import com.chrisali.javaflightsim.simulation.RateGroup;
 import com.chrisali.javaflightsim.simulation.integration.Integrate6DOFEquations;
 
 /**
  *	Interacts with {@link LWJGLWorld} and any registered listeners to pass data from the out the window display back to
- *	the simulation {@link Integrate6DOFEquations}. Uses threading to obtain data at a reasonable rate
+ *	the simulation {@link Integrate6DOFEquations}. Each step publishes the environment data once to a {@link FanOutBuffer}, 
+ *	which calls every listener on its own thread
  */
 public class EnvironmentData implements Steppable {
 	
 	private static final Logger logger = LogManager.getLogger(EnvironmentData.class);
 	
-	private Map<EnvironmentDataType, Double> environmentData = Collections.synchronizedMap(new EnumMap<EnvironmentDataType, Double>(EnvironmentDataType.class));
+	private static final int BUFFER_CAPACITY = 16;
+	
+	private FanOutBuffer<EnvironmentDataType> environmentData = new FanOutBuffer<>(EnvironmentDataType.class, BUFFER_CAPACITY);
+	
+	// Reused to publish each step
+	private double[] values = new double[EnvironmentDataType.values().length];
 	
 	private OTWWorld outTheWindow;
-	private List<EnvironmentDataListener> dataListenerList;
 	
 	/**
 	 * Creates an instance of {@link EnvironmentData} with a reference to {@link LWJGLWorld} so
@@ -54,27 +56,31 @@ public class EnvironmentData implements Steppable {
 	 */
 	public EnvironmentData(OTWWorld outTheWindow) {
 		this.outTheWindow = outTheWindow;
-		this.dataListenerList = new ArrayList<>();
 	}
 	
-	public Map<EnvironmentDataType, Double> getEnvironmentData() { return environmentData; }
+	/**
+	 * @return a consistent copy of the latest environment data as an EnumMap
+	 */
+	public Map<EnvironmentDataType, Double> getEnvironmentData() { return environmentData.toMap(); }
 	
 	/**
-	 * Polls simOut for data, and assigns and converts the values needed to the flightData EnumMap  
+	 * @return lock-free buffer of environment data events, indexed by {@link EnvironmentDataType} ordinal
+	 */
+	public FanOutBuffer<EnvironmentDataType> getEnvironmentDataBuffer() { return environmentData; }
+	
+	/**
+	 * Publishes the terrain height below the ownship to the environmentData buffer for listeners to pick up  
 	 * 
-	 * @param simOut
+	 * @param terrainHeight
 	 */
 	public void updateData(float terrainHeight) {
-		synchronized (environmentData) {
-			environmentData.put(EnvironmentDataType.TERRAIN_HEIGHT, (double) terrainHeight);
-		}
-		
-		fireDataArrived();
+		values[EnvironmentDataType.TERRAIN_HEIGHT.ordinal()] = terrainHeight;
+		environmentData.publish(values);
 	}
 		
 	@Override
-	public boolean canStepNow(int simTimeMS) {
-		return simTimeMS % 1 == 0;
+	public RateGroup getRateGroup() {
+		return RateGroup.ENVIRONMENT;
 	}
 
 	@Override
@@ -88,32 +94,32 @@ public class EnvironmentData implements Steppable {
 	}
 	
 	/**
-	 * Adds a listener that implements {@link EnvironmentDataListener} to a list of listeners that can listen
-	 * to {@link NewEnvironmentData} 
+	 * Adds a listener that implements {@link EnvironmentDataListener}, called on its own thread with the latest environment 
+	 * data at up to the {@link RateGroup#ENVIRONMENT} rate
 	 * 
 	 * @param dataListener
 	 */
 	public void addEnvironmentDataListener(EnvironmentDataListener dataListener) {
+		if (dataListener == null)
+			return;
+		
 		logger.debug("Adding environment data listener: " + dataListener.getClass());
-		dataListenerList.add(dataListener);
+		environmentData.addConsumer("Environment Data: " + dataListener.getClass().getSimpleName(), RateGroup.ENVIRONMENT.getRateHz(), 
+									SlowConsumerPolicy.COALESCE, (sequence, event) -> dataListener.onEnvironmentDataReceived(event));
 	}
 	
 	/**
-	 * Lets registered listeners know that data has arrived from the {@link LWJGLWorld} thread
-	 * so that they can use it as needed
+	 * Stops the threads of every listener
 	 */
-	private void fireDataArrived() {
-		for (EnvironmentDataListener listener : dataListenerList) {
-			if(listener != null) 
-				listener.onEnvironmentDataReceived(this);
-		}
+	public void stop() {
+		environmentData.stop();
 	}
 
 	@Override
 	public String toString() {
 		StringBuilder sb = new StringBuilder();
 		
-		for (Map.Entry<EnvironmentDataType, Double> entry : environmentData.entrySet()) {
+		for (Map.Entry<EnvironmentDataType, Double> entry : environmentData.toMap().entrySet()) {
 			 sb.append(entry.getKey().toString()).append(": ").append(entry.getValue())
 			   .append(" ").append(entry.getKey().getUnit()).append("\n");
 		}
@@ -22,5 +22,9 @@ package com.chrisali.javaflightsim.simulation.datatransfer;
 import java.util.EventListener;
 
 public interface EnvironmentDataListener extends EventListener {
-	public void onEnvironmentDataReceived(EnvironmentData environmentData);
+	/**
+	 * @param environmentData values of the step delivered to this listener, indexed by {@link EnvironmentDataType} ordinal; only 
+	 * valid until this method returns
+	 */
+	public void onEnvironmentDataReceived(double[] environmentData);
 }
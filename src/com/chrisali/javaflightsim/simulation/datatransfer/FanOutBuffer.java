@@ -0,0 +1,300 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.datatransfer;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Lock-free ring buffer of events, each holding primitive double values indexed by the ordinals of an enum, that a single publisher 
+ * thread fans out to any number of consumers, in the style of the LMAX Disruptor. Each {@link Consumer} runs on its own thread and 
+ * tracks its own sequence in the ring, so that the publisher pays for a single publish however many consumers there are, and a 
+ * slow consumer never holds up the publisher or the other consumers.
+ * 
+ * <p>The publisher never waits on consumers; it claims the next sequence, writes its values into the slot that sequence maps to and 
+ * then advances the cursor. Consumers copy an event out of its slot and discard the copy if the publisher claimed the slot again 
+ * while they were copying. Each consumer runs at most at its maximum rate, and follows its {@link SlowConsumerPolicy} for events 
+ * it did not get to in time</p>
+ * 
+ * @author Christopher Ali
+ *
+ * @param <E> enum whose constants name the values of each event
+ */
+public class FanOutBuffer<E extends Enum<E>> {
+	
+	private static final Logger logger = LogManager.getLogger(FanOutBuffer.class);
+	
+	// Consumers without a maximum rate check for new events this often
+	private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+	
+	private final Class<E> keyType;
+	private final E[] keys;
+	private final int capacity;
+	private final int mask;
+	
+	// Values of every slot, stored as raw long bits so that every element is read and written atomically with the needed ordering 
+	private final AtomicLongArray values;
+	
+	// Sequence the publisher is writing or last wrote, and last sequence published to consumers 
+	private volatile long claimed = 0;
+	private volatile long cursor = 0;
+	
+	private final List<Consumer> consumers = new CopyOnWriteArrayList<>();
+	
+	/**
+	 * @param keyType enum class naming each value of an event
+	 * @param capacity number of events held in the ring; must be a power of two of at least 2
+	 */
+	public FanOutBuffer(Class<E> keyType, int capacity) {
+		if (capacity < 2 || Integer.bitCount(capacity) != 1)
+			throw new IllegalArgumentException("Capacity must be a power of two of at least 2!");
+		
+		this.keyType = keyType;
+		this.keys = keyType.getEnumConstants();
+		this.capacity = capacity;
+		this.mask = capacity - 1;
+		this.values = new AtomicLongArray(capacity * keys.length);
+	}
+	
+	/**
+	 * Publisher thread only; publishes a new event to consumers without blocking or allocating
+	 * 
+	 * @param source values indexed by ordinal, at least {@link #size()} long
+	 */
+	public void publish(double[] source) {
+		long sequence = cursor + 1;
+		claimed = sequence;
+		
+		int offset = (int) (sequence & mask) * keys.length;
+		for (int i = 0; i < keys.length; i++)
+			values.lazySet(offset + i, Double.doubleToRawLongBits(source[i]));
+		
+		cursor = sequence;
+	}
+	
+	/**
+	 * Copies the values of an event into destination
+	 * 
+	 * @param sequence
+	 * @param destination array indexed by ordinal, at least {@link #size()} long
+	 * @return if the event was still held in the ring after copying; false if the copy may be of a later event
+	 */
+	private boolean read(long sequence, double[] destination) {
+		int offset = (int) (sequence & mask) * keys.length;
+		for (int i = 0; i < keys.length; i++)
+			destination[i] = Double.longBitsToDouble(values.get(offset + i));
+		
+		return claimed - sequence < capacity;
+	}
+	
+	/**
+	 * Copies the latest event into destination, retrying if the publisher overwrites it while copying
+	 * 
+	 * @param destination array indexed by ordinal, at least {@link #size()} long
+	 * @return sequence of the event copied; 0 if nothing has been published yet
+	 */
+	public long readLatest(double[] destination) {
+		while (true) {
+			long latest = cursor;
+			
+			if (latest == 0 || read(latest, destination))
+				return latest;
+			
+			Thread.yield();
+		}
+	}
+	
+	/**
+	 * @return a copy of the latest event as a new EnumMap; empty if nothing has been published yet
+	 */
+	public Map<E, Double> toMap() {
+		double[] copy = new double[keys.length];
+		Map<E, Double> map = new EnumMap<>(keyType);
+		
+		if (readLatest(copy) == 0)
+			return map;
+		
+		for (E key : keys)
+			map.put(key, copy[key.ordinal()]);
+		
+		return map;
+	}
+	
+	/**
+	 * @return sequence of the latest event published; 0 if nothing has been published yet
+	 */
+	public long getCursor() { return cursor; }
+	
+	/**
+	 * @return number of events held in the ring
+	 */
+	public int getCapacity() { return capacity; }
+	
+	/**
+	 * @return number of values in each event
+	 */
+	public int size() { return keys.length; }
+	
+	/**
+	 * Registers handler to be called with events published from now on, and starts a daemon thread to call it on
+	 * 
+	 * @param name name of the consumer's thread
+	 * @param maxRateHz maximum rate (Hz) that the consumer runs at; 0 to run as soon as events are published 
+	 * @param policy what the consumer does with events it did not get to in time
+	 * @param handler
+	 * @return the running consumer
+	 */
+	public Consumer addConsumer(String name, double maxRateHz, SlowConsumerPolicy policy, FanOutHandler handler) {
+		Consumer consumer = new Consumer(maxRateHz, policy, handler);
+		consumers.add(consumer);
+		
+		Thread thread = new Thread(consumer, name);
+		thread.setDaemon(true);
+		thread.start();
+		
+		logger.debug("Started " + policy + " consumer " + name + " at " + ((maxRateHz > 0) ? maxRateHz + " Hz" : "full rate"));
+		
+		return consumer;
+	}
+	
+	/**
+	 * @return consumers registered with this buffer
+	 */
+	public List<Consumer> getConsumers() { return consumers; }
+	
+	/**
+	 * Stops every consumer after it finishes handling its current events
+	 */
+	public void stop() {
+		for (Consumer consumer : consumers)
+			consumer.stop();
+	}
+	
+	/**
+	 * Follows the events published to a {@link FanOutBuffer} with its own sequence, calling its {@link FanOutHandler} on its own thread
+	 */
+	public class Consumer implements Runnable {
+		
+		private final long periodNanos;
+		private final SlowConsumerPolicy policy;
+		private final FanOutHandler handler;
+		
+		// Reused to copy each event out of the ring
+		private final double[] event = new double[keys.length];
+		
+		// Last sequence this consumer handled or dropped
+		private volatile long sequence;
+		private volatile long delivered = 0;
+		private volatile long dropped = 0;
+		private volatile boolean running = true;
+		
+		private Consumer(double maxRateHz, SlowConsumerPolicy policy, FanOutHandler handler) {
+			this.periodNanos = (maxRateHz > 0) ? (long) (TimeUnit.SECONDS.toNanos(1) / maxRateHz) : 0;
+			this.policy = policy;
+			this.handler = handler;
+			this.sequence = cursor;
+		}
+		
+		@Override
+		public void run() {
+			long nextRunNanos = System.nanoTime();
+			
+			while (running) {
+				long waitNanos = nextRunNanos - System.nanoTime();
+				if (waitNanos > 0) {
+					LockSupport.parkNanos(waitNanos);
+					continue;
+				}
+				
+				if (cursor == sequence) {
+					LockSupport.parkNanos(IDLE_PARK_NANOS);
+					continue;
+				}
+				
+				// Events published before the next run are left to the policy, so that this consumer never exceeds its maximum rate
+				nextRunNanos = System.nanoTime() + periodNanos;
+				consume();
+			}
+		}
+		
+		/**
+		 * Handles events published since this consumer last ran according to its policy
+		 */
+		private void consume() {
+			long latest = cursor;
+			long next = sequence + 1;
+			
+			// Skip straight to the latest event, or past events that have already been overwritten
+			long first = (policy == SlowConsumerPolicy.COALESCE) ? latest : Math.max(next, claimed - capacity + 1);
+			long skipped = first - next;
+			
+			for (long s = first; s <= latest; s++) {
+				if (!read(s, event)) {
+					skipped++;
+					continue;
+				}
+				
+				try {
+					handler.onEvent(s, event);
+				} catch (Exception e) {
+					logger.error("Exception encountered while handling event " + s + "!", e);
+				}
+				delivered++;
+			}
+			
+			if (skipped > 0)
+				dropped += skipped;
+			sequence = latest;
+		}
+		
+		/**
+		 * Stops this consumer's thread after it finishes handling its current events
+		 */
+		public void stop() { running = false; }
+		
+		/**
+		 * @return last sequence this consumer handled or dropped
+		 */
+		public long getSequence() { return sequence; }
+		
+		/**
+		 * @return number of events handled
+		 */
+		public long getDelivered() { return delivered; }
+		
+		/**
+		 * @return number of events skipped, either coalesced or overwritten before they could be handled
+		 */
+		public long getDropped() { return dropped; }
+		
+		/**
+		 * @return what this consumer does with events it did not get to in time
+		 */
+		public SlowConsumerPolicy getPolicy() { return policy; }
+	}
+}
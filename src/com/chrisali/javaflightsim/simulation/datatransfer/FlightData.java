@@ -19,134 +19,120 @@
  ******************************************************************************/
 package com.chrisali.javaflightsim.simulation.datatransfer;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.EnumMap;
-import java.util.List;
 import java.util.Map;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import com.chrisali.javaflightsim.interfaces.Steppable;
+import com.chrisali.javaflightsim.simulation.RateGroup;
 import com.chrisali.javaflightsim.simulation.integration.Integrate6DOFEquations;
 import com.chrisali.javaflightsim.simulation.integration.SimOuts;
-import com.chrisali.javaflightsim.simulation.utilities.SixDOFUtilities;
 
 /**
  *	Interacts with {@link Integrate6DOFEquations} and any registered listeners to pass flight data from the simulation
- *	listeners. Uses threading to obtain data from the simulation at a reasonable rate
+ *	listeners. Each step publishes the converted flight data once to a {@link FanOutBuffer}, which calls every listener on
+ *	its own thread at its own rate, so that listeners never run inside the simulation loop
  */
 public class FlightData implements Steppable {
 	
 	private static final Logger logger = LogManager.getLogger(FlightData.class);
 	
-	private Map<FlightDataType, Double> flightData = Collections.synchronizedMap(new EnumMap<FlightDataType, Double>(FlightDataType.class));
+	// Enough steps for a consumer running at the display rate to fall a few frames behind
+	private static final int BUFFER_CAPACITY = 64;
 	
-	private Integrate6DOFEquations simulation;
-	private List<FlightDataListener> dataListenerList;
+	private FanOutBuffer<FlightDataType> flightData = new FanOutBuffer<>(FlightDataType.class, BUFFER_CAPACITY);
+	
+	// Reused to read and convert simOut on each step
+	private double[] simOut = new double[SimOuts.values().length];
+	private FlightDataSnapshot converted = new FlightDataSnapshot();
+	
+	private SeqLockBuffer<SimOuts> simOutBuffer;
 	
 	/**
-	 * Creates an instance of {@link FlightData} with a reference to {@link Integrate6DOFEquations} so
-	 * that the thread in this class knows when the simulation is running
+	 * Creates an instance of {@link FlightData} that reads simOut from a buffer published by {@link Integrate6DOFEquations}, 
+	 * or by a replay of a recorded flight
 	 * 
-	 * @param simulation
+	 * @param simOutBuffer
 	 */
-	public FlightData(Integrate6DOFEquations simulation) {
-		this.simulation = simulation;
-		this.dataListenerList = new ArrayList<>();
+	public FlightData(SeqLockBuffer<SimOuts> simOutBuffer) {
+		this.simOutBuffer = simOutBuffer;
 	}
 	
-	public Map<FlightDataType, Double> getFlightData() {return flightData;}
+	/**
+	 * @return a consistent copy of the latest flight data as an EnumMap
+	 */
+	public Map<FlightDataType, Double> getFlightData() {return flightData.toMap();}
 	
 	/**
-	 * Polls simOut for data, and assigns and converts the values needed to the flightData EnumMap  
+	 * @return lock-free buffer of flight data events, indexed by {@link FlightDataType} ordinal, that consumers needing every 
+	 * step can be added to directly
+	 */
+	public FanOutBuffer<FlightDataType> getFlightDataBuffer() {return flightData;}
+	
+	/**
+	 * Converts the values needed from simOut, and publishes them to the flightData buffer for listeners to pick up  
 	 * 
-	 * @param simOut
+	 * @param simOut simulation outputs indexed by {@link SimOuts} ordinal
 	 */
-	public void updateData(Map<SimOuts, Double> simOut) {
-		final Double TAS_TO_IAS = 1/(1+((simOut.get(SimOuts.ALT)/1000)*0.02));
-		
-		synchronized (flightData) {
-			flightData.put(FlightDataType.IAS, SixDOFUtilities.toKnots(simOut.get(SimOuts.TAS)*TAS_TO_IAS));
-			flightData.put(FlightDataType.TAS, SixDOFUtilities.toKnots(simOut.get(SimOuts.TAS)));
-			
-			flightData.put(FlightDataType.VERT_SPEED, simOut.get(SimOuts.ALT_DOT));
-			
-			flightData.put(FlightDataType.ALTITUDE, simOut.get(SimOuts.ALT));
-			
-			flightData.put(FlightDataType.ROLL, Math.toDegrees(simOut.get(SimOuts.PHI)));
-			flightData.put(FlightDataType.PITCH, Math.toDegrees(simOut.get(SimOuts.THETA)));
-			
-			flightData.put(FlightDataType.HEADING, Math.toDegrees(simOut.get(SimOuts.PSI)));
-			
-			flightData.put(FlightDataType.TURN_RATE, Math.toDegrees(simOut.get(SimOuts.PSI_DOT)));
-			flightData.put(FlightDataType.TURN_COORD, simOut.get(SimOuts.AN_Y));
-			
-			flightData.put(FlightDataType.GFORCE, simOut.get(SimOuts.AN_Z));
-			
-			flightData.put(FlightDataType.LATITUDE, Math.toDegrees(simOut.get(SimOuts.LAT)));
-			flightData.put(FlightDataType.LONGITUDE, Math.toDegrees(simOut.get(SimOuts.LON)));
-			
-			flightData.put(FlightDataType.NORTH, simOut.get(SimOuts.NORTH));
-			flightData.put(FlightDataType.EAST, simOut.get(SimOuts.EAST));
-			
-			flightData.put(FlightDataType.RPM_1, simOut.get(SimOuts.RPM_1));
-			flightData.put(FlightDataType.RPM_2, simOut.get(SimOuts.RPM_2));
-			
-			flightData.put(FlightDataType.GEAR, simOut.get(SimOuts.GEAR));
-			flightData.put(FlightDataType.FLAPS, Math.toDegrees(simOut.get(SimOuts.FLAPS)));
-			
-			flightData.put(FlightDataType.AOA, Math.abs(simOut.get(SimOuts.ALPHA)));
-			
-			flightData.put(FlightDataType.PITCH_RATE, Math.toDegrees(simOut.get(SimOuts.Q)));
-		}
-		
-		fireDataArrived();
+	public void updateData(double[] simOut) {
+		converted.update(simOut, System.nanoTime());
+		flightData.publish(converted.getValues());
 	}
 		
 	@Override
-	public boolean canStepNow(int simTimeMS) {
-		return simTimeMS % 1 == 0;
+	public RateGroup getRateGroup() {
+		return RateGroup.DISPLAY;
 	}
 
 	@Override
 	public void step() {
 		try {
-			if(simulation.getSimOut() != null)
-				updateData(simulation.getSimOut());
+			if(simOutBuffer.read(simOut) > 0)
+				updateData(simOut);
 		} catch (Exception ez) {
 			logger.error("Exception encountered in Flight Data Listener!", ez);
 		}
 	}
 	
 	/**
-	 * Adds a listener that implements {@link FlightDataListener} to a list of listeners that can listen
-	 * to {@link NewFlightData} 
+	 * Adds a listener that implements {@link FlightDataListener}, called on its own thread with the latest flight data at 
+	 * up to the {@link RateGroup#DISPLAY} rate. Each call is given the event the buffer delivered, without copying it again
 	 * 
 	 * @param dataListener
 	 */
 	public void addFlightDataListener(FlightDataListener dataListener) {
+		addFlightDataListener(dataListener, RateGroup.DISPLAY.getRateHz());
+	}
+	
+	/**
+	 * Adds a listener that implements {@link FlightDataListener}, called on its own thread with the latest flight data at 
+	 * up to maxRateHz; steps published while it runs are coalesced
+	 * 
+	 * @param dataListener
+	 * @param maxRateHz maximum rate (Hz) the listener is called at
+	 */
+	public void addFlightDataListener(FlightDataListener dataListener, double maxRateHz) {
+		if (dataListener == null)
+			return;
+		
 		logger.debug("Adding flight data listener: " + dataListener.getClass());
-		dataListenerList.add(dataListener);
+		flightData.addConsumer("Flight Data: " + dataListener.getClass().getSimpleName(), maxRateHz, SlowConsumerPolicy.COALESCE, 
+							   (sequence, event) -> dataListener.onFlightDataReceived(event));
 	}
 	
 	/**
-	 * Lets registered listeners know that data has arrived from the {@link Integrate6DOFEquations} thread
-	 * so that they can use it as needed
+	 * Stops the threads of every listener
 	 */
-	private void fireDataArrived() {
-		for (FlightDataListener listener : dataListenerList) {
-			if(listener != null) 
-				listener.onFlightDataReceived(this);
-		}
+	public void stop() {
+		flightData.stop();
 	}
 
 	@Override
 	public String toString() {
 		StringBuilder sb = new StringBuilder();
 		
-		for (Map.Entry<FlightDataType, Double> entry : flightData.entrySet()) {
+		for (Map.Entry<FlightDataType, Double> entry : flightData.toMap().entrySet()) {
 			 sb.append(entry.getKey().toString()).append(": ").append(entry.getValue())
 			   .append(" ").append(entry.getKey().getUnit()).append("\n");
 		}
@@ -22,5 +22,9 @@ package com.chrisali.javaflightsim.simulation.datatransfer;
 import java.util.EventListener;
 
 public interface FlightDataListener extends EventListener {
-	public void onFlightDataReceived(FlightData flightData);
+	/**
+	 * @param flightData values of the step delivered to this listener, indexed by {@link FlightDataType} ordinal; only valid 
+	 * until this method returns
+	 */
+	public void onFlightDataReceived(double[] flightData);
 }
@@ -0,0 +1,65 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.datatransfer;
+
+import com.chrisali.javaflightsim.interfaces.Steppable;
+import com.chrisali.javaflightsim.simulation.RateGroup;
+import com.chrisali.javaflightsim.simulation.integration.Integrate6DOFEquations;
+import com.chrisali.javaflightsim.simulation.integration.SimOuts;
+
+/**
+ *	Publishes a timestamped {@link FlightDataSnapshot} of {@link Integrate6DOFEquations} on every simulation step into a 
+ *	{@link TripleBuffer}, so that a display running on its own thread can read the latest flight data without ever 
+ *	blocking the simulation
+ *
+ * @author Christopher Ali
+ *
+ */
+public class FlightDataPublisher implements Steppable {
+	
+	private SeqLockBuffer<SimOuts> simOutBuffer;
+	private TripleBuffer<FlightDataSnapshot> snapshots;
+	
+	// Reused to read simOut on each step
+	private double[] simOut = new double[SimOuts.values().length];
+	
+	/**
+	 * @param simOutBuffer buffer of simOut published by {@link Integrate6DOFEquations} or a replay
+	 * @param snapshots triple buffer this publisher is the only writer of
+	 */
+	public FlightDataPublisher(SeqLockBuffer<SimOuts> simOutBuffer, TripleBuffer<FlightDataSnapshot> snapshots) {
+		this.simOutBuffer = simOutBuffer;
+		this.snapshots = snapshots;
+	}
+
+	@Override
+	public RateGroup getRateGroup() {
+		return RateGroup.PHYSICS;
+	}
+
+	@Override
+	public void step() {
+		if (simOutBuffer.read(simOut) == 0)
+			return;
+		
+		snapshots.getWriteBuffer().update(simOut, System.nanoTime());
+		snapshots.publish();
+	}
+}
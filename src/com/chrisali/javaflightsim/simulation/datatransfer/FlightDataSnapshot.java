@@ -0,0 +1,148 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.datatransfer;
+
+import java.util.Map;
+
+import com.chrisali.javaflightsim.simulation.integration.SimOuts;
+import com.chrisali.javaflightsim.simulation.utilities.SixDOFUtilities;
+
+/**
+ * Timestamped snapshot of {@link FlightDataType} values published by {@link FlightDataPublisher} from the simulation thread, 
+ * and read through a {@link TripleBuffer} by a thread running at its own rate, such as the out the window display. Values are 
+ * kept in a primitive array so that snapshots can be reused without allocation. Each snapshot is stamped with both the 
+ * simulation time it describes and the wall time it was published at, so that readers can interpolate between snapshots
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class FlightDataSnapshot {
+	
+	private static final FlightDataType[] TYPES = FlightDataType.values();
+	
+	private final double[] values = new double[TYPES.length];
+	
+	private double simTime;
+	private long publishedNanos;
+	
+	/**
+	 * Fills this snapshot by converting the values needed from a copy of the simulation's simOut buffer  
+	 * 
+	 * @param simOut simulation outputs indexed by {@link SimOuts} ordinal
+	 * @param publishedNanos {@link System#nanoTime()} at which the snapshot is published
+	 */
+	public void update(double[] simOut, long publishedNanos) {
+		final double TAS_TO_IAS = 1/(1+((simOut[SimOuts.ALT.ordinal()]/1000)*0.02));
+		
+		set(FlightDataType.IAS, SixDOFUtilities.toKnots(simOut[SimOuts.TAS.ordinal()]*TAS_TO_IAS));
+		set(FlightDataType.TAS, SixDOFUtilities.toKnots(simOut[SimOuts.TAS.ordinal()]));
+		
+		set(FlightDataType.VERT_SPEED, simOut[SimOuts.ALT_DOT.ordinal()]);
+		
+		set(FlightDataType.ALTITUDE, simOut[SimOuts.ALT.ordinal()]);
+		
+		set(FlightDataType.ROLL, Math.toDegrees(simOut[SimOuts.PHI.ordinal()]));
+		set(FlightDataType.PITCH, Math.toDegrees(simOut[SimOuts.THETA.ordinal()]));
+		
+		set(FlightDataType.HEADING, Math.toDegrees(simOut[SimOuts.PSI.ordinal()]));
+		
+		set(FlightDataType.TURN_RATE, Math.toDegrees(simOut[SimOuts.PSI_DOT.ordinal()]));
+		set(FlightDataType.TURN_COORD, simOut[SimOuts.AN_Y.ordinal()]);
+		
+		set(FlightDataType.GFORCE, simOut[SimOuts.AN_Z.ordinal()]);
+		
+		set(FlightDataType.LATITUDE, Math.toDegrees(simOut[SimOuts.LAT.ordinal()]));
+		set(FlightDataType.LONGITUDE, Math.toDegrees(simOut[SimOuts.LON.ordinal()]));
+		
+		set(FlightDataType.NORTH, simOut[SimOuts.NORTH.ordinal()]);
+		set(FlightDataType.EAST, simOut[SimOuts.EAST.ordinal()]);
+		
+		set(FlightDataType.RPM_1, simOut[SimOuts.RPM_1.ordinal()]);
+		set(FlightDataType.RPM_2, simOut[SimOuts.RPM_2.ordinal()]);
+		set(FlightDataType.RPM_3, simOut[SimOuts.RPM_3.ordinal()]);
+		set(FlightDataType.RPM_4, simOut[SimOuts.RPM_4.ordinal()]);
+		
+		set(FlightDataType.GEAR, simOut[SimOuts.GEAR.ordinal()]);
+		set(FlightDataType.FLAPS, Math.toDegrees(simOut[SimOuts.FLAPS.ordinal()]));
+		
+		set(FlightDataType.AOA, Math.abs(simOut[SimOuts.ALPHA.ordinal()]));
+		
+		set(FlightDataType.PITCH_RATE, Math.toDegrees(simOut[SimOuts.Q.ordinal()]));
+		
+		this.simTime = simOut[SimOuts.TIME.ordinal()];
+		this.publishedNanos = publishedNanos;
+	}
+	
+	public void copyFrom(FlightDataSnapshot other) {
+		System.arraycopy(other.values, 0, values, 0, values.length);
+		simTime = other.simTime;
+		publishedNanos = other.publishedNanos;
+	}
+	
+	public void set(FlightDataType type, double value) { values[type.ordinal()] = value; }
+	
+	/**
+	 * @return values of this snapshot indexed by {@link FlightDataType} ordinal
+	 */
+	double[] getValues() { return values; }
+	
+	public double get(FlightDataType type) { return values[type.ordinal()]; }
+	
+	/**
+	 * @return simulation time (sec) of this snapshot
+	 */
+	public double getSimTime() { return simTime; }
+	
+	/**
+	 * @return {@link System#nanoTime()} at which this snapshot was published; 0 if it never has been
+	 */
+	public long getPublishedNanos() { return publishedNanos; }
+	
+	/**
+	 * Puts every value of this snapshot into a map of flight data
+	 * 
+	 * @param flightData
+	 */
+	public void copyTo(Map<FlightDataType, Double> flightData) {
+		for (FlightDataType type : TYPES)
+			flightData.put(type, values[type.ordinal()]);
+	}
+	
+	/**
+	 * Interpolates linearly between two snapshots, or extrapolates beyond the later if fraction is greater than 1. 
+	 * Angles that wrap around (roll and heading) are interpolated the shorter way around
+	 * 
+	 * @param previous
+	 * @param latest
+	 * @param fraction 0 for previous, 1 for latest
+	 * @param flightData map the interpolated values are put in
+	 */
+	public static void interpolate(FlightDataSnapshot previous, FlightDataSnapshot latest, double fraction, Map<FlightDataType, Double> flightData) {
+		for (FlightDataType type : TYPES) {
+			double from  = previous.values[type.ordinal()];
+			double delta = latest.values[type.ordinal()] - from;
+			
+			if (type == FlightDataType.ROLL || type == FlightDataType.HEADING)
+				delta -= 360 * Math.rint(delta / 360);
+			
+			flightData.put(type, from + delta * fraction);
+		}
+	}
+}
@@ -0,0 +1,125 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.datatransfer;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free buffer of primitive double values indexed by the ordinals of an enum, such as {@link FlightDataType} 
+ * or {@link com.chrisali.javaflightsim.simulation.integration.SimOuts}, that a single writer thread publishes to and any number of 
+ * reader threads read consistent copies from. Uses a sequence lock: the writer never blocks and never allocates, making the sequence 
+ * odd while it publishes and even when done; readers copy the values and retry if the sequence was odd or changed while copying.
+ * 
+ * @author Christopher Ali
+ *
+ * @param <E> enum whose constants name the values of the buffer
+ */
+public class SeqLockBuffer<E extends Enum<E>> {
+	
+	private final Class<E> keyType;
+	private final E[] keys;
+	
+	// Values are stored as raw long bits so that every element is read and written atomically with the needed ordering 
+	private final AtomicLongArray values;
+	
+	// Even when values are consistent, odd while the writer is publishing; half of it is the number of publishes
+	private volatile long sequence = 0;
+	
+	/**
+	 * @param keyType enum class naming each value in the buffer
+	 */
+	public SeqLockBuffer(Class<E> keyType) {
+		this.keyType = keyType;
+		this.keys = keyType.getEnumConstants();
+		this.values = new AtomicLongArray(keys.length);
+	}
+	
+	/**
+	 * Writer thread only; publishes a new set of values to readers
+	 * 
+	 * @param source values indexed by ordinal, at least {@link #size()} long
+	 */
+	public void publish(double[] source) {
+		long start = sequence;
+		sequence = start + 1;
+		
+		for (int i = 0; i < keys.length; i++)
+			values.lazySet(i, Double.doubleToRawLongBits(source[i]));
+		
+		sequence = start + 2;
+	}
+	
+	/**
+	 * Copies a consistent set of values, all from the same publish, into destination; retries until the writer is not publishing 
+	 * during the copy
+	 * 
+	 * @param destination array indexed by ordinal, at least {@link #size()} long
+	 * @return version of the values copied; 0 if nothing has been published yet
+	 */
+	public long read(double[] destination) {
+		while (true) {
+			long before = sequence;
+			
+			if ((before & 1) == 0) {
+				for (int i = 0; i < keys.length; i++)
+					destination[i] = Double.longBitsToDouble(values.get(i));
+				
+				if (sequence == before)
+					return before >>> 1;
+			}
+			
+			Thread.yield();
+		}
+	}
+	
+	/**
+	 * @param key
+	 * @return the latest published value of key
+	 */
+	public double get(E key) { return Double.longBitsToDouble(values.get(key.ordinal())); }
+	
+	/**
+	 * @return number of times values have been published
+	 */
+	public long getVersion() { return sequence >>> 1; }
+	
+	/**
+	 * @return number of values in the buffer
+	 */
+	public int size() { return keys.length; }
+	
+	/**
+	 * @return a consistent copy of the values as a new EnumMap; empty if nothing has been published yet
+	 */
+	public Map<E, Double> toMap() {
+		double[] copy = new double[keys.length];
+		Map<E, Double> map = new EnumMap<>(keyType);
+		
+		if (read(copy) == 0)
+			return map;
+		
+		for (E key : keys)
+			map.put(key, copy[key.ordinal()]);
+		
+		return map;
+	}
+}
@@ -0,0 +1,40 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.datatransfer;
+
+/**
+ * Provides Enums to select what a consumer of a {@link FanOutBuffer} does with events that it did not get to in time:
+ * 
+ *	<p>DROP - Handles every event still held in the buffer in order, in a batch each time it runs; events that the publisher has 
+ *	overwritten before the consumer got to them are dropped</p>
+ *	<p>COALESCE - Handles only the latest event each time it runs, skipping any older ones; suits displays of the current state</p>
+ */
+public enum SlowConsumerPolicy {
+	DROP 	 ("Drop"),
+	COALESCE ("Coalesce");
+	
+	private final String policy;
+	
+	SlowConsumerPolicy(String policy) {
+		this.policy = policy;
+	}
+	
+	public String toString() {return policy;}
+}
@@ -0,0 +1,94 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.datatransfer;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Lock-free triple buffer that passes the latest of a series of objects from a single writer thread to a single reader thread 
+ * without either ever blocking the other or allocating. The writer fills its back buffer and publishes it, swapping it with 
+ * the middle buffer; the reader swaps its front buffer with the middle buffer only if something new was published since its 
+ * last update. Buffers the reader skips are simply overwritten, so the reader always sees the most recently published object, 
+ * and an object is never written while it is being read
+ * 
+ * @author Christopher Ali
+ *
+ * @param <T> type of object buffered; each buffer is created once and reused
+ */
+public class TripleBuffer<T> {
+	
+	private static final int INDEX_MASK = 0b011;
+	private static final int FRESH 		= 0b100;
+	
+	private final Object[] buffers = new Object[3];
+	
+	// Index of the middle buffer, with the FRESH bit set if it was published after the reader's last update
+	private final AtomicInteger middle = new AtomicInteger(1);
+	
+	// Owned by the writer and reader threads respectively
+	private int back = 0;
+	private int front = 2;
+	
+	/**
+	 * @param factory creates each of the three buffers
+	 */
+	public TripleBuffer(Supplier<T> factory) {
+		for (int i = 0; i < buffers.length; i++)
+			buffers[i] = factory.get();
+	}
+	
+	/**
+	 * Writer thread only
+	 * 
+	 * @return buffer to write the next object into before calling {@link #publish()}
+	 */
+	@SuppressWarnings("unchecked")
+	public T getWriteBuffer() { return (T) buffers[back]; }
+	
+	/**
+	 * Writer thread only; publishes the write buffer to the reader and takes a new write buffer
+	 */
+	public void publish() {
+		back = middle.getAndSet(back | FRESH) & INDEX_MASK;
+	}
+	
+	/**
+	 * Reader thread only; takes the most recently published buffer as the read buffer if one was published since the last update
+	 * 
+	 * @return if the read buffer changed
+	 */
+	public boolean update() {
+		if ((middle.get() & FRESH) == 0)
+			return false;
+		
+		front = middle.getAndSet(front) & INDEX_MASK;
+		
+		return true;
+	}
+	
+	/**
+	 * Reader thread only
+	 * 
+	 * @return buffer taken by the last call of {@link #update()}, which is not written to until the next update
+	 */
+	@SuppressWarnings("unchecked")
+	public T getReadBuffer() { return (T) buffers[front]; }
+}
@@ -0,0 +1,232 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.enviroment;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Model of the 1976 U.S. Standard Atmosphere from 5 km below sea level up to 86 km, offset from standard conditions by a temperature difference (deltaIsa).
+ * The closed-form equations of each of its seven layers are evaluated once into a table indexed by altitude at a fixed spacing of {@link Atmosphere#ALTITUDE_STEP}, 
+ * so that {@link Atmosphere#update(double, AtmosphereState)} only needs a multiply, a cast and a linear interpolation, rather than calls to {@link Math#pow(double, double)}, 
+ * {@link Math#exp(double)} and {@link Math#sqrt(double)}, to fill an {@link AtmosphereState}. Altitudes outside of the model's range are clamped to its limits.<br><br>
+ * 
+ * Instances are immutable and thread-safe, and are shared between simulations through {@link Atmosphere#forDeltaIsa(double)}, which keeps a small cache of tables 
+ * keyed by their deltaIsa  
+ * 
+ * @author Christopher Ali
+ *
+ * @see <i>U.S. Standard Atmosphere, 1976, NOAA-S/T 76-1562</i>
+ */
+public class Atmosphere {
+	
+	private static final double R = 1716.49;				// (ft*lbf/(slug*deg R))
+	private static final double GAMMA = 1.4;
+	private static final double G0 = 32.174;				// (ft/sec^2)
+	private static final double RADIUS_EARTH = 20855531;	// Effective radius used to convert to geopotential height (ft)
+	
+	private static final double T_SSL = 518.67;				// (deg R)
+	private static final double P_SSL = 2116.22;			// (lbf/ft^2)
+	
+	// Geopotential height (ft) and temperature lapse rate (deg R/ft) at the base of each layer, from the troposphere to the upper mesosphere
+	private static final double[] LAYER_HEIGHTS = {0, 36089.24, 65616.80, 104986.88, 154199.48, 167322.83, 232939.63};
+	private static final double[] LAPSE_RATES   = {-0.00356616, 0, 0.00054864, 0.00153619, 0, -0.00153619, -0.00109728};
+	
+	// Standard temperature (deg R) and pressure (lbf/ft^2) at the base of each layer 
+	private static final double[] LAYER_TEMPERATURES = new double[LAYER_HEIGHTS.length];
+	private static final double[] LAYER_PRESSURES    = new double[LAYER_HEIGHTS.length];
+	
+	static {
+		LAYER_TEMPERATURES[0] = T_SSL;
+		LAYER_PRESSURES[0]    = P_SSL;
+		
+		for (int layer = 1; layer < LAYER_HEIGHTS.length; layer++) {
+			double height = LAYER_HEIGHTS[layer] - LAYER_HEIGHTS[layer-1];
+			
+			LAYER_TEMPERATURES[layer] = LAYER_TEMPERATURES[layer-1] + LAPSE_RATES[layer-1]*height;
+			LAYER_PRESSURES[layer]    = standardPressure(layer-1, height, LAYER_TEMPERATURES[layer]);
+		}
+	}
+	
+	/**
+	 * Lowest altitude (ft) covered by the model (-5 km)
+	 */
+	public static final double MIN_ALTITUDE = -16404;
+	
+	/**
+	 * Highest altitude (ft) covered by the model (86 km)
+	 */
+	public static final double MAX_ALTITUDE = 282152;
+	
+	/**
+	 * Spacing (ft) between rows of the table
+	 */
+	public static final double ALTITUDE_STEP = 50;
+	
+	private static final double INVERSE_STEP = 1/ALTITUDE_STEP;
+	private static final int ROWS = (int) Math.ceil((MAX_ALTITUDE - MIN_ALTITUDE)/ALTITUDE_STEP) + 1;
+	
+	// Columns of each row, stored interleaved so that a lookup touches adjacent memory
+	private static final int TEMPERATURE    = 0;
+	private static final int PRESSURE       = 1;
+	private static final int DENSITY        = 2;
+	private static final int SPEED_OF_SOUND = 3;
+	private static final int GRAVITY        = 4;
+	private static final int COLUMNS        = 5;
+	
+	// Bounds the memory used by simulations that each use a different deltaIsa, such as Monte Carlo runs
+	private static final int MAX_CACHED_TABLES = 16;
+	private static final Map<Double, Atmosphere> tableCache = new ConcurrentHashMap<>();
+	
+	private final double deltaIsa;
+	private final double[] table;
+	
+	private Atmosphere(double deltaIsa) {
+		this.deltaIsa = deltaIsa;
+		this.table = new double[ROWS*COLUMNS];
+		
+		AtmosphereState state = new AtmosphereState();
+		
+		for (int row = 0; row < ROWS; row++) {
+			calculate(MIN_ALTITUDE + row*ALTITUDE_STEP, deltaIsa, state);
+			
+			int i = row*COLUMNS;
+			table[i+TEMPERATURE]    = state.temperature;
+			table[i+PRESSURE]       = state.pressure;
+			table[i+DENSITY]        = state.density;
+			table[i+SPEED_OF_SOUND] = state.speedOfSound;
+			table[i+GRAVITY]        = state.gravity;
+		}
+	}
+	
+	/**
+	 * Returns the atmosphere for a given difference in temperature from ISA, creating and caching its table if it does not yet exist. 
+	 * This should be called when deltaIsa changes, rather than on every step of a simulation
+	 * 
+	 * @param deltaIsa difference in temperature from ISA (deg R)
+	 * @return shared, immutable instance of Atmosphere
+	 */
+	public static Atmosphere forDeltaIsa(double deltaIsa) {
+		Double key = deltaIsa + 0.0; // -0.0 and 0.0 share a table
+		Atmosphere atmosphere = tableCache.get(key);
+		
+		if (atmosphere == null) {
+			if (tableCache.size() >= MAX_CACHED_TABLES)
+				tableCache.clear();
+			
+			atmosphere = tableCache.computeIfAbsent(key, k -> new Atmosphere(k));
+		}
+		
+		return atmosphere;
+	}
+	
+	/**
+	 * Interpolates the temperature (R), presssure (lb/ft^2), density (slug/ft^3), speed of sound (ft/sec) and gravity (ft/sec^2)
+	 * at a given altitude from this atmosphere's table, and writes them into the {@link AtmosphereState} passed in; wind components are left unchanged
+	 * 
+	 * @param altitude geometric altitude above sea level (ft)
+	 * @param state object to write results into
+	 */
+	public void update(double altitude, AtmosphereState state) {
+		double position = (Math.min(Math.max(altitude, MIN_ALTITUDE), MAX_ALTITUDE) - MIN_ALTITUDE)*INVERSE_STEP;
+		int row = Math.min((int) position, ROWS - 2);
+		double fraction = position - row;
+		
+		int i = row*COLUMNS, j = i + COLUMNS;
+		state.temperature  = table[i+TEMPERATURE]    + fraction*(table[j+TEMPERATURE]    - table[i+TEMPERATURE]);
+		state.pressure     = table[i+PRESSURE]       + fraction*(table[j+PRESSURE]       - table[i+PRESSURE]);
+		state.density      = table[i+DENSITY]        + fraction*(table[j+DENSITY]        - table[i+DENSITY]);
+		state.speedOfSound = table[i+SPEED_OF_SOUND] + fraction*(table[j+SPEED_OF_SOUND] - table[i+SPEED_OF_SOUND]);
+		state.gravity      = table[i+GRAVITY]        + fraction*(table[j+GRAVITY]        - table[i+GRAVITY]);
+	}
+	
+	/**
+	 * Interpolates the atmosphere at a given altitude as {@link Atmosphere#update(double, AtmosphereState)} does, and writes the derivative of each 
+	 * property with respect to altitude, the slope of the table between the rows around it, into a second {@link AtmosphereState}. Outside of the 
+	 * model's range, where properties are clamped, derivatives are zero
+	 * 
+	 * @param altitude geometric altitude above sea level (ft)
+	 * @param state object to write results into
+	 * @param altitudeDerivatives object to write derivatives (per ft) into
+	 */
+	public void update(double altitude, AtmosphereState state, AtmosphereState altitudeDerivatives) {
+		update(altitude, state);
+		
+		double position = (Math.min(Math.max(altitude, MIN_ALTITUDE), MAX_ALTITUDE) - MIN_ALTITUDE)*INVERSE_STEP;
+		int row = Math.min((int) position, ROWS - 2);
+		double slope = (altitude < MIN_ALTITUDE || altitude > MAX_ALTITUDE) ? 0.0 : INVERSE_STEP;
+		
+		int i = row*COLUMNS, j = i + COLUMNS;
+		altitudeDerivatives.temperature  = slope*(table[j+TEMPERATURE]    - table[i+TEMPERATURE]);
+		altitudeDerivatives.pressure     = slope*(table[j+PRESSURE]       - table[i+PRESSURE]);
+		altitudeDerivatives.density      = slope*(table[j+DENSITY]        - table[i+DENSITY]);
+		altitudeDerivatives.speedOfSound = slope*(table[j+SPEED_OF_SOUND] - table[i+SPEED_OF_SOUND]);
+		altitudeDerivatives.gravity      = slope*(table[j+GRAVITY]        - table[i+GRAVITY]);
+	}
+	
+	/**
+	 * Evaluates the closed-form equations of the 1976 Standard Atmosphere at a given altitude, and writes the temperature (R), presssure (lb/ft^2), 
+	 * density (slug/ft^3), speed of sound (ft/sec) and gravity (ft/sec^2) into the {@link AtmosphereState} passed in. Temperature is offset by deltaIsa 
+	 * while pressure keeps its standard value, so density is found from the ideal gas law. This is used to build each table, and as a reference for it 
+	 * 
+	 * @param altitude geometric altitude above sea level (ft)
+	 * @param deltaIsa difference in temperature from ISA (deg R)
+	 * @param state object to write results into
+	 */
+	public static void calculate(double altitude, double deltaIsa, AtmosphereState state) {
+		double height = RADIUS_EARTH*altitude/(RADIUS_EARTH + altitude);
+		
+		int layer = LAYER_HEIGHTS.length - 1;
+		while (layer > 0 && height < LAYER_HEIGHTS[layer])
+			layer--;
+		
+		double layerHeight = height - LAYER_HEIGHTS[layer];
+		double standardTemperature = LAYER_TEMPERATURES[layer] + LAPSE_RATES[layer]*layerHeight;
+		
+		state.temperature  = standardTemperature + deltaIsa;
+		state.pressure     = standardPressure(layer, layerHeight, standardTemperature);
+		state.density      = state.pressure/(R*state.temperature);
+		state.speedOfSound = Math.sqrt(GAMMA*R*state.temperature);
+		
+		double radiusRatio = RADIUS_EARTH/(RADIUS_EARTH + altitude);
+		state.gravity      = G0*radiusRatio*radiusRatio;
+	}
+	
+	/**
+	 * Calculates standard pressure (lbf/ft^2) at a height above the base of a layer, using the hydrostatic equation for a layer 
+	 * with either a constant lapse rate or a constant temperature
+	 * 
+	 * @param layer index of the layer
+	 * @param layerHeight geopotential height above the base of the layer (ft)
+	 * @param standardTemperature standard temperature at that height (deg R)
+	 * @return pressure (lbf/ft^2)
+	 */
+	private static double standardPressure(int layer, double layerHeight, double standardTemperature) {
+		if (LAPSE_RATES[layer] == 0)
+			return LAYER_PRESSURES[layer]*Math.exp(-G0*layerHeight/(R*LAYER_TEMPERATURES[layer]));
+		else
+			return LAYER_PRESSURES[layer]*Math.pow(LAYER_TEMPERATURES[layer]/standardTemperature, G0/(R*LAPSE_RATES[layer]));
+	}
+	
+	/**
+	 * @return difference in temperature from ISA (deg R) of this atmosphere
+	 */
+	public double getDeltaIsa() { return deltaIsa; }
+}
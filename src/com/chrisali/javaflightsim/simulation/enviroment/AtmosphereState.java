@@ -0,0 +1,62 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.enviroment;
+
+/**
+ * Holds the atmospheric properties and wind components at a single point in space, written by {@link Atmosphere#update(double, AtmosphereState)} 
+ * and {@link Environment#updateAtmosphereState(double[], AtmosphereState)}. It is allocated once by its owner and overwritten on every evaluation,
+ * so that simulations running side by side do not share any atmospheric data and no garbage is created while integrating
+ * 
+ * @author Christopher Ali
+ *
+ * @see Atmosphere
+ */
+public class AtmosphereState {
+	
+	// Thermodynamic properties
+	double temperature;	// (deg R)
+	double pressure;	// (lbf/ft^2)
+	double density;		// (slug/ft^3)
+	double speedOfSound;// (ft/sec)
+	
+	// Gravitational acceleration (ft/sec^2)
+	double gravity;
+	
+	// Wind components in the NED frame (ft/sec)
+	double windSpeedN;
+	double windSpeedE;
+	double windSpeedD;
+	
+	public double getTemperature() { return temperature; }
+	
+	public double getPressure() { return pressure; }
+	
+	public double getDensity() { return density; }
+	
+	public double getSpeedOfSound() { return speedOfSound; }
+	
+	public double getGravity() { return gravity; }
+	
+	public double getWindSpeedN() { return windSpeedN; }
+	
+	public double getWindSpeedE() { return windSpeedE; }
+	
+	public double getWindSpeedD() { return windSpeedD; }
+}
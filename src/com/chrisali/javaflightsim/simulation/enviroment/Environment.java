@@ -19,81 +19,66 @@
  ******************************************************************************/
 package com.chrisali.javaflightsim.simulation.enviroment;
 
-import java.util.EnumMap;
-import java.util.Map;
-
 import com.chrisali.javaflightsim.simulation.utilities.SaturationUtilities;
 import com.chrisali.javaflightsim.simulation.utilities.SixDOFUtilities;
 
 /**
  * This class calculates atmospheric parameters as a function of height, and the gravitational acceleration constant.
- * It uses the 1976 NASA Standard Atmosphere model, and assumes that gravity is constant in the Z direction.
+ * It uses the 1976 NASA Standard Atmosphere model through {@link Atmosphere}, and assumes that gravity is constant in the Z direction.
+ * Each simulation owns its own instance through its {@link com.chrisali.javaflightsim.simulation.SimulationContext}, so that the weather 
+ * of one simulation does not affect another running in the same JVM
  */
 public class Environment {
-	private static final double RADIUS_EARTH = 3959*5280;
-	
-	private static final double R = 1716.49;
-	private static final double GAMMA = 1.4;
-	private static final double RHO_SSL = 0.002377;
-	private static final double P_SSL = 2116.22;
-	private static final double T_SSL = 518.67;
 	private static final double GRAVITY = 32.17;
 	
-	private static final double HT_TROP = 36089;
-	private static final double P_TROP = 472.6758;
-	private static final double RHO_TROP = 0.000706115;
-	
-	private static final double ENV_CONST_TROP = 0.0000068755;
-	private static final double ENV_CONST_STRAT = -0.0000480637;
-	
-	private static Map<EnvironmentParameters, Double> environmentParams = new EnumMap<>(EnvironmentParameters.class);
+	private double windSpeed = 0.0;
+	private double windDir   = 0.0;
 	
-	private static double windSpeed = 0.0;
-	private static double windDir   = 0.0;
-	private static double deltaIsa  = 0.0;
+	// Wind components (ft/sec) and the atmosphere only change when the settings do, not on every step
+	private double windSpeedN = 0.0;
+	private double windSpeedE = 0.0;
+	private Atmosphere atmosphere = Atmosphere.forDeltaIsa(0.0);
 
 	/**
-	 * Calculates the temperature (R), presssure (lb/ft^2), density (slug/ft^3), speed of sound (ft/sec) and gravity (ft/sec^2)
-	 * for a given height above Earth, then calculates the wind speed components for a given speed and direction,
-	 *  and then places that data into an EnumMap with {@link EnvironmentParameters} as the keys 
+	 * Looks up the temperature (R), presssure (lb/ft^2), density (slug/ft^3), speed of sound (ft/sec) and gravity (ft/sec^2)
+	 * for a given height above Earth from {@link Atmosphere}, sets the wind speed components for the current speed and direction,
+	 * and writes that data into the {@link AtmosphereState} passed in 
 	 * 
 	 * @param NEDPosition
-	 * @return EnumMap of environment parameters
+	 * @param atmosphereState object to write results into
+	 * @return atmosphereState
 	 */
-	public static Map<EnvironmentParameters, Double> getAndUpdateEnvironmentParams(double[] NEDPosition) {
-		double temp, rho, p, a, g, windN, windE, windD;
+	public AtmosphereState updateAtmosphereState(double[] NEDPosition, AtmosphereState atmosphereState) {
+		atmosphere.update(NEDPosition[2], atmosphereState);
 		
-		// Troposphere
-		if (NEDPosition[2] < HT_TROP) {
-			temp = T_SSL-(0.003566*NEDPosition[2]) + deltaIsa;                   // (deg R)
-			p = P_SSL*Math.pow((1-(ENV_CONST_TROP*NEDPosition[2])),5.2559);      // (lbf/ft^2)
-			rho = RHO_SSL*Math.pow((1-(ENV_CONST_TROP*NEDPosition[2])),4.2559);  // (slug/ft^3) 												
-		}
-		// Stratosphere
-		else {
-			temp = 389.97 + deltaIsa; 											 // (degR)
-			p = P_TROP*Math.exp(ENV_CONST_STRAT*(NEDPosition[2]-HT_TROP)); 		 // (lbf/ft^2)
-			rho = RHO_TROP*Math.exp(ENV_CONST_STRAT*(NEDPosition[2]-HT_TROP));   // (slug/ft^3)			
-		}
+		atmosphereState.windSpeedN = windSpeedN;
+		atmosphereState.windSpeedE = windSpeedE;
+		atmosphereState.windSpeedD = 0.0;
 		
-		a = Math.sqrt(GAMMA*R*temp);     									 // (ft/sec)
-		
-		g = GRAVITY*(RADIUS_EARTH/(RADIUS_EARTH+NEDPosition[2]));
+		return atmosphereState;
+	}
+	
+	/**
+	 * Updates the {@link AtmosphereState} as {@link Environment#updateAtmosphereState(double[], AtmosphereState)} does, and writes the derivative 
+	 * of each atmospheric property with respect to altitude into a second AtmosphereState. Wind does not vary with altitude, so its derivatives are zero
+	 * 
+	 * @param NEDPosition
+	 * @param atmosphereState object to write results into
+	 * @param altitudeDerivatives object to write derivatives (per ft) into
+	 * @return atmosphereState
+	 */
+	public AtmosphereState updateAtmosphereState(double[] NEDPosition, AtmosphereState atmosphereState, AtmosphereState altitudeDerivatives) {
+		atmosphere.update(NEDPosition[2], atmosphereState, altitudeDerivatives);
 		
-		windN = windSpeed*Math.cos(windDir);
-		windE = windSpeed*Math.sin(windDir);
-		windD = 0.0;
+		atmosphereState.windSpeedN = windSpeedN;
+		atmosphereState.windSpeedE = windSpeedE;
+		atmosphereState.windSpeedD = 0.0;
 		
-		environmentParams.put(EnvironmentParameters.T,       	   temp);
-		environmentParams.put(EnvironmentParameters.P,       		  p);
-		environmentParams.put(EnvironmentParameters.RHO,     		rho);
-		environmentParams.put(EnvironmentParameters.A,       	  	  a);
-		environmentParams.put(EnvironmentParameters.GRAVITY, 	  	  g);
-		environmentParams.put(EnvironmentParameters.WIND_SPEED_N, windN);
-		environmentParams.put(EnvironmentParameters.WIND_SPEED_E, windE);
-		environmentParams.put(EnvironmentParameters.WIND_SPEED_D, windD);
+		altitudeDerivatives.windSpeedN = 0.0;
+		altitudeDerivatives.windSpeedE = 0.0;
+		altitudeDerivatives.windSpeedD = 0.0;
 		
-		return environmentParams;
+		return atmosphereState;
 	}
 	
 	/**
@@ -106,8 +91,9 @@ public class Environment {
 	 * 
 	 * @param windSpeed
 	 */
-	public static void setWindSpeed(double windSpeed) {
-		Environment.windSpeed = (windSpeed > 100) ? SixDOFUtilities.toFtPerSec(100) : SixDOFUtilities.toFtPerSec(windSpeed);
+	public void setWindSpeed(double windSpeed) {
+		this.windSpeed = (windSpeed > 100) ? SixDOFUtilities.toFtPerSec(100) : SixDOFUtilities.toFtPerSec(windSpeed);
+		updateWindComponents();
 	}
 	
 	/**
@@ -115,13 +101,22 @@ public class Environment {
 	 * 
 	 * @param windDir
 	 */
-	public static void setWindDir(double windDir) {Environment.windDir = SaturationUtilities.twoPiBounding(Math.toRadians(windDir)-Math.PI);}
+	public void setWindDir(double windDir) {
+		this.windDir = SaturationUtilities.twoPiBounding(Math.toRadians(windDir)-Math.PI);
+		updateWindComponents();
+	}
 
 	/**
 	 * Sets the difference in temperature from ISA (59 F, 15 C at Standard Sea Level)
 	 * 
 	 * @param deltaIsa
 	 */
-	public static void setDeltaIsa(double deltaIsa) {Environment.deltaIsa = deltaIsa;}
+	public void setDeltaIsa(double deltaIsa) {
+		atmosphere = Atmosphere.forDeltaIsa(deltaIsa);
+	}
 	
+	private void updateWindComponents() {
+		windSpeedN = windSpeed*Math.cos(windDir);
+		windSpeedE = windSpeed*Math.sin(windDir);
+	}
 }
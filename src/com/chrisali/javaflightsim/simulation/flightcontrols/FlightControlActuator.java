@@ -3,6 +3,7 @@ package com.chrisali.javaflightsim.simulation.flightcontrols;
 import static com.chrisali.javaflightsim.simulation.flightcontrols.FlightControl.*;
 import static com.chrisali.javaflightsim.simulation.setup.KeyCommand.*;
 
+import com.chrisali.javaflightsim.simulation.RateGroup;
 import com.chrisali.javaflightsim.simulation.setup.IntegratorConfig;
 import com.chrisali.javaflightsim.simulation.setup.SimulationConfiguration;
 
@@ -16,8 +17,13 @@ public class FlightControlActuator implements ControlParameterActuator {
 	
 	FlightControlsState controlsState;
 	
+	private SimEvents simEvents;
+	
 	private double dt = 0.05;
 	
+	// Number of simulation steps between each update of the controls, set by the rate of the CONTROLS rate group
+	private int stepsPerUpdate = 1;
+	
 	// Add trim values to getDeflection() to emulate trim deflections
 	private double trimElevator = 0.0;
 	private double trimAileron  = 0.0;
@@ -30,10 +36,12 @@ public class FlightControlActuator implements ControlParameterActuator {
 	// If true, don't directly calculate controls; use a transient value 
 	private boolean useTransientLag = true;
 	
-	public FlightControlActuator(SimulationConfiguration configuration, FlightControlsState controlsState) {
+	public FlightControlActuator(SimulationConfiguration configuration, FlightControlsState controlsState, SimEvents simEvents) {
 		dt = configuration.getIntegratorConfig().get(IntegratorConfig.DT);
+		stepsPerUpdate = RateGroup.CONTROLS.getDivider(dt);
 		
 		this.controlsState = controlsState;
+		this.simEvents = simEvents;
 		
 		trimAileron  = controlsState.getTrimValue(AILERON);
 		trimElevator = controlsState.getTrimValue(ELEVATOR);
@@ -92,11 +100,11 @@ public class FlightControlActuator implements ControlParameterActuator {
 			} else if (parameter.equals(RUDDER_TRIM_RIGHT)) {
 				if (isPressed(value)) rudderTrimRight();
 			} else if (parameter.equals(PAUSE_UNPAUSE_SIM)) {
-				SimEvents.pauseUnpauseSimulation(isPressed(value));
+				simEvents.pauseUnpauseSimulation(isPressed(value));
 			} else if (parameter.equals(RESET_SIM)) {
-				SimEvents.resetSimulation(isPressed(value));
+				simEvents.resetSimulation(isPressed(value));
 			} else if (parameter.equals(GENERATE_PLOTS)) {
-				if (isPressed(value)) SimEvents.plotSimulation();
+				if (isPressed(value)) simEvents.plotSimulation();
 			} 
 		}
 		else {
@@ -159,6 +167,9 @@ public class FlightControlActuator implements ControlParameterActuator {
 		// Scale the rate as desired and transient values near each other
 		double rateScale = 0.125; //Math.abs((desiredValue - transientValue) / (value <= 0 ? controlType.getMaximum() : controlType.getMinimum())); //
 		
+		// Compound the rate over the simulation steps since the last update, so the lag is the same regardless of the controls rate
+		rateScale = 1 - Math.pow(1 - rateScale, stepsPerUpdate);
+		
 		transientValue += (desiredValue - transientValue) * rateScale;
 			
 		controlsState.setTransientValue(controlType, transientValue);
@@ -187,11 +198,16 @@ public class FlightControlActuator implements ControlParameterActuator {
 	
 	/**
 	 * Standardizes rate of control deflection of keyboard and joystick button inputs regardless of the 
-	 * simulation update rate based on the {@link FlightControl} argument provided
+	 * simulation update rate based on the {@link FlightControl} argument provided; scaled by the number of 
+	 * simulation steps between each update of the controls
 	 * 
 	 * @param type
 	 */
 	private double getRate(FlightControl type) {
+		return getStepRate(type) * stepsPerUpdate;
+	}
+	
+	private double getStepRate(FlightControl type) {
 		switch (type) {
 		case AILERON:
 		case ELEVATOR:
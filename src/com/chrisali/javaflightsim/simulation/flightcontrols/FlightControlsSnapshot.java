@@ -0,0 +1,94 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.flightcontrols;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Read-only copy of the flight control deflections of a {@link FlightControlsState}, held as primitive doubles indexed by 
+ * {@link FlightControl} ordinal, that is passed to the force model (aerodynamics, engines and ground reaction). Updating from a 
+ * state copies its values only if its version has changed since the last update, so consumers can skip work when the pilot 
+ * has not moved any controls
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class FlightControlsSnapshot {
+	
+	private final double[] flightControls = new double[FlightControlsState.CONTROLS.length];
+	
+	// Version of the state last copied; -1, which no state has, until the first update, so that it always copies the state
+	private long version = -1;
+	
+	/**
+	 * Creates an empty snapshot, to be filled by {@link FlightControlsSnapshot#update(FlightControlsState)}
+	 */
+	public FlightControlsSnapshot() {}
+	
+	/**
+	 * Creates a snapshot of a map of flight controls, such as the initial controls of a configuration
+	 * 
+	 * @param flightControls
+	 */
+	public FlightControlsSnapshot(Map<FlightControl, Double> flightControls) {
+		for (Map.Entry<FlightControl, Double> entry : flightControls.entrySet())
+			this.flightControls[entry.getKey().ordinal()] = entry.getValue();
+	}
+	
+	/**
+	 * Copies the values of state if they have changed since the last update
+	 * 
+	 * @param state
+	 * @return if any values were copied
+	 */
+	public boolean update(FlightControlsState state) {
+		if (state.getVersion() == version)
+			return false;
+		
+		state.copyTo(flightControls);
+		version = state.getVersion();
+		
+		return true;
+	}
+	
+	/**
+	 * @param control
+	 * @return value of control when this snapshot was updated
+	 */
+	public double get(FlightControl control) { return flightControls[control.ordinal()]; }
+	
+	/**
+	 * @return version of the {@link FlightControlsState} last copied
+	 */
+	public long getVersion() { return version; }
+	
+	/**
+	 * @return a copy of this snapshot as a new EnumMap
+	 */
+	public Map<FlightControl, Double> toMap() {
+		Map<FlightControl, Double> map = new EnumMap<>(FlightControl.class);
+		
+		for (FlightControl control : FlightControlsState.CONTROLS)
+			map.put(control, flightControls[control.ordinal()]);
+		
+		return map;
+	}
+}
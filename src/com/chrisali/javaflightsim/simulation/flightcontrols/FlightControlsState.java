@@ -31,6 +31,9 @@ import com.chrisali.javaflightsim.simulation.setup.SimulationConfiguration;
  * Handles the exact current, trim and transient states of flight controls that other aspects of the simulation (engine, aerodynamics, ground reaction)
  * will see. {@link FlightControlsStateManager} 
  * 
+ * <p>Values are held as primitive doubles indexed by {@link FlightControl} ordinal. A version counter is incremented whenever a current value 
+ * changes, so that a {@link FlightControlsSnapshot} of the state is only copied again when the controls have moved</p>
+ * 
  * @author Christopher Ali
  *
  */
@@ -38,9 +41,24 @@ public class FlightControlsState {
 
 	private static final Logger logger = LogManager.getLogger(FlightControlsState.class);
 	
-	private Map<FlightControl, Double> flightControls;
-	private Map<FlightControl, Double> trimflightControls;
-	private Map<FlightControl, Double> transientFlightControls;
+	static final FlightControl[] CONTROLS = FlightControl.values();
+	
+	// Limits of each control indexed by ordinal, to clamp all controls in a single loop
+	private static final double[] MINIMUMS = new double[CONTROLS.length];
+	private static final double[] MAXIMUMS = new double[CONTROLS.length];
+	
+	static {
+		for (FlightControl control : CONTROLS) {
+			MINIMUMS[control.ordinal()] = control.getMinimum();
+			MAXIMUMS[control.ordinal()] = control.getMaximum();
+		}
+	}
+	
+	private final double[] flightControls = new double[CONTROLS.length];
+	private final double[] trimFlightControls = new double[CONTROLS.length];
+	private final double[] transientFlightControls = new double[CONTROLS.length];
+	
+	private long version = 0;
 	
 	/**
 	 * Initializes the object with a flightControls map of values equal to the initial controls values
@@ -54,39 +72,96 @@ public class FlightControlsState {
 	public FlightControlsState(Map<FlightControl, Double> aFlightControls, SimulationConfiguration simConfig) {
 		logger.debug("Initializing flight controls state...");
 		
-		flightControls = new EnumMap<FlightControl, Double>((aFlightControls != null) ? aFlightControls : simConfig.getInitialControls());
+		copyFromMap(simConfig.getInitialControls(), trimFlightControls);
+		copyFromMap((aFlightControls != null) ? aFlightControls : simConfig.getInitialControls(), flightControls);
 		
-		trimflightControls = simConfig.getInitialControls();
-		
-		transientFlightControls = new EnumMap<FlightControl, Double>(flightControls);
+		System.arraycopy(flightControls, 0, transientFlightControls, 0, flightControls.length);
+	}
+	
+	private static void copyFromMap(Map<FlightControl, Double> source, double[] destination) {
+		for (Map.Entry<FlightControl, Double> entry : source.entrySet())
+			destination[entry.getKey().ordinal()] = entry.getValue();
 	}
 
 	/**
 	 * Resets flightControls back to initial trim values
 	 */
 	public void reset() {
-		for (Map.Entry<FlightControl, Double> entry : flightControls.entrySet())
-			flightControls.put(entry.getKey(), trimflightControls.get(entry.getKey()));
+		System.arraycopy(trimFlightControls, 0, flightControls, 0, flightControls.length);
+		version++;
+	}
+	
+	/**
+	 * Limits every control to the minimum and maximum values defined for it in {@link FlightControl}
+	 */
+	public void limit() {
+		boolean changed = false;
+		
+		for (int i = 0; i < flightControls.length; i++) {
+			double value = flightControls[i];
+			
+			if (value > MAXIMUMS[i]) {
+				flightControls[i] = MAXIMUMS[i];
+				changed = true;
+			} else if (value < MINIMUMS[i]) {
+				flightControls[i] = MINIMUMS[i];
+				changed = true;
+			}
+		}
+		
+		if (changed)
+			version++;
+	}
+	
+	/**
+	 * Copies the current values of every control into destination
+	 * 
+	 * @param destination array indexed by {@link FlightControl} ordinal
+	 */
+	void copyTo(double[] destination) {
+		System.arraycopy(flightControls, 0, destination, 0, flightControls.length);
 	}
 
-	public Map<FlightControl, Double> getFlightControls() { return flightControls; }
+	/**
+	 * @return a copy of the current values of every control as a new EnumMap
+	 */
+	public Map<FlightControl, Double> getFlightControls() {
+		Map<FlightControl, Double> map = new EnumMap<>(FlightControl.class);
+		
+		for (FlightControl control : CONTROLS)
+			map.put(control, flightControls[control.ordinal()]);
+		
+		return map;
+	}
 	
-	public double get(FlightControl parameter) { return flightControls.get(parameter); }
+	public double get(FlightControl parameter) { return flightControls[parameter.ordinal()]; }
 	
-	public void set(FlightControl parameter, Double value) { flightControls.put(parameter, value); }
+	public void set(FlightControl parameter, double value) {
+		int i = parameter.ordinal();
+		
+		if (flightControls[i] != value) {
+			flightControls[i] = value;
+			version++;
+		}
+	}
 	
-	public double getTransientValue(FlightControl parameter) { return transientFlightControls.get(parameter); }
+	public double getTransientValue(FlightControl parameter) { return transientFlightControls[parameter.ordinal()]; }
 	
-	public void setTransientValue(FlightControl parameter, Double value) { transientFlightControls.put(parameter, value); }
+	public void setTransientValue(FlightControl parameter, double value) { transientFlightControls[parameter.ordinal()] = value; }
 
-	public double getTrimValue(FlightControl parameter) { return trimflightControls.get(parameter); }
+	public double getTrimValue(FlightControl parameter) { return trimFlightControls[parameter.ordinal()]; }
+	
+	/**
+	 * @return number of times the current value of any control has changed
+	 */
+	public long getVersion() { return version; }
 	
 	@Override
 	public String toString() {
 		StringBuilder sb = new StringBuilder();
 		
-		for (Map.Entry<FlightControl, Double> entry : flightControls.entrySet()) {
-			sb.append(entry.getKey()).append(": ").append(entry.getValue()).append("\n");
+		for (FlightControl control : CONTROLS) {
+			sb.append(control).append(": ").append(flightControls[control.ordinal()]).append("\n");
 		}
 		sb.append("\n");
 		
@@ -25,8 +25,9 @@ import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import com.chrisali.javaflightsim.interfaces.SimulationController;
 import com.chrisali.javaflightsim.interfaces.Steppable;
+import com.chrisali.javaflightsim.simulation.RateGroup;
+import com.chrisali.javaflightsim.simulation.SimulationContext;
 import com.chrisali.javaflightsim.simulation.flightcontrols.analysis.AnalysisControlInput;
 import com.chrisali.javaflightsim.simulation.flightcontrols.analysis.AnalysisControls;
 import com.chrisali.javaflightsim.simulation.inputdevices.AbstractDevice;
@@ -68,20 +69,18 @@ public class FlightControlsStateManager implements Steppable {
     private KeyboardVisitor keyboardVisitor;
     private MouseVisitor mouseVisitor;
 	
-	public FlightControlsStateManager(SimulationController simController, AtomicInteger simTimeMS) {
+	public FlightControlsStateManager(SimulationContext context, AtomicInteger simTimeMS) {
 		logger.debug("Initializing flight controls...");
 		
-		SimEvents.init(simController);
-
-		SimulationConfiguration simConfig = simController.getConfiguration();
+		SimulationConfiguration simConfig = context.getConfiguration();
 		options = simConfig.getSimulationOptions();
 		controlsState = new FlightControlsState(simConfig);
-		actuator = new FlightControlActuator(simConfig, controlsState);
+		actuator = new FlightControlActuator(simConfig, controlsState, context.getSimEvents());
 
 		this.simTimeMS = simTimeMS;
 		
 		ControlsConfiguration controlsConfig = FileUtilities.readControlsConfiguration();
-		analysisControls = FileUtilities.readAnalysisControls();
+		analysisControls = context.getAnalysisControls();
 		
 		if (analysisControls != null) {
 			logger.debug(analysisControls.getAnalysisInputs().size() + " analysis flight control inputs found:");
@@ -121,15 +120,15 @@ public class FlightControlsStateManager implements Steppable {
 				analysisControls.updateFlightControls(simTimeMS, actuator);
 			}
 			
-			limitControls(controlsState);
+			controlsState.limit();
 		} catch (Exception e) {
 			logger.error("Flight controls encountered an error!", e);
 		}
 	}
 	
 	@Override
-	public boolean canStepNow(int timeMS) {
-		return timeMS % 1 == 0;
+	public RateGroup getRateGroup() {
+		return RateGroup.CONTROLS;
 	}
 		
 	public void setSimTimeMS(AtomicInteger simTimeMS) { this.simTimeMS = simTimeMS;	}
@@ -137,19 +136,4 @@ public class FlightControlsStateManager implements Steppable {
 	public AtomicInteger getSimTimeMS() { return simTimeMS;	}
 	
 	public FlightControlsState getControlsState() { return controlsState; }
-
-	/**
-	 *  Limit control inputs to sensible deflection values based on the minimum and maximum values defined for 
-	 *  each member of {@link FlightControl}
-	 *  
-	 * @param controlsState 
-	 */
-	private void limitControls(FlightControlsState controlsState) {		
-		for (FlightControl flc : FlightControl.values()) {
-            if (controlsState.get(flc) > flc.getMaximum())
-                controlsState.set(flc, flc.getMaximum());
-            else if (controlsState.get(flc) < flc.getMinimum())
-                controlsState.set(flc, flc.getMinimum());
-        }
-	}
 }
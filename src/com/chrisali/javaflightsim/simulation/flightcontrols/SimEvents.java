@@ -28,7 +28,9 @@ import com.chrisali.javaflightsim.interfaces.SimulationController;
 import com.chrisali.javaflightsim.simulation.setup.Options;
 
 /**
- * Contains static methods that handle all simulation events (pause, reset, quit) that can happen in JavaFlightSimulator
+ * Handles all simulation events (pause, reset, quit) that can happen in JavaFlightSimulator. Each simulation owns its own instance 
+ * through its {@link com.chrisali.javaflightsim.simulation.SimulationContext}, so that pausing or resetting one simulation does not 
+ * affect another running in the same JVM
  * 
  * @author Christopher
  *
@@ -38,19 +40,23 @@ public class SimEvents {
 	private static final Logger logger = LogManager.getLogger(SimEvents.class);
 	
 	// Keep track if button is pressed, so events occur only once if button held down 
-	private static boolean pausePressed = false;
-	private static boolean resetPressed = false;
+	private boolean pausePressed = false;
+	private boolean resetPressed = false;
 	
 	// Keep track of reset, so that it can only be run once per pause
-	private static boolean wasReset = false;
+	private boolean wasReset = false;
 	
-	private static Set<Options> options;
+	private Set<Options> options;
 	
-	private static SimulationController simController;
+	private SimulationController simController;
 	
-	public static void init(SimulationController controller) {
-		simController = controller;
-		options = simController.getConfiguration().getSimulationOptions();
+	/**
+	 * @param options simulation options, into which {@link Options#PAUSED} and {@link Options#RESET} are written
+	 * @param simController controller to stop and plot the simulation; may be null when running without one, in which case those events are ignored 
+	 */
+	public SimEvents(Set<Options> options, SimulationController simController) {
+		this.options = options;
+		this.simController = simController;
 	}
 	
 	/**
@@ -58,7 +64,7 @@ public class SimEvents {
 	 * 
 	 * @param isPressed
 	 */
-	public static void pauseUnpauseSimulation(boolean isPressed) {
+	public void pauseUnpauseSimulation(boolean isPressed) {
 		if(isPressed && !options.contains(Options.PAUSED) && !pausePressed) {
 			options.add(Options.PAUSED);
 			logger.debug("Simulation paused!");
@@ -77,7 +83,7 @@ public class SimEvents {
 	 * When the simulation is paused, it can be reset back to initial conditions once per pause with this method 
 	 * @param isPressed
 	 */
-	public static void resetSimulation(boolean isPressed) {
+	public void resetSimulation(boolean isPressed) {
 		if(isPressed && options.contains(Options.PAUSED) && !options.contains(Options.RESET) && !resetPressed && !wasReset) {
 			options.add(Options.RESET);
 			logger.debug("Resetting simulation...");
@@ -92,15 +98,16 @@ public class SimEvents {
 	/**
 	 * Commands {@link SimulationController} to stop the simulation
 	 */
-	public static void stopSimulation() {
-		simController.stopSimulation();
+	public void stopSimulation() {
+		if (simController != null)
+			simController.stopSimulation();
 	}
 	
 	/**
 	 * Commands {@link SimulationController} to generate plots of the simulation thus far
 	 */
-	public static void plotSimulation() {
-		if(!simController.isPlotWindowVisible()) {
+	public void plotSimulation() {
+		if(simController != null && !simController.isPlotWindowVisible()) {
 			simController.plotSimulation();
 		}
 	}
@@ -70,6 +70,14 @@ public abstract class AnalysisControlInput implements Comparable<AnalysisControl
 	}
 
 	public abstract void generate(AtomicInteger timeMS, ControlParameterActuator actuator);
+	
+	/**
+	 * Calculates the deflection of this input from trim value at a given time, without applying it to any actuator
+	 * 
+	 * @param timeMS time in milliseconds
+	 * @return deflection from trim value in radians
+	 */
+	public abstract double calculateDeflection(int timeMS);
 
 	public FlightControl getControlType() { return controlType;	}
 
@@ -50,21 +50,23 @@ public class Doublet extends AnalysisControlInput {
 	 */
 	@Override
 	public void generate(AtomicInteger timeMS, ControlParameterActuator actuator) {
-		Integer time = timeMS.get();
-		Integer firstHalfEndTimeMS = startTimeMS + durationMS;
-		Integer doubletEndTimeMS   = startTimeMS + (2 * durationMS);
-		
-		boolean startedFirstHalf = time.compareTo(startTimeMS) == 1 || time.compareTo(startTimeMS) == 0;
-		boolean endedFirstHalf   = time.compareTo(firstHalfEndTimeMS) == 1 || time.compareTo(firstHalfEndTimeMS) == 0;
-		
-		boolean startedSecondHalf = time.compareTo(firstHalfEndTimeMS) == 1 || time.compareTo(firstHalfEndTimeMS) == 0;
-		boolean endedSecondHalf   = time.compareTo(doubletEndTimeMS)   == 1 || time.compareTo(doubletEndTimeMS)   == 0;
+		actuator.handleParameterChange(controlType, (float)(calculateDeflection(timeMS.get())/controlType.getMaximum()));
+	}
+	
+	/**
+	 * @param timeMS
+	 * @return amplitude during the first half of the doublet, the negative of amplitude during the second half, and zero otherwise
+	 */
+	@Override
+	public double calculateDeflection(int timeMS) {
+		int firstHalfEndTimeMS = startTimeMS + durationMS;
+		int doubletEndTimeMS   = startTimeMS + (2 * durationMS);
 		
-		if (startedFirstHalf && !endedFirstHalf)
-			actuator.handleParameterChange(controlType, (float)(amplitude/controlType.getMaximum()));
-		else if (startedSecondHalf && !endedSecondHalf)
-			actuator.handleParameterChange(controlType, (float)(-amplitude/controlType.getMaximum()));
+		if (timeMS >= startTimeMS && timeMS < firstHalfEndTimeMS)
+			return amplitude;
+		else if (timeMS >= firstHalfEndTimeMS && timeMS < doubletEndTimeMS)
+			return -amplitude;
 		else 
-			actuator.handleParameterChange(controlType, 0.0f);
-	}	
+			return 0.0;
+	}
 }
@@ -49,15 +49,15 @@ public class Singlet extends AnalysisControlInput {
 	 */
 	@Override
 	public void generate(AtomicInteger timeMS, ControlParameterActuator actuator) {
-		Integer time = timeMS.get();
-		Integer endTimeMS = startTimeMS + durationMS;
-		
-		boolean started = time.compareTo(startTimeMS) == 1 || time.compareTo(startTimeMS) == 0;
-		boolean ended   = time.compareTo(endTimeMS) == 1 || time.compareTo(endTimeMS) == 0;
-				
-		if (started && !ended)
-			actuator.handleParameterChange(controlType, (float)(amplitude/controlType.getMaximum()));
-		else 
-			actuator.handleParameterChange(controlType, 0.0f);
-	}	
+		actuator.handleParameterChange(controlType, (float)(calculateDeflection(timeMS.get())/controlType.getMaximum()));
+	}
+	
+	/**
+	 * @param timeMS
+	 * @return amplitude during the singlet, and zero otherwise
+	 */
+	@Override
+	public double calculateDeflection(int timeMS) {
+		return (timeMS >= startTimeMS && timeMS < startTimeMS + durationMS) ? amplitude : 0.0;
+	}
 }
\ No newline at end of file
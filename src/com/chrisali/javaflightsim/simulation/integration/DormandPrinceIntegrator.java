@@ -0,0 +1,61 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.integration;
+
+import org.apache.commons.math3.ode.FirstOrderDifferentialEquations;
+import org.apache.commons.math3.ode.nonstiff.DormandPrince54Integrator;
+
+/**
+ * Wraps the adaptive step Apache Commons {@link DormandPrince54Integrator} so that it can be used as a {@link SingleStepIntegrator}.
+ * Each call integrates from t0 to t using as many internal steps as needed to meet the error tolerances specified. Unlike the fixed 
+ * step integrators, this creates garbage on every step, so it is better suited to analysis runs than pilot in the loop simulation
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class DormandPrinceIntegrator implements SingleStepIntegrator {
+	
+	private static final double MIN_STEP_RATIO = 1.0e-6;
+	private static final double ABSOLUTE_TOLERANCE = 1.0e-8;
+	private static final double RELATIVE_TOLERANCE = 1.0e-8;
+	
+	private final DormandPrince54Integrator integrator;
+	
+	/**
+	 * Creates a Dormand-Prince integrator whose internal steps are no larger than the simulation's time step
+	 * 
+	 * @param dt simulation time step (sec)
+	 */
+	public DormandPrinceIntegrator(double dt) {
+		integrator = new DormandPrince54Integrator(dt * MIN_STEP_RATIO, dt, ABSOLUTE_TOLERANCE, RELATIVE_TOLERANCE);
+	}
+
+	@Override
+	public double[] singleStep(FirstOrderDifferentialEquations equations, double t0, double[] y0, double t, double[] y) {
+		integrator.integrate(equations, t0, y0, t, y);
+		
+		return y;
+	}
+	
+	/**
+	 * @return number of evaluations of the differential equations made during the last step
+	 */
+	public int getEvaluations() { return integrator.getEvaluations(); }
+}
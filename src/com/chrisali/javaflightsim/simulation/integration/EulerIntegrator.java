@@ -0,0 +1,55 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.integration;
+
+import org.apache.commons.math3.ode.FirstOrderDifferentialEquations;
+
+/**
+ * Fixed step, first-order (forward) Euler integrator. Only evaluates its differential equations once per step,
+ * making it the cheapest, but least accurate and stable, of the {@link SingleStepIntegrator} implementations
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class EulerIntegrator implements SingleStepIntegrator {
+	
+	private final double[] yDot;
+	
+	/**
+	 * Creates an Euler integrator with scratch arrays sized for a system of equations of the dimension specified
+	 * 
+	 * @param dimension number of states in the system of equations
+	 */
+	public EulerIntegrator(int dimension) {
+		yDot = new double[dimension];
+	}
+
+	@Override
+	public double[] singleStep(FirstOrderDifferentialEquations equations, double t0, double[] y0, double t, double[] y) {
+		final double h = t - t0;
+		
+		equations.computeDerivatives(t0, y0, yDot);
+		
+		for (int i = 0; i < yDot.length; i++)
+			y[i] = y0[i] + h * yDot[i];
+		
+		return y;
+	}
+}
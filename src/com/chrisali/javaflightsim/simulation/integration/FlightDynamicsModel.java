@@ -0,0 +1,256 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.integration;
+
+import com.chrisali.javaflightsim.simulation.SimulationContext;
+import com.chrisali.javaflightsim.simulation.aircraft.AccelAndMoments;
+import com.chrisali.javaflightsim.simulation.aircraft.AeroState;
+import com.chrisali.javaflightsim.simulation.aircraft.Aerodynamics;
+import com.chrisali.javaflightsim.simulation.aircraft.Aircraft;
+import com.chrisali.javaflightsim.simulation.aircraft.AircraftModel;
+import com.chrisali.javaflightsim.simulation.enviroment.AtmosphereState;
+import com.chrisali.javaflightsim.simulation.enviroment.Environment;
+import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControlsSnapshot;
+import com.chrisali.javaflightsim.simulation.propulsion.Engine;
+import com.chrisali.javaflightsim.simulation.setup.Trimming;
+import com.chrisali.javaflightsim.simulation.utilities.Dual;
+import com.chrisali.javaflightsim.simulation.utilities.SaturationUtilities;
+import com.chrisali.javaflightsim.simulation.utilities.SixDOFUtilities;
+
+/**
+ * Evaluates the 14 (12 6DOF + 2 lat/lon) state derivatives of an airborne aircraft at any given states and flight controls, using the same 
+ * force model and equations of motion as {@link Integrate6DOFEquations}, but without integrating them. This is the function f(x,u) that 
+ * {@link Trimming} drives to zero and that linear models are taken from. Ground reaction is never stepped, so it contributes no forces or 
+ * moments, and the environment, engines and aerodynamics of the {@link SimulationContext} are updated to match the states of each evaluation. 
+ * All intermediate results are kept in preallocated arrays, and like the context it belongs to, a model should only be used by one thread.
+ * 
+ * <p>The 12 6DOF state derivatives can also be evaluated with {@link Dual}s, which carry their exact derivatives with respect to any 
+ * states and controls chosen as variables through every calculation of the model</p>
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class FlightDynamicsModel {
+	
+	public static final int STATES = 14;
+	
+	private final Aircraft aircraft;
+	private final Aerodynamics aerodynamics;
+	private final Environment environment;
+	private final IntegrateGroundReaction groundReaction;
+	
+	private AircraftModel aircraftModel;
+	private Engine[] engines;
+	
+	private AtmosphereState atmosphereState = new AtmosphereState();
+	private AeroState aeroState				= new AeroState();
+	private double[] linearAccelerations	= new double[3];
+	private double[] totalMoments			= new double[3];
+	
+	private double[] linearVelocities		= new double[3];
+	private double[] NEDPosition			= new double[3];
+	private double[] eulerAngles			= new double[3];
+	private double[] angularRates			= new double[3];
+	private double[] windParameters			= new double[3];
+	
+	private double[][] dirCosMat			= new double[3][3];
+	private double[] ned2LLA				= new double[2];
+	
+	private AtmosphereState altitudeDerivatives = new AtmosphereState();
+	private Dual[] dualLinearVelocities		= new Dual[3];
+	private Dual[] dualNEDPosition			= new Dual[3];
+	private Dual[] dualEulerAngles			= new Dual[3];
+	private Dual[] dualAngularRates			= new Dual[3];
+	private Dual[] dualWindParameters		= new Dual[3];
+	private Dual[] engineForces				= new Dual[3];
+	private Dual[] engineMoments			= new Dual[3];
+	private Dual[] engineThrust				= new Dual[3];
+	private Dual[] engineMoment				= new Dual[3];
+	private Dual[] aeroForces				= new Dual[3];
+	private Dual[] aeroMoments				= new Dual[3];
+	private Dual[] dualLinearAccelerations	= new Dual[3];
+	private Dual[] dualTotalMoments			= new Dual[3];
+	
+	/**
+	 * Creates a model of the aircraft, aerodynamics and environment of a {@link SimulationContext}
+	 * 
+	 * @param context
+	 */
+	public FlightDynamicsModel(SimulationContext context) {
+		aircraft 	  = context.getAircraft();
+		aerodynamics  = context.getAerodynamics();
+		environment   = context.getEnvironment();
+		aircraftModel = aircraft.getAircraftModel();
+		engines 	  = aircraftModel.getEngines();
+		
+		groundReaction = new IntegrateGroundReaction(linearVelocities, NEDPosition, eulerAngles, angularRates, windParameters, 
+													 new double[STATES], new double[3], aircraft, new FlightControlsSnapshot());
+	}
+	
+	/**
+	 * Calculates the state derivatives at the states in y[] for the flight controls given, applying the same saturation limits to 
+	 * copies of the states as {@link Integrate6DOFEquations}. The accelerations, moments and aerodynamics calculated along the way 
+	 * can be read from this model's getters until the next evaluation
+	 * 
+	 * @param y 6DOF states plus latitude and longitude
+	 * @param controls
+	 * @param alphaDot rate of change of angle of attack (rad/sec)
+	 * @param yDot array of length 14 to write into
+	 * @return yDot
+	 */
+	public double[] calculateDerivatives(double[] y, FlightControlsSnapshot controls, double alphaDot, double[] yDot) {
+		// Recompiled by the aircraft only if its mass properties have changed
+		aircraftModel = aircraft.getAircraftModel();
+		engines = aircraftModel.getEngines();
+		
+		for (int i = 0; i < linearVelocities.length; i++) {
+			linearVelocities[i] = y[i];
+			NEDPosition[i]      = y[i+3];
+			eulerAngles[i]      = y[i+6];
+			angularRates[i]     = y[i+9];
+		}
+		
+		SaturationUtilities.limitLinearVelocities(linearVelocities);
+		SaturationUtilities.limitNEDPosition(NEDPosition, 0.0);
+		SaturationUtilities.piBounding(eulerAngles, angularRates);
+		SaturationUtilities.limitAngularRates(angularRates);
+		
+		SixDOFUtilities.calculateWindParameters(linearVelocities, windParameters);
+		
+		environment.updateAtmosphereState(NEDPosition, atmosphereState);
+		
+		for (Engine engine : engines)
+			engine.updateEngineState(controls, atmosphereState, windParameters);
+		
+		aerodynamics.calculateAeroState(windParameters, angularRates, atmosphereState, controls, alphaDot, NEDPosition[2], aeroState);
+		
+		AccelAndMoments.calculateLinearAccelerations(aeroState, engines, aircraftModel, groundReaction, linearAccelerations);
+		AccelAndMoments.calculateTotalMoments(aeroState, engines, aircraftModel, groundReaction, totalMoments);
+		
+		return SixDOFUtilities.calculateSixDOFDerivatives(y, linearAccelerations, totalMoments, aircraftModel.getInertiaCoeffs(), 
+														  atmosphereState, dirCosMat, ned2LLA, yDot);
+	}
+	
+	/**
+	 * Calculates the 12 6DOF state derivatives, along with their derivatives, at the states in y[] for the flight controls given, 
+	 * applying the same saturation limits and force model as {@link FlightDynamicsModel#calculateDerivatives(double[], FlightControlsSnapshot, 
+	 * double, double[])}. Limits that clamp a value make it a constant, while those that wrap an angle only offset it. The wind parameters 
+	 * and accelerations calculated along the way can be read from {@link FlightDynamicsModel#getDualWindParameters()} and 
+	 * {@link FlightDynamicsModel#getDualLinearAccelerations()} until the next evaluation
+	 * 
+	 * @param y 6DOF states
+	 * @param controls value of each flight control, indexed by {@link com.chrisali.javaflightsim.simulation.flightcontrols.FlightControl} ordinal
+	 * @param alphaDot rate of change of angle of attack (rad/sec)
+	 * @param yDot array of length 12 to write into
+	 * @return yDot
+	 */
+	public Dual[] calculateDerivatives(Dual[] y, Dual[] controls, Dual alphaDot, Dual[] yDot) {
+		aircraftModel = aircraft.getAircraftModel();
+		engines = aircraftModel.getEngines();
+		
+		final int variables = alphaDot.getVariables();
+		
+		for (int i = 0; i < linearVelocities.length; i++) {
+			dualLinearVelocities[i] = y[i];
+			dualNEDPosition[i]      = y[i+3];
+			dualEulerAngles[i]      = y[i+6];
+			dualAngularRates[i]     = y[i+9];
+			
+			linearVelocities[i] = y[i].getValue();
+			NEDPosition[i]      = y[i+3].getValue();
+			eulerAngles[i]      = y[i+6].getValue();
+			angularRates[i]     = y[i+9].getValue();
+		}
+		
+		SaturationUtilities.limit(dualLinearVelocities, SaturationUtilities.limitLinearVelocities(linearVelocities));
+		SaturationUtilities.limit(dualNEDPosition, SaturationUtilities.limitNEDPosition(NEDPosition, 0.0));
+		SaturationUtilities.bound(dualEulerAngles, SaturationUtilities.piBounding(eulerAngles, angularRates));
+		SaturationUtilities.limit(dualAngularRates, SaturationUtilities.limitAngularRates(angularRates));
+		
+		SixDOFUtilities.calculateWindParameters(dualLinearVelocities, dualWindParameters);
+		
+		environment.updateAtmosphereState(NEDPosition, atmosphereState, altitudeDerivatives);
+		
+		Dual altitude 	  = dualNEDPosition[2];
+		Dual density 	  = altitude.compose(atmosphereState.getDensity(), altitudeDerivatives.getDensity());
+		Dual speedOfSound = altitude.compose(atmosphereState.getSpeedOfSound(), altitudeDerivatives.getSpeedOfSound());
+		
+		for (int i = 0; i < engineForces.length; i++)
+			engineForces[i] = engineMoments[i] = Dual.constant(0.0, variables);
+		
+		for (Engine engine : engines) {
+			engine.calculateThrustAndMoment(controls, density, dualWindParameters, engineThrust, engineMoment);
+			
+			for (int i = 0; i < engineForces.length; i++) {
+				engineForces[i]  = engineForces[i].add(engineThrust[i]);
+				engineMoments[i] = engineMoments[i].add(engineMoment[i]);
+			}
+		}
+		
+		aerodynamics.calculateAeroForces(dualWindParameters, dualAngularRates, density, speedOfSound, controls, alphaDot, altitude, 
+										 aeroForces, aeroMoments);
+		
+		AccelAndMoments.calculateLinearAccelerations(aeroForces, engineForces, aircraftModel, dualLinearAccelerations);
+		AccelAndMoments.calculateTotalMoments(aeroForces, aeroMoments, engineMoments, aircraftModel, dualTotalMoments);
+		
+		return SixDOFUtilities.calculateSixDOFDerivatives(y, dualLinearAccelerations, dualTotalMoments, aircraftModel.getInertiaCoeffs(), 
+														  atmosphereState, yDot);
+	}
+	
+	/**
+	 * @return wind parameters {vTrue,beta,alpha} of the last evaluation with {@link Dual}s
+	 */
+	public Dual[] getDualWindParameters() { return dualWindParameters; }
+	
+	/**
+	 * @return total linear accelerations {ax,ay,az} (ft/sec^2) of the last evaluation with {@link Dual}s, excluding gravity
+	 */
+	public Dual[] getDualLinearAccelerations() { return dualLinearAccelerations; }
+	
+	/**
+	 * @return total linear accelerations {ax,ay,az} (ft/sec^2) of the last evaluation, excluding gravity
+	 */
+	public double[] getLinearAccelerations() { return linearAccelerations; }
+	
+	/**
+	 * @return total moments {L,M,N} (lb ft) of the last evaluation
+	 */
+	public double[] getTotalMoments() { return totalMoments; }
+	
+	/**
+	 * @return wind parameters {vTrue,beta,alpha} of the last evaluation
+	 */
+	public double[] getWindParameters() { return windParameters; }
+	
+	/**
+	 * @return aerodynamic coefficients, forces and moments of the last evaluation
+	 */
+	public AeroState getAeroState() { return aeroState; }
+	
+	/**
+	 * @return atmosphere at the altitude of the last evaluation
+	 */
+	public AtmosphereState getAtmosphereState() { return atmosphereState; }
+	
+	/**
+	 * @return aircraft model used by the last evaluation
+	 */
+	public AircraftModel getAircraftModel() { return aircraftModel; }
+}
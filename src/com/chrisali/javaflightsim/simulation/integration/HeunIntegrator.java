@@ -0,0 +1,66 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.integration;
+
+import org.apache.commons.math3.ode.FirstOrderDifferentialEquations;
+
+/**
+ * Fixed step, second-order Heun (improved Euler) integrator. An Euler predictor step is corrected by averaging
+ * the derivatives at the start and predicted end of the step, requiring two evaluations of the differential 
+ * equations per step
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class HeunIntegrator implements SingleStepIntegrator {
+	
+	private final double[] k1;
+	private final double[] k2;
+	private final double[] yTemp;
+	
+	/**
+	 * Creates a Heun integrator with scratch arrays sized for a system of equations of the dimension specified
+	 * 
+	 * @param dimension number of states in the system of equations
+	 */
+	public HeunIntegrator(int dimension) {
+		k1 	  = new double[dimension];
+		k2 	  = new double[dimension];
+		yTemp = new double[dimension];
+	}
+
+	@Override
+	public double[] singleStep(FirstOrderDifferentialEquations equations, double t0, double[] y0, double t, double[] y) {
+		final int n = k1.length;
+		final double h = t - t0;
+		
+		equations.computeDerivatives(t0, y0, k1);
+		
+		for (int i = 0; i < n; i++)
+			yTemp[i] = y0[i] + h * k1[i];
+		
+		equations.computeDerivatives(t, yTemp, k2);
+		
+		for (int i = 0; i < n; i++)
+			y[i] = y0[i] + h * 0.5 * (k1[i] + k2[i]);
+		
+		return y;
+	}
+}
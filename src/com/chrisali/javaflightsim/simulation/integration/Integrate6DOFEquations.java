@@ -19,42 +19,49 @@
  ******************************************************************************/
 package com.chrisali.javaflightsim.simulation.integration;
 
-import java.util.ArrayList;
 import java.util.Collections;
-import java.util.EnumMap;
 import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.math3.ode.FirstOrderDifferentialEquations;
-import org.apache.commons.math3.ode.nonstiff.ClassicalRungeKuttaIntegrator;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import com.chrisali.javaflightsim.interfaces.Steppable;
+import com.chrisali.javaflightsim.simulation.RateGroup;
+import com.chrisali.javaflightsim.simulation.SimulationContext;
 import com.chrisali.javaflightsim.simulation.aircraft.AccelAndMoments;
+import com.chrisali.javaflightsim.simulation.aircraft.AeroState;
+import com.chrisali.javaflightsim.simulation.aircraft.Aerodynamics;
 import com.chrisali.javaflightsim.simulation.aircraft.Aircraft;
-import com.chrisali.javaflightsim.simulation.datatransfer.EnvironmentData;
+import com.chrisali.javaflightsim.simulation.aircraft.AircraftModel;
 import com.chrisali.javaflightsim.simulation.datatransfer.EnvironmentDataListener;
 import com.chrisali.javaflightsim.simulation.datatransfer.EnvironmentDataType;
+import com.chrisali.javaflightsim.simulation.datatransfer.SeqLockBuffer;
+import com.chrisali.javaflightsim.simulation.enviroment.AtmosphereState;
 import com.chrisali.javaflightsim.simulation.enviroment.Environment;
-import com.chrisali.javaflightsim.simulation.enviroment.EnvironmentParameters;
 import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControl;
+import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControlsSnapshot;
 import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControlsState;
 import com.chrisali.javaflightsim.simulation.propulsion.Engine;
 import com.chrisali.javaflightsim.simulation.setup.Options;
 import com.chrisali.javaflightsim.simulation.setup.SimulationConfiguration;
-import com.chrisali.javaflightsim.simulation.utilities.FileUtilities;
 import com.chrisali.javaflightsim.simulation.utilities.SaturationUtilities;
 import com.chrisali.javaflightsim.simulation.utilities.SixDOFUtilities;
 
 /**
  * This class integrates all 12 6DOF (plus 2 latitude/longitude) equations numerically to obtain the aircraft's states.
- * The {@link ClassicalRungeKuttaIntegrator} is used to integrate over a period of time defined in {@link Integrate6DOFEquations#integratorConfig}.
+ * A {@link SingleStepIntegrator}, selected by the {@link IntegratorType} in {@link SimulationConfiguration}, is used to integrate over a period 
+ * of time defined in {@link Integrate6DOFEquations#integratorConfig}. The aircraft's forces and moments are evaluated at the state of each stage 
+ * of the integrator, so multi-stage methods such as {@link RungeKuttaIntegrator} achieve their full order of accuracy. All states, derivatives 
+ * and intermediate results of a step are kept in arrays preallocated upon construction, so that stepping the fixed step integrators does not 
+ * create garbage. All other state of the simulation is held by its {@link SimulationContext}, so that several instances can be integrated 
+ * concurrently on separate threads.
  * The class outputs at each step using {@link Integrate6DOFEquations#logData(double)} to 
- * generate a {@link Integrate6DOFEquations#logsOut} ArrayList of {@link Integrate6DOFEquations#simOut} EnumMaps containing simulation outputs.
+ * publish its simulation outputs to the lock-free {@link Integrate6DOFEquations#simOut} buffer, and to 
+ * append them to the {@link Integrate6DOFEquations#logsOut} {@link SimOutRingBuffer}, a columnar log of simulation outputs.
  * These can be obtained using the proper getters for {@link Integrate6DOFEquations#logsOut} and {@link Integrate6DOFEquations#simOut}. Options are passed into the class to
  * allow the user to choose between various run-time options 
  * 
@@ -62,10 +69,10 @@ import com.chrisali.javaflightsim.simulation.utilities.SixDOFUtilities;
  * @param  EnumSet runOptions
  *      
  * @return EnumMap simOut
- * @return ArrayList logsOut
+ * @return SimOutRingBuffer logsOut
  *      
  * @see FirstOrderDifferentialEquations 
- * @see ClassicalRungeKuttaIntegrator
+ * @see SingleStepIntegrator
  * @see AircraftBuilder
  * @see Options
  */
@@ -73,6 +80,14 @@ public class Integrate6DOFEquations implements Steppable, EnvironmentDataListene
 	//Logging
 	private static final Logger logger = LogManager.getLogger(Integrate6DOFEquations.class);
 	
+	private static final SimOuts[] SIM_OUTS = SimOuts.values();
+	
+	// Seconds of flight data kept in logsOut in UNLIMITED_FLIGHT
+	private static final double UNLIMITED_FLIGHT_LOG_SEC = 100.0;
+	private static final SimOuts[] ENGINE_THRUSTS 	 = {SimOuts.THRUST_1, SimOuts.THRUST_2, SimOuts.THRUST_3, SimOuts.THRUST_4};
+	private static final SimOuts[] ENGINE_RPMS 		 = {SimOuts.RPM_1, SimOuts.RPM_2, SimOuts.RPM_3, SimOuts.RPM_4};
+	private static final SimOuts[] ENGINE_FUEL_FLOWS = {SimOuts.FUEL_FLOW_1, SimOuts.FUEL_FLOW_2, SimOuts.FUEL_FLOW_3, SimOuts.FUEL_FLOW_4};
+	
 	// 6DOF Integration Results
 	private double[] linearVelocities 		= new double[3];
 	private double[] NEDPosition      		= new double[3];
@@ -80,7 +95,8 @@ public class Integrate6DOFEquations implements Steppable, EnvironmentDataListene
 	private double[] angularRates     		= new double[3];
 	
 	// Environment and Wind Parameters
-	private Map<EnvironmentParameters, Double> environmentParameters;
+	private Environment environment;
+	private AtmosphereState atmosphereState = new AtmosphereState();
 	private double   gravity			    = Environment.getGravity();
 	private double[] windParameters   		= new double[3];	
 	private double   alphaDot 				= 0.0f;
@@ -89,55 +105,91 @@ public class Integrate6DOFEquations implements Steppable, EnvironmentDataListene
 	// Ground Reaction
 	private IntegrateGroundReaction groundReaction;
 	private double   terrainHeight			= 0.0f;
+	// Written by the environment data listener thread, and latched into terrainHeight at the start of each step
+	private volatile double receivedTerrainHeight = 0.0;
 	
 	// Forces and Moments
+	private Aerodynamics aerodynamics;
+	private AeroState aeroState				= new AeroState();
 	private double[] linearAccelerations    = new double[3];
 	private double[] totalMoments     		= new double[3];
 	
 	// Simulation Controls (Joystick, Keyboard, etc.)
 	private FlightControlsState flightControls;
-	private Map<FlightControl, Double> controlsMap;
+	// Copied from flightControls at the start of each step, only if they have changed, and read by the force model
+	private FlightControlsSnapshot controls = new FlightControlsSnapshot();
 	
 	// Integrator Fields
-	private ClassicalRungeKuttaIntegrator integrator;
+	private SingleStepIntegrator integrator;
+	private SixDOFEquations sixDOFEquations;
 	private double[] sixDOFDerivatives		= new double[14];
 	private double[] y					    = new double[14];
 	private double[] initialConditions      = new double[14];
 	private double[] resetInitialConditions = new double[14]; 
 	
+	// Scratch Arrays Used in Derivative Calculations
+	private double[][] dirCosMat			= new double[3][3];
+	private double[] ned2LLA				= new double[2];
+	
+	// Intermediate States of the Integrator's Stages
+	private double[] stageLinearVelocities	= new double[3];
+	private double[] stageNEDPosition		= new double[3];
+	private double[] stageEulerAngles		= new double[3];
+	private double[] stageAngularRates		= new double[3];
+	private double[] stageWindParameters	= new double[3];
+	
 	// Time Properties (sec for calculations in this object, millisec elsewhere)
 	private double[] integratorConfig 		= new double[3];
 	private double t;
 		
 	// Aircraft Properties
 	private Aircraft aircraft;
-	private Set<Engine> engineList;
+	private AircraftModel aircraftModel;
+	private Engine[] engines;
 	
 	// Output Logging
-	private List<Map<SimOuts, Double>> logsOut = Collections.synchronizedList(new ArrayList<Map<SimOuts, Double>>());
-	private Map<SimOuts, Double> simOut;
+	private SimOutRingBuffer logsOut;
+	private double[] simOutValues 			= new double[SIM_OUTS.length];
+	private SeqLockBuffer<SimOuts> simOut 	= new SeqLockBuffer<>(SimOuts.class);
 	
 	// Options
 	private EnumSet<Options> options;
 	
 	/**
 	 * Creates the {@link Integrate6DOFEquations} object with references to {@link FlightControlsState} and {@link SimulationConfiguration}
-	 * objects
+	 * objects, in a new {@link SimulationContext} of its own
 	 * 
 	 * @param flightControls
 	 * @param configuration
 	 */
 	public Integrate6DOFEquations(FlightControlsState flightControls, SimulationConfiguration configuration) {
+		this(flightControls, new SimulationContext(configuration));
+	}
+	
+	/**
+	 * Creates the {@link Integrate6DOFEquations} object with references to {@link FlightControlsState} and the {@link SimulationContext}
+	 * that holds its aircraft, environment and configuration
+	 * 
+	 * @param flightControls
+	 * @param context
+	 */
+	public Integrate6DOFEquations(FlightControlsState flightControls, SimulationContext context) {
 		this.flightControls = flightControls;
 		
-	    controlsMap 	   = flightControls.getFlightControls();
-		aircraft 		   = FileUtilities.readAircraftConfiguration(configuration.getSelectedAircraft());
-		engineList   	   = aircraft.getEngines();
+		SimulationConfiguration configuration = context.getConfiguration();
+		
+	    controls.update(flightControls);
+		aircraft 		   = context.getAircraft();
+		aerodynamics	   = context.getAerodynamics();
+		environment		   = context.getEnvironment();
+		aircraftModel	   = aircraft.getAircraftModel();
+		engines			   = aircraftModel.getEngines();
 		options		       = configuration.getSimulationOptions();
 		
 		// Use Apache Commons Lang to convert EnumMap values into primitive double[]
-		initialConditions = resetInitialConditions = ArrayUtils.toPrimitive(configuration.getInitialConditions().values()
-																.toArray(new Double[initialConditions.length]));
+		resetInitialConditions = ArrayUtils.toPrimitive(configuration.getInitialConditions().values()
+													.toArray(new Double[initialConditions.length]));
+		initialConditions = resetInitialConditions.clone();
 				
 		integratorConfig  = ArrayUtils.toPrimitive(configuration.getIntegratorConfig().values()
 				   												.toArray(new Double[integratorConfig.length]));
@@ -148,10 +200,17 @@ public class Integrate6DOFEquations implements Steppable, EnvironmentDataListene
 		
 		// Initial time
 		t = integratorConfig[0];
+		
+		logsOut = new SimOutRingBuffer(getLogCapacity());
 				
-		// Use fourth-order Runge-Kutta numerical integration with time step of dt
-		logger.debug("Setting up Runge Kutta Integrator for 6DOF calculations...");
-		integrator = new ClassicalRungeKuttaIntegrator(integratorConfig[1]);
+		// Use the selected numerical integration method with time step of dt
+		IntegratorType integratorType = configuration.getIntegratorType();
+		logger.debug("Setting up " + integratorType + " Integrator for 6DOF calculations...");
+		integrator = integratorType.createIntegrator(initialConditions.length, integratorConfig[1]);
+		sixDOFEquations = new SixDOFEquations();
+		
+		// Initial data members are calculated from the states in y
+		System.arraycopy(initialConditions, 0, y, 0, y.length);
 		
 		// Set up ground reaction integration
 		logger.debug("Initializing ground reaction model...");
@@ -164,40 +223,39 @@ public class Integrate6DOFEquations implements Steppable, EnvironmentDataListene
 													 sixDOFDerivatives,
 													 integratorConfig, 
 													 aircraft, 
-													 controlsMap);
-		
-		// Initialize accelerations and moments, and calculate initial data members' values
-		AccelAndMoments.init(aircraft);
+													 controls);
 		
+		// Calculate initial data members' values
 		updateDataMembers();
 	}
 	
 	/**
-	 * Creates the 14 (12 6DOF + 2 lat/lon) state derivatives that {@link Integrate6DOFEquations#integrator} uses to numerically integrate. It loops through {@link Integrate6DOFEquations#sixDOFDerivatives} to
-	 * assign values to yDot[], which is used in the single step {@link Integrate6DOFEquations#integrator} in {@link Integrate6DOFEquations#run()}
+	 * Creates the 14 (12 6DOF + 2 lat/lon) state derivatives that {@link Integrate6DOFEquations#integrator} uses to numerically integrate. On each call, the
+	 * accelerations and moments are recalculated at the states in y[] using {@link Integrate6DOFEquations#updateForcesAndMoments(double[])}, then used to
+	 * assign values to yDot[] in {@link Integrate6DOFEquations#updateDerivatives(double[], double[])}
 	 * @see FirstOrderDifferentialEquations 
 	 * @see Integrate6DOFEquations
-	 * @see ClassicalRungeKuttaIntegrator
+	 * @see SingleStepIntegrator
 	 */
 	private class SixDOFEquations implements FirstOrderDifferentialEquations {		
 		private SixDOFEquations() {}
 
 		public void computeDerivatives(double t, double[] y, double[] yDot) {
-			for (int i = 0; i < yDot.length; i++) 
-				yDot[i] = sixDOFDerivatives[i];
+			updateForcesAndMoments(y);
+			updateDerivatives(y, yDot);
 		}
 
 		public int getDimension() {return 14;}
 	}
 	
 	@Override
-	public boolean canStepNow(int simTimeMS) {
-		return simTimeMS % 1 == 0;
+	public RateGroup getRateGroup() {
+		return RateGroup.PHYSICS;
 	}
 
 	/**
 	 * Runs {@link Integrate6DOFEquations} integration process by calling 
-	 * {@link ClassicalRungeKuttaIntegrator#singleStep(FirstOrderDifferentialEquations, double, double[], double)}
+	 * {@link SingleStepIntegrator#singleStep(FirstOrderDifferentialEquations, double, double[], double, double[])}
 	 * method on each invocation as long as {@link Options#PAUSED} isn't enabled 
 	 */
 	@Override
@@ -206,24 +264,34 @@ public class Integrate6DOFEquations implements Steppable, EnvironmentDataListene
 			// If paused and reset selected, reset initialConditions to saved values in configuration
 			if (options.contains(Options.PAUSED) && options.contains(Options.RESET)) {
 				logger.debug("Simulation reset to initial conditions!");
-				initialConditions = resetInitialConditions;
+				System.arraycopy(resetInitialConditions, 0, initialConditions, 0, initialConditions.length);
 				flightControls.reset();
 				options.remove(Options.RESET);
 			}
+			
+			controls.update(flightControls);
 							
 			// If paused, skip the integration and update process
 			if (!options.contains(Options.PAUSED)) {
+				// Recompiled by the aircraft only if its mass properties have changed
+				aircraftModel = aircraft.getAircraftModel();
+				engines = aircraftModel.getEngines();
+				
+				// Use the same terrain height for every stage of the step
+				terrainHeight = receivedTerrainHeight;
+				
 				// Run a single step of integration each step of the loop
-				y = integrator.singleStep(new SixDOFEquations(),  // derivatives
-										  t, 		  			  // start time
-										  initialConditions, 	  // initial conditions
-										  t+integratorConfig[1]); // end time (t+dt)
+				integrator.singleStep(sixDOFEquations,  	  // derivatives
+									  t, 		  			  // start time
+									  initialConditions, 	  // initial conditions
+									  t+integratorConfig[1],  // end time (t+dt)
+									  y);					  // states at end time
 														
 				// Update data members' values
 				updateDataMembers();
 				
 				// Update initial conditions for next step of integration
-				initialConditions = y;
+				System.arraycopy(y, 0, initialConditions, 0, y.length);
 				
 				// Update output log
 				logData();
@@ -237,41 +305,65 @@ public class Integrate6DOFEquations implements Steppable, EnvironmentDataListene
 	}
 	
 	/**
-	 * Recalculates the 14 (12 6DOF + 2 lat/lon) state derivatives based on the newly calculated accelerations and moments accomplished in {@link Integrate6DOFEquations#updateDataMembers(double[], double)}.
-	 * The equations are calculated with the help of methods in {@link SixDOFUtilities} to convert coordinate frames and calculate inertia parameters
+	 * Calculates the accelerations and moments acting on the aircraft at the states in y[], which may be those of an intermediate stage of 
+	 * {@link Integrate6DOFEquations#integrator}. The same saturation limits as {@link Integrate6DOFEquations#updateDataMembers()} are applied to 
+	 * copies of the states, and the environment and engines are updated to match them. Ground reaction forces and alphaDot are held at their values 
+	 * from the start of the step
+	 * 
+	 * @param y
+	 */
+	private void updateForcesAndMoments(double[] y) {
+		for (int i=0; i<stageLinearVelocities.length; i++) {
+			stageLinearVelocities[i] = y[i];
+			stageNEDPosition[i]      = y[i+3];
+			stageEulerAngles[i]      = y[i+6];
+			stageAngularRates[i]     = y[i+9];
+		}
+		
+		SaturationUtilities.limitLinearVelocities(stageLinearVelocities);
+		SaturationUtilities.limitNEDPosition(stageNEDPosition, terrainHeight);
+		SaturationUtilities.piBounding(stageEulerAngles, stageAngularRates);
+		SaturationUtilities.limitAngularRates(stageAngularRates);
+		
+		SixDOFUtilities.calculateWindParameters(stageLinearVelocities, stageWindParameters);
+		
+		environment.updateAtmosphereState(stageNEDPosition, atmosphereState);
+		
+		for(Engine engine : engines)
+			 engine.updateEngineState(controls, atmosphereState, stageWindParameters);
+		
+		double heightAGL = stageNEDPosition[2] - terrainHeight;
+		
+		// Aerodynamics are calculated once, and shared by the accelerations and moments 
+		aerodynamics.calculateAeroState(stageWindParameters,
+										stageAngularRates,
+										atmosphereState,
+										controls,
+										alphaDot,
+										heightAGL,
+										aeroState);
+		
+		// Update accelerations
+		AccelAndMoments.calculateLinearAccelerations(aeroState, engines, aircraftModel, groundReaction, linearAccelerations);
+		
+		// Update moments
+		AccelAndMoments.calculateTotalMoments(aeroState, engines, aircraftModel, groundReaction, totalMoments);
+	}
+	
+	/**
+	 * Calculates the 14 (12 6DOF + 2 lat/lon) state derivatives at the states in y[] based on the accelerations and moments calculated in 
+	 * {@link Integrate6DOFEquations#updateForcesAndMoments(double[])}, and writes them into yDot[]. The equations are calculated with the help 
+	 * of {@link SixDOFUtilities#calculateSixDOFDerivatives(double[], double[], double[], double[], AtmosphereState, double[][], double[], double[])}
 	 * @see Source: <i>Small Unmanned Aircraft: Theory and Practice by Beard, R.W. and McLain, T.W.</i>
 	 */
-	private void updateDerivatives(double[] y) {
-		double[][] dirCosMat     = SixDOFUtilities.body2Ned(new double[]{y[6], y[7], y[8]});      // create DCM for NED equations ([column][row])
-		double[]   inertiaCoeffs = SixDOFUtilities.calculateInertiaCoeffs(aircraft.getInertiaValues());
-		double[]   ned2LLA       = SixDOFUtilities.ned2LLA(y);
-		double[]   windSpdNED    = new double[]{environmentParameters.get(EnvironmentParameters.WIND_SPEED_N),
-												environmentParameters.get(EnvironmentParameters.WIND_SPEED_E),
-												environmentParameters.get(EnvironmentParameters.WIND_SPEED_D)};
-		
-		sixDOFDerivatives[0]  = (y[11]*y[1])-(y[10]*y[2])-(gravity*Math.sin(y[7]))               +linearAccelerations[0];    // u (ft/sec)
-		sixDOFDerivatives[1]  = (y[9]* y[2])-(y[11]*y[0])+(gravity*Math.sin(y[6])*Math.cos(y[7]))+linearAccelerations[1];    // v (ft/sec)
-		sixDOFDerivatives[2]  = (y[10]*y[0])-(y[9]* y[1])+(gravity*Math.cos(y[6])*Math.cos(y[7]))+linearAccelerations[2];    // w (ft/sec)
-		
-		sixDOFDerivatives[3]  =    (y[0]*dirCosMat[0][0]+y[1]*dirCosMat[0][1]+y[2]*dirCosMat[0][2])+windSpdNED[0];    // N (ft)
-		sixDOFDerivatives[4]  =    (y[0]*dirCosMat[1][0]+y[1]*dirCosMat[1][1]+y[2]*dirCosMat[1][2])+windSpdNED[1];    // E (ft)
-		sixDOFDerivatives[5]  = -1*(y[0]*dirCosMat[2][0]+y[1]*dirCosMat[2][1]+y[2]*dirCosMat[2][2])+windSpdNED[2];    // D (ft)
-		
-		sixDOFDerivatives[6]  =   y[9]+(Math.tan(y[7])*((y[10]*Math.sin(y[6]))+(y[11]*Math.cos(y[6])))); // phi (rad)
-		sixDOFDerivatives[7]  =  (y[10]*Math.cos(y[6]))-(y[11]*Math.sin(y[6]));     			         // theta (rad)
-		sixDOFDerivatives[8]  = ((y[10]*Math.sin(y[6]))+(y[11]*Math.cos(y[6])))/Math.cos(y[7]);          // psi (rad)
-		
-		sixDOFDerivatives[9]  = ((inertiaCoeffs[1]*y[9]*y[10]) - (inertiaCoeffs[0]*y[10])*y[11]) + (inertiaCoeffs[2]*totalMoments[0])+(inertiaCoeffs[3]*totalMoments[2]);     // p (rad/sec)
-		sixDOFDerivatives[10] =  (inertiaCoeffs[4]*y[9]*y[11]) - (inertiaCoeffs[5]*((y[9]*y[9])-(y[11]*y[11])))                      +(inertiaCoeffs[6]*totalMoments[1]);     // q (rad/sec)
-		sixDOFDerivatives[11] = ((inertiaCoeffs[7]*y[9]*y[10]) - (inertiaCoeffs[1]*y[10]*y[11])) + (inertiaCoeffs[3]*totalMoments[0])+(inertiaCoeffs[8]*totalMoments[2]);     // r (rad/sec)
-		
-		sixDOFDerivatives[12] = sixDOFDerivatives[3]*ned2LLA[0]; // Latitude  (rad)
-		sixDOFDerivatives[13] = sixDOFDerivatives[4]*ned2LLA[1]; // Longitude (rad)
+	private void updateDerivatives(double[] y, double[] yDot) {
+		SixDOFUtilities.calculateSixDOFDerivatives(y, linearAccelerations, totalMoments, aircraftModel.getInertiaCoeffs(), 
+												   atmosphereState, dirCosMat, ned2LLA, yDot);
 	}
 	
 	/**
-	 *  Runs various helper methods to update data members in {@link Integrate6DOFEquations}. It updates the 6DOF states, environment parameters, controls, engine state, and finally 
-	 *  calculates accelerations and moments to be used in {@link Integrate6DOFEquations#updateDerivatives(double[])} 
+	 *  Runs various helper methods to update data members in {@link Integrate6DOFEquations}. It updates the 6DOF states, environment parameters, controls, engine state, and ground 
+	 *  reaction at the end of a step, and finally calculates the accelerations, moments and derivatives there for output and for use in the next step 
 	 */
 	private void updateDataMembers() {
 		// Assign indices in yTemp array to 6DOF state arrays
@@ -282,27 +374,24 @@ public class Integrate6DOFEquations implements Steppable, EnvironmentDataListene
 			angularRates[i]     = y[i+9];
 		}
 
-		// Implement saturation and (2)pi bounding to keep states within realistic limits
-		linearVelocities = SaturationUtilities.limitLinearVelocities(linearVelocities);
-		NEDPosition      = SaturationUtilities.limitNEDPosition(NEDPosition, terrainHeight);
-		eulerAngles      = SaturationUtilities.piBounding(eulerAngles, angularRates);
-		angularRates     = SaturationUtilities.limitAngularRates(angularRates);
+		// Implement saturation and (2)pi bounding to keep states within realistic limits; these arrays are updated in place,
+		// as IntegrateGroundReaction holds references to them
+		SaturationUtilities.limitLinearVelocities(linearVelocities);
+		SaturationUtilities.limitNEDPosition(NEDPosition, terrainHeight);
+		SaturationUtilities.piBounding(eulerAngles, angularRates);
+		SaturationUtilities.limitAngularRates(angularRates);
 		
 		// Update wind parameters
-		windParameters = SixDOFUtilities.calculateWindParameters(linearVelocities);
+		SixDOFUtilities.calculateWindParameters(linearVelocities, windParameters);
 		
 		// Update environment		
-		environmentParameters = Environment.getAndUpdateEnvironmentParams(NEDPosition);
-		
-		// Update all engines in engine list
-		for(Engine engine : engineList)
-			 engine.updateEngineState(controlsMap, environmentParameters, windParameters);
+		environment.updateAtmosphereState(NEDPosition, atmosphereState);
 		
 		// Update alphaDot
 		alphaDot = SixDOFUtilities.calculateAlphaDot(linearVelocities, sixDOFDerivatives);
 		
 		// Update mach
-		mach = SixDOFUtilities.calculateMach(windParameters, environmentParameters);
+		mach = SixDOFUtilities.calculateMach(windParameters, atmosphereState);
 		
 		// Integrate another step of ground reaction only if within 100 ft of ground
 		double heightAGL = NEDPosition[2] - terrainHeight;
@@ -311,176 +400,201 @@ public class Integrate6DOFEquations implements Steppable, EnvironmentDataListene
 		
 		//System.out.println(groundReaction);
 		
-		// Update accelerations
-		linearAccelerations = AccelAndMoments.calculateLinearAccelerations(windParameters,
-																		   angularRates,
-																		   environmentParameters,
-																		   controlsMap,
-																		   alphaDot,
-																		   engineList,
-																		   aircraft,
-																		   groundReaction,
-																		   heightAGL);
-		// Update moments
-		totalMoments = AccelAndMoments.calculateTotalMoments(windParameters,
-														 	 angularRates,
-															 environmentParameters,
-															 controlsMap,
-															 alphaDot,
-															 engineList,
-															 aircraft,
-															 groundReaction,
-															 heightAGL);
-				
-		// Recalculates derivatives for next step
-		updateDerivatives(y);
+		// Recalculates engines, accelerations, moments and derivatives at the new states
+		sixDOFEquations.computeDerivatives(t, y, sixDOFDerivatives);
 	}
 	
 	/**
-	 *  Adds simulation data to the ArrayList {@link Integrate6DOFEquations#getLogsOut()} after each successful step of integration 
+	 *  Adds simulation data to the ring buffer {@link Integrate6DOFEquations#getLogsOut()} after each successful step of integration 
 	 *  for plotting and outputs to the console, if set in {@link Integrate6DOFEquations#options}. 
-	 *  The data calculated in each step of integration is available in the EnumMap {@link Integrate6DOFEquations#getSimOut()}. All
-	 *  collections are synchronized to mitigate data access problems from threading
+	 *  The data calculated in each step of integration is filled into a primitive array and published to {@link Integrate6DOFEquations#getSimOutBuffer()}, 
+	 *  which any thread can read without locking; logsOut is synchronized to mitigate data access problems from threading
 	 */
 	private void logData() {
-		// Need to initialize within logData(), else plots won't display correctly
-		simOut = Collections.synchronizedMap(new EnumMap<SimOuts, Double>(SimOuts.class));
+		// Assign simOut with data members from integration
+		setSimOut(SimOuts.TIME, 		t);
 		
-		synchronized (simOut) {
-			// Assign EnumMap with data members from integration
-			simOut.put(SimOuts.TIME, 		t);
-			
-			//6DOF States
-			simOut.put(SimOuts.U, 		 	linearVelocities[0]);
-			simOut.put(SimOuts.V, 		 	linearVelocities[1]);
-			simOut.put(SimOuts.W, 		 	linearVelocities[2]);
-			simOut.put(SimOuts.NORTH, 	 	NEDPosition[0]);
-			simOut.put(SimOuts.EAST, 		NEDPosition[1]);
-			simOut.put(SimOuts.ALT, 		NEDPosition[2]);
-			simOut.put(SimOuts.PHI, 		eulerAngles[0]);
-			simOut.put(SimOuts.THETA, 	 	eulerAngles[1]);
-			simOut.put(SimOuts.PSI, 		eulerAngles[2]);
-			simOut.put(SimOuts.P, 		 	angularRates[0]);
-			simOut.put(SimOuts.Q, 		 	angularRates[1]);
-			simOut.put(SimOuts.R, 		 	angularRates[2]);
-			
-			// Earth Position/Velocity
-			simOut.put(SimOuts.LAT, 		y[12]);
-			simOut.put(SimOuts.LAT_DOT, 	sixDOFDerivatives[12]);
-			simOut.put(SimOuts.LON, 		y[13]);
-			simOut.put(SimOuts.LON_DOT,		sixDOFDerivatives[13]);
-			
-			// Wind Parameters
-			simOut.put(SimOuts.TAS, 		windParameters[0]);
-			simOut.put(SimOuts.BETA, 		windParameters[1]);
-			simOut.put(SimOuts.ALPHA, 	 	windParameters[2]*-1);
-			
-			simOut.put(SimOuts.ALPHA_DOT,   alphaDot);
-			simOut.put(SimOuts.MACH, 		mach);
-			
-			// Accelerations
-			simOut.put(SimOuts.A_X, 		linearAccelerations[0]);
-			simOut.put(SimOuts.A_Y, 		linearAccelerations[1]);
-			simOut.put(SimOuts.A_Z, 		linearAccelerations[2]);
-			
-			simOut.put(SimOuts.AN_X, 	   (sixDOFDerivatives[0]/gravity));
-			simOut.put(SimOuts.AN_Y, 	   (sixDOFDerivatives[1]/gravity));
-			simOut.put(SimOuts.AN_Z, 	  ((sixDOFDerivatives[2]/gravity)+1.0));
-			
-			// Moments
-			simOut.put(SimOuts.L, 		 	totalMoments[0]);
-			simOut.put(SimOuts.M, 		 	totalMoments[1]);
-			simOut.put(SimOuts.N, 		 	totalMoments[2]);
-			
-			// 6DOF Derivatives
-			simOut.put(SimOuts.U_DOT, 	    sixDOFDerivatives[0]);
-			simOut.put(SimOuts.V_DOT, 	    sixDOFDerivatives[1]);
-			simOut.put(SimOuts.W_DOT, 	    sixDOFDerivatives[2]);
-			simOut.put(SimOuts.NORTH_DOT,   sixDOFDerivatives[3]);
-			simOut.put(SimOuts.EAST_DOT, 	sixDOFDerivatives[4]);
-			simOut.put(SimOuts.ALT_DOT,    (sixDOFDerivatives[5]*60));
-			simOut.put(SimOuts.PHI_DOT, 	sixDOFDerivatives[6]);
-			simOut.put(SimOuts.THETA_DOT,   sixDOFDerivatives[7]);
-			simOut.put(SimOuts.PSI_DOT, 	sixDOFDerivatives[8]);
-			simOut.put(SimOuts.P_DOT, 	 	sixDOFDerivatives[9]);
-			simOut.put(SimOuts.Q_DOT, 	 	sixDOFDerivatives[10]);
-			simOut.put(SimOuts.R_DOT, 	 	sixDOFDerivatives[11]);
-	
-			// Engine(s)
-			simOut.put(SimOuts.THRUST_1, 	0.0);
-			simOut.put(SimOuts.RPM_1, 	 	0.0);
-			simOut.put(SimOuts.FUEL_FLOW_1, 0.0);
-			simOut.put(SimOuts.THRUST_2, 	0.0);
-			simOut.put(SimOuts.RPM_2, 	 	0.0);
-			simOut.put(SimOuts.FUEL_FLOW_2, 0.0);
-			simOut.put(SimOuts.THRUST_3, 	0.0);
-			simOut.put(SimOuts.RPM_3, 	 	0.0);
-			simOut.put(SimOuts.FUEL_FLOW_3, 0.0);
-			simOut.put(SimOuts.THRUST_4, 	0.0);
-			simOut.put(SimOuts.RPM_4, 	 	0.0);
-			simOut.put(SimOuts.FUEL_FLOW_4, 0.0);
-	
-			for (Engine engine : engineList) {
-				int engineNumber = engine.getEngineNumber();
-				
-				simOut.put(Enum.valueOf(SimOuts.class, "THRUST_" + engineNumber), 	 engine.getEngineThrust()[0]);
-				simOut.put(Enum.valueOf(SimOuts.class, "RPM_" + engineNumber), 	 	 engine.getRPM());
-				simOut.put(Enum.valueOf(SimOuts.class, "FUEL_FLOW_" + engineNumber), engine.getFuelFlow());
-			}
+		//6DOF States
+		setSimOut(SimOuts.U, 		 	linearVelocities[0]);
+		setSimOut(SimOuts.V, 		 	linearVelocities[1]);
+		setSimOut(SimOuts.W, 		 	linearVelocities[2]);
+		setSimOut(SimOuts.NORTH, 	 	NEDPosition[0]);
+		setSimOut(SimOuts.EAST, 		NEDPosition[1]);
+		setSimOut(SimOuts.ALT, 		NEDPosition[2]);
+		setSimOut(SimOuts.PHI, 		eulerAngles[0]);
+		setSimOut(SimOuts.THETA, 	 	eulerAngles[1]);
+		setSimOut(SimOuts.PSI, 		eulerAngles[2]);
+		setSimOut(SimOuts.P, 		 	angularRates[0]);
+		setSimOut(SimOuts.Q, 		 	angularRates[1]);
+		setSimOut(SimOuts.R, 		 	angularRates[2]);
+		
+		// Earth Position/Velocity
+		setSimOut(SimOuts.LAT, 		y[12]);
+		setSimOut(SimOuts.LAT_DOT, 	sixDOFDerivatives[12]);
+		setSimOut(SimOuts.LON, 		y[13]);
+		setSimOut(SimOuts.LON_DOT,		sixDOFDerivatives[13]);
+		
+		// Wind Parameters
+		setSimOut(SimOuts.TAS, 		windParameters[0]);
+		setSimOut(SimOuts.BETA, 		windParameters[1]);
+		setSimOut(SimOuts.ALPHA, 	 	windParameters[2]*-1);
+		
+		setSimOut(SimOuts.ALPHA_DOT,   alphaDot);
+		setSimOut(SimOuts.MACH, 		mach);
+		
+		// Accelerations
+		setSimOut(SimOuts.A_X, 		linearAccelerations[0]);
+		setSimOut(SimOuts.A_Y, 		linearAccelerations[1]);
+		setSimOut(SimOuts.A_Z, 		linearAccelerations[2]);
+		
+		setSimOut(SimOuts.AN_X, 	   (sixDOFDerivatives[0]/gravity));
+		setSimOut(SimOuts.AN_Y, 	   (sixDOFDerivatives[1]/gravity));
+		setSimOut(SimOuts.AN_Z, 	  ((sixDOFDerivatives[2]/gravity)+1.0));
+		
+		// Moments
+		setSimOut(SimOuts.L, 		 	totalMoments[0]);
+		setSimOut(SimOuts.M, 		 	totalMoments[1]);
+		setSimOut(SimOuts.N, 		 	totalMoments[2]);
+		
+		// Aerodynamics
+		setSimOut(SimOuts.Q_BAR, 		aeroState.getQBar());
+		setSimOut(SimOuts.CL, 		 	aeroState.getCL());
+		setSimOut(SimOuts.CD, 		 	aeroState.getCD());
+		setSimOut(SimOuts.CY, 		 	aeroState.getCY());
+		setSimOut(SimOuts.CROLL, 		aeroState.getCRoll());
+		setSimOut(SimOuts.CM, 		 	aeroState.getCM());
+		setSimOut(SimOuts.CN, 		 	aeroState.getCN());
+		
+		// 6DOF Derivatives
+		setSimOut(SimOuts.U_DOT, 	    sixDOFDerivatives[0]);
+		setSimOut(SimOuts.V_DOT, 	    sixDOFDerivatives[1]);
+		setSimOut(SimOuts.W_DOT, 	    sixDOFDerivatives[2]);
+		setSimOut(SimOuts.NORTH_DOT,   sixDOFDerivatives[3]);
+		setSimOut(SimOuts.EAST_DOT, 	sixDOFDerivatives[4]);
+		setSimOut(SimOuts.ALT_DOT,    (sixDOFDerivatives[5]*60));
+		setSimOut(SimOuts.PHI_DOT, 	sixDOFDerivatives[6]);
+		setSimOut(SimOuts.THETA_DOT,   sixDOFDerivatives[7]);
+		setSimOut(SimOuts.PSI_DOT, 	sixDOFDerivatives[8]);
+		setSimOut(SimOuts.P_DOT, 	 	sixDOFDerivatives[9]);
+		setSimOut(SimOuts.Q_DOT, 	 	sixDOFDerivatives[10]);
+		setSimOut(SimOuts.R_DOT, 	 	sixDOFDerivatives[11]);
+
+		// Engine(s)
+		setSimOut(SimOuts.THRUST_1, 	0.0);
+		setSimOut(SimOuts.RPM_1, 	 	0.0);
+		setSimOut(SimOuts.FUEL_FLOW_1, 0.0);
+		setSimOut(SimOuts.THRUST_2, 	0.0);
+		setSimOut(SimOuts.RPM_2, 	 	0.0);
+		setSimOut(SimOuts.FUEL_FLOW_2, 0.0);
+		setSimOut(SimOuts.THRUST_3, 	0.0);
+		setSimOut(SimOuts.RPM_3, 	 	0.0);
+		setSimOut(SimOuts.FUEL_FLOW_3, 0.0);
+		setSimOut(SimOuts.THRUST_4, 	0.0);
+		setSimOut(SimOuts.RPM_4, 	 	0.0);
+		setSimOut(SimOuts.FUEL_FLOW_4, 0.0);
+
+		for (Engine engine : engines) {
+			int engineNumber = engine.getEngineNumber();
 			
-			// Controls
-			simOut.put(SimOuts.ELEVATOR,    controlsMap.get(FlightControl.ELEVATOR));
-			simOut.put(SimOuts.AILERON, 	controlsMap.get(FlightControl.AILERON));
-			simOut.put(SimOuts.RUDDER, 	 	controlsMap.get(FlightControl.RUDDER));
-			simOut.put(SimOuts.THROTTLE_1, 	controlsMap.get(FlightControl.THROTTLE_1));
-			simOut.put(SimOuts.THROTTLE_2, 	controlsMap.get(FlightControl.THROTTLE_2));
-			simOut.put(SimOuts.THROTTLE_3, 	controlsMap.get(FlightControl.THROTTLE_3));
-			simOut.put(SimOuts.THROTTLE_4, 	controlsMap.get(FlightControl.THROTTLE_4));
-			simOut.put(SimOuts.PROPELLER_1, controlsMap.get(FlightControl.PROPELLER_1));
-			simOut.put(SimOuts.PROPELLER_2, controlsMap.get(FlightControl.PROPELLER_2));
-			simOut.put(SimOuts.PROPELLER_3, controlsMap.get(FlightControl.PROPELLER_3));
-			simOut.put(SimOuts.PROPELLER_4, controlsMap.get(FlightControl.PROPELLER_4));
-			simOut.put(SimOuts.MIXTURE_1, 	controlsMap.get(FlightControl.MIXTURE_1));
-			simOut.put(SimOuts.MIXTURE_2, 	controlsMap.get(FlightControl.MIXTURE_2));
-			simOut.put(SimOuts.MIXTURE_3, 	controlsMap.get(FlightControl.MIXTURE_3));
-			simOut.put(SimOuts.MIXTURE_4, 	controlsMap.get(FlightControl.MIXTURE_4));
-			simOut.put(SimOuts.FLAPS, 	 	controlsMap.get(FlightControl.FLAPS));
-			simOut.put(SimOuts.GEAR, 	 	controlsMap.get(FlightControl.GEAR));
+			setSimOut(ENGINE_THRUSTS[engineNumber-1], 	 engine.getEngineThrust()[0]);
+			setSimOut(ENGINE_RPMS[engineNumber-1], 	 	 engine.getRPM());
+			setSimOut(ENGINE_FUEL_FLOWS[engineNumber-1], engine.getFuelFlow());
 		}
 		
-		synchronized (logsOut) {
-			// Removes the first entry in logsOut to keep a maximum of 100 sec of flight data in UNLIMITED_FLIGHT
-			if (options.contains(Options.UNLIMITED_FLIGHT) & t >= 100 & logsOut.size() > 0)
-				logsOut.remove(0);
-				
-			// Add output step to logging arrayList
-			logsOut.add(simOut);	
-		}
+		// Controls
+		setSimOut(SimOuts.ELEVATOR,    controls.get(FlightControl.ELEVATOR));
+		setSimOut(SimOuts.AILERON, 	controls.get(FlightControl.AILERON));
+		setSimOut(SimOuts.RUDDER, 	 	controls.get(FlightControl.RUDDER));
+		setSimOut(SimOuts.THROTTLE_1, 	controls.get(FlightControl.THROTTLE_1));
+		setSimOut(SimOuts.THROTTLE_2, 	controls.get(FlightControl.THROTTLE_2));
+		setSimOut(SimOuts.THROTTLE_3, 	controls.get(FlightControl.THROTTLE_3));
+		setSimOut(SimOuts.THROTTLE_4, 	controls.get(FlightControl.THROTTLE_4));
+		setSimOut(SimOuts.PROPELLER_1, controls.get(FlightControl.PROPELLER_1));
+		setSimOut(SimOuts.PROPELLER_2, controls.get(FlightControl.PROPELLER_2));
+		setSimOut(SimOuts.PROPELLER_3, controls.get(FlightControl.PROPELLER_3));
+		setSimOut(SimOuts.PROPELLER_4, controls.get(FlightControl.PROPELLER_4));
+		setSimOut(SimOuts.MIXTURE_1, 	controls.get(FlightControl.MIXTURE_1));
+		setSimOut(SimOuts.MIXTURE_2, 	controls.get(FlightControl.MIXTURE_2));
+		setSimOut(SimOuts.MIXTURE_3, 	controls.get(FlightControl.MIXTURE_3));
+		setSimOut(SimOuts.MIXTURE_4, 	controls.get(FlightControl.MIXTURE_4));
+		setSimOut(SimOuts.FLAPS, 	 	controls.get(FlightControl.FLAPS));
+		setSimOut(SimOuts.GEAR, 	 	controls.get(FlightControl.GEAR));
+		
+		simOut.publish(simOutValues);
+		
+		if (options.contains(Options.NO_LOGGING))
+			return;
+		
+		// Add output step to logging ring buffer, which evicts the oldest step once full
+		logsOut.append(simOutValues);
+	}
+	
+	/**
+	 * @return number of steps logsOut needs to retain: none with NO_LOGGING, the last {@link Integrate6DOFEquations#UNLIMITED_FLIGHT_LOG_SEC} 
+	 * seconds in UNLIMITED_FLIGHT, or else every step from start to end time
+	 */
+	private int getLogCapacity() {
+		if (options.contains(Options.NO_LOGGING))
+			return 0;
+		
+		double logDuration = options.contains(Options.UNLIMITED_FLIGHT) ? UNLIMITED_FLIGHT_LOG_SEC : integratorConfig[2] - integratorConfig[0];
+		
+		return (int) Math.ceil(logDuration / integratorConfig[1]) + 1;
 	}
 	
+	/**
+	 * Sets a value of the simOut array filled each step in {@link Integrate6DOFEquations#logData()}
+	 * 
+	 * @param simOut
+	 * @param value
+	 */
+	private void setSimOut(SimOuts simOut, double value) {
+		simOutValues[simOut.ordinal()] = value;
+	}
+
+	
 	//================================= Simulation Logging =====================================================
 	
 	/**
-	 * Returns an ArrayList of {@link Integrate6DOFEquations#getSimOut()} objects; acts as a logging method, which can be used to plot simulation data
-	 * or output it to a file
+	 * Returns a read-only List view of {@link Integrate6DOFEquations#getSimOut()} maps for each step retained in logsOut; acts as a logging method, 
+	 * which can be used to plot simulation data or output it to a file
 	 * 
 	 * @return logsOut
 	 */
-	public synchronized List<Map<SimOuts, Double>> getLogsOut() { return Collections.unmodifiableList(logsOut); }
+	public List<Map<SimOuts, Double>> getLogsOut() { return Collections.unmodifiableList(logsOut); }
+	
+	/**
+	 * Returns the columnar ring buffer backing {@link Integrate6DOFEquations#getLogsOut()}, whose values can be read as primitives
+	 * 
+	 * @return logsOut
+	 */
+	public SimOutRingBuffer getLogsOutBuffer() { return logsOut; }
 	
 	/**
 	 * Clears logsOut list of past data in preparation for recording a new maneuver 
 	 * 
 	 * @return If logsOut list was successfully deleted
 	 */
-	public synchronized boolean clearLogsOut() { return logsOut.removeAll(logsOut); }
+	public boolean clearLogsOut() { 
+		logsOut.clear();
+		return true;
+	}
 	
 	/**
-	 * Returns an EnumMap of data for a single step of integration accomplished in {@link Integrate6DOFEquations#accelAndMoments#logData(double)}	
+	 * Returns a copy, as an EnumMap, of data for the latest step of integration accomplished in {@link Integrate6DOFEquations#logData()}; 
+	 * readers that poll each step should read {@link Integrate6DOFEquations#getSimOutBuffer()} into a primitive array instead	
 	 * 
 	 * @return simOut
 	 */
-	public synchronized Map<SimOuts, Double> getSimOut() { return Collections.unmodifiableMap(simOut); }
+	public Map<SimOuts, Double> getSimOut() { return Collections.unmodifiableMap(simOut.toMap()); }
+	
+	/**
+	 * Returns the lock-free buffer that data for each step of integration is published to in {@link Integrate6DOFEquations#logData()}; 
+	 * it can be read from any thread without blocking the simulation	
+	 * 
+	 * @return simOut buffer, indexed by {@link SimOuts} ordinal
+	 */
+	public SeqLockBuffer<SimOuts> getSimOutBuffer() { return simOut; }
 	
 	//========================================= Time ============================================================
 	
@@ -499,17 +613,15 @@ public class Integrate6DOFEquations implements Steppable, EnvironmentDataListene
 	 * @param temperature
 	 */
 	public void setWeather(double windSpeed, double windDir, double temperature) {
-		Environment.setWindDir(windDir);
-		Environment.setWindSpeed(windSpeed);
+		environment.setWindDir(windDir);
+		environment.setWindSpeed(windSpeed);
 		// Subtract standard temperature from argument to get deviation from standard, then convert C deg to F deg 
-		Environment.setDeltaIsa((temperature-15)*9/5);
+		environment.setDeltaIsa((temperature-15)*9/5);
 	}
 	
 	@Override
-	public void onEnvironmentDataReceived(EnvironmentData environmentData) {
-		Map<EnvironmentDataType, Double> receivedEnvironmentData = environmentData.getEnvironmentData();
-		
+	public void onEnvironmentDataReceived(double[] environmentData) {
 		if (environmentData != null)
-			terrainHeight = (receivedEnvironmentData.get(EnvironmentDataType.TERRAIN_HEIGHT)*15)+5;
+			receivedTerrainHeight = (environmentData[EnvironmentDataType.TERRAIN_HEIGHT.ordinal()]*15)+5;
 	}
 }
@@ -20,25 +20,23 @@
 package com.chrisali.javaflightsim.simulation.integration;
 
 import java.text.DecimalFormat;
-import java.util.Map;
 
-import org.apache.commons.math3.geometry.euclidean.threed.Vector3D;
 import org.apache.commons.math3.ode.FirstOrderDifferentialEquations;
 import org.apache.commons.math3.ode.nonstiff.ClassicalRungeKuttaIntegrator;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import com.chrisali.javaflightsim.simulation.aircraft.Aircraft;
-import com.chrisali.javaflightsim.simulation.aircraft.GroundReaction;
-import com.chrisali.javaflightsim.simulation.aircraft.MassProperties;
+import com.chrisali.javaflightsim.simulation.aircraft.AircraftModel;
 import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControl;
+import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControlsSnapshot;
 import com.chrisali.javaflightsim.simulation.utilities.SixDOFUtilities;
 
 /**
  * This class contains calculations needed to model the force and moment reactions between the aircraft
  * and its landing gear. It uses a spring-mass-damper system which is modeled as three second order 
  * differential equations integrated simultaneously, converted to first order equations by use of 
- * state-space methods so that {@link ClassicalRungeKuttaIntegrator} can be used. The integration runs
+ * state-space methods so that {@link RungeKuttaIntegrator} can be used. The integration runs
  * as single steps inside of {@link Integrate6DOFEquations} own integration, and the calculated forces 
  * and moments are fed back into the 6DOF integrator to calculate the total accelerations and moments for
  * the aircraft. 
@@ -58,8 +56,9 @@ public class IntegrateGroundReaction {
 	
 	// Aircraft Properties
 	private double mass;
-	private Map<FlightControl, Double> controls;
-	private Map<GroundReaction, Double> groundReaction;
+	private FlightControlsSnapshot controls;
+	private Aircraft aircraft;
+	private AircraftModel model;
 	private boolean weightOnWheels = false;
 	
 	// Positions
@@ -68,6 +67,9 @@ public class IntegrateGroundReaction {
 	private double[] tirePosition			   = new double[3]; //{nose, left, right} [ft]
 	private double[] tireVelocity			   = new double[3]; //{nose, left, right} [ft/sec]
 	
+	private double[][] gearRelativeCG		   = new double[3][3]; //{nose, left, right}{x, y, z} [ft]
+	private double[][] gearMomentArm		   = new double[3][3]; //{nose, left, right}{x, y, z} [ft]
+	
 	// Forces and Moments
 	private double[] noseGroundForces 		   = new double[3]; //{Fx, Fy, Fz} [lbf]
 	private double[] leftGroundForces 		   = new double[3]; //{Fx, Fy, Fz} [lbf]
@@ -77,12 +79,15 @@ public class IntegrateGroundReaction {
 	private double[] totalGroundMoments		   = new double[3]; //{Fx, Fy, Fz} [lbf]
 	
 	// Integrator Fields
-	private ClassicalRungeKuttaIntegrator integrator;
+	private RungeKuttaIntegrator integrator;
+	private GroundReactionEquations groundReactionEquations;
 	private double   t;
 	private double[] integratorConfig		   = new double[3];
 	private double[] groundReactionDerivatives = new double[6];
 	private double[] y					       = new double[6];
 	private double[] y0					       = new double[6];
+	private double[] tireStates				   = new double[6];
+	private double[][] dirCosMat			   = new double[3][3];
 	
 	// 6DOF Integration Results
 	private double[] linearVelocities 		   = new double[3];
@@ -115,7 +120,7 @@ public class IntegrateGroundReaction {
 								   double[] sixDOFDerivatives,
 								   double[] integratorConfig,
 								   Aircraft aircraft,
-								   Map<FlightControl, Double> controls) {
+								   FlightControlsSnapshot controls) {
 		
 		this.NEDPosition = NEDPosition;
 		this.linearVelocities = linearVelocities;
@@ -126,8 +131,9 @@ public class IntegrateGroundReaction {
 		this.sixDOFDerivatives = sixDOFDerivatives;
 		
 		this.controls = controls;
-		this.groundReaction = aircraft.getGroundReaction();
-		this.mass = aircraft.getMassProps().get(MassProperties.TOTAL_MASS);
+		this.aircraft = aircraft;
+		this.model = aircraft.getAircraftModel();
+		this.mass = model.getTotalMass();
 		
 		this.integratorConfig = integratorConfig;
 		
@@ -137,9 +143,24 @@ public class IntegrateGroundReaction {
 			y0[2*i+1] = 0.0;
 		}
 		
+		// Gear positions relative to the CG, and the (scaled) moment arms used to calculate ground moments, do not
+		// change during the simulation
+		double[][] gearPositions = model.getGearPositions();
+		
+		for (int i = 0; i < gearPositions.length; i++) {
+			for (int j = 0; j < gearPositions[i].length; j++)
+				gearRelativeCG[i][j] = gearPositions[i][j];
+			
+			// Scale down moments by scaling the arm lengths (negative sign produces realistic braking moments)
+			gearMomentArm[i][0] =  gearRelativeCG[i][0];
+			gearMomentArm[i][1] =  gearRelativeCG[i][1] * (i == 0 ? 1.0 : 0.25);
+			gearMomentArm[i][2] = -gearRelativeCG[i][2] * 0.125;
+		}
+		
 		logger.debug("Setting up Runge Kutta Integrator for 6DOF calculations...");
 		
-		integrator = new ClassicalRungeKuttaIntegrator(integratorConfig[2]);
+		integrator = new RungeKuttaIntegrator(y.length);
+		groundReactionEquations = new GroundReactionEquations();
 		t = integratorConfig[0];
 		
 		updateDerivatives(y);
@@ -199,22 +220,25 @@ public class IntegrateGroundReaction {
 			}
 		}
 		
+		double[] gearDamping = model.getGearDamping();
+		double[] gearSpring = model.getGearSpring();
+		
 		// Nose
 		groundReactionDerivatives[0] = y[1];
-		groundReactionDerivatives[1] =  (- groundReaction.get(GroundReaction.NOSE_DAMPING)/mass * y[1]) 
-									 	- (groundReaction.get(GroundReaction.NOSE_SPRING)/mass * y[0])
+		groundReactionDerivatives[1] =  (- gearDamping[0]/mass * y[1]) 
+									 	- (gearSpring[0]/mass * y[0])
 									 	+ noseGroundForces[2]/mass;
 		
 		// Left Main
 		groundReactionDerivatives[2] = y[3];
-		groundReactionDerivatives[3] =  (- groundReaction.get(GroundReaction.LEFT_DAMPING)/mass * y[3]) 
-									 	- (groundReaction.get(GroundReaction.LEFT_SPRING)/mass * y[2])
+		groundReactionDerivatives[3] =  (- gearDamping[1]/mass * y[3]) 
+									 	- (gearSpring[1]/mass * y[2])
 									 	+ leftGroundForces[2]/mass;
 		
 		// Right Main
 		groundReactionDerivatives[4] = y[5];
-		groundReactionDerivatives[5] =  (- groundReaction.get(GroundReaction.RIGHT_DAMPING)/mass * y[5]) 
-									 	- (groundReaction.get(GroundReaction.RIGHT_SPRING)/mass * y[4])
+		groundReactionDerivatives[5] =  (- gearDamping[2]/mass * y[5]) 
+									 	- (gearSpring[2]/mass * y[4])
 									 	+ rightGroundForces[2]/mass;
 	}
 	
@@ -223,32 +247,12 @@ public class IntegrateGroundReaction {
 	 * calculate ground reaction derivatives and forces 
 	 */
 	private void calculateTirePositionsAndVelocities() {
-		double[][] dirCosMat = SixDOFUtilities.body2Ned(eulerAngles);
-		double[] gearRelativeCG; // Position of {nose, left, right} gear relative to CG position
+		SixDOFUtilities.body2Ned(eulerAngles[0], eulerAngles[1], eulerAngles[2], dirCosMat);
 		
 		// i=0 (nose), i=1 (left main), i=2 (right main)
 		for (int i = 0; i < 3; i++) {
-			// Assign body gear positions depending on stage of loop
-			switch(i) {
-			case 0:
-				gearRelativeCG = new double[]{groundReaction.get(GroundReaction.NOSE_X),
-											  groundReaction.get(GroundReaction.NOSE_Y),
-											  groundReaction.get(GroundReaction.NOSE_Z)};
-				break;
-			case 1:
-				gearRelativeCG = new double[]{groundReaction.get(GroundReaction.LEFT_X),
-											  groundReaction.get(GroundReaction.LEFT_Y),
-											  groundReaction.get(GroundReaction.LEFT_Z)};
-				break;
-			case 2:
-				gearRelativeCG = new double[]{groundReaction.get(GroundReaction.RIGHT_X),
-											  groundReaction.get(GroundReaction.RIGHT_Y),
-											  groundReaction.get(GroundReaction.RIGHT_Z)};
-				break;
-			default:
-				gearRelativeCG = new double[]{0, 0, 0};
-				break;
-			}
+			// Position of {nose, left, right} gear relative to CG position
+			double[] gearRelativeCG = this.gearRelativeCG[i];
 			
 			// 3rd row of body2Ned matrix (D) plus (altitude minus terrain height) is the height of the landing gear above ground
 			tirePosition[i]  = (gearRelativeCG[0]*dirCosMat[2][0]+gearRelativeCG[1]*dirCosMat[2][1]+gearRelativeCG[2]*dirCosMat[2][2]) + (NEDPosition[2]-terrainHeight);   // eq 3.134
@@ -300,12 +304,13 @@ public class IntegrateGroundReaction {
 		
 		// Braking
 		// Taper force off as forward velocity nears 0 
+		double brakingForce = model.getBrakingForce();
 		if (linearVelocities[0] < 2) {
-			leftGroundForces[0]  -= groundReaction.get(GroundReaction.BRAKING_FORCE) * controls.get(FlightControl.BRAKE_L) * linearVelocities[0]/2;
-			rightGroundForces[0] -= groundReaction.get(GroundReaction.BRAKING_FORCE) * controls.get(FlightControl.BRAKE_R) * linearVelocities[0]/2;
+			leftGroundForces[0]  -= brakingForce * controls.get(FlightControl.BRAKE_L) * linearVelocities[0]/2;
+			rightGroundForces[0] -= brakingForce * controls.get(FlightControl.BRAKE_R) * linearVelocities[0]/2;
 		} else {
-			leftGroundForces[0]  -= groundReaction.get(GroundReaction.BRAKING_FORCE) * controls.get(FlightControl.BRAKE_L);
-			rightGroundForces[0] -= groundReaction.get(GroundReaction.BRAKING_FORCE) * controls.get(FlightControl.BRAKE_R);
+			leftGroundForces[0]  -= brakingForce * controls.get(FlightControl.BRAKE_L);
+			rightGroundForces[0] -= brakingForce * controls.get(FlightControl.BRAKE_R);
 		}
 		
 		// Y Forces
@@ -328,42 +333,32 @@ public class IntegrateGroundReaction {
 	 * to the center of gravity and ground reaction forces
 	 */
 	private void calculateTotalGroundMoments() {
-		double[] tempTotalGroundMoments = new double[]{0, 0, 0};
-		Vector3D forceVector;
-		Vector3D gearRelativeCGVector;
+		double[] tempTotalGroundMoments = totalGroundMoments;
+		double[] forceVector;
+		double[] gearRelativeCGVector;
+		
+		tempTotalGroundMoments[0] = tempTotalGroundMoments[1] = tempTotalGroundMoments[2] = 0;
 		
 		// i=0 (nose), i=1 (left main), i=2 (right main)
 		for (int i = 0; i < 3; i++) {
 			// Assign body gear force and arm vectors depending on stage of loop
-			// Scale down moments by scaling the arm lengths (negative sign produces realistic braking moments)
 			switch(i) {
 			case 0:
-				gearRelativeCGVector = new Vector3D(new double[]{groundReaction.get(GroundReaction.NOSE_X),
-																 groundReaction.get(GroundReaction.NOSE_Y),
-																-groundReaction.get(GroundReaction.NOSE_Z)*0.125});
-				forceVector = new Vector3D(noseGroundForces);
+				forceVector = noseGroundForces;
 				break;
 			case 1:
-				gearRelativeCGVector = new Vector3D(new double[]{groundReaction.get(GroundReaction.LEFT_X),
-																 groundReaction.get(GroundReaction.LEFT_Y)*0.25,
-																-groundReaction.get(GroundReaction.LEFT_Z)*0.125});
-				forceVector = new Vector3D(leftGroundForces);
-				break;
-			case 2:
-				gearRelativeCGVector = new Vector3D(new double[]{groundReaction.get(GroundReaction.RIGHT_X),
-																 groundReaction.get(GroundReaction.RIGHT_Y)*0.25,
-																-groundReaction.get(GroundReaction.RIGHT_Z)*0.125});
-				forceVector = new Vector3D(rightGroundForces);
+				forceVector = leftGroundForces;
 				break;
 			default:
-				gearRelativeCGVector = new Vector3D(new double[]{0, 0, 0});
-				forceVector = new Vector3D(new double[]{0, 0, 0});
+				forceVector = rightGroundForces;
 				break;
 			}
+			gearRelativeCGVector = gearMomentArm[i];
 		
 			// Take the cross product of force and arm vectors and add them to total moments 
-			for (int j = 0; j < tempTotalGroundMoments.length; j ++)
-				tempTotalGroundMoments[j] += Vector3D.crossProduct(forceVector, gearRelativeCGVector).toArray()[j];
+			tempTotalGroundMoments[0] += forceVector[1]*gearRelativeCGVector[2] - forceVector[2]*gearRelativeCGVector[1];
+			tempTotalGroundMoments[1] += forceVector[2]*gearRelativeCGVector[0] - forceVector[0]*gearRelativeCGVector[2];
+			tempTotalGroundMoments[2] += forceVector[0]*gearRelativeCGVector[1] - forceVector[1]*gearRelativeCGVector[0];
 		}
 		
 		// Saturate ground moments if forward speed is less than 10 ft/sec
@@ -380,8 +375,6 @@ public class IntegrateGroundReaction {
 								   		(tempTotalGroundMoments[1] < -100) ? -100 : 
 								   		 tempTotalGroundMoments[1];
 		}
-		
-		totalGroundMoments = tempTotalGroundMoments;
 	}
 	
 	/**
@@ -392,16 +385,25 @@ public class IntegrateGroundReaction {
 	public void integrateStep(double terrainHeight) {
 		this.terrainHeight = terrainHeight;
 		
+		// Mass may have changed since the last step
+		model = aircraft.getAircraftModel();
+		mass = model.getTotalMass();
+		
 		calculateTirePositionsAndVelocities();
 		
-		updateDerivatives(new double[] {tirePosition[0],tireVelocity[0],
-										tirePosition[1],tireVelocity[1],
-										tirePosition[2],tireVelocity[2]});
+		for (int i = 0; i < tirePosition.length; i++) {
+			tireStates[2*i]   = tirePosition[i];
+			tireStates[2*i+1] = tireVelocity[i];
+		}
+		
+		updateDerivatives(tireStates);
+		
 		// Run a single step of integration
-		y = integrator.singleStep(new GroundReactionEquations(), // derivatives
-								  t, 		  					 // start time
-								  y0, 		  					 // initial conditions
-								  t+integratorConfig[1]);   	 // end time (t+dt)
+		integrator.singleStep(groundReactionEquations,  // derivatives
+							  t, 		  				// start time
+							  y0, 		  				// initial conditions
+							  t+integratorConfig[1],    // end time (t+dt)
+							  y);						// states at end time
 		
 		calculateTotalGroundForces();
 		calculateTotalGroundMoments();
@@ -0,0 +1,63 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.integration;
+
+/**
+ * Provides Enums to select the numerical integration method that {@link Integrate6DOFEquations} uses to integrate its 
+ * equations of motion. The number of times that the aircraft's forces and moments are evaluated per step is listed alongside each:
+ * 
+ *	<p>EULER - {@link EulerIntegrator}, first-order (1 evaluation per step)</p>
+ *	<p>HEUN - {@link HeunIntegrator}, second-order (2 evaluations per step)</p>
+ *	<p>RUNGE_KUTTA - {@link RungeKuttaIntegrator}, classical fourth-order (4 evaluations per step)</p>
+ *	<p>DORMAND_PRINCE - {@link DormandPrinceIntegrator}, adaptive fifth-order (at least 6 evaluations per step)</p>
+ */
+public enum IntegratorType {
+	EULER 			("Euler"),
+	HEUN			("Heun"),
+	RUNGE_KUTTA		("Runge-Kutta"),
+	DORMAND_PRINCE	("Dormand-Prince");
+	
+	private final String integratorType;
+	
+	IntegratorType(String integratorType) {this.integratorType = integratorType;}
+	
+	/**
+	 * Creates a new instance of the integrator that this enum represents
+	 * 
+	 * @param dimension number of states in the system of equations to integrate
+	 * @param dt time step of the simulation (sec)
+	 * @return integrator
+	 */
+	public SingleStepIntegrator createIntegrator(int dimension, double dt) {
+		switch (this) {
+		case EULER:
+			return new EulerIntegrator(dimension);
+		case HEUN:
+			return new HeunIntegrator(dimension);
+		case DORMAND_PRINCE:
+			return new DormandPrinceIntegrator(dt);
+		case RUNGE_KUTTA:
+		default:
+			return new RungeKuttaIntegrator(dimension);
+		}
+	}
+	
+	public String toString() {return integratorType;}
+}
@@ -0,0 +1,314 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.integration;
+
+import java.lang.reflect.Array;
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.Set;
+
+/**
+ * Fixed-capacity ring buffer of {@link SimOuts} logged by {@link Integrate6DOFEquations}, stored in columns of primitive doubles 
+ * (one array per {@link SimOuts} channel) rather than as a map of boxed values per step. Appending a step is O(1) and never allocates; 
+ * once the buffer is full, each append evicts the oldest step. 
+ * <p>The buffer is also a read-only List of steps, oldest first, each of which is a lightweight Map view onto the columns, so that 
+ * plotting, the console and CSV output can read it as before. A view refers to the step it was taken from; if that step has since been 
+ * evicted, its values are null. Steps that must outlive their eviction, such as those copied into another collection through 
+ * {@link #toArray()}, are instead snapshots that hold their own values</p>
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class SimOutRingBuffer extends AbstractList<Map<SimOuts, Double>> implements RandomAccess {
+	
+	private static final SimOuts[] SIM_OUTS = SimOuts.values();
+	
+	private final double[][] columns;
+	private final int capacity;
+	
+	// Total number of steps ever appended, and number currently retained
+	private long appended = 0;
+	private int size = 0;
+	
+	/**
+	 * @param capacity maximum number of steps retained
+	 */
+	public SimOutRingBuffer(int capacity) {
+		if (capacity < 0)
+			throw new IllegalArgumentException("Capacity must not be negative!");
+		
+		this.capacity = capacity;
+		this.columns = new double[SIM_OUTS.length][capacity];
+	}
+	
+	/**
+	 * Appends a step of simulation output, evicting the oldest step if the buffer is full
+	 * 
+	 * @param simOut simulation outputs indexed by {@link SimOuts} ordinal
+	 */
+	public synchronized void append(double[] simOut) {
+		if (capacity == 0)
+			return;
+		
+		int index = (int) (appended % capacity);
+		for (int i = 0; i < columns.length; i++)
+			columns[i][index] = simOut[i];
+		
+		appended++;
+		if (size < capacity)
+			size++;
+	}
+	
+	/**
+	 * Discards all retained steps
+	 */
+	@Override
+	public synchronized void clear() {
+		size = 0;
+	}
+	
+	@Override
+	public synchronized int size() { return size; }
+	
+	public int getCapacity() { return capacity; }
+	
+	/**
+	 * @return total number of steps appended since this buffer was created, including those evicted or cleared
+	 */
+	public synchronized long getAppended() { return appended; }
+	
+	/**
+	 * @param row step retained, 0 being the oldest
+	 * @param simOut
+	 * @return value of simOut in that step
+	 */
+	public synchronized double get(int row, SimOuts simOut) {
+		if (row < 0 || row >= size)
+			throw new IndexOutOfBoundsException("Row: " + row + ", Size: " + size);
+		
+		return columns[simOut.ordinal()][(int) ((appended - size + row) % capacity)];
+	}
+	
+	/**
+	 * Copies the retained values of a single channel, oldest first, into destination
+	 * 
+	 * @param simOut
+	 * @param destination array at least {@link #size()} long
+	 * @return number of values copied
+	 */
+	public synchronized int copyColumn(SimOuts simOut, double[] destination) {
+		double[] column = columns[simOut.ordinal()];
+		int start = (int) ((appended - size) % Math.max(capacity, 1));
+		int firstLength = Math.min(size, capacity - start);
+		
+		System.arraycopy(column, start, destination, 0, firstLength);
+		System.arraycopy(column, 0, destination, firstLength, size - firstLength);
+		
+		return size;
+	}
+	
+	/**
+	 * Copies a consistent snapshot of the retained values of several channels, all taken from the same steps, oldest first
+	 * 
+	 * @param simOuts channels to copy
+	 * @param decimation copies every decimation-th step, starting with the oldest 
+	 * @return a column of values for each of simOuts
+	 */
+	public synchronized double[][] copyColumns(SimOuts[] simOuts, int decimation) {
+		if (decimation < 1)
+			throw new IllegalArgumentException("Decimation must be at least 1!");
+		
+		int rows = (size + decimation - 1) / decimation;
+		double[][] copies = new double[simOuts.length][rows];
+		
+		for (int i = 0; i < simOuts.length; i++) {
+			double[] column = columns[simOuts[i].ordinal()];
+			for (int row = 0; row < rows; row++)
+				copies[i][row] = column[(int) ((appended - size + (long) row * decimation) % capacity)];
+		}
+		
+		return copies;
+	}
+	
+	/**
+	 * @param row step retained, 0 being the oldest
+	 * @return read-only view of that step's values
+	 */
+	@Override
+	public synchronized Map<SimOuts, Double> get(int row) {
+		if (row < 0 || row >= size)
+			throw new IndexOutOfBoundsException("Row: " + row + ", Size: " + size);
+		
+		return new StepView(appended - size + row);
+	}
+	
+	/**
+	 * @param row step retained, 0 being the oldest
+	 * @return read-only snapshot of that step's values, which remain valid after the step is evicted
+	 */
+	public synchronized Map<SimOuts, Double> getSnapshot(int row) {
+		if (row < 0 || row >= size)
+			throw new IndexOutOfBoundsException("Row: " + row + ", Size: " + size);
+		
+		return new StepSnapshot(copyStep(appended - size + row));
+	}
+	
+	/**
+	 * Copies every retained step into an array of snapshots, all taken at the same time, so that collections constructed 
+	 * from this buffer (e.g. a CopyOnWriteArrayList) keep their values while the simulation continues appending steps
+	 * 
+	 * @return snapshots of the retained steps, oldest first
+	 */
+	@Override
+	public synchronized Object[] toArray() {
+		Object[] snapshots = new Object[size];
+		
+		for (int row = 0; row < size; row++)
+			snapshots[row] = new StepSnapshot(copyStep(appended - size + row));
+		
+		return snapshots;
+	}
+	
+	@Override
+	@SuppressWarnings("unchecked")
+	public synchronized <T> T[] toArray(T[] a) {
+		Object[] snapshots = toArray();
+		
+		if (a.length < snapshots.length)
+			a = (T[]) Array.newInstance(a.getClass().getComponentType(), snapshots.length);
+		
+		System.arraycopy(snapshots, 0, a, 0, snapshots.length);
+		if (a.length > snapshots.length)
+			a[snapshots.length] = null;
+		
+		return a;
+	}
+	
+	/**
+	 * @param step number of a retained step since this buffer was created
+	 * @return values of every channel in step, indexed by {@link SimOuts} ordinal
+	 */
+	private double[] copyStep(long step) {
+		double[] values = new double[columns.length];
+		int index = (int) (step % capacity);
+		
+		for (int i = 0; i < columns.length; i++)
+			values[i] = columns[i][index];
+		
+		return values;
+	}
+	
+	/**
+	 * @param step number of the step since this buffer was created
+	 * @param simOut
+	 * @return value of simOut in step, or null if that step is no longer retained
+	 */
+	private synchronized Double getStepValue(long step, SimOuts simOut) {
+		if (step < appended - size || step >= appended)
+			return null;
+		
+		return columns[simOut.ordinal()][(int) (step % capacity)];
+	}
+	
+	/**
+	 * Read-only map of {@link SimOuts} to their values in a single step of the buffer
+	 */
+	private static abstract class StepMap extends AbstractMap<SimOuts, Double> {
+		
+		/**
+		 * @param simOut
+		 * @return value of simOut in this step
+		 */
+		protected abstract Double getValue(SimOuts simOut);
+		
+		@Override
+		public Double get(Object key) {
+			return (key instanceof SimOuts) ? getValue((SimOuts) key) : null;
+		}
+		
+		@Override
+		public boolean containsKey(Object key) { return key instanceof SimOuts; }
+		
+		@Override
+		public int size() { return SIM_OUTS.length; }
+
+		@Override
+		public Set<Map.Entry<SimOuts, Double>> entrySet() {
+			return new AbstractSet<Map.Entry<SimOuts, Double>>() {
+				@Override
+				public Iterator<Map.Entry<SimOuts, Double>> iterator() {
+					return new Iterator<Map.Entry<SimOuts, Double>>() {
+						private int ordinal = 0;
+						
+						@Override
+						public boolean hasNext() { return ordinal < SIM_OUTS.length; }
+
+						@Override
+						public Map.Entry<SimOuts, Double> next() {
+							if (!hasNext())
+								throw new NoSuchElementException();
+							
+							SimOuts simOut = SIM_OUTS[ordinal++];
+							return new AbstractMap.SimpleImmutableEntry<>(simOut, getValue(simOut));
+						}
+					};
+				}
+
+				@Override
+				public int size() { return SIM_OUTS.length; }
+			};
+		}
+	}
+	
+	/**
+	 * View of a step that reads its values from the columns of the buffer, returning null once the step is evicted
+	 */
+	private class StepView extends StepMap {
+		
+		private final long step;
+		
+		private StepView(long step) {
+			this.step = step;
+		}
+		
+		@Override
+		protected Double getValue(SimOuts simOut) { return getStepValue(step, simOut); }
+	}
+	
+	/**
+	 * Copy of a step that holds its own values
+	 */
+	private static class StepSnapshot extends StepMap {
+		
+		private final double[] values;
+		
+		private StepSnapshot(double[] values) {
+			this.values = values;
+		}
+		
+		@Override
+		protected Double getValue(SimOuts simOut) { return values[simOut.ordinal()]; }
+	}
+}
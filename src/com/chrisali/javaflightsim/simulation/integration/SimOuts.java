@@ -95,7 +95,14 @@ public enum SimOuts {
 	MIXTURE_3	("Mixture 3"),
 	MIXTURE_4	("Mixture 4"),
 	GEAR		("Gear"),
-	FLAPS		("Flaps [rad]");
+	FLAPS		("Flaps [rad]"),
+	Q_BAR		("qBar [lbf/ft^2]"),
+	CL			("CL"),
+	CD			("CD"),
+	CY			("CY"),
+	CROLL		("Croll"),
+	CM			("CM"),
+	CN			("CN");
 	
 	private final String simOut;
 	
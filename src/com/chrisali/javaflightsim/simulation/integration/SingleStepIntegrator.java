@@ -0,0 +1,48 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.integration;
+
+import org.apache.commons.math3.ode.FirstOrderDifferentialEquations;
+
+/**
+ * Interface for numerical integrators that {@link Integrate6DOFEquations} can use to advance its states by a single 
+ * frame of the simulation. Implementations should keep any intermediate results in scratch arrays allocated upon 
+ * construction, and evaluate the differential equations at each of their stages so that multi-stage methods
+ * see the forces and moments acting on the aircraft at each stage's state 
+ * 
+ * @author Christopher Ali
+ *
+ * @see IntegratorType
+ */
+public interface SingleStepIntegrator {
+
+	/**
+	 * Runs a single step of integration from t0 to t. y may be the same array as y0 if the states are to be 
+	 * updated in place
+	 * 
+	 * @param equations differential equations to integrate
+	 * @param t0 start time (sec)
+	 * @param y0 states at start time
+	 * @param t end time (sec)
+	 * @param y array that states at end time are written into
+	 * @return y
+	 */
+	public double[] singleStep(FirstOrderDifferentialEquations equations, double t0, double[] y0, double t, double[] y);
+}
@@ -0,0 +1,41 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.linearization;
+
+import com.chrisali.javaflightsim.simulation.utilities.Dual;
+
+/**
+ * Methods a {@link Linearizer} can use to find the Jacobians of the equations of motion. Automatic differentiation evaluates the 
+ * equations once per trim point with {@link Dual}s, and is exact; central differences evaluate them several times per state and input 
+ * 
+ * @author Christopher Ali
+ *
+ */
+public enum DifferentiationMethod {
+	AUTOMATIC			("Automatic Differentiation"),
+	CENTRAL_DIFFERENCES ("Central Differences");
+	
+	private final String method;
+	
+	private DifferentiationMethod(String method) { this.method = method; }
+	
+	@Override
+	public String toString() { return method; }
+}
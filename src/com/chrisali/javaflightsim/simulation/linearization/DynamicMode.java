@@ -0,0 +1,94 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.linearization;
+
+/**
+ * An eigenvalue of a {@link LinearModel} identified as one of the aircraft's {@link ModeType}s, with the handling qualities 
+ * parameters derived from it. Oscillatory modes are described by the eigenvalue of their pair with positive imaginary part
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class DynamicMode {
+	
+	private final ModeType type;
+	private final double real;
+	private final double imaginary;
+	
+	/**
+	 * @param type
+	 * @param real real part of the eigenvalue (1/sec)
+	 * @param imaginary imaginary part of the eigenvalue (rad/sec)
+	 */
+	DynamicMode(ModeType type, double real, double imaginary) {
+		this.type = type;
+		this.real = real;
+		this.imaginary = Math.abs(imaginary);
+	}
+	
+	public ModeType getType() { return type; }
+	
+	/**
+	 * @return real part of the eigenvalue (1/sec)
+	 */
+	public double getReal() { return real; }
+	
+	/**
+	 * @return imaginary part of the eigenvalue (rad/sec), zero if the mode is not oscillatory
+	 */
+	public double getImaginary() { return imaginary; }
+	
+	/**
+	 * @return if the mode oscillates
+	 */
+	public boolean isOscillatory() { return imaginary > 0; }
+	
+	/**
+	 * @return if the mode decays
+	 */
+	public boolean isStable() { return real < 0; }
+	
+	/**
+	 * @return undamped natural frequency (rad/sec)
+	 */
+	public double getNaturalFrequency() { return Math.hypot(real, imaginary); }
+	
+	/**
+	 * @return damping ratio, negative if the mode is unstable
+	 */
+	public double getDampingRatio() { return -real / getNaturalFrequency(); }
+	
+	/**
+	 * @return period of oscillation (sec), or infinity if the mode is not oscillatory
+	 */
+	public double getPeriod() { return isOscillatory() ? 2 * Math.PI / imaginary : Double.POSITIVE_INFINITY; }
+	
+	/**
+	 * @return time (sec) for the mode's amplitude to halve if it is stable, or to double if it is not
+	 */
+	public double getTimeToHalfOrDouble() { return Math.log(2) / Math.abs(real); }
+	
+	@Override
+	public String toString() {
+		return String.format("%s: %.4f +/- %.4fi, Natural Frequency: %.4f rad/sec, Damping Ratio: %.4f, Period: %.2f sec, Time to %s: %.2f sec", 
+							 type, real, imaginary, getNaturalFrequency(), getDampingRatio(), getPeriod(), 
+							 isStable() ? "Half" : "Double", getTimeToHalfOrDouble());
+	}
+}
@@ -0,0 +1,139 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.linearization;
+
+import java.util.Arrays;
+
+import com.chrisali.javaflightsim.simulation.integration.SimOuts;
+
+/**
+ * Summarizes the outcomes of a batch of {@link LinearCase}s simulated by a {@link LinearBatchSimulator}: the minimum, maximum and final 
+ * perturbation from trim of each of {@link Linearizer#OUTPUTS} in every case. Like the simulator, results are laid out as one array per 
+ * output, indexed by case number, so that a batch of millions of cases takes only a few arrays. Cases whose outputs leave a range can be 
+ * found with {@link LinearBatchResult#screen(SimOuts, double, double)}, to be run again in the full nonlinear simulation
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class LinearBatchResult {
+	
+	private final int cases;
+	
+	// [output][case]
+	private final double[][] minimums;
+	private final double[][] maximums;
+	private final double[][] finals;
+	
+	private long runTimeNanos;
+	
+	LinearBatchResult(int cases) {
+		this.cases = cases;
+		
+		minimums = new double[Linearizer.OUTPUTS.length][cases];
+		maximums = new double[Linearizer.OUTPUTS.length][cases];
+		finals   = new double[Linearizer.OUTPUTS.length][cases];
+	}
+	
+	/**
+	 * Stores the outcomes of a range of cases, each indexed by [output][case - first]
+	 * 
+	 * @param first first case of the range
+	 * @param size number of cases in the range
+	 * @param rangeMinimums
+	 * @param rangeMaximums
+	 * @param rangeFinals
+	 */
+	void store(int first, int size, double[][] rangeMinimums, double[][] rangeMaximums, double[][] rangeFinals) {
+		for (int output = 0; output < minimums.length; output++) {
+			System.arraycopy(rangeMinimums[output], 0, minimums[output], first, size);
+			System.arraycopy(rangeMaximums[output], 0, maximums[output], first, size);
+			System.arraycopy(rangeFinals[output],	0, finals[output],	 first, size);
+		}
+	}
+	
+	/**
+	 * Marks every outcome of a range of cases that could not be simulated as NaN, so that they are always screened
+	 * 
+	 * @param first first case of the range
+	 * @param size number of cases in the range
+	 */
+	void fail(int first, int size) {
+		for (int output = 0; output < minimums.length; output++) {
+			Arrays.fill(minimums[output], first, first + size, Double.NaN);
+			Arrays.fill(maximums[output], first, first + size, Double.NaN);
+			Arrays.fill(finals[output],	  first, first + size, Double.NaN);
+		}
+	}
+	
+	void setRunTimeNanos(long runTimeNanos) { this.runTimeNanos = runTimeNanos; }
+	
+	public int getCases() { return cases; }
+	
+	public double getMinimum(SimOuts output, int caseNumber) { return minimums[indexOf(output)][caseNumber]; }
+	
+	public double getMaximum(SimOuts output, int caseNumber) { return maximums[indexOf(output)][caseNumber]; }
+	
+	public double getFinal(SimOuts output, int caseNumber) { return finals[indexOf(output)][caseNumber]; }
+	
+	public double getRunTimeMS() { return runTimeNanos / 1e6; }
+	
+	/**
+	 * Finds the cases in which an output left a range of perturbations from trim at any step. Cases whose output ended as 
+	 * NaN, having diverged or failed to be simulated, are always included
+	 * 
+	 * @param output
+	 * @param lower smallest perturbation from trim within the range
+	 * @param upper largest perturbation from trim within the range
+	 * @return case numbers, in ascending order
+	 * @throws IllegalArgumentException if output is not one of {@link Linearizer#OUTPUTS}
+	 */
+	public int[] screen(SimOuts output, double lower, double upper) {
+		final int index = indexOf(output);
+		final double[] minimum = minimums[index], maximum = maximums[index], last = finals[index];
+		
+		int[] screened = new int[cases];
+		int count = 0;
+		for (int caseNumber = 0; caseNumber < cases; caseNumber++) {
+			if (minimum[caseNumber] < lower || maximum[caseNumber] > upper || Double.isNaN(last[caseNumber]))
+				screened[count++] = caseNumber;
+		}
+		
+		return Arrays.copyOf(screened, count);
+	}
+	
+	/**
+	 * @param output
+	 * @return index of output in {@link Linearizer#OUTPUTS}
+	 * @throws IllegalArgumentException if output is not one of them
+	 */
+	private static int indexOf(SimOuts output) {
+		for (int index = 0; index < Linearizer.OUTPUTS.length; index++) {
+			if (Linearizer.OUTPUTS[index] == output)
+				return index;
+		}
+		
+		throw new IllegalArgumentException(output + " is not an output of linear models");
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("%d linear cases in %.1f ms", cases, getRunTimeMS());
+	}
+}
@@ -0,0 +1,407 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.linearization;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.chrisali.javaflightsim.simulation.flightcontrols.analysis.AnalysisControlInput;
+import com.chrisali.javaflightsim.simulation.integration.Integrate6DOFEquations;
+
+/**
+ * Simulates large batches of {@link LinearCase}s with the {@link LinearModel} of a trim point as a fast surrogate of the full nonlinear 
+ * simulation, so that millions of cases can be screened, and only the interesting ones run again in {@link Integrate6DOFEquations}. 
+ * 
+ * <p>The model is discretized once for a fixed time step, holding inputs constant over each step, so that each step is exactly 
+ * x[k+1] = Adx[k] + Bdu[k] and y[k] = Cx[k] + Du[k]. Ad and Bd are found together from the exponential of the matrix [A B; 0 0] scaled 
+ * by the time step, and {@link AnalysisControlInput}s are sampled at the start of each step, as the nonlinear simulation does.</p>
+ * 
+ * <p>Cases are simulated in chunks, each laid out as one array per state, input and output, indexed by case within the chunk. Every 
+ * step is then a loop over the nonzero entries of the discretized matrices, each of which scales one array into another, which the 
+ * compiler can vectorize. Chunks are simulated concurrently on an {@link ExecutorService}, and their outcomes are folded into a 
+ * {@link LinearBatchResult}. Every outcome of a chunk that could not be simulated is NaN, so that its cases are always screened</p>
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class LinearBatchSimulator {
+	
+	private static final Logger logger = LogManager.getLogger(LinearBatchSimulator.class);
+	private static final int TO_MILLISEC = 1000;
+	
+	// Cases per chunk, small enough that the arrays of a chunk fit in cache
+	private static final int CHUNK_SIZE = 512;
+	
+	private static final int MAX_TERMS = 30;
+	
+	private final LinearModel model;
+	private final double timeStep;
+	
+	private final double[][] discreteA;
+	private final double[][] discreteB;
+	
+	// Nonzero entries of [Ad Bd] and [C D], row by row, acting on states followed by inputs
+	private final int[][] transitionColumns;
+	private final double[][] transitionValues;
+	private final int[][] outputColumns;
+	private final double[][] outputValues;
+	
+	private ExecutorService executor;
+	
+	/**
+	 * Creates a simulator of a linear model, discretized for a time step
+	 * 
+	 * @param model
+	 * @param timeStep (sec)
+	 * @throws IllegalArgumentException if timeStep is not positive
+	 */
+	public LinearBatchSimulator(LinearModel model, double timeStep) {
+		if (!(timeStep > 0))
+			throw new IllegalArgumentException("Time step must be positive, but was " + timeStep);
+		
+		this.model = model;
+		this.timeStep = timeStep;
+		
+		final int states = Linearizer.STATES.length, inputs = Linearizer.INPUTS.length;
+		double[][] a = model.getA(), b = model.getB();
+		
+		// exp([A B; 0 0]*dt) = [Ad Bd; 0 I]
+		double[][] augmented = new double[states + inputs][states + inputs];
+		for (int i = 0; i < states; i++) {
+			for (int j = 0; j < states; j++)
+				augmented[i][j] = a[i][j] * timeStep;
+			for (int j = 0; j < inputs; j++)
+				augmented[i][states + j] = b[i][j] * timeStep;
+		}
+		
+		double[][] exponential = exponential(augmented);
+		
+		discreteA = new double[states][states];
+		discreteB = new double[states][inputs];
+		double[][] transition = new double[states][];
+		for (int i = 0; i < states; i++) {
+			System.arraycopy(exponential[i], 0, discreteA[i], 0, states);
+			System.arraycopy(exponential[i], states, discreteB[i], 0, inputs);
+			transition[i] = exponential[i];
+		}
+		
+		double[][] c = model.getC(), d = model.getD();
+		double[][] output = new double[Linearizer.OUTPUTS.length][states + inputs];
+		for (int i = 0; i < output.length; i++) {
+			System.arraycopy(c[i], 0, output[i], 0, states);
+			System.arraycopy(d[i], 0, output[i], states, inputs);
+		}
+		
+		transitionColumns = new int[states][];
+		transitionValues  = new double[states][];
+		compress(transition, transitionColumns, transitionValues);
+		
+		outputColumns = new int[output.length][];
+		outputValues  = new double[output.length][];
+		compress(output, outputColumns, outputValues);
+	}
+	
+	/**
+	 * Sets the executor used to simulate chunks of cases. It is not shut down by this simulator; if none is set, a {@link ForkJoinPool} 
+	 * using all available processors is created and shut down for each call of {@link LinearBatchSimulator#simulate(List, double)}
+	 * 
+	 * @param executor
+	 */
+	public void setExecutor(ExecutorService executor) { this.executor = executor; }
+	
+	public LinearModel getModel() { return model; }
+	
+	public double getTimeStep() { return timeStep; }
+	
+	/**
+	 * @return discretized state matrix Ad
+	 */
+	public double[][] getDiscreteA() { return copy(discreteA); }
+	
+	/**
+	 * @return discretized input matrix Bd
+	 */
+	public double[][] getDiscreteB() { return copy(discreteB); }
+	
+	/**
+	 * Simulates each case from time zero to duration
+	 * 
+	 * @param cases
+	 * @param duration (sec)
+	 * @return outcome of every case, numbered in the order of cases
+	 * @throws InterruptedException if interrupted while waiting for chunks to be simulated
+	 */
+	public LinearBatchResult simulate(List<LinearCase> cases, double duration) throws InterruptedException {
+		final int steps = (int) Math.round(duration / timeStep);
+		LinearBatchResult result = new LinearBatchResult(cases.size());
+		
+		List<Callable<Void>> tasks = new ArrayList<>();
+		for (int first = 0; first < cases.size(); first += CHUNK_SIZE) {
+			final int chunkFirst = first, chunkSize = Math.min(CHUNK_SIZE, cases.size() - first);
+			tasks.add(() -> {
+				simulateChunk(cases, chunkFirst, chunkSize, steps, result);
+				return null;
+			});
+		}
+		
+		logger.debug("Simulating " + cases.size() + " linear cases of " + model.getCondition() + " in " + tasks.size() + " chunks...");
+		
+		long startTime = System.nanoTime();
+		ExecutorService service = (executor != null) ? executor : new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+		try {
+			List<Future<Void>> chunks = service.invokeAll(tasks);
+			for (int chunk = 0; chunk < chunks.size(); chunk++) {
+				try {
+					chunks.get(chunk).get();
+				} catch (ExecutionException e) {
+					int first = chunk * CHUNK_SIZE, size = Math.min(CHUNK_SIZE, cases.size() - first);
+					logger.error("Cases " + first + " to " + (first + size - 1) + " could not be simulated, and will be screened!", e.getCause());
+					result.fail(first, size);
+				}
+			}
+		} finally {
+			if (executor == null)
+				service.shutdownNow();
+		}
+		result.setRunTimeNanos(System.nanoTime() - startTime);
+		
+		logger.debug("...done! " + result);
+		
+		return result;
+	}
+	
+	/**
+	 * Simulates a chunk of cases on the calling thread, laying its states, inputs and outputs out as one array each
+	 * 
+	 * @param cases
+	 * @param first first case of the chunk
+	 * @param size number of cases in the chunk
+	 * @param steps
+	 * @param result
+	 */
+	private void simulateChunk(List<LinearCase> cases, int first, int size, int steps, LinearBatchResult result) {
+		final int states = Linearizer.STATES.length, inputs = Linearizer.INPUTS.length;
+		
+		// States followed by inputs, each indexed by case within the chunk
+		double[][] current = new double[states + inputs][size];
+		double[][] next = new double[states + inputs][size];
+		double[][] outputs = new double[outputColumns.length][size];
+		double[][] minimums = new double[outputColumns.length][size];
+		double[][] maximums = new double[outputColumns.length][size];
+		
+		// Every input of the chunk, with the case it belongs to and the control it deflects
+		List<AnalysisControlInput> chunkInputs = new ArrayList<>();
+		List<Integer> inputCases = new ArrayList<>(), inputRows = new ArrayList<>();
+		
+		for (int i = 0; i < size; i++) {
+			LinearCase linearCase = cases.get(first + i);
+			
+			for (int state = 0; state < states; state++)
+				current[state][i] = linearCase.getInitialState(state);
+			
+			for (int input = 0; input < linearCase.getInputs().size(); input++) {
+				chunkInputs.add(linearCase.getInputs().get(input));
+				inputCases.add(i);
+				inputRows.add(states + linearCase.getInputIndex(input));
+			}
+		}
+		
+		AnalysisControlInput[] inputArray = chunkInputs.toArray(new AnalysisControlInput[chunkInputs.size()]);
+		int[] caseArray = inputCases.stream().mapToInt(Integer::intValue).toArray();
+		int[] rowArray  = inputRows.stream().mapToInt(Integer::intValue).toArray();
+		
+		for (int step = 0; step <= steps; step++) {
+			final int timeMS = (int) Math.round(step * timeStep * TO_MILLISEC);
+			
+			for (int input = states; input < states + inputs; input++)
+				Arrays.fill(current[input], 0.0);
+			
+			for (int input = 0; input < inputArray.length; input++)
+				current[rowArray[input]][caseArray[input]] += inputArray[input].calculateDeflection(timeMS);
+			
+			multiply(outputColumns, outputValues, current, outputs, size);
+			
+			for (int output = 0; output < outputs.length; output++) {
+				final double[] values = outputs[output], minimum = minimums[output], maximum = maximums[output];
+				
+				if (step == 0) {
+					System.arraycopy(values, 0, minimum, 0, size);
+					System.arraycopy(values, 0, maximum, 0, size);
+					continue;
+				}
+				
+				for (int i = 0; i < size; i++) {
+					final double value = values[i];
+					minimum[i] = Math.min(value, minimum[i]);
+					maximum[i] = Math.max(value, maximum[i]);
+				}
+			}
+			
+			if (step == steps)
+				break;
+			
+			multiply(transitionColumns, transitionValues, current, next, size);
+			
+			double[][] swap = current; current = next; next = swap;
+		}
+		
+		result.store(first, size, minimums, maximums, outputs);
+	}
+	
+	/**
+	 * Multiplies a sparse matrix by the vector of each case, writing the rows of the product into the first arrays of product
+	 * 
+	 * @param columns column of each nonzero entry of each row
+	 * @param values value of each nonzero entry of each row
+	 * @param vectors arrays of each element of the vectors, indexed by case
+	 * @param product arrays of each element of the products, indexed by case
+	 * @param size number of cases
+	 */
+	private static void multiply(int[][] columns, double[][] values, double[][] vectors, double[][] product, int size) {
+		for (int row = 0; row < columns.length; row++) {
+			final double[] sum = product[row];
+			Arrays.fill(sum, 0, size, 0.0);
+			
+			for (int entry = 0; entry < columns[row].length; entry++) {
+				final double value = values[row][entry];
+				final double[] vector = vectors[columns[row][entry]];
+				
+				for (int i = 0; i < size; i++)
+					sum[i] += value * vector[i];
+			}
+		}
+	}
+	
+	/**
+	 * Finds the nonzero entries of each row of a matrix
+	 * 
+	 * @param matrix
+	 * @param columns array to write the column of each nonzero entry of each row into
+	 * @param values array to write the value of each nonzero entry of each row into
+	 */
+	private static void compress(double[][] matrix, int[][] columns, double[][] values) {
+		for (int row = 0; row < columns.length; row++) {
+			int count = 0;
+			for (double value : matrix[row])
+				count += (value != 0.0) ? 1 : 0;
+			
+			columns[row] = new int[count];
+			values[row] = new double[count];
+			
+			for (int column = 0, entry = 0; column < matrix[row].length; column++) {
+				if (matrix[row][column] != 0.0) {
+					columns[row][entry] = column;
+					values[row][entry++] = matrix[row][column];
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Calculates the exponential of a square matrix by scaling and squaring: the matrix is halved until its norm is below one half, 
+	 * its exponential is summed from the Taylor series, and then squared once for each halving
+	 * 
+	 * @param matrix
+	 * @return exp(matrix)
+	 */
+	static double[][] exponential(double[][] matrix) {
+		final int n = matrix.length;
+		
+		double norm = 0.0;
+		for (int j = 0; j < n; j++) {
+			double columnSum = 0.0;
+			for (int i = 0; i < n; i++)
+				columnSum += Math.abs(matrix[i][j]);
+			norm = Math.max(norm, columnSum);
+		}
+		
+		int squarings = 0;
+		while (norm > 0.5) {
+			norm /= 2;
+			squarings++;
+		}
+		final double scale = Math.pow(2, -squarings);
+		
+		double[][] scaled = new double[n][n];
+		double[][] sum = new double[n][n];
+		double[][] term = new double[n][n];
+		for (int i = 0; i < n; i++) {
+			for (int j = 0; j < n; j++)
+				scaled[i][j] = matrix[i][j] * scale;
+			sum[i][i] = term[i][i] = 1.0;
+		}
+		
+		for (int k = 1; k <= MAX_TERMS; k++) {
+			term = product(term, scaled);
+			
+			double termNorm = 0.0;
+			for (int i = 0; i < n; i++) {
+				for (int j = 0; j < n; j++) {
+					term[i][j] /= k;
+					sum[i][j] += term[i][j];
+					termNorm = Math.max(termNorm, Math.abs(term[i][j]));
+				}
+			}
+			
+			if (termNorm < 1e-18)
+				break;
+		}
+		
+		for (int i = 0; i < squarings; i++)
+			sum = product(sum, sum);
+		
+		return sum;
+	}
+	
+	private static double[][] product(double[][] left, double[][] right) {
+		final int n = left.length, m = right[0].length;
+		double[][] product = new double[n][m];
+		
+		for (int i = 0; i < n; i++) {
+			for (int k = 0; k < right.length; k++) {
+				final double value = left[i][k];
+				if (value == 0.0)
+					continue;
+				
+				for (int j = 0; j < m; j++)
+					product[i][j] += value * right[k][j];
+			}
+		}
+		
+		return product;
+	}
+	
+	private static double[][] copy(double[][] matrix) {
+		double[][] copy = new double[matrix.length][];
+		for (int i = 0; i < matrix.length; i++)
+			copy[i] = matrix[i].clone();
+		
+		return copy;
+	}
+}
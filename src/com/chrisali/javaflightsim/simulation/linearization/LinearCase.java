@@ -0,0 +1,106 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.linearization;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import com.chrisali.javaflightsim.simulation.flightcontrols.analysis.AnalysisControlInput;
+import com.chrisali.javaflightsim.simulation.flightcontrols.analysis.AnalysisControls;
+
+/**
+ * A single case simulated by a {@link LinearBatchSimulator}: the {@link AnalysisControlInput}s applied during the case, and the 
+ * perturbation of each state from trim that it starts from. Every input must deflect one of the {@link Linearizer#INPUTS}
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class LinearCase {
+	
+	private final List<AnalysisControlInput> inputs;
+	private final int[] inputIndices;
+	private final double[] initialStates;
+	
+	/**
+	 * Creates a case starting at trim
+	 * 
+	 * @param inputs
+	 * @throws IllegalArgumentException if an input deflects a control that is not an input of linear models
+	 */
+	public LinearCase(List<AnalysisControlInput> inputs) {
+		this(inputs, new double[Linearizer.STATES.length]);
+	}
+	
+	/**
+	 * Creates a case from the inputs of a set of {@link AnalysisControls}, starting at trim
+	 * 
+	 * @param analysisControls
+	 * @throws IllegalArgumentException if an input deflects a control that is not an input of linear models
+	 */
+	public LinearCase(AnalysisControls analysisControls) {
+		this(analysisControls.getAnalysisInputs());
+	}
+	
+	/**
+	 * Creates a case starting from a perturbation of the states from trim
+	 * 
+	 * @param inputs
+	 * @param initialStates perturbation of each state from trim, ordered as {@link Linearizer#STATES}
+	 * @throws IllegalArgumentException if an input deflects a control that is not an input of linear models, or there is 
+	 * not an initial value for each state
+	 */
+	public LinearCase(List<AnalysisControlInput> inputs, double[] initialStates) {
+		if (initialStates.length != Linearizer.STATES.length)
+			throw new IllegalArgumentException("Expected " + Linearizer.STATES.length + " initial states, but got " + initialStates.length);
+		
+		this.inputs = Collections.unmodifiableList(new ArrayList<>(inputs));
+		this.initialStates = initialStates.clone();
+		
+		inputIndices = new int[inputs.size()];
+		for (int i = 0; i < inputIndices.length; i++) {
+			inputIndices[i] = Arrays.asList(Linearizer.INPUTS).indexOf(inputs.get(i).getControlType());
+			
+			if (inputIndices[i] < 0)
+				throw new IllegalArgumentException(inputs.get(i).getControlType() + " is not an input of linear models");
+		}
+	}
+	
+	public List<AnalysisControlInput> getInputs() { return inputs; }
+	
+	/**
+	 * @param input index in {@link LinearCase#getInputs()}
+	 * @return index in {@link Linearizer#INPUTS} of the control the input deflects
+	 */
+	int getInputIndex(int input) { return inputIndices[input]; }
+	
+	/**
+	 * @return perturbation of each state from trim, ordered as {@link Linearizer#STATES}
+	 */
+	public double[] getInitialStates() { return initialStates.clone(); }
+	
+	double getInitialState(int state) { return initialStates[state]; }
+	
+	@Override
+	public String toString() {
+		return "Inputs: " + inputs + ", Initial States: " + Arrays.toString(initialStates);
+	}
+}
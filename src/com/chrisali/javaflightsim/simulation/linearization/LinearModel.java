@@ -0,0 +1,225 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.linearization;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.math3.linear.EigenDecomposition;
+import org.apache.commons.math3.linear.MatrixUtils;
+
+import com.chrisali.javaflightsim.simulation.setup.TrimCondition;
+
+/**
+ * State space model x_dot = Ax + Bu, y = Cx + Du of the 12 6DOF equations of motion, linearized about a trim point by a 
+ * {@link Linearizer}. States, inputs and outputs are perturbations from trim, ordered as {@link Linearizer#STATES}, 
+ * {@link Linearizer#INPUTS} and {@link Linearizer#OUTPUTS}. 
+ * 
+ * <p>The eigenvalues of A are calculated on creation, and the classical {@link ModeType}s are identified from the eigenvalues of its 
+ * longitudinal (u, w, q, theta) and lateral-directional (v, p, r, phi) subsystems. This assumes the two are decoupled, as they are in 
+ * symmetric flight; in turns or sideslips, the eigenvalues of A remain exact, but the modes are only approximate</p>
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class LinearModel {
+	
+	// Indices of the states of each subsystem in A
+	private static final int[] LONGITUDINAL = {0, 2, 10, 7};
+	private static final int[] LATERAL 		= {1, 9, 11, 6};
+	
+	private final TrimCondition condition;
+	private final double[][] a;
+	private final double[][] b;
+	private final double[][] c;
+	private final double[][] d;
+	
+	private final double[] realEigenvalues;
+	private final double[] imaginaryEigenvalues;
+	private final Map<ModeType, DynamicMode> modes = new EnumMap<>(ModeType.class);
+	
+	/**
+	 * Creates a linear model and identifies its modes
+	 * 
+	 * @param condition trim condition the model was linearized about
+	 * @param a state matrix
+	 * @param b input matrix
+	 * @param c output matrix
+	 * @param d feedthrough matrix
+	 */
+	LinearModel(TrimCondition condition, double[][] a, double[][] b, double[][] c, double[][] d) {
+		this.condition = condition;
+		this.a = a;
+		this.b = b;
+		this.c = c;
+		this.d = d;
+		
+		EigenDecomposition eigen = new EigenDecomposition(MatrixUtils.createRealMatrix(a));
+		realEigenvalues = eigen.getRealEigenvalues();
+		imaginaryEigenvalues = eigen.getImagEigenvalues();
+		
+		identifyLongitudinalModes();
+		identifyLateralModes();
+	}
+	
+	/**
+	 * Classifies the longitudinal oscillations by frequency, the faster being the short period and the slower the phugoid. A heavily 
+	 * damped short period splits into two real roots, so if only one oscillation is found, it is the phugoid if it is slower than them
+	 */
+	private void identifyLongitudinalModes() {
+		List<DynamicMode> oscillations = new ArrayList<>();
+		double fastestReal = 0;
+		
+		for (DynamicMode mode : subsystemModes(LONGITUDINAL)) {
+			if (mode.isOscillatory())
+				oscillations.add(mode);
+			else
+				fastestReal = Math.max(fastestReal, Math.abs(mode.getReal()));
+		}
+		
+		Collections.sort(oscillations, (m1, m2) -> Double.compare(m1.getNaturalFrequency(), m2.getNaturalFrequency()));
+		
+		if (oscillations.size() >= 2) {
+			addMode(ModeType.PHUGOID, oscillations.get(0));
+			addMode(ModeType.SHORT_PERIOD, oscillations.get(oscillations.size() - 1));
+		} else if (oscillations.size() == 1) {
+			DynamicMode oscillation = oscillations.get(0);
+			addMode(oscillation.getNaturalFrequency() < fastestReal ? ModeType.PHUGOID : ModeType.SHORT_PERIOD, oscillation);
+		}
+	}
+	
+	/**
+	 * Classifies the lateral-directional oscillation as the dutch roll, and of the real roots, the fastest as the roll subsidence 
+	 * and the slowest as the spiral
+	 */
+	private void identifyLateralModes() {
+		DynamicMode roll = null, spiral = null;
+		
+		for (DynamicMode mode : subsystemModes(LATERAL)) {
+			if (mode.isOscillatory()) {
+				addMode(ModeType.DUTCH_ROLL, mode);
+			} else {
+				if (roll == null || Math.abs(mode.getReal()) > Math.abs(roll.getReal()))
+					roll = mode;
+				if (spiral == null || Math.abs(mode.getReal()) < Math.abs(spiral.getReal()))
+					spiral = mode;
+			}
+		}
+		
+		if (roll != null && roll != spiral) {
+			addMode(ModeType.ROLL, roll);
+			addMode(ModeType.SPIRAL, spiral);
+		}
+	}
+	
+	/**
+	 * @param states indices of the subsystem's states in A
+	 * @return the real roots and the upper half of the complex pairs of the subsystem's eigenvalues, without a type
+	 */
+	private List<DynamicMode> subsystemModes(int[] states) {
+		double[][] subsystem = new double[states.length][states.length];
+		for (int i = 0; i < states.length; i++) {
+			for (int j = 0; j < states.length; j++)
+				subsystem[i][j] = a[states[i]][states[j]];
+		}
+		
+		EigenDecomposition eigen = new EigenDecomposition(MatrixUtils.createRealMatrix(subsystem));
+		List<DynamicMode> roots = new ArrayList<>();
+		
+		for (int i = 0; i < states.length; i++) {
+			if (eigen.getImagEigenvalue(i) >= 0)
+				roots.add(new DynamicMode(null, eigen.getRealEigenvalue(i), eigen.getImagEigenvalue(i)));
+		}
+		
+		return roots;
+	}
+	
+	private void addMode(ModeType type, DynamicMode root) {
+		modes.put(type, new DynamicMode(type, root.getReal(), root.getImaginary()));
+	}
+	
+	/**
+	 * @return trim condition the model was linearized about
+	 */
+	public TrimCondition getCondition() { return condition; }
+	
+	/**
+	 * @return copy of the state matrix, d(x_dot)/dx
+	 */
+	public double[][] getA() { return copy(a); }
+	
+	/**
+	 * @return copy of the input matrix, d(x_dot)/du
+	 */
+	public double[][] getB() { return copy(b); }
+	
+	/**
+	 * @return copy of the output matrix, dy/dx
+	 */
+	public double[][] getC() { return copy(c); }
+	
+	/**
+	 * @return copy of the feedthrough matrix, dy/du
+	 */
+	public double[][] getD() { return copy(d); }
+	
+	/**
+	 * @return real parts of the eigenvalues of A
+	 */
+	public double[] getRealEigenvalues() { return realEigenvalues.clone(); }
+	
+	/**
+	 * @return imaginary parts of the eigenvalues of A
+	 */
+	public double[] getImaginaryEigenvalues() { return imaginaryEigenvalues.clone(); }
+	
+	/**
+	 * @param type
+	 * @return the mode of that type, or null if it could not be identified
+	 */
+	public DynamicMode getMode(ModeType type) { return modes.get(type); }
+	
+	/**
+	 * @return every mode identified, in the order of {@link ModeType}
+	 */
+	public List<DynamicMode> getModes() { return new ArrayList<>(modes.values()); }
+	
+	private static double[][] copy(double[][] matrix) {
+		double[][] copy = new double[matrix.length][];
+		for (int i = 0; i < matrix.length; i++)
+			copy[i] = Arrays.copyOf(matrix[i], matrix[i].length);
+		
+		return copy;
+	}
+	
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("Linear model about ").append(condition);
+		
+		for (DynamicMode mode : modes.values())
+			sb.append("\n").append(mode);
+		
+		return sb.toString();
+	}
+}
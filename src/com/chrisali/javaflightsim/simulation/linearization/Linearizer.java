@@ -0,0 +1,506 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.linearization;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.chrisali.javaflightsim.simulation.SimulationContext;
+import com.chrisali.javaflightsim.simulation.aircraft.Aircraft;
+import com.chrisali.javaflightsim.simulation.aircraft.MassProperties;
+import com.chrisali.javaflightsim.simulation.enviroment.Environment;
+import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControl;
+import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControlsSnapshot;
+import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControlsState;
+import com.chrisali.javaflightsim.simulation.integration.FlightDynamicsModel;
+import com.chrisali.javaflightsim.simulation.integration.SimOuts;
+import com.chrisali.javaflightsim.simulation.setup.InitialConditions;
+import com.chrisali.javaflightsim.simulation.setup.SimulationConfiguration;
+import com.chrisali.javaflightsim.simulation.setup.TrimCondition;
+import com.chrisali.javaflightsim.simulation.setup.TrimResult;
+import com.chrisali.javaflightsim.simulation.utilities.Dual;
+
+/**
+ * Linearizes the 12 6DOF equations of motion of {@link FlightDynamicsModel} about {@link TrimResult}s into {@link LinearModel}s. 
+ * By default, the model's matrices are found exactly by automatic differentiation, evaluating the equations once per trim point with 
+ * {@link Dual}s whose variables are each state, input and alphaDot. Each trim point is evaluated on an {@link ExecutorService}, by a 
+ * model belonging to the thread running it. 
+ * 
+ * <p>With {@link DifferentiationMethod#CENTRAL_DIFFERENCES}, each column of the matrices is instead found by central differences of a 
+ * perturbation of one state or input, and every perturbation of every trim point is evaluated on the executor. Each perturbation 
+ * starts with a step relative to the size of its state or input, which is halved until the column agrees with the one before it within 
+ * {@link Linearizer#STEP_TOLERANCE}, then improved by Richardson extrapolation. If halving the step makes the columns disagree more, 
+ * round-off error has taken over, and the column of the previous step is kept.</p>
+ * 
+ * <p>The equations depend on the rate of change of angle of attack as well, which depends in turn on u_dot and w_dot. This is resolved 
+ * exactly by perturbing alphaDot as well, and folding its effect back into the matrices. Models of converged trim points are cached by 
+ * {@link TrimCondition}, so each point is only linearized once by a linearizer. A point whose perturbations could not all be evaluated 
+ * is never assembled into a model or cached, and the failure is thrown once the other points have been linearized</p>
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class Linearizer {
+	
+	private static final Logger logger = LogManager.getLogger(Linearizer.class);
+	
+	public static final SimOuts[] STATES = {SimOuts.U, SimOuts.V, SimOuts.W, SimOuts.NORTH, SimOuts.EAST, SimOuts.ALT,
+											SimOuts.PHI, SimOuts.THETA, SimOuts.PSI, SimOuts.P, SimOuts.Q, SimOuts.R};
+	
+	public static final FlightControl[] INPUTS = {FlightControl.ELEVATOR, FlightControl.AILERON, FlightControl.RUDDER, 
+												  FlightControl.THROTTLE_1, FlightControl.THROTTLE_2, FlightControl.THROTTLE_3, 
+												  FlightControl.THROTTLE_4};
+	
+	public static final SimOuts[] OUTPUTS = {SimOuts.U, SimOuts.V, SimOuts.W, SimOuts.NORTH, SimOuts.EAST, SimOuts.ALT,
+											 SimOuts.PHI, SimOuts.THETA, SimOuts.PSI, SimOuts.P, SimOuts.Q, SimOuts.R,
+											 SimOuts.TAS, SimOuts.BETA, SimOuts.ALPHA, SimOuts.A_X, SimOuts.A_Y, SimOuts.A_Z};
+	
+	public static final double STEP_TOLERANCE = 1e-6;
+	
+	// Columns perturbed: each state, then each input, then alphaDot
+	private static final int ALPHA_DOT = STATES.length + INPUTS.length;
+	private static final int COLUMNS = ALPHA_DOT + 1;
+	
+	// Rows of each column: state derivatives, then outputs
+	private static final int ROWS = STATES.length + OUTPUTS.length;
+	
+	private static final double INITIAL_STEP = 1e-3;
+	private static final int MAX_REFINEMENTS = 8;
+	
+	private final SimulationConfiguration configuration;
+	private final Map<TrimCondition, LinearModel> cache = new ConcurrentHashMap<>();
+	
+	private ExecutorService executor;
+	private DifferentiationMethod differentiationMethod = DifferentiationMethod.AUTOMATIC;
+	
+	/**
+	 * Creates a linearizer of the aircraft selected in configuration, in its environment
+	 * 
+	 * @param configuration
+	 */
+	public Linearizer(SimulationConfiguration configuration) {
+		this.configuration = configuration;
+	}
+	
+	/**
+	 * Sets the executor used to evaluate perturbations. It is not shut down by this linearizer; if none is set, a {@link ForkJoinPool} 
+	 * using all available processors is created and shut down for each linearization
+	 * 
+	 * @param executor
+	 */
+	public void setExecutor(ExecutorService executor) { this.executor = executor; }
+	
+	/**
+	 * Sets the method used to find the Jacobians of the equations of motion; {@link DifferentiationMethod#AUTOMATIC} by default
+	 * 
+	 * @param differentiationMethod
+	 */
+	public void setDifferentiationMethod(DifferentiationMethod differentiationMethod) { this.differentiationMethod = differentiationMethod; }
+	
+	/**
+	 * @param condition
+	 * @return cached model of a trim point with this condition, or null if none has been linearized
+	 */
+	public LinearModel getCached(TrimCondition condition) { return cache.get(condition); }
+	
+	/**
+	 * @return number of models cached
+	 */
+	public int getCacheSize() { return cache.size(); }
+	
+	/**
+	 * Linearizes the equations of motion about a trim point
+	 * 
+	 * @param trim
+	 * @return linear model
+	 * @throws InterruptedException if interrupted while waiting for perturbations to be evaluated
+	 * @throws ExecutionException if a perturbation could not be evaluated, caused by what it threw
+	 */
+	public LinearModel linearize(TrimResult trim) throws InterruptedException, ExecutionException {
+		return linearize(Collections.singletonList(trim)).get(0);
+	}
+	
+	/**
+	 * Linearizes the equations of motion about each trim point, evaluating the perturbations of all points concurrently
+	 * 
+	 * @param trims
+	 * @return linear model of each trim point, in the same order
+	 * @throws InterruptedException if interrupted while waiting for perturbations to be evaluated
+	 * @throws ExecutionException if a perturbation of any point could not be evaluated, caused by what the first of them threw; 
+	 * models of the other points are still cached
+	 */
+	public List<LinearModel> linearize(List<TrimResult> trims) throws InterruptedException, ExecutionException {
+		LinearModel[] models = new LinearModel[trims.size()];
+		double[][][] columns = new double[trims.size()][][];
+		
+		// Contexts are not thread-safe, so each thread perturbs a model of its own
+		ThreadLocal<Perturbation> perturbations = ThreadLocal.withInitial(() -> 
+			new Perturbation(new SimulationContext(new SimulationConfiguration(configuration))));
+		
+		List<Callable<Void>> tasks = new ArrayList<>();
+		for (int i = 0; i < models.length; i++) {
+			TrimResult trim = trims.get(i);
+			
+			if (trim.isConverged() && (models[i] = cache.get(trim.getCondition())) != null)
+				continue;
+			
+			if (!trim.isConverged())
+				logger.warn("Linearizing about a point that is not trimmed: " + trim);
+			
+			final int point = i;
+			if (differentiationMethod == DifferentiationMethod.AUTOMATIC) {
+				tasks.add(() -> {
+					columns[point] = perturbations.get().differentiate(trim);
+					return null;
+				});
+				continue;
+			}
+			
+			columns[point] = new double[COLUMNS][];
+			for (int column = 0; column < COLUMNS; column++) {
+				final int perturbed = column;
+				tasks.add(() -> {
+					columns[point][perturbed] = perturbations.get().differentiate(trim, perturbed);
+					return null;
+				});
+			}
+		}
+		
+		if (tasks.isEmpty())
+			return Arrays.asList(models);
+		
+		logger.debug("Linearizing trim points by " + differentiationMethod + " in " + tasks.size() + " tasks...");
+		
+		Throwable failure = null;
+		
+		ExecutorService service = (executor != null) ? executor : new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+		try {
+			for (Future<Void> task : service.invokeAll(tasks)) {
+				try {
+					task.get();
+				} catch (ExecutionException e) {
+					if (failure == null)
+						failure = e.getCause();
+					else
+						failure.addSuppressed(e.getCause());
+				}
+			}
+		} finally {
+			if (executor == null)
+				service.shutdownNow();
+		}
+		
+		// A failed perturbation leaves its column, or every column of its point, missing
+		int failedPoints = 0;
+		for (int i = 0; i < models.length; i++) {
+			if (models[i] != null)
+				continue;
+			
+			if (columns[i] == null || Arrays.asList(columns[i]).contains(null)) {
+				failedPoints++;
+				continue;
+			}
+			
+			TrimResult trim = trims.get(i);
+			models[i] = assemble(trim, columns[i]);
+			
+			if (trim.isConverged())
+				cache.put(trim.getCondition(), models[i]);
+		}
+		
+		if (failure != null)
+			throw new ExecutionException(failedPoints + " trim point(s) could not be linearized!", failure);
+		
+		logger.debug("...done!");
+		
+		return Arrays.asList(models);
+	}
+	
+	/**
+	 * Assembles the columns of a trim point into a linear model, eliminating alphaDot. Because alphaDot = k'x_dot, where k is 
+	 * nonzero only for u_dot and w_dot, the equations x_dot = A0x + B0u + g*alphaDot become (I - gk')x_dot = A0x + B0u, whose 
+	 * inverse is found with the Sherman-Morrison formula
+	 * 
+	 * @param trim
+	 * @param columns derivatives of the state derivatives and outputs with respect to each perturbation
+	 * @return linear model
+	 */
+	private static LinearModel assemble(TrimResult trim, double[][] columns) {
+		final int states = STATES.length, inputs = INPUTS.length, outputs = OUTPUTS.length;
+		
+		double[][] a = new double[states][states];
+		double[][] b = new double[states][inputs];
+		double[][] c = new double[outputs][states];
+		double[][] d = new double[outputs][inputs];
+		
+		for (int j = 0; j < states; j++) {
+			for (int i = 0; i < states; i++)
+				a[i][j] = columns[j][i];
+			for (int i = 0; i < outputs; i++)
+				c[i][j] = columns[j][states + i];
+		}
+		
+		for (int j = 0; j < inputs; j++) {
+			for (int i = 0; i < states; i++)
+				b[i][j] = columns[states + j][i];
+			for (int i = 0; i < outputs; i++)
+				d[i][j] = columns[states + j][states + i];
+		}
+		
+		// alphaDot = (u*w_dot - w*u_dot)/(u^2 + w^2)
+		double u = trim.getState(InitialConditions.INITU), w = trim.getState(InitialConditions.INITW);
+		double ku = -w / (u*u + w*w), kw = u / (u*u + w*w);
+		
+		double[] g = columns[ALPHA_DOT];
+		double scale = 1.0 / (1.0 - (ku*g[0] + kw*g[2]));
+		
+		eliminateAlphaDot(a, c, g, ku, kw, scale);
+		eliminateAlphaDot(b, d, g, ku, kw, scale);
+		
+		return new LinearModel(trim.getCondition(), a, b, c, d);
+	}
+	
+	/**
+	 * Corrects each column of a state or input matrix, and of its output matrix, for the alphaDot that column causes
+	 * 
+	 * @param matrix A or B
+	 * @param outputMatrix C or D
+	 * @param g derivatives of the state derivatives, then the outputs, with respect to alphaDot
+	 * @param ku derivative of alphaDot with respect to u_dot
+	 * @param kw derivative of alphaDot with respect to w_dot
+	 * @param scale 1/(1 - k'g)
+	 */
+	private static void eliminateAlphaDot(double[][] matrix, double[][] outputMatrix, double[] g, double ku, double kw, double scale) {
+		final int states = STATES.length;
+		
+		for (int j = 0; j < matrix[0].length; j++) {
+			double alphaDot = (ku*matrix[0][j] + kw*matrix[2][j]) * scale;
+			
+			for (int i = 0; i < states; i++)
+				matrix[i][j] += g[i] * alphaDot;
+			for (int i = 0; i < outputMatrix.length; i++)
+				outputMatrix[i][j] += g[states + i] * alphaDot;
+		}
+	}
+	
+	/**
+	 * Evaluates perturbations of trim points with a {@link FlightDynamicsModel}. Like the context it is created from, it should 
+	 * only be used by one thread
+	 */
+	private static class Perturbation {
+		
+		private static final InitialConditions[] INITIAL_CONDITIONS = InitialConditions.values();
+		
+		private final FlightDynamicsModel model;
+		private final Aircraft aircraft;
+		private final double aircraftMass;
+		private final FlightControlsState controlsState;
+		private final FlightControlsSnapshot controls = new FlightControlsSnapshot();
+		
+		private final double[] y 	 = new double[FlightDynamicsModel.STATES];
+		private final double[] yDot  = new double[FlightDynamicsModel.STATES];
+		private final double[] plus  = new double[ROWS];
+		private final double[] minus = new double[ROWS];
+		
+		private Map<FlightControl, Double> trimControls;
+		
+		private Perturbation(SimulationContext context) {
+			model 		  = new FlightDynamicsModel(context);
+			aircraft 	  = context.getAircraft();
+			aircraftMass  = aircraft.getMassProperty(MassProperties.TOTAL_MASS);
+			controlsState = new FlightControlsState(context.getConfiguration());
+		}
+		
+		/**
+		 * Sets the aircraft's mass and the controls to those of a trim point
+		 * 
+		 * @param trim
+		 */
+		private void prepare(TrimResult trim) {
+			double weight = trim.getCondition().getWeight();
+			double mass = Double.isNaN(weight) ? aircraftMass : weight / Environment.getGravity();
+			if (mass != aircraft.getMassProperty(MassProperties.TOTAL_MASS))
+				aircraft.setMassProperty(MassProperties.TOTAL_MASS, mass);
+			
+			trimControls = trim.getControls();
+			
+			for (Map.Entry<FlightControl, Double> control : trimControls.entrySet())
+				controlsState.set(control.getKey(), control.getValue());
+			
+			controls.update(controlsState);
+		}
+		
+		/**
+		 * Evaluates the state derivatives and outputs of a trim point once with {@link Dual}s, whose variables are each state, 
+		 * input and alphaDot
+		 * 
+		 * @param trim
+		 * @return derivatives of the state derivatives and outputs with respect to each state, input and alphaDot
+		 */
+		private double[][] differentiate(TrimResult trim) {
+			prepare(trim);
+			
+			final int states = STATES.length;
+			
+			Dual[] y = new Dual[states];
+			for (int i = 0; i < states; i++)
+				y[i] = Dual.variable(trim.getState(INITIAL_CONDITIONS[i]), i, COLUMNS);
+			
+			Dual[] dualControls = new Dual[FlightControl.values().length];
+			for (FlightControl control : FlightControl.values())
+				dualControls[control.ordinal()] = Dual.constant(controls.get(control), COLUMNS);
+			for (int j = 0; j < INPUTS.length; j++)
+				dualControls[INPUTS[j].ordinal()] = Dual.variable(controls.get(INPUTS[j]), states + j, COLUMNS);
+			
+			Dual[] yDot = model.calculateDerivatives(y, dualControls, Dual.variable(0.0, ALPHA_DOT, COLUMNS), new Dual[states]);
+			
+			Dual[] windParameters = model.getDualWindParameters();
+			Dual[] linearAccelerations = model.getDualLinearAccelerations();
+			
+			Dual[] rows = new Dual[ROWS];
+			for (int i = 0; i < states; i++) {
+				rows[i] 		 = yDot[i];
+				rows[states + i] = y[i];
+			}
+			for (int i = 0; i < 3; i++) {
+				rows[2*states + i] 	   = windParameters[i];
+				rows[2*states + 3 + i] = linearAccelerations[i];
+			}
+			
+			double[][] columns = new double[COLUMNS][ROWS];
+			for (int column = 0; column < COLUMNS; column++) {
+				for (int i = 0; i < ROWS; i++)
+					columns[column][i] = rows[i].getDerivative(column);
+			}
+			
+			return columns;
+		}
+		
+		/**
+		 * @param trim
+		 * @param column index of the state, input or alphaDot to perturb
+		 * @return derivatives of the state derivatives and outputs with respect to the perturbed value
+		 */
+		private double[] differentiate(TrimResult trim, int column) {
+			prepare(trim);
+			
+			double value = 0.0;
+			if (column < STATES.length)
+				value = trim.getState(INITIAL_CONDITIONS[column]);
+			else if (column < ALPHA_DOT)
+				value = trimControls.get(INPUTS[column - STATES.length]);
+			
+			double step = INITIAL_STEP * Math.max(1.0, Math.abs(value));
+			double[] previous = centralDifference(trim, column, step);
+			double previousError = Double.POSITIVE_INFINITY;
+			
+			for (int refinement = 0; refinement < MAX_REFINEMENTS; refinement++) {
+				step /= 2;
+				double[] current = centralDifference(trim, column, step);
+				
+				double error = 0.0, size = 0.0;
+				for (int i = 0; i < ROWS; i++) {
+					error = Math.max(error, Math.abs(current[i] - previous[i]));
+					size  = Math.max(size, Math.abs(current[i]));
+				}
+				
+				if (error > previousError)
+					return previous;
+				
+				// Halving the step of a central difference quarters its truncation error
+				if (error <= STEP_TOLERANCE * size) {
+					for (int i = 0; i < ROWS; i++)
+						current[i] += (current[i] - previous[i]) / 3.0;
+					
+					return current;
+				}
+				
+				previous = current;
+				previousError = error;
+			}
+			
+			return previous;
+		}
+		
+		private double[] centralDifference(TrimResult trim, int column, double step) {
+			evaluate(trim, column,  step, plus);
+			evaluate(trim, column, -step, minus);
+			
+			double[] derivatives = new double[ROWS];
+			for (int i = 0; i < ROWS; i++)
+				derivatives[i] = (plus[i] - minus[i]) / (2 * step);
+			
+			return derivatives;
+		}
+		
+		/**
+		 * Evaluates the state derivatives and outputs of a trim point with a column perturbed by delta
+		 * 
+		 * @param trim
+		 * @param column
+		 * @param delta
+		 * @param out
+		 */
+		private void evaluate(TrimResult trim, int column, double delta, double[] out) {
+			for (InitialConditions initialCondition : INITIAL_CONDITIONS)
+				y[initialCondition.ordinal()] = trim.getState(initialCondition);
+			
+			for (Map.Entry<FlightControl, Double> control : trimControls.entrySet())
+				controlsState.set(control.getKey(), control.getValue());
+			
+			if (column < STATES.length)
+				y[column] += delta;
+			else if (column < ALPHA_DOT)
+				controlsState.set(INPUTS[column - STATES.length], trimControls.get(INPUTS[column - STATES.length]) + delta);
+			
+			controls.update(controlsState);
+			
+			model.calculateDerivatives(y, controls, (column == ALPHA_DOT) ? delta : 0.0, yDot);
+			
+			final int states = STATES.length;
+			for (int i = 0; i < states; i++) {
+				out[i] 			= yDot[i];
+				out[states + i] = y[i];
+			}
+			
+			double[] windParameters = model.getWindParameters();
+			double[] linearAccelerations = model.getLinearAccelerations();
+			
+			out[2*states]     = windParameters[0];
+			out[2*states + 1] = windParameters[1];
+			out[2*states + 2] = windParameters[2];
+			out[2*states + 3] = linearAccelerations[0];
+			out[2*states + 4] = linearAccelerations[1];
+			out[2*states + 5] = linearAccelerations[2];
+		}
+	}
+}
@@ -17,25 +17,25 @@
  *  If you have any questions about this project, you can visit
  *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
  ******************************************************************************/
-package com.chrisali.javaflightsim.simulation.enviroment;
+package com.chrisali.javaflightsim.simulation.linearization;
 
 /**
- * Used in {@link Environment} as the key to the environmentParameters EnumMap
+ * Dynamic modes of motion identified from the eigenvalues of a {@link LinearModel}
+ * 
+ * @author Christopher Ali
+ *
  */
-public enum EnvironmentParameters {
-	GRAVITY		   ("gravity"),
-	T  			   ("temperature"),
-	P			   ("pressure"),
-	RHO			   ("density"),
-	A			   ("speedOfSound"),
-	WIND_SPEED_N   ("windSpeedN"),
-	WIND_SPEED_E   ("windSpeedE"),
-	WIND_SPEED_D   ("windSpeedD"),
-	TURBULENCE	   ("turbulence");
+public enum ModeType {
+	SHORT_PERIOD ("Short Period"),
+	PHUGOID		 ("Phugoid"),
+	DUTCH_ROLL	 ("Dutch Roll"),
+	ROLL		 ("Roll Subsidence"),
+	SPIRAL		 ("Spiral");
 	
-	private final String environmentParameter;
+	private final String mode;
 	
-	EnvironmentParameters(String environmentParameter) {this.environmentParameter = environmentParameter;}
+	private ModeType(String mode) { this.mode = mode; }
 	
-	public String toString() {return environmentParameter;}	
+	@Override
+	public String toString() { return mode; }
 }
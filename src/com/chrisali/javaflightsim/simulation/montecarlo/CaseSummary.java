@@ -0,0 +1,121 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.montecarlo;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+
+import com.chrisali.javaflightsim.simulation.integration.Integrate6DOFEquations;
+import com.chrisali.javaflightsim.simulation.integration.SimOuts;
+
+/**
+ * Summarizes the outcome of a single Monte Carlo case as it runs: the minimum and maximum of every {@link SimOuts} value over the run, 
+ * and the values at its final step. Being updated with each step of {@link Integrate6DOFEquations#getSimOutBuffer()}, it takes the place of 
+ * the full {@link Integrate6DOFEquations#getLogsOut()} history, so thousands of cases can be run without holding their logs in memory
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class CaseSummary {
+	
+	private static final SimOuts[] SIM_OUTS = SimOuts.values();
+	
+	private final DispersedCase dispersedCase;
+	
+	private final double[] minimums = new double[SIM_OUTS.length];
+	private final double[] maximums = new double[SIM_OUTS.length];
+	private final double[] finals   = new double[SIM_OUTS.length];
+	
+	private int steps;
+	private long runTimeNanos;
+	private String error;
+	
+	CaseSummary(DispersedCase dispersedCase) {
+		this.dispersedCase = dispersedCase;
+		
+		Arrays.fill(minimums, Double.POSITIVE_INFINITY);
+		Arrays.fill(maximums, Double.NEGATIVE_INFINITY);
+		Arrays.fill(finals, Double.NaN);
+	}
+	
+	/**
+	 * Folds a single step of simulation output into this summary
+	 * 
+	 * @param simOut simulation outputs indexed by {@link SimOuts} ordinal
+	 */
+	void update(double[] simOut) {
+		for (int index = 0; index < SIM_OUTS.length; index++) {
+			minimums[index] = Math.min(minimums[index], simOut[index]);
+			maximums[index] = Math.max(maximums[index], simOut[index]);
+			finals[index]   = simOut[index];
+		}
+		
+		steps++;
+	}
+	
+	void setRunTimeNanos(long runTimeNanos) { this.runTimeNanos = runTimeNanos; }
+	
+	void setError(String error) { this.error = error; }
+
+	public DispersedCase getDispersedCase() { return dispersedCase; }
+	
+	public int getCaseNumber() { return dispersedCase.getCaseNumber(); }
+	
+	public double getMinimum(SimOuts simOut) { return minimums[simOut.ordinal()]; }
+	
+	public double getMaximum(SimOuts simOut) { return maximums[simOut.ordinal()]; }
+	
+	public double getFinal(SimOuts simOut) { return finals[simOut.ordinal()]; }
+	
+	/**
+	 * @return values of all {@link SimOuts} at the final step of the case
+	 */
+	public Map<SimOuts, Double> getFinals() {
+		Map<SimOuts, Double> finalMap = new EnumMap<>(SimOuts.class);
+		
+		for (SimOuts simOut : SIM_OUTS)
+			finalMap.put(simOut, finals[simOut.ordinal()]);
+		
+		return finalMap;
+	}
+	
+	public int getSteps() { return steps; }
+	
+	public double getRunTimeMS() { return runTimeNanos / 1e6; }
+	
+	/**
+	 * @return if the case threw an exception, or its states diverged to NaN
+	 */
+	public boolean isFailed() { return error != null || Double.isNaN(getFinal(SimOuts.U)) || Double.isNaN(getFinal(SimOuts.ALT)); }
+	
+	/**
+	 * @return the exception that stopped the case, or null if none was thrown
+	 */
+	public String getError() { return error; }
+	
+	@Override
+	public String toString() {
+		return String.format("%s -> %s: %d steps, altitude %.0f to %.0f ft, max bank %.1f deg, max alpha %.1f deg, load factor %.2f to %.2f g", 
+							 dispersedCase, isFailed() ? "FAILED" : "OK", steps, getMinimum(SimOuts.ALT), getMaximum(SimOuts.ALT),
+							 Math.toDegrees(Math.max(-getMinimum(SimOuts.PHI), getMaximum(SimOuts.PHI))), 
+							 Math.toDegrees(getMaximum(SimOuts.ALPHA)), getMinimum(SimOuts.AN_Z), getMaximum(SimOuts.AN_Z));
+	}
+}
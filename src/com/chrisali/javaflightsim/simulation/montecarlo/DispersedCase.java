@@ -0,0 +1,94 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.montecarlo;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+import com.chrisali.javaflightsim.simulation.setup.InitialConditions;
+
+/**
+ * Holds the dispersed inputs of a single Monte Carlo case generated by {@link MonteCarloRunner}. Every value is drawn from the 
+ * case's own random stream, so a case can be regenerated from its case number and the seed of its {@link MonteCarloConfiguration} alone
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class DispersedCase {
+	
+	private final int caseNumber;
+	private final Map<InitialConditions, Double> initialConditions;
+	private final double fuelWeightPercent;
+	private final double payloadWeightPercent;
+	private final double windSpeed;
+	private final double windDir;
+	private final double temperature;
+	private final int[] inputTimingOffsetsMS;
+	
+	DispersedCase(int caseNumber, EnumMap<InitialConditions, Double> initialConditions, double fuelWeightPercent, double payloadWeightPercent,
+				  double windSpeed, double windDir, double temperature, int[] inputTimingOffsetsMS) {
+		this.caseNumber = caseNumber;
+		this.initialConditions = Collections.unmodifiableMap(initialConditions);
+		this.fuelWeightPercent = fuelWeightPercent;
+		this.payloadWeightPercent = payloadWeightPercent;
+		this.windSpeed = windSpeed;
+		this.windDir = windDir;
+		this.temperature = temperature;
+		this.inputTimingOffsetsMS = inputTimingOffsetsMS;
+	}
+
+	public int getCaseNumber() { return caseNumber; }
+
+	/**
+	 * @return all initial conditions of the case, dispersed or not
+	 */
+	public Map<InitialConditions, Double> getInitialConditions() { return initialConditions; }
+
+	public double getFuelWeightPercent() { return fuelWeightPercent; }
+
+	public double getPayloadWeightPercent() { return payloadWeightPercent; }
+
+	/**
+	 * @return wind speed (kts)
+	 */
+	public double getWindSpeed() { return windSpeed; }
+
+	/**
+	 * @return wind direction (deg)
+	 */
+	public double getWindDir() { return windDir; }
+
+	/**
+	 * @return sea level temperature (deg C)
+	 */
+	public double getTemperature() { return temperature; }
+
+	/**
+	 * @return offset (ms) added to the start time of each analysis control input, in the order they are listed
+	 */
+	public int[] getInputTimingOffsetsMS() { return inputTimingOffsetsMS.clone(); }
+	
+	@Override
+	public String toString() {
+		return String.format("Case %d: fuel %.3f, payload %.3f, wind %.1f kts at %.0f deg, temperature %.1f C", 
+							 caseNumber, fuelWeightPercent, payloadWeightPercent, windSpeed, windDir, temperature);
+	}
+}
@@ -0,0 +1,142 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.montecarlo;
+
+import java.util.EnumMap;
+
+import com.chrisali.javaflightsim.simulation.aircraft.Aircraft;
+import com.chrisali.javaflightsim.simulation.flightcontrols.analysis.AnalysisControls;
+import com.chrisali.javaflightsim.simulation.setup.InitialConditions;
+
+/**
+ * Configures a Monte Carlo dispersion run of {@link MonteCarloRunner}: the number of cases to run, the seed that makes them 
+ * reproducible, and how far each dispersed quantity may vary from the base simulation configuration. Initial conditions are 
+ * dispersed normally with the standard deviations given, in the same units as {@link InitialConditions}; weights, wind and 
+ * temperature are dispersed uniformly between the minimum and maximum given; the start time of each of the {@link AnalysisControls} 
+ * inputs is dispersed normally
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class MonteCarloConfiguration {
+	
+	private int cases = 100;
+	private long seed = 0;
+	
+	private EnumMap<InitialConditions, Double> initialConditionSigmas = new EnumMap<>(InitialConditions.class);
+	
+	private double minFuelWeightPercent = 0.5;
+	private double maxFuelWeightPercent = 1.0;
+	private double minPayloadWeightPercent = 0.0;
+	private double maxPayloadWeightPercent = 1.0;
+	
+	private double minWindSpeed = 0.0;
+	private double maxWindSpeed = 20.0;
+	private double minWindDir = 0.0;
+	private double maxWindDir = 360.0;
+	private double minTemperature = 0.0;
+	private double maxTemperature = 30.0;
+	
+	private double inputTimingSigmaMS = 250.0;
+	
+	public MonteCarloConfiguration() {
+		initialConditionSigmas.put(InitialConditions.INITU, 	 5.0);
+		initialConditionSigmas.put(InitialConditions.INITD, 	 250.0);
+		initialConditionSigmas.put(InitialConditions.INITTHETA, 0.01);
+		initialConditionSigmas.put(InitialConditions.INITPSI,   0.1);
+	}
+
+	public int getCases() { return cases; }
+
+	public void setCases(int cases) { this.cases = cases; }
+
+	public long getSeed() { return seed; }
+
+	public void setSeed(long seed) { this.seed = seed; }
+
+	/**
+	 * @return standard deviations of normally dispersed initial conditions; those not in the map are not dispersed
+	 */
+	public EnumMap<InitialConditions, Double> getInitialConditionSigmas() { return initialConditionSigmas; }
+
+	public void setInitialConditionSigmas(EnumMap<InitialConditions, Double> initialConditionSigmas) { this.initialConditionSigmas = initialConditionSigmas; }
+
+	/**
+	 * @return minimum fuel weight percentage (0.0 - 1.0) passed to {@link Aircraft#updateWeightPercentages(double, double)}
+	 */
+	public double getMinFuelWeightPercent() { return minFuelWeightPercent; }
+
+	public void setMinFuelWeightPercent(double minFuelWeightPercent) { this.minFuelWeightPercent = minFuelWeightPercent; }
+
+	public double getMaxFuelWeightPercent() { return maxFuelWeightPercent; }
+
+	public void setMaxFuelWeightPercent(double maxFuelWeightPercent) { this.maxFuelWeightPercent = maxFuelWeightPercent; }
+
+	/**
+	 * @return minimum payload weight percentage (0.0 - 1.0) passed to {@link Aircraft#updateWeightPercentages(double, double)}
+	 */
+	public double getMinPayloadWeightPercent() { return minPayloadWeightPercent; }
+
+	public void setMinPayloadWeightPercent(double minPayloadWeightPercent) { this.minPayloadWeightPercent = minPayloadWeightPercent; }
+
+	public double getMaxPayloadWeightPercent() { return maxPayloadWeightPercent; }
+
+	public void setMaxPayloadWeightPercent(double maxPayloadWeightPercent) { this.maxPayloadWeightPercent = maxPayloadWeightPercent; }
+
+	/**
+	 * @return minimum wind speed (kts)
+	 */
+	public double getMinWindSpeed() { return minWindSpeed; }
+
+	public void setMinWindSpeed(double minWindSpeed) { this.minWindSpeed = minWindSpeed; }
+
+	public double getMaxWindSpeed() { return maxWindSpeed; }
+
+	public void setMaxWindSpeed(double maxWindSpeed) { this.maxWindSpeed = maxWindSpeed; }
+
+	/**
+	 * @return minimum wind direction (deg)
+	 */
+	public double getMinWindDir() { return minWindDir; }
+
+	public void setMinWindDir(double minWindDir) { this.minWindDir = minWindDir; }
+
+	public double getMaxWindDir() { return maxWindDir; }
+
+	public void setMaxWindDir(double maxWindDir) { this.maxWindDir = maxWindDir; }
+
+	/**
+	 * @return minimum sea level temperature (deg C)
+	 */
+	public double getMinTemperature() { return minTemperature; }
+
+	public void setMinTemperature(double minTemperature) { this.minTemperature = minTemperature; }
+
+	public double getMaxTemperature() { return maxTemperature; }
+
+	public void setMaxTemperature(double maxTemperature) { this.maxTemperature = maxTemperature; }
+
+	/**
+	 * @return standard deviation of the start time (ms) of each {@link AnalysisControls} input
+	 */
+	public double getInputTimingSigmaMS() { return inputTimingSigmaMS; }
+
+	public void setInputTimingSigmaMS(double inputTimingSigmaMS) { this.inputTimingSigmaMS = inputTimingSigmaMS; }
+}
@@ -0,0 +1,283 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.montecarlo;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.chrisali.javaflightsim.simulation.RateGroupScheduler;
+import com.chrisali.javaflightsim.simulation.SimulationContext;
+import com.chrisali.javaflightsim.simulation.SimulationRunner;
+import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControlsStateManager;
+import com.chrisali.javaflightsim.simulation.flightcontrols.analysis.AnalysisControlInput;
+import com.chrisali.javaflightsim.simulation.flightcontrols.analysis.AnalysisControls;
+import com.chrisali.javaflightsim.simulation.integration.Integrate6DOFEquations;
+import com.chrisali.javaflightsim.simulation.integration.SimOuts;
+import com.chrisali.javaflightsim.simulation.setup.InitialConditions;
+import com.chrisali.javaflightsim.simulation.setup.IntegratorConfig;
+import com.chrisali.javaflightsim.simulation.setup.Options;
+import com.chrisali.javaflightsim.simulation.setup.SimulationConfiguration;
+import com.chrisali.javaflightsim.simulation.utilities.FileUtilities;
+
+/**
+ * Runs Monte Carlo dispersions of a base {@link SimulationConfiguration} headlessly, fanning cases out over an {@link ExecutorService}. 
+ * Each case is dispersed as set in a {@link MonteCarloConfiguration}, then flown in Analysis Mode in its own {@link SimulationContext} 
+ * as fast as its thread allows. 
+ * 
+ * <p>Each case draws its dispersions from its own {@link SplittableRandom}, split in case order from a root stream seeded by 
+ * {@link MonteCarloConfiguration#getSeed()}, so the dispersions of every case, and therefore its outcome, are the same no matter 
+ * how many threads run the cases or in which order they finish. Simulations are run with {@link Options#NO_LOGGING} and each 
+ * step is folded into a {@link CaseSummary}, which is streamed to a consumer on the calling thread as its case completes</p>
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class MonteCarloRunner {
+	
+	private static final Logger logger = LogManager.getLogger(MonteCarloRunner.class);
+	private static final int TO_MILLISEC = 1000;
+	
+	private final SimulationConfiguration baseConfiguration;
+	private final MonteCarloConfiguration monteCarloConfiguration;
+	private final int analysisInputCount;
+	
+	private ExecutorService executor;
+	
+	/**
+	 * Creates a runner that disperses cases about baseConfiguration, which is copied for each case and never changed
+	 * 
+	 * @param baseConfiguration
+	 * @param monteCarloConfiguration
+	 */
+	public MonteCarloRunner(SimulationConfiguration baseConfiguration, MonteCarloConfiguration monteCarloConfiguration) {
+		this.baseConfiguration = baseConfiguration;
+		this.monteCarloConfiguration = monteCarloConfiguration;
+		
+		AnalysisControls analysisControls = FileUtilities.readAnalysisControls();
+		analysisInputCount = (analysisControls != null) ? analysisControls.getAnalysisInputs().size() : 0;
+	}
+	
+	/**
+	 * Sets the executor used to run cases. It is not shut down by this runner; if none is set, a {@link ForkJoinPool} 
+	 * using all available processors is created and shut down for each call of {@link MonteCarloRunner#run(Consumer)}
+	 * 
+	 * @param executor
+	 */
+	public void setExecutor(ExecutorService executor) { this.executor = executor; }
+	
+	/**
+	 * Runs all cases, passing the {@link CaseSummary} of each to summaryConsumer on the calling thread in the order the 
+	 * cases complete
+	 * 
+	 * @param summaryConsumer
+	 * @throws InterruptedException if interrupted while waiting for cases to complete
+	 */
+	public void run(Consumer<CaseSummary> summaryConsumer) throws InterruptedException {
+		ExecutorService service = (executor != null) ? executor : new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+		CompletionService<CaseSummary> completionService = new ExecutorCompletionService<>(service);
+		int cases = monteCarloConfiguration.getCases();
+		
+		logger.debug("Running " + cases + " Monte Carlo cases...");
+		
+		try {
+			SplittableRandom root = new SplittableRandom(monteCarloConfiguration.getSeed());
+			for (int caseNumber = 0; caseNumber < cases; caseNumber++) {
+				DispersedCase dispersedCase = disperse(caseNumber, root.split());
+				completionService.submit(() -> runCase(dispersedCase));
+			}
+			
+			for (int completed = 0; completed < cases; completed++) {
+				try {
+					summaryConsumer.accept(completionService.take().get());
+				} catch (ExecutionException e) {
+					logger.error("Monte Carlo case could not be completed!", e.getCause());
+				}
+			}
+		} finally {
+			if (executor == null)
+				service.shutdownNow();
+		}
+	}
+	
+	/**
+	 * @return dispersions of all cases, in case order
+	 */
+	public List<DispersedCase> generateCases() {
+		List<DispersedCase> dispersedCases = new ArrayList<>(monteCarloConfiguration.getCases());
+		SplittableRandom root = new SplittableRandom(monteCarloConfiguration.getSeed());
+		
+		for (int caseNumber = 0; caseNumber < monteCarloConfiguration.getCases(); caseNumber++)
+			dispersedCases.add(disperse(caseNumber, root.split()));
+		
+		return dispersedCases;
+	}
+	
+	/**
+	 * Regenerates the dispersions of a single case, so that it can be rerun on its own with {@link MonteCarloRunner#runCase(DispersedCase)}
+	 * 
+	 * @param caseNumber
+	 * @return dispersions of the case
+	 */
+	public DispersedCase generateCase(int caseNumber) {
+		SplittableRandom root = new SplittableRandom(monteCarloConfiguration.getSeed());
+		
+		// Streams are split in case order, so every earlier case's split must be made to reach this one
+		for (int skipped = 0; skipped < caseNumber; skipped++)
+			root.split();
+		
+		return disperse(caseNumber, root.split());
+	}
+	
+	/**
+	 * Flies a single dispersed case from start to end time on the calling thread, in the same manner as {@link SimulationRunner} 
+	 * runs Analysis Mode but without pausing between steps
+	 * 
+	 * @param dispersedCase
+	 * @return summary of the case
+	 */
+	public CaseSummary runCase(DispersedCase dispersedCase) {
+		CaseSummary summary = new CaseSummary(dispersedCase);
+		long startTime = System.nanoTime();
+		
+		try {
+			SimulationConfiguration configuration = new SimulationConfiguration(baseConfiguration);
+			configuration.updateOptions(EnumSet.of(Options.ANALYSIS_MODE, Options.NO_LOGGING));
+			configuration.getInitialConditions().putAll(dispersedCase.getInitialConditions());
+			
+			SimulationContext context = new SimulationContext(configuration);
+			context.getAircraft().updateWeightPercentages(dispersedCase.getFuelWeightPercent(), dispersedCase.getPayloadWeightPercent());
+			offsetInputTiming(context.getAnalysisControls(), dispersedCase.getInputTimingOffsetsMS());
+			
+			Map<IntegratorConfig, Double> integratorConfig = configuration.getIntegratorConfig();
+			int startTimeMS = integratorConfig.get(IntegratorConfig.STARTTIME).intValue() * TO_MILLISEC;
+			int endTimeMS = integratorConfig.get(IntegratorConfig.ENDTIME).intValue() * TO_MILLISEC;
+			double dt = integratorConfig.get(IntegratorConfig.DT);
+			AtomicInteger timeMS = new AtomicInteger(startTimeMS);
+			
+			FlightControlsStateManager flightControlsManager = new FlightControlsStateManager(context, timeMS);
+			Integrate6DOFEquations simulation = new Integrate6DOFEquations(flightControlsManager.getControlsState(), context);
+			simulation.setWeather(dispersedCase.getWindSpeed(), dispersedCase.getWindDir(), dispersedCase.getTemperature());
+			
+			RateGroupScheduler rateGroups = new RateGroupScheduler(dt);
+			rateGroups.add(flightControlsManager);
+			rateGroups.add(simulation);
+			
+			double[] simOut = new double[SimOuts.values().length];
+			
+			for (long frame = 0; timeMS.get() < endTimeMS; frame++) {
+				rateGroups.step(frame);
+				
+				if (simulation.getSimOutBuffer().read(simOut) > 0)
+					summary.update(simOut);
+				
+				timeMS.set(startTimeMS + (int) Math.round((frame + 1) * dt * TO_MILLISEC));
+			}
+		} catch (Exception e) {
+			logger.error("Monte Carlo case " + dispersedCase.getCaseNumber() + " encountered an error!", e);
+			summary.setError(e.toString());
+		}
+		
+		summary.setRunTimeNanos(System.nanoTime() - startTime);
+		
+		return summary;
+	}
+	
+	/**
+	 * Draws all dispersions of a case from its random stream. Values are always drawn in the same order, so that a case's 
+	 * dispersions depend only on its stream and the {@link MonteCarloConfiguration}
+	 * 
+	 * @param caseNumber
+	 * @param random stream belonging to this case only
+	 * @return dispersions of the case
+	 */
+	private DispersedCase disperse(int caseNumber, SplittableRandom random) {
+		MonteCarloConfiguration mc = monteCarloConfiguration;
+		
+		EnumMap<InitialConditions, Double> initialConditions = new EnumMap<>(baseConfiguration.getInitialConditions());
+		for (Map.Entry<InitialConditions, Double> sigma : mc.getInitialConditionSigmas().entrySet())
+			initialConditions.merge(sigma.getKey(), sigma.getValue() * nextGaussian(random), Double::sum);
+		
+		double fuelWeightPercent    = uniform(random, mc.getMinFuelWeightPercent(), mc.getMaxFuelWeightPercent());
+		double payloadWeightPercent = uniform(random, mc.getMinPayloadWeightPercent(), mc.getMaxPayloadWeightPercent());
+		double windSpeed 			= uniform(random, mc.getMinWindSpeed(), mc.getMaxWindSpeed());
+		double windDir 				= uniform(random, mc.getMinWindDir(), mc.getMaxWindDir());
+		double temperature 			= uniform(random, mc.getMinTemperature(), mc.getMaxTemperature());
+		
+		int[] inputTimingOffsetsMS = new int[analysisInputCount];
+		for (int i = 0; i < analysisInputCount; i++)
+			inputTimingOffsetsMS[i] = (int) Math.round(mc.getInputTimingSigmaMS() * nextGaussian(random));
+		
+		return new DispersedCase(caseNumber, initialConditions, fuelWeightPercent, payloadWeightPercent, 
+								 windSpeed, windDir, temperature, inputTimingOffsetsMS);
+	}
+	
+	/**
+	 * Shifts the start time of each input in analysisControls by its offset, keeping it from starting before the simulation
+	 * 
+	 * @param analysisControls
+	 * @param inputTimingOffsetsMS
+	 */
+	private static void offsetInputTiming(AnalysisControls analysisControls, int[] inputTimingOffsetsMS) {
+		if (analysisControls == null)
+			return;
+		
+		List<AnalysisControlInput> inputs = analysisControls.getAnalysisInputs();
+		for (int i = 0; i < Math.min(inputs.size(), inputTimingOffsetsMS.length); i++) {
+			AnalysisControlInput input = inputs.get(i);
+			input.setStartTimeMS(Math.max(0, input.getStartTimeMS() + inputTimingOffsetsMS[i]));
+		}
+	}
+	
+	private static double uniform(SplittableRandom random, double min, double max) {
+		return min + (max - min) * random.nextDouble();
+	}
+	
+	/**
+	 * Draws a normally distributed value with mean 0 and standard deviation 1 using the Marsaglia polar method, as 
+	 * {@link SplittableRandom} does not provide one
+	 * 
+	 * @param random
+	 * @return normally distributed value
+	 */
+	private static double nextGaussian(SplittableRandom random) {
+		double v1, v2, s;
+		do {
+			v1 = 2 * random.nextDouble() - 1;
+			v2 = 2 * random.nextDouble() - 1;
+			s = v1 * v1 + v2 * v2;
+		} while (s >= 1 || s == 0);
+		
+		return v1 * Math.sqrt(-2 * Math.log(s) / s);
+	}
+}
@@ -20,13 +20,11 @@
 package com.chrisali.javaflightsim.simulation.propulsion;
 
 import java.util.Arrays;
-import java.util.EnumMap;
-import java.util.Map;
 
-import org.apache.commons.math3.geometry.euclidean.threed.Vector3D;
-
-import com.chrisali.javaflightsim.simulation.enviroment.EnvironmentParameters;
+import com.chrisali.javaflightsim.simulation.enviroment.AtmosphereState;
 import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControl;
+import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControlsSnapshot;
+import com.chrisali.javaflightsim.simulation.utilities.Dual;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 
@@ -47,6 +45,12 @@ public abstract class Engine {
 	@JsonIgnore
 	final static protected double HP_2_FTLBS = 550;
 	
+	// Controls of each engine, by engine number
+	private static final FlightControl[] THROTTLES = {FlightControl.THROTTLE_1, FlightControl.THROTTLE_2, 
+													  FlightControl.THROTTLE_3, FlightControl.THROTTLE_4};
+	private static final FlightControl[] MIXTURES  = {FlightControl.MIXTURE_1, FlightControl.MIXTURE_2, 
+													  FlightControl.MIXTURE_3, FlightControl.MIXTURE_4};
+	
 	protected double maxBHP;            //BHP at standard sea level
 	protected double maxRPM;			//rev/min
 	protected double propDiameter;		//ft
@@ -70,7 +74,7 @@ public abstract class Engine {
 	@JsonIgnore
 	protected double[] engineThrust   = {0, 0, 0};	// {T_x,T_y,T_z}	    (lbf)			
 	@JsonIgnore
-	protected double[] engineMoment;				// {M_x,M_y,M_z}        (lbf)
+	protected double[] engineMoment   = {0, 0, 0};	// {M_x,M_y,M_z}        (lbf)
 		
 	//TODO need engine model properties (etaP, advance ratio, bhp curves) for lookup tables
 	//TODO etaP needs to vary
@@ -79,22 +83,69 @@ public abstract class Engine {
 	 * Calculates all parameters of the engine given the input parameters specified below
 	 * 
 	 * @param controls
-	 * @param environmentParameters
+	 * @param atmosphereState
 	 * @param windParameters
 	 */
-	public abstract void updateEngineState(Map<FlightControl, Double> controls,				
-										   Map<EnvironmentParameters, Double> environmentParameters,
+	public abstract void updateEngineState(FlightControlsSnapshot controls,				
+										   AtmosphereState atmosphereState,
 										   double[] windParameters);
 	
+	/**
+	 * Calculates the thrust and moment of the engine with the same model as {@link Engine#updateEngineState}, along with their 
+	 * derivatives, without changing the state of the engine
+	 * 
+	 * @param controls value of each flight control, indexed by {@link com.chrisali.javaflightsim.simulation.flightcontrols.FlightControl} ordinal
+	 * @param density (slug/ft^3)
+	 * @param windParameters {vTrue,beta,alpha}
+	 * @param thrust array to write {T_x,T_y,T_z} (lbf) into
+	 * @param moment array to write {M_x,M_y,M_z} (lb ft) into
+	 */
+	public abstract void calculateThrustAndMoment(Dual[] controls,
+												  Dual density,
+												  Dual[] windParameters,
+												  Dual[] thrust,
+												  Dual[] moment);
+	
 	/**
 	 * Calculates the moment generated by the engine as a function of its thrust and location
-	 * relative to the aircraft's center of gravity. Used in {@link Engine#updateEngineState(EnumMap, EnumMap, double[])}
+	 * relative to the aircraft's center of gravity (thrust x position). Used in {@link Engine#updateEngineState(FlightControlsSnapshot, AtmosphereState, double[])}
 	 */
 	protected void calculateEngMoments() {
-		Vector3D forceVector = new Vector3D(engineThrust);
-		Vector3D armVector   = new Vector3D(enginePosition);
+		engineMoment[0] = engineThrust[1]*enginePosition[2] - engineThrust[2]*enginePosition[1];
+		engineMoment[1] = engineThrust[2]*enginePosition[0] - engineThrust[0]*enginePosition[2];
+		engineMoment[2] = engineThrust[0]*enginePosition[1] - engineThrust[1]*enginePosition[0];
+	}
+	
+	/**
+	 * Calculates the moment generated by the engine as {@link Engine#calculateEngMoments()} does, carrying the derivatives of thrust 
+	 * into the moment. Used in {@link Engine#calculateThrustAndMoment(Dual[], Dual, Dual[], Dual[], Dual[])}
+	 * 
+	 * @param thrust {T_x,T_y,T_z} (lbf)
+	 * @param moment array to write {M_x,M_y,M_z} (lb ft) into
+	 */
+	protected void calculateEngMoments(Dual[] thrust, Dual[] moment) {
+		moment[0] = thrust[1].multiply(enginePosition[2]).subtract(thrust[2].multiply(enginePosition[1]));
+		moment[1] = thrust[2].multiply(enginePosition[0]).subtract(thrust[0].multiply(enginePosition[2]));
+		moment[2] = thrust[0].multiply(enginePosition[1]).subtract(thrust[1].multiply(enginePosition[0]));
+	}
+	
+	/**
+	 * @return throttle of this engine, according to its engine number
+	 * @throws IllegalStateException if the engine number is not between 1 and 4
+	 */
+	public FlightControl throttleControl() { return THROTTLES[engineIndex()]; }
+	
+	/**
+	 * @return mixture of this engine, according to its engine number
+	 * @throws IllegalStateException if the engine number is not between 1 and 4
+	 */
+	public FlightControl mixtureControl() { return MIXTURES[engineIndex()]; }
+	
+	private int engineIndex() {
+		if (engineNumber < 1 || engineNumber > THROTTLES.length)
+			throw new IllegalStateException("Engine number must be between 1 and " + THROTTLES.length + ", but was " + engineNumber);
 		
-		this.engineMoment = Vector3D.crossProduct(forceVector, armVector).toArray();
+		return engineNumber - 1;
 	}
 	
 	/**
@@ -20,16 +20,17 @@
 package com.chrisali.javaflightsim.simulation.propulsion;
 
 import java.util.Arrays;
-import java.util.Map;
 
-import com.chrisali.javaflightsim.simulation.enviroment.EnvironmentParameters;
-import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControl;
+import com.chrisali.javaflightsim.simulation.enviroment.AtmosphereState;
+import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControlsSnapshot;
 import com.chrisali.javaflightsim.simulation.integration.Integrate6DOFEquations;
+import com.chrisali.javaflightsim.simulation.utilities.Dual;
 
 /**
  * Simple piston engine model with a fixed pitch propeller
  */
 public class FixedPitchPropEngine extends Engine {
+	
 	private double throttle;
 	private double mixture;
 	
@@ -77,30 +78,14 @@ public class FixedPitchPropEngine extends Engine {
 	/**
 	 * Updates all fields of engine; called by {@link Integrate6DOFEquations} to recalculate thrust, moment, fuel flow and RPM for this engine
 	 */
-	public void updateEngineState(Map<FlightControl, Double> controls,				
-								  Map<EnvironmentParameters, Double> environmentParameters,
+	public void updateEngineState(FlightControlsSnapshot controls,				
+								  AtmosphereState atmosphereState,
 								  double[] windParameters) {		//{vTrue,beta,alpha}
 		// Assign engine controls depending on engine number specified
-		switch (engineNumber) {
-			case 1:
-				mixture  = controls.get(FlightControl.MIXTURE_1);
-				throttle = controls.get(FlightControl.THROTTLE_1);
-				break;
-			case 2:
-				mixture  = controls.get(FlightControl.MIXTURE_2);
-				throttle = controls.get(FlightControl.THROTTLE_2);
-				break;
-			case 3:
-				mixture  = controls.get(FlightControl.MIXTURE_3);
-				throttle = controls.get(FlightControl.THROTTLE_3);
-				break;
-			case 4:
-				mixture  = controls.get(FlightControl.MIXTURE_4);
-				throttle = controls.get(FlightControl.THROTTLE_4);
-				break;
-		}
+		mixture  = controls.get(mixtureControl());
+		throttle = controls.get(throttleControl());
 		
-		calculateThrust(environmentParameters, windParameters);
+		calculateThrust(atmosphereState, windParameters);
 		
 		calculateEngMoments();
 		
@@ -113,18 +98,37 @@ public class FixedPitchPropEngine extends Engine {
 	/**
 	 * Calculates thrust of the engine
 	 * 
-	 * @param environmentParameters
+	 * @param atmosphereState
 	 * @param windParameters
 	 * 
 	 * @return Double array vector of engine force (lbf)
 	 */
-	private void calculateThrust(Map<EnvironmentParameters, Double> environmentParameters, 
+	private void calculateThrust(AtmosphereState atmosphereState, 
 								 double[] windParameters) {		 
 		// Consider static thrust case at low speeds
 		if (windParameters[0] <= 65)
-			this.engineThrust[0] = Math.pow((throttle*maxBHP*HP_2_FTLBS), 0.6667)*Math.pow((2*environmentParameters.get(EnvironmentParameters.RHO)*propArea), 0.3333);			
+			this.engineThrust[0] = Math.pow((throttle*maxBHP*HP_2_FTLBS), 0.6667)*Math.pow((2*atmosphereState.getDensity()*propArea), 0.3333);			
 		else
-			this.engineThrust[0] = (throttle*maxBHP*HP_2_FTLBS)*((A_P*environmentParameters.get(EnvironmentParameters.RHO)/RHO_SSL)-B_P)*(propEfficiency/windParameters[0]);
+			this.engineThrust[0] = (throttle*maxBHP*HP_2_FTLBS)*((A_P*atmosphereState.getDensity()/RHO_SSL)-B_P)*(propEfficiency/windParameters[0]);
+	}
+	
+	@Override
+	public void calculateThrustAndMoment(Dual[] controls,
+										 Dual density,
+										 Dual[] windParameters,
+										 Dual[] thrust,
+										 Dual[] moment) {
+		Dual power = controls[throttleControl().ordinal()].multiply(maxBHP*HP_2_FTLBS);
+		
+		// Consider static thrust case at low speeds
+		if (windParameters[0].getValue() <= 65)
+			thrust[0] = power.pow(0.6667).multiply(density.multiply(2*propArea).pow(0.3333));
+		else
+			thrust[0] = power.multiply(density.multiply(A_P/RHO_SSL).subtract(B_P)).multiply(windParameters[0].reciprocal(propEfficiency));
+		
+		thrust[1] = thrust[2] = Dual.constant(0.0, density.getVariables());
+		
+		calculateEngMoments(thrust, moment);
 	}
 	
 	/**
@@ -0,0 +1,342 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.recording;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.chrisali.javaflightsim.interfaces.Steppable;
+import com.chrisali.javaflightsim.simulation.RateGroup;
+import com.chrisali.javaflightsim.simulation.integration.Integrate6DOFEquations;
+import com.chrisali.javaflightsim.simulation.integration.SimOuts;
+
+/**
+ * Records every step of {@link SimOuts} published by {@link Integrate6DOFEquations} to disk, so that flights of any length can be 
+ * kept in full at the simulation rate without growing the heap. Steps are appended into preallocated segment files mapped into memory 
+ * with NIO. Appending a step copies its values straight into the mapped file, and the operating system writes them out in the background. 
+ * The next segment is created and mapped on a background thread while the current one fills, and a full segment is forced to disk on 
+ * that thread as well, so that the simulation thread only switches buffers when a segment rolls over.
+ * 
+ * <p>Each segment, named &lt;name&gt;-&lt;segment number&gt;.jfsr, starts with a header of little-endian ints:</p>
+ * <ol>
+ * <li>{@link FlightRecorder#MAGIC}</li>
+ * <li>{@link FlightRecorder#VERSION}</li>
+ * <li>byte offset of the first step</li>
+ * <li>number of channels</li>
+ * <li>number of steps the segment can hold</li>
+ * <li>segment number</li>
+ * <li>number of steps written, updated after each step so that a segment is readable even if recording stops abruptly</li>
+ * </ol>
+ * <p>followed by the name of each channel ({@link SimOuts#name()}) as a short length and UTF-8 bytes. Steps follow, each holding one 
+ * little-endian double per channel in the order named. {@link FlightRecording} reads recordings back</p>
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class FlightRecorder implements Steppable {
+	
+	private static final Logger logger = LogManager.getLogger(FlightRecorder.class);
+	
+	static final int MAGIC   = 0x4A465352; // "JFSR"
+	static final int VERSION = 1;
+	static final String EXTENSION = ".jfsr";
+	
+	// Byte offsets of header fields
+	static final int DATA_OFFSET_POSITION   = 8;
+	static final int CHANNELS_POSITION 		= 12;
+	static final int CAPACITY_POSITION 		= 16;
+	static final int SEGMENT_POSITION 		= 20;
+	static final int STEPS_POSITION 		= 24;
+	static final int NAMES_POSITION 		= 28;
+	
+	// Ten minutes of steps at 120 Hz
+	public static final int DEFAULT_SEGMENT_STEPS = 72_000;
+	
+	private static final SimOuts[] SIM_OUTS = SimOuts.values();
+	
+	// Segments are prepared and retired one at a time on a daemon thread, so that it never keeps the application open
+	private static final ExecutorService segmentExecutor = Executors.newSingleThreadExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "Flight Recorder");
+		thread.setDaemon(true);
+		return thread;
+	});
+	
+	private final Integrate6DOFEquations simulation;
+	private final File directory;
+	private final String name;
+	private final int segmentSteps;
+	
+	private final byte[][] channelNames = new byte[SIM_OUTS.length][];
+	private final int dataOffset;
+	
+	private MappedByteBuffer segment;
+	private DoubleBuffer segmentData;
+	private int segmentNumber = -1;
+	private int segmentStepsWritten;
+	private Future<MappedByteBuffer> nextSegment;
+	
+	private double[] simOut = new double[SIM_OUTS.length];
+	private long lastVersion = 0;
+	private long stepsRecorded = 0;
+	private boolean closed = false;
+	
+	/**
+	 * Creates a recorder of simulation's output, whose segments hold {@link FlightRecorder#DEFAULT_SEGMENT_STEPS} steps
+	 * 
+	 * @param simulation
+	 * @param directory directory segment files are written to, created if needed
+	 * @param name name that segment files start with
+	 * @throws IOException if the first segment could not be created
+	 */
+	public FlightRecorder(Integrate6DOFEquations simulation, File directory, String name) throws IOException {
+		this(simulation, directory, name, DEFAULT_SEGMENT_STEPS);
+	}
+	
+	/**
+	 * Creates a recorder of simulation's output
+	 * 
+	 * @param simulation
+	 * @param directory directory segment files are written to, created if needed
+	 * @param name name that segment files start with
+	 * @param segmentSteps number of steps each segment file holds
+	 * @throws IOException if the first segment could not be created
+	 */
+	public FlightRecorder(Integrate6DOFEquations simulation, File directory, String name, int segmentSteps) throws IOException {
+		if (segmentSteps < 1)
+			throw new IllegalArgumentException("Segments must hold at least one step!");
+		
+		this.simulation = simulation;
+		this.directory = directory;
+		this.name = name;
+		this.segmentSteps = segmentSteps;
+		
+		int namesLength = 0;
+		for (SimOuts simOut : SIM_OUTS) {
+			channelNames[simOut.ordinal()] = simOut.name().getBytes(StandardCharsets.UTF_8);
+			namesLength += Short.BYTES + channelNames[simOut.ordinal()].length;
+		}
+		
+		// Align steps to doubles
+		dataOffset = (NAMES_POSITION + namesLength + Double.BYTES - 1) / Double.BYTES * Double.BYTES;
+		
+		if (!directory.isDirectory() && !directory.mkdirs())
+			throw new IOException("Unable to create recording directory: " + directory.getAbsolutePath());
+		
+		useSegment(createSegment(0));
+		prepareNextSegment();
+	}
+	
+	@Override
+	public RateGroup getRateGroup() {
+		return RateGroup.PHYSICS;
+	}
+
+	/**
+	 * Records the latest step of the simulation, if it has not been recorded already
+	 */
+	@Override
+	public void step() {
+		long version = simulation.getSimOutBuffer().read(simOut);
+		
+		if (closed || version == 0 || version == lastVersion)
+			return;
+		
+		lastVersion = version;
+		
+		try {
+			record(simOut);
+		} catch (IOException e) {
+			logger.error("Unable to record flight data! Recording has stopped.", e);
+			close();
+		}
+	}
+	
+	/**
+	 * Appends a step to the current segment, starting a new one if it is full
+	 * 
+	 * @param values simulation outputs indexed by {@link SimOuts} ordinal
+	 * @throws IOException if a new segment could not be created
+	 */
+	public void record(double[] values) throws IOException {
+		if (closed)
+			throw new IllegalStateException("Recorder is closed!");
+		
+		if (segmentStepsWritten == segmentSteps)
+			nextSegment();
+		
+		segmentData.put(values, 0, SIM_OUTS.length);
+		segment.putInt(STEPS_POSITION, ++segmentStepsWritten);
+		
+		stepsRecorded++;
+	}
+	
+	/**
+	 * Switches to the segment prepared in the background, then has the full segment forced to disk and the one after next prepared
+	 * in the background
+	 * 
+	 * @throws IOException if the next segment could not be created
+	 */
+	private void nextSegment() throws IOException {
+		MappedByteBuffer retired = segment;
+		
+		try {
+			useSegment(nextSegment.get());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for the next flight recording segment");
+		} catch (ExecutionException e) {
+			throw new IOException("Unable to create flight recording segment " + (segmentNumber + 1), e.getCause());
+		}
+		
+		segmentExecutor.execute(retired::force);
+		prepareNextSegment();
+	}
+	
+	/**
+	 * Starts creating the segment after the current one on the background thread
+	 */
+	private void prepareNextSegment() {
+		int number = segmentNumber + 1;
+		nextSegment = segmentExecutor.submit(() -> createSegment(number));
+	}
+	
+	/**
+	 * Makes a newly created segment the one steps are appended to
+	 * 
+	 * @param created
+	 */
+	private void useSegment(MappedByteBuffer created) {
+		segment = created;
+		segmentNumber++;
+		segmentStepsWritten = 0;
+		
+		segment.position(dataOffset);
+		segmentData = segment.slice().order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+	}
+	
+	/**
+	 * Creates, preallocates and maps a segment file, and writes its header
+	 * 
+	 * @param number segment number
+	 * @return segment mapped into memory
+	 * @throws IOException
+	 */
+	private MappedByteBuffer createSegment(int number) throws IOException {
+		File file = getSegmentFile(directory, name, number);
+		long length = dataOffset + (long) segmentSteps * SIM_OUTS.length * Double.BYTES;
+		
+		logger.debug("Creating flight recording segment: " + file.getAbsolutePath());
+		
+		MappedByteBuffer created;
+		
+		// The mapping remains valid after the channel is closed
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw"); FileChannel channel = raf.getChannel()) {
+			raf.setLength(length);
+			created = channel.map(FileChannel.MapMode.READ_WRITE, 0, length);
+		}
+		
+		created.order(ByteOrder.LITTLE_ENDIAN);
+		created.putInt(MAGIC).putInt(VERSION).putInt(dataOffset).putInt(SIM_OUTS.length)
+			   .putInt(segmentSteps).putInt(number).putInt(0);
+		
+		for (byte[] channelName : channelNames)
+			created.putShort((short) channelName.length).put(channelName);
+		
+		return created;
+	}
+	
+	/**
+	 * Waits for the segment being prepared in the background, which no step will be written to, and deletes it
+	 */
+	private void discardNextSegment() {
+		try {
+			nextSegment.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			logger.debug("Unused flight recording segment was not created", e.getCause());
+		}
+		
+		// A segment that cannot be deleted while it is still mapped is read back as holding no steps
+		File file = getSegmentFile(directory, name, segmentNumber + 1);
+		if (file.isFile() && !file.delete())
+			logger.debug("Unable to delete unused flight recording segment: " + file.getAbsolutePath());
+	}
+	
+	/**
+	 * Forces the current segment's contents to be written to disk
+	 */
+	public void flush() {
+		if (segment != null)
+			segment.force();
+	}
+	
+	/**
+	 * Flushes and stops recording; further steps are ignored
+	 */
+	public void close() {
+		if (closed)
+			return;
+		
+		closed = true;
+		discardNextSegment();
+		flush();
+		
+		logger.debug("Flight recording closed after " + stepsRecorded + " steps in " + (segmentNumber + 1) + " segment(s)");
+	}
+	
+	/**
+	 * @return total number of steps recorded in all segments
+	 */
+	public long getStepsRecorded() { return stepsRecorded; }
+	
+	/**
+	 * @return number of segment files created
+	 */
+	public int getSegmentCount() { return segmentNumber + 1; }
+	
+	public File getDirectory() { return directory; }
+	
+	public String getName() { return name; }
+	
+	/**
+	 * @param directory
+	 * @param name
+	 * @param segmentNumber
+	 * @return segment file of a recording
+	 */
+	static File getSegmentFile(File directory, String name, int segmentNumber) {
+		return new File(directory, String.format("%s-%04d%s", name, segmentNumber, EXTENSION));
+	}
+}
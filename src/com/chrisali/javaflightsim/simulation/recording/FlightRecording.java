@@ -0,0 +1,281 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.recording;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.chrisali.javaflightsim.simulation.integration.SimOuts;
+
+/**
+ * Reads back a recording made by {@link FlightRecorder}, mapping each of its segment files read-only, and exports it to a columnar file 
+ * for offline analysis.
+ * 
+ * <p>The columnar file starts with a header of little-endian values: the int {@link FlightRecording#COLUMNAR_MAGIC}, the int 
+ * {@link FlightRecorder#VERSION}, the int byte offset of the first column, the int number of channels and the long number of steps, 
+ * followed by the name of each channel as a short length and UTF-8 bytes. Each channel's column of little-endian doubles then follows 
+ * in the order named, so that a single channel can be loaded in one read, for example with numpy.fromfile</p>
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class FlightRecording {
+	
+	private static final Logger logger = LogManager.getLogger(FlightRecording.class);
+	
+	static final int COLUMNAR_MAGIC = 0x4A465343; // "JFSC"
+	public static final String COLUMNAR_EXTENSION = ".jfsc";
+	
+	// <name>-<segment number>.jfsr, as written by FlightRecorder.getSegmentFile()
+	private static final Pattern SEGMENT_FILE_NAME = Pattern.compile("(.+)-\\d{4,}" + Pattern.quote(FlightRecorder.EXTENSION));
+	
+	private final List<String> channels = new ArrayList<>();
+	private final List<MappedByteBuffer> segments = new ArrayList<>();
+	private final List<Integer> segmentSteps = new ArrayList<>();
+	private final List<Integer> dataOffsets = new ArrayList<>();
+	private long steps = 0;
+	private int segmentCapacity;
+	
+	/**
+	 * Opens every segment of a recording, in order
+	 * 
+	 * @param directory directory the recording was written to
+	 * @param name name the recording's segment files start with
+	 * @throws IOException if no segment could be found, or if a segment is not a recording of the same channels
+	 */
+	public FlightRecording(File directory, String name) throws IOException {
+		for (int segmentNumber = 0; ; segmentNumber++) {
+			File file = FlightRecorder.getSegmentFile(directory, name, segmentNumber);
+			if (!file.isFile())
+				break;
+			
+			openSegment(file);
+		}
+		
+		if (segments.isEmpty())
+			throw new IOException("No flight recording named " + name + " found in " + directory.getAbsolutePath());
+		
+		logger.debug("Opened flight recording " + name + ": " + steps + " steps in " + segments.size() + " segment(s)");
+	}
+	
+	/**
+	 * @param segmentFile any segment file of a recording
+	 * @return name of the recording that segmentFile belongs to, to be opened with {@link FlightRecording#FlightRecording(File, String)}
+	 * @throws IllegalArgumentException if segmentFile is not named as a segment of a recording
+	 */
+	public static String getRecordingName(File segmentFile) {
+		Matcher matcher = SEGMENT_FILE_NAME.matcher(segmentFile.getName());
+		if (!matcher.matches())
+			throw new IllegalArgumentException(segmentFile.getName() + " is not a flight recording segment!");
+		
+		return matcher.group(1);
+	}
+	
+	private void openSegment(File file) throws IOException {
+		MappedByteBuffer segment;
+		try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+			segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		segment.order(ByteOrder.LITTLE_ENDIAN);
+		
+		if (segment.getInt(0) != FlightRecorder.MAGIC || segment.getInt(4) != FlightRecorder.VERSION)
+			throw new IOException(file.getName() + " is not a flight recording segment!");
+		
+		int channelCount = segment.getInt(FlightRecorder.CHANNELS_POSITION);
+		List<String> segmentChannels = new ArrayList<>(channelCount);
+		
+		segment.position(FlightRecorder.NAMES_POSITION);
+		for (int i = 0; i < channelCount; i++) {
+			byte[] channelName = new byte[segment.getShort()];
+			segment.get(channelName);
+			segmentChannels.add(new String(channelName, StandardCharsets.UTF_8));
+		}
+		
+		if (channels.isEmpty()) {
+			channels.addAll(segmentChannels);
+			segmentCapacity = segment.getInt(FlightRecorder.CAPACITY_POSITION);
+		}
+		else if (!channels.equals(segmentChannels))
+			throw new IOException(file.getName() + " does not record the same channels as the segments before it!");
+		
+		int stepsWritten = segment.getInt(FlightRecorder.STEPS_POSITION);
+		
+		segments.add(segment);
+		segmentSteps.add(stepsWritten);
+		dataOffsets.add(segment.getInt(FlightRecorder.DATA_OFFSET_POSITION));
+		steps += stepsWritten;
+	}
+	
+	/**
+	 * @return names of the channels recorded, in recorded order
+	 */
+	public List<String> getChannels() { return Collections.unmodifiableList(channels); }
+	
+	/**
+	 * @return total number of steps recorded
+	 */
+	public long getSteps() { return steps; }
+	
+	/**
+	 * @param channel
+	 * @return index of the channel in recorded order, or -1 if it was not recorded
+	 */
+	public int getChannelIndex(String channel) { return channels.indexOf(channel); }
+	
+	/**
+	 * Reads a single value straight from the mapped segment files
+	 * 
+	 * @param step step of the recording, 0 being the first
+	 * @param channelIndex index of the channel in recorded order
+	 * @return recorded value
+	 */
+	public double get(long step, int channelIndex) {
+		if (step < 0 || step >= steps)
+			throw new IndexOutOfBoundsException("Step: " + step + ", Steps: " + steps);
+		
+		// Every segment but the last is full
+		int segment = (int) (step / segmentCapacity);
+		int row = (int) (step % segmentCapacity);
+		
+		return segments.get(segment).getDouble((int) (dataOffsets.get(segment) + ((long) row * channels.size() + channelIndex) * Double.BYTES));
+	}
+	
+	/**
+	 * Finds the step recorded at a time by binary searching the recorded {@link SimOuts#TIME} channel in place, so that seeking 
+	 * touches only O(log n) steps of the mapped segment files however long the recording is
+	 * 
+	 * @param time simulation time in seconds
+	 * @return the last step recorded at or before time, or 0 if time is before the first step
+	 * @throws IllegalStateException if {@link SimOuts#TIME} was not recorded
+	 */
+	public long getStep(double time) {
+		int timeIndex = channels.indexOf(SimOuts.TIME.name());
+		if (timeIndex < 0)
+			throw new IllegalStateException(SimOuts.TIME + " was not recorded!");
+		
+		// Time increases with each step, so the steps after the last one at or before time are all later
+		long low = 0, high = steps - 1;
+		while (low < high) {
+			long mid = (low + high + 1) >>> 1;
+			
+			if (get(mid, timeIndex) <= time)
+				low = mid;
+			else
+				high = mid - 1;
+		}
+		
+		return low;
+	}
+	
+	/**
+	 * @param simOut
+	 * @return every recorded value of simOut, in order
+	 * @throws IllegalArgumentException if simOut was not recorded
+	 */
+	public double[] readColumn(SimOuts simOut) {
+		return readColumn(simOut.name());
+	}
+	
+	/**
+	 * @param channel name of a recorded channel
+	 * @return every recorded value of channel, in order
+	 * @throws IllegalArgumentException if channel was not recorded
+	 */
+	public double[] readColumn(String channel) {
+		int index = channels.indexOf(channel);
+		if (index < 0)
+			throw new IllegalArgumentException(channel + " was not recorded!");
+		
+		if (steps > Integer.MAX_VALUE)
+			throw new IllegalStateException("Recording is too long to read a whole column into an array!");
+		
+		double[] column = new double[(int) steps];
+		int stride = channels.size() * Double.BYTES;
+		int row = 0;
+		
+		for (int i = 0; i < segments.size(); i++) {
+			MappedByteBuffer segment = segments.get(i);
+			int position = dataOffsets.get(i) + index * Double.BYTES;
+			
+			for (int step = 0; step < segmentSteps.get(i); step++, position += stride)
+				column[row++] = segment.getDouble(position);
+		}
+		
+		return column;
+	}
+	
+	/**
+	 * Writes the recording to a columnar file
+	 * 
+	 * @param file
+	 * @throws IOException
+	 */
+	public void exportColumnar(File file) throws IOException {
+		logger.debug("Exporting flight recording to: " + file.getAbsolutePath());
+		
+		List<byte[]> channelNames = new ArrayList<>(channels.size());
+		int namesLength = 0;
+		for (String channel : channels) {
+			byte[] channelName = channel.getBytes(StandardCharsets.UTF_8);
+			channelNames.add(channelName);
+			namesLength += Short.BYTES + channelName.length;
+		}
+		
+		int headerLength = 4 * Integer.BYTES + Long.BYTES + namesLength;
+		int dataOffset = (headerLength + Double.BYTES - 1) / Double.BYTES * Double.BYTES;
+		
+		ByteBuffer header = ByteBuffer.allocate(dataOffset).order(ByteOrder.LITTLE_ENDIAN);
+		header.putInt(COLUMNAR_MAGIC).putInt(FlightRecorder.VERSION).putInt(dataOffset).putInt(channels.size()).putLong(steps);
+		for (byte[] channelName : channelNames)
+			header.putShort((short) channelName.length).put(channelName);
+		header.clear();
+		
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw"); FileChannel channel = raf.getChannel()) {
+			raf.setLength(0);
+			
+			while (header.hasRemaining())
+				channel.write(header);
+			
+			for (String channelName : channels) {
+				ByteBuffer column = ByteBuffer.allocate((int) steps * Double.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+				column.asDoubleBuffer().put(readColumn(channelName));
+				
+				while (column.hasRemaining())
+					channel.write(column);
+			}
+		}
+		
+		logger.debug(file.getName() + " exported successfully!");
+	}
+}
@@ -0,0 +1,219 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.recording;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.chrisali.javaflightsim.interfaces.Steppable;
+import com.chrisali.javaflightsim.simulation.RateGroup;
+import com.chrisali.javaflightsim.simulation.datatransfer.FlightData;
+import com.chrisali.javaflightsim.simulation.datatransfer.FlightDataPublisher;
+import com.chrisali.javaflightsim.simulation.datatransfer.SeqLockBuffer;
+import com.chrisali.javaflightsim.simulation.integration.Integrate6DOFEquations;
+import com.chrisali.javaflightsim.simulation.integration.SimOuts;
+
+/**
+ * Plays a {@link FlightRecording} back in place of {@link Integrate6DOFEquations}, publishing each recorded step of {@link SimOuts} 
+ * into a {@link SeqLockBuffer} that {@link FlightData} and {@link FlightDataPublisher} read from, so that the OTW display and flight 
+ * data listeners show a recorded flight just as they would a live one. No physics run during a replay; each step only reads the 
+ * recorded values of the current step from the recording's mapped segment files.
+ * 
+ * <p>Playback can be paused, sped up or slowed down between {@link FlightReplay#MIN_SPEED} and {@link FlightReplay#MAX_SPEED}, 
+ * and moved to any time in the recording with {@link FlightReplay#seek(double)}, which binary searches the recording's time 
+ * channel with {@link FlightRecording#getStep(double)}. These may be called from any thread, and take effect on the next step</p>
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class FlightReplay implements Steppable {
+	
+	private static final Logger logger = LogManager.getLogger(FlightReplay.class);
+	
+	public static final double MIN_SPEED = 0.25;
+	public static final double MAX_SPEED = 16.0;
+	
+	// Steps scanned forward during normal playback before falling back to a binary search
+	private static final int MAX_SCAN_STEPS = 64;
+	
+	private static final long NO_SEEK = Double.doubleToRawLongBits(Double.NaN);
+	private static final SimOuts[] SIM_OUTS = SimOuts.values();
+	
+	private final FlightRecording recording;
+	private final double dt;
+	
+	private final int timeIndex;
+	private final int[] channelIndices = new int[SIM_OUTS.length];
+	private final double startTime;
+	private final double endTime;
+	
+	private final SeqLockBuffer<SimOuts> simOut = new SeqLockBuffer<>(SimOuts.class);
+	private final double[] simOutValues = new double[SIM_OUTS.length];
+	
+	private long step = -1;
+	private volatile double time;
+	private volatile double speed = 1.0;
+	private volatile boolean paused = false;
+	private final AtomicLong seekRequest = new AtomicLong(NO_SEEK);
+	
+	/**
+	 * Creates a replay of recording, starting at the beginning of the recording
+	 * 
+	 * @param recording
+	 * @param dt time step in seconds that this replay is stepped at
+	 * @throws IllegalArgumentException if recording is empty or does not include {@link SimOuts#TIME}
+	 */
+	public FlightReplay(FlightRecording recording, double dt) {
+		this.recording = recording;
+		this.dt = dt;
+		
+		timeIndex = recording.getChannelIndex(SimOuts.TIME.name());
+		if (timeIndex < 0 || recording.getSteps() == 0)
+			throw new IllegalArgumentException("Only recordings that include " + SimOuts.TIME + " can be replayed!");
+		
+		// Channels not recorded are replayed as zero
+		for (SimOuts simOut : SIM_OUTS)
+			channelIndices[simOut.ordinal()] = recording.getChannelIndex(simOut.name());
+		
+		startTime = recording.get(0, timeIndex);
+		endTime = recording.get(recording.getSteps() - 1, timeIndex);
+		time = startTime;
+		
+		seek(startTime);
+		
+		logger.debug("Replaying " + recording.getSteps() + " steps from " + startTime + " to " + endTime + " sec");
+	}
+
+	@Override
+	public RateGroup getRateGroup() {
+		return RateGroup.PHYSICS;
+	}
+	
+	/**
+	 * Seeks if requested, otherwise advances the replay by dt times the playback speed, then publishes the step recorded at the 
+	 * replay's time if it has changed. Reaching the end of the recording pauses the replay
+	 */
+	@Override
+	public void step() {
+		long requested = seekRequest.getAndSet(NO_SEEK);
+		
+		if (requested != NO_SEEK) {
+			time = Math.min(Math.max(Double.longBitsToDouble(requested), startTime), endTime);
+			publish(recording.getStep(time));
+			return;
+		}
+		
+		if (paused)
+			return;
+		
+		time = Math.min(time + dt * speed, endTime);
+		
+		long next = step;
+		for (int scanned = 0; next + 1 < recording.getSteps() && recording.get(next + 1, timeIndex) <= time; scanned++) {
+			if (scanned == MAX_SCAN_STEPS) {
+				next = recording.getStep(time);
+				break;
+			}
+			next++;
+		}
+		
+		if (next != step)
+			publish(next);
+		
+		if (time >= endTime)
+			paused = true;
+	}
+	
+	/**
+	 * Reads every channel of a recorded step and publishes it to the simOut buffer
+	 * 
+	 * @param step
+	 */
+	private void publish(long step) {
+		for (int i = 0; i < SIM_OUTS.length; i++)
+			simOutValues[i] = (channelIndices[i] < 0) ? 0.0 : recording.get(step, channelIndices[i]);
+		
+		simOut.publish(simOutValues);
+		this.step = step;
+	}
+	
+	/**
+	 * Moves the replay to time on its next step; times outside of the recording are moved to its start or end
+	 * 
+	 * @param time simulation time in seconds
+	 */
+	public void seek(double time) {
+		if (Double.isNaN(time))
+			throw new IllegalArgumentException("Cannot seek to NaN!");
+		
+		seekRequest.set(Double.doubleToRawLongBits(time));
+	}
+	
+	/**
+	 * @return lock-free buffer of the step being replayed, indexed by {@link SimOuts} ordinal
+	 */
+	public SeqLockBuffer<SimOuts> getSimOutBuffer() { return simOut; }
+	
+	/**
+	 * @return recording being replayed
+	 */
+	public FlightRecording getRecording() { return recording; }
+	
+	/**
+	 * @return simulation time in seconds the replay has reached 
+	 */
+	public double getTime() { return time; }
+	
+	/**
+	 * @return simulation time in seconds of the first recorded step
+	 */
+	public double getStartTime() { return startTime; }
+	
+	/**
+	 * @return simulation time in seconds of the last recorded step
+	 */
+	public double getEndTime() { return endTime; }
+	
+	/**
+	 * @return playback speed as a multiple of real time
+	 */
+	public double getSpeed() { return speed; }
+	
+	/**
+	 * Sets the playback speed, limited to between {@link FlightReplay#MIN_SPEED} and {@link FlightReplay#MAX_SPEED}
+	 * 
+	 * @param speed multiple of real time
+	 */
+	public void setSpeed(double speed) { this.speed = Math.min(Math.max(speed, MIN_SPEED), MAX_SPEED); }
+	
+	/**
+	 * @return if playback is paused
+	 */
+	public boolean isPaused() { return paused; }
+	
+	/**
+	 * Pauses or resumes playback; the step being replayed continues to be displayed while paused
+	 * 
+	 * @param paused
+	 */
+	public void setPaused(boolean paused) { this.paused = paused; }
+}
@@ -23,6 +23,7 @@ import com.chrisali.javaflightsim.simulation.inputdevices.Joystick;
 import com.chrisali.javaflightsim.simulation.inputdevices.Keyboard;
 import com.chrisali.javaflightsim.simulation.inputdevices.Mouse;
 import com.chrisali.javaflightsim.simulation.integration.Integrate6DOFEquations;
+import com.chrisali.javaflightsim.simulation.recording.FlightRecorder;
 
 /**
  * Provides Enums for the options EnumSet to provide the following options:
@@ -35,6 +36,10 @@ import com.chrisali.javaflightsim.simulation.integration.Integrate6DOFEquations;
  *	<p>CONSOLE_DISPLAY - Displays every piece of data in {@link Integrate6DOFEquations#getSimOut()} in the console for each step of integration</p>
  *	<p>USE_JOYSTICK - Uses JInput with a {@link Joystick} and {@link Keyboard} to allow pilot in the loop simulation</p>
  *	<p>USE_MOUSE - Uses JInput JInput with a {@link Mouse} and {@link Keyboard} to allow pilot in the loop simulation</p>
+ *	<p>NO_LOGGING - Only the latest step is kept in {@link Integrate6DOFEquations#getSimOut()}; nothing is retained in {@link Integrate6DOFEquations#getLogsOut()}, 
+ *	for batch runs that summarize each step as it is made</p>
+ *	<p>FLIGHT_RECORDER - Records every step of {@link Integrate6DOFEquations#getSimOut()} to memory-mapped files on disk with a {@link FlightRecorder}, 
+ *	so that flights of any length are kept in full</p>
  */
 public enum Options {
 	ANALYSIS_MODE     ("Analysis Mode"),
@@ -43,7 +48,9 @@ public enum Options {
 	RESET			  ("Reset"),
 	CONSOLE_DISPLAY	  ("Console Display"),
 	USE_JOYSTICK	  ("Use Joystick"),
-	USE_MOUSE		  ("Use Mouse");
+	USE_MOUSE		  ("Use Mouse"),
+	NO_LOGGING		  ("No Logging"),
+	FLIGHT_RECORDER	  ("Flight Recorder");
 	
 	private String option;
 	
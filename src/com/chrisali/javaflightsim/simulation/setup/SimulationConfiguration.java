@@ -11,6 +11,7 @@ import org.apache.logging.log4j.Logger;
 
 import com.chrisali.javaflightsim.interfaces.Saveable;
 import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControl;
+import com.chrisali.javaflightsim.simulation.integration.IntegratorType;
 import com.chrisali.javaflightsim.simulation.utilities.FileUtilities;
 import com.chrisali.javaflightsim.simulation.utilities.SimDirectories;
 import com.chrisali.javaflightsim.simulation.utilities.SixDOFUtilities;
@@ -28,6 +29,7 @@ public class SimulationConfiguration implements Saveable {
 	private EnumSet<Options> simulationOptions;
 	private EnumMap<InitialConditions, Double> initialConditions;
 	private EnumMap<IntegratorConfig, Double> integratorConfig;
+	private IntegratorType integratorType = IntegratorType.RUNGE_KUTTA;
 	private EnumMap<FlightControl, Double> initialControls; 
 	private String selectedAircraft;
 
@@ -38,6 +40,24 @@ public class SimulationConfiguration implements Saveable {
 	private CameraConfiguration cameraConfiguration;
 
 	public SimulationConfiguration() { }
+	
+	/**
+	 * Creates a copy of another configuration whose options, initial conditions, integrator configuration and initial controls 
+	 * can be changed without affecting the original; display, audio and camera configurations are shared
+	 * 
+	 * @param other
+	 */
+	public SimulationConfiguration(SimulationConfiguration other) {
+		simulationOptions 	 = EnumSet.copyOf(other.simulationOptions);
+		initialConditions 	 = new EnumMap<>(other.initialConditions);
+		integratorConfig 	 = new EnumMap<>(other.integratorConfig);
+		integratorType 		 = other.integratorType;
+		initialControls 	 = new EnumMap<>(other.initialControls);
+		selectedAircraft 	 = other.selectedAircraft;
+		displayConfiguration = other.displayConfiguration;
+		audioConfiguration 	 = other.audioConfiguration;
+		cameraConfiguration  = other.cameraConfiguration;
+	}
 		
 	/**
 	 * Saves all configuration fields in this instance to a JSON file via {@link FileUtilities#serializeJson(String, String, Object)}
@@ -65,6 +85,10 @@ public class SimulationConfiguration implements Saveable {
 	
 	public void setIntegratorConfig(EnumMap<IntegratorConfig, Double> integratorConfig) { this.integratorConfig = integratorConfig;	}
 
+	public IntegratorType getIntegratorType() { return integratorType; }
+
+	public void setIntegratorType(IntegratorType integratorType) { this.integratorType = integratorType; }
+
 	@JsonIgnore
 	public int getSimulationRateHz() {
 		return (int)(1/integratorConfig.get(IntegratorConfig.DT));
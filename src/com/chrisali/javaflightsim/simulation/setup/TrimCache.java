@@ -0,0 +1,392 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.setup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.chrisali.javaflightsim.simulation.aircraft.Aircraft;
+import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControl;
+import com.chrisali.javaflightsim.simulation.utilities.FileUtilities;
+import com.chrisali.javaflightsim.simulation.utilities.SimDirectories;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Stores converged {@link TrimResult}s on disk, so that conditions trimmed before are looked up instead of solved again. 
+ * Each aircraft has its own cache file, named after it and a SHA-256 hash of its Aircraft.json, so that editing the aircraft 
+ * invalidates its cache; files of older versions of the aircraft are deleted when the cache is saved. 
+ * 
+ * <p>A condition not in the cache is solved by a {@link TrimSolver} and added to the cache. If it lies between cached points of the 
+ * same maneuver in airspeed, and optionally altitude, the solver is warm started from a solution interpolated between theirs, which 
+ * usually converges in an iteration or two; an interpolated solution is never served without being solved to {@link TrimSolver#TOLERANCE}. As landing gear position is not part of a {@link TrimCondition}, only points trimmed with the gear of the 
+ * configuration the cache was opened with are used. A cache may be shared by threads trimming concurrently</p>
+ * 
+ * <p>Each point is saved as a row of numbers: the 7 values of its condition, the 7 unknowns of {@link TrimSolver}, the 14 states, 
+ * then every {@link FlightControl} in order, and the residual</p>
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class TrimCache {
+	
+	private static final Logger logger = LogManager.getLogger(TrimCache.class);
+	
+	// Largest spacing between cached points that are interpolated between
+	private static final double MAX_AIRSPEED_GAP = 20.0;
+	private static final double MAX_ALTITUDE_GAP = 2000.0;
+	
+	private static final InitialConditions[] STATES = InitialConditions.values();
+	private static final FlightControl[] CONTROLS = FlightControl.values();
+	
+	// Column offsets of each row
+	private static final int CONDITION  = 0;
+	private static final int SOLUTION   = 7;
+	private static final int STATE 		= SOLUTION + TrimSolver.UNKNOWNS;
+	private static final int CONTROL 	= STATE + STATES.length;
+	private static final int RESIDUAL 	= CONTROL + CONTROLS.length;
+	private static final int ROW_LENGTH = RESIDUAL + 1;
+	
+	private final File directory;
+	private final String aircraftName;
+	private final String aircraftHash;
+	private final double gear;
+	
+	private final Map<TrimCondition, TrimResult> results = new HashMap<>();
+	// Points trimmed with the gear in another position, kept so that they are saved again
+	private final List<double[]> otherRows = new ArrayList<>();
+	private boolean modified = false;
+	
+	private final AtomicInteger hits = new AtomicInteger();
+	private final AtomicInteger interpolations = new AtomicInteger();
+	private final AtomicInteger misses = new AtomicInteger();
+	
+	/**
+	 * Opens the cache of the aircraft selected in configuration, reading any points saved to its file in directory
+	 * 
+	 * @param directory
+	 * @param configuration
+	 */
+	public TrimCache(File directory, SimulationConfiguration configuration) {
+		this.directory = directory;
+		
+		aircraftName = configuration.getSelectedAircraft();
+		aircraftHash = hashAircraft(aircraftName);
+		Double configuredGear = configuration.getInitialControls().get(FlightControl.GEAR);
+		gear = (configuredGear != null) ? configuredGear : 0.0;
+		
+		load();
+	}
+	
+	/**
+	 * Trims the aircraft in a condition, using the cache if possible
+	 * 
+	 * @param solvers supplies the solver used if the condition is not cached; not called for an exact match
+	 * @param condition
+	 * @return trim states and controls
+	 */
+	public TrimResult trim(Supplier<TrimSolver> solvers, TrimCondition condition) {
+		return trim(solvers, condition, null);
+	}
+	
+	/**
+	 * Trims the aircraft in a condition, using the cache if possible, and otherwise solving it and adding the result to the cache
+	 * 
+	 * @param solvers supplies the solver used if the condition is not cached; not called for an exact match
+	 * @param condition
+	 * @param warmStart result of a nearby condition to start solving from if there is nothing to interpolate between, or null
+	 * @return trim states and controls
+	 */
+	public TrimResult trim(Supplier<TrimSolver> solvers, TrimCondition condition, TrimResult warmStart) {
+		TrimResult cached = get(condition);
+		if (cached != null) {
+			hits.incrementAndGet();
+			return cached;
+		}
+		
+		TrimSolver solver = solvers.get();
+		double[] interpolated = interpolate(condition);
+		
+		misses.incrementAndGet();
+		
+		TrimResult result;
+		if (interpolated != null) {
+			interpolations.incrementAndGet();
+			result = solver.trim(condition, interpolated);
+		} else {
+			result = solver.trim(condition, warmStart);
+		}
+		
+		put(result);
+		
+		return result;
+	}
+	
+	/**
+	 * @param condition
+	 * @return the cached result of exactly this condition, or null if it is not cached
+	 */
+	public synchronized TrimResult get(TrimCondition condition) { return results.get(condition); }
+	
+	/**
+	 * Adds a result to the cache if it has converged
+	 * 
+	 * @param result
+	 */
+	public synchronized void put(TrimResult result) {
+		if (!result.isConverged())
+			return;
+		
+		results.put(result.getCondition(), result);
+		modified = true;
+	}
+	
+	/**
+	 * @return number of points cached for the configured gear position
+	 */
+	public synchronized int size() { return results.size(); }
+	
+	/**
+	 * @return number of trims served exactly from the cache
+	 */
+	public int getHits() { return hits.get(); }
+	
+	/**
+	 * @return number of trims solved starting from a solution interpolated between cached points
+	 */
+	public int getInterpolations() { return interpolations.get(); }
+	
+	/**
+	 * @return number of trims that had to be solved, including those started from an interpolated solution
+	 */
+	public int getMisses() { return misses.get(); }
+	
+	/**
+	 * @return file this cache is saved to
+	 */
+	public File getFile() { return new File(directory, aircraftName + "-" + aircraftHash + FileUtilities.CONFIG_EXT); }
+	
+	/**
+	 * Writes the cache to its file if any points have been added since it was opened, and deletes the cache files of older versions 
+	 * of the aircraft
+	 */
+	public synchronized void save() {
+		if (!modified || aircraftHash == null)
+			return;
+		
+		File file = getFile();
+		List<double[]> rows = new ArrayList<>(otherRows);
+		for (TrimResult result : results.values())
+			rows.add(toRow(result));
+		
+		logger.debug("Saving " + rows.size() + " trim points to " + file + "...");
+		
+		try {
+			Files.createDirectories(directory.toPath());
+			new ObjectMapper().writeValue(file, rows);
+			modified = false;
+		} catch (IOException e) {
+			logger.error("Could not save trim cache to " + file + "!", e);
+			return;
+		}
+		
+		Pattern cacheFiles = Pattern.compile(Pattern.quote(aircraftName) + "-[0-9a-f]{64}" + Pattern.quote(FileUtilities.CONFIG_EXT));
+		File[] staleFiles = directory.listFiles((dir, name) -> cacheFiles.matcher(name).matches() && !name.equals(file.getName()));
+		
+		for (File stale : (staleFiles != null) ? staleFiles : new File[0]) {
+			logger.debug("Deleting trim cache of a previous version of " + aircraftName + ": " + stale);
+			if (!stale.delete())
+				logger.warn("Could not delete " + stale + "!");
+		}
+	}
+	
+	/**
+	 * Reads the points saved to this cache's file, if it exists
+	 */
+	private void load() {
+		File file = getFile();
+		if (aircraftHash == null || !file.exists())
+			return;
+		
+		logger.debug("Reading trim cache: " + file + "...");
+		
+		try {
+			for (double[] row : new ObjectMapper().readValue(file, double[][].class)) {
+				if (row.length != ROW_LENGTH)
+					continue;
+				
+				if (row[CONTROL + FlightControl.GEAR.ordinal()] == gear) {
+					TrimResult result = toResult(row);
+					results.put(result.getCondition(), result);
+				} else {
+					otherRows.add(row);
+				}
+			}
+		} catch (IOException e) {
+			logger.error("Could not read trim cache " + file + ", it will be rewritten!", e);
+			results.clear();
+			otherRows.clear();
+		}
+	}
+	
+	/**
+	 * Interpolates linearly between the solutions of cached points flying the same maneuver, first in airspeed and then, if the 
+	 * condition's altitude is not cached, in altitude
+	 * 
+	 * @param condition
+	 * @return interpolated solution, or null if the condition does not lie close enough between cached points
+	 */
+	private synchronized double[] interpolate(TrimCondition condition) {
+		List<TrimResult> maneuver = new ArrayList<>();
+		for (TrimCondition cached : results.keySet()) {
+			if (cached.sameManeuver(condition))
+				maneuver.add(results.get(cached));
+		}
+		
+		double altitude = condition.getAltitude();
+		double[] atAltitude = interpolateAirspeed(maneuver, altitude, condition.getAirspeed());
+		if (atAltitude != null)
+			return atAltitude;
+		
+		double lower = Double.NEGATIVE_INFINITY, upper = Double.POSITIVE_INFINITY;
+		for (TrimResult result : maneuver) {
+			double cachedAltitude = result.getCondition().getAltitude();
+			
+			if (cachedAltitude < altitude && cachedAltitude > lower && altitude - cachedAltitude <= MAX_ALTITUDE_GAP)
+				lower = cachedAltitude;
+			else if (cachedAltitude > altitude && cachedAltitude < upper && cachedAltitude - altitude <= MAX_ALTITUDE_GAP)
+				upper = cachedAltitude;
+		}
+		
+		if (Double.isInfinite(lower) || Double.isInfinite(upper))
+			return null;
+		
+		double[] below = interpolateAirspeed(maneuver, lower, condition.getAirspeed());
+		double[] above = interpolateAirspeed(maneuver, upper, condition.getAirspeed());
+		
+		return (below != null && above != null) ? lerp(below, above, (altitude - lower) / (upper - lower)) : null;
+	}
+	
+	/**
+	 * @param maneuver
+	 * @param altitude
+	 * @param airspeed
+	 * @return solution interpolated between the points of maneuver at altitude either side of airspeed, or null if there are none
+	 */
+	private static double[] interpolateAirspeed(List<TrimResult> maneuver, double altitude, double airspeed) {
+		TrimResult below = null, above = null;
+		
+		for (TrimResult result : maneuver) {
+			TrimCondition cached = result.getCondition();
+			if (cached.getAltitude() != altitude)
+				continue;
+			
+			if (cached.getAirspeed() <= airspeed && (below == null || cached.getAirspeed() > below.getCondition().getAirspeed()))
+				below = result;
+			if (cached.getAirspeed() >= airspeed && (above == null || cached.getAirspeed() < above.getCondition().getAirspeed()))
+				above = result;
+		}
+		
+		if (below == null || above == null)
+			return null;
+		
+		double lowerAirspeed = below.getCondition().getAirspeed(), upperAirspeed = above.getCondition().getAirspeed();
+		if (upperAirspeed - lowerAirspeed > MAX_AIRSPEED_GAP)
+			return null;
+		
+		return (upperAirspeed == lowerAirspeed) ? below.getSolution().clone() 
+				: lerp(below.getSolution(), above.getSolution(), (airspeed - lowerAirspeed) / (upperAirspeed - lowerAirspeed));
+	}
+	
+	private static double[] lerp(double[] from, double[] to, double fraction) {
+		double[] values = new double[from.length];
+		for (int i = 0; i < values.length; i++)
+			values[i] = from[i] + (to[i] - from[i]) * fraction;
+		
+		return values;
+	}
+	
+	private static double[] toRow(TrimResult result) {
+		TrimCondition condition = result.getCondition();
+		double[] row = new double[ROW_LENGTH];
+		
+		double[] conditionValues = {condition.getAirspeed(), condition.getAltitude(), condition.getFlightPathAngle(), condition.getTurnRate(), 
+									condition.getSideslip(), condition.getWeight(), condition.getFlaps()};
+		System.arraycopy(conditionValues, 0, row, CONDITION, conditionValues.length);
+		System.arraycopy(result.getSolution(), 0, row, SOLUTION, TrimSolver.UNKNOWNS);
+		
+		for (InitialConditions state : STATES)
+			row[STATE + state.ordinal()] = result.getState(state);
+		for (FlightControl control : CONTROLS)
+			row[CONTROL + control.ordinal()] = result.getControl(control);
+		
+		row[RESIDUAL] = result.getResidual();
+		
+		return row;
+	}
+	
+	private static TrimResult toResult(double[] row) {
+		TrimCondition condition = new TrimCondition(row[CONDITION], row[CONDITION+1], row[CONDITION+2], row[CONDITION+3], 
+													row[CONDITION+4], row[CONDITION+5], row[CONDITION+6]);
+		
+		Map<FlightControl, Double> controls = new EnumMap<>(FlightControl.class);
+		for (FlightControl control : CONTROLS)
+			controls.put(control, row[CONTROL + control.ordinal()]);
+		
+		return new TrimResult(condition, Arrays.copyOfRange(row, SOLUTION, SOLUTION + TrimSolver.UNKNOWNS), 
+							  Arrays.copyOfRange(row, STATE, STATE + STATES.length), controls, true, 0, row[RESIDUAL]);
+	}
+	
+	/**
+	 * @param aircraftName
+	 * @return hexadecimal SHA-256 hash of the aircraft's Aircraft.json, or null if it could not be read
+	 */
+	public static String hashAircraft(String aircraftName) {
+		File aircraftFile = new File(FileUtilities.FILE_ROOT + SimDirectories.AIRCRAFT.toString() + File.separator + aircraftName, 
+									 Aircraft.class.getSimpleName() + FileUtilities.CONFIG_EXT);
+		
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(Files.readAllBytes(aircraftFile.toPath()));
+			
+			StringBuilder sb = new StringBuilder();
+			for (byte b : digest)
+				sb.append(String.format("%02x", b));
+			
+			return sb.toString();
+		} catch (IOException | NoSuchAlgorithmException e) {
+			logger.error("Could not hash " + aircraftFile + ", trims will not be cached on disk!", e);
+			return null;
+		}
+	}
+}
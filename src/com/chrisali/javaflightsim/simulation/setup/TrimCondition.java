@@ -0,0 +1,155 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.setup;
+
+/**
+ * Defines a steady flight condition to be trimmed by {@link TrimSolver}: a true airspeed and altitude, flown along a flight path angle 
+ * at a constant turn rate. Level flight has a flight path angle of zero, climbs and descents a positive or negative one, and turns a 
+ * non-zero turn rate. Sideslip is either held at the value given, or left free if it is {@link Double#NaN} so that the turn is coordinated 
+ * (zero lateral specific force, with the ball centered). The aircraft's weight and flap setting may also be specified for each condition
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class TrimCondition {
+	
+	private final double airspeed;
+	private final double altitude;
+	private final double flightPathAngle;
+	private final double turnRate;
+	private final double sideslip;
+	private final double weight;
+	private final double flaps;
+	
+	/**
+	 * Creates a wings level, zero sideslip condition in level flight at the aircraft's own weight with flaps retracted
+	 * 
+	 * @param airspeed true airspeed (ft/sec)
+	 * @param altitude (ft)
+	 */
+	public TrimCondition(double airspeed, double altitude) {
+		this(airspeed, altitude, 0.0, 0.0, 0.0, Double.NaN, 0.0);
+	}
+	
+	/**
+	 * Creates a trim condition
+	 * 
+	 * @param airspeed true airspeed (ft/sec)
+	 * @param altitude (ft)
+	 * @param flightPathAngle positive when climbing (rad)
+	 * @param turnRate rate of change of heading, positive to the right (rad/sec)
+	 * @param sideslip angle of sideslip held (rad), or {@link Double#NaN} to coordinate the turn
+	 * @param weight total weight of the aircraft (lbf), or {@link Double#NaN} to use the aircraft's own
+	 * @param flaps flap deflection (rad)
+	 */
+	public TrimCondition(double airspeed, double altitude, double flightPathAngle, double turnRate, double sideslip, double weight, double flaps) {
+		this.airspeed = airspeed;
+		this.altitude = altitude;
+		this.flightPathAngle = flightPathAngle;
+		this.turnRate = turnRate;
+		this.sideslip = sideslip;
+		this.weight = weight;
+		this.flaps = flaps;
+	}
+	
+	/**
+	 * @return true airspeed (ft/sec)
+	 */
+	public double getAirspeed() { return airspeed; }
+	
+	/**
+	 * @return altitude (ft)
+	 */
+	public double getAltitude() { return altitude; }
+	
+	/**
+	 * @return flight path angle, positive when climbing (rad)
+	 */
+	public double getFlightPathAngle() { return flightPathAngle; }
+	
+	/**
+	 * @return rate of change of heading, positive to the right (rad/sec)
+	 */
+	public double getTurnRate() { return turnRate; }
+	
+	/**
+	 * @return angle of sideslip held (rad), or {@link Double#NaN} if the turn is coordinated
+	 */
+	public double getSideslip() { return sideslip; }
+	
+	/**
+	 * @return if sideslip is left free to coordinate the turn
+	 */
+	public boolean isCoordinated() { return Double.isNaN(sideslip); }
+	
+	/**
+	 * @return total weight of the aircraft (lbf), or {@link Double#NaN} if the aircraft's own is used
+	 */
+	public double getWeight() { return weight; }
+	
+	/**
+	 * @return flap deflection (rad)
+	 */
+	public double getFlaps() { return flaps; }
+	
+	@Override
+	public int hashCode() {
+		int hash = 17;
+		for (double value : new double[] {airspeed, altitude, flightPathAngle, turnRate, sideslip, weight, flaps})
+			hash = 31 * hash + Double.hashCode(value);
+		
+		return hash;
+	}
+	
+	/**
+	 * Conditions are equal if all of their values are, treating {@link Double#NaN} as equal to itself
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (!(obj instanceof TrimCondition))
+			return false;
+		
+		TrimCondition other = (TrimCondition) obj;
+		
+		return Double.compare(airspeed, other.airspeed) == 0 && Double.compare(altitude, other.altitude) == 0 
+				&& sameManeuver(other);
+	}
+	
+	/**
+	 * @param other
+	 * @return if other is flown with the same flight path, turn rate, sideslip, weight and flaps as this condition, 
+	 * though not necessarily at the same airspeed and altitude
+	 */
+	public boolean sameManeuver(TrimCondition other) {
+		return Double.compare(flightPathAngle, other.flightPathAngle) == 0 && Double.compare(turnRate, other.turnRate) == 0 
+				&& Double.compare(sideslip, other.sideslip) == 0 && Double.compare(weight, other.weight) == 0 
+				&& Double.compare(flaps, other.flaps) == 0;
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("Airspeed: %.1f ft/sec, Altitude: %.0f ft, Flight Path: %.4f rad, Turn Rate: %.4f rad/sec, "
+						   + "Sideslip: %s, Weight: %s, Flaps: %.4f rad", airspeed, altitude, flightPathAngle, turnRate, 
+						   isCoordinated() ? "Coordinated" : String.format("%.4f rad", sideslip), 
+						   Double.isNaN(weight) ? "Aircraft" : String.format("%.0f lbf", weight), flaps);
+	}
+}
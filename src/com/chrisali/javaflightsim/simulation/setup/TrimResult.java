@@ -0,0 +1,126 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.setup;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControl;
+
+/**
+ * Holds the states and flight controls found by {@link TrimSolver} for a {@link TrimCondition}, along with how well they satisfy it. 
+ * A result that has not converged holds the best estimate found, and can still be used to warm start the trim of a nearby condition
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class TrimResult {
+	
+	private static final InitialConditions[] INITIAL_CONDITIONS = InitialConditions.values();
+	
+	private final TrimCondition condition;
+	private final double[] solution;
+	private final double[] states;
+	private final Map<FlightControl, Double> controls;
+	private final boolean converged;
+	private final int iterations;
+	private final double residual;
+	
+	TrimResult(TrimCondition condition, double[] solution, double[] states, Map<FlightControl, Double> controls, 
+			   boolean converged, int iterations, double residual) {
+		this.condition = condition;
+		this.solution = solution;
+		this.states = states;
+		this.controls = controls;
+		this.converged = converged;
+		this.iterations = iterations;
+		this.residual = residual;
+	}
+	
+	public TrimCondition getCondition() { return condition; }
+	
+	/**
+	 * @return if every residual of the trim was driven below {@link TrimSolver#TOLERANCE}
+	 */
+	public boolean isConverged() { return converged; }
+	
+	/**
+	 * @return number of Levenberg-Marquardt iterations taken
+	 */
+	public int getIterations() { return iterations; }
+	
+	/**
+	 * @return largest absolute residual (state derivative or constraint) remaining at the trim point
+	 */
+	public double getResidual() { return residual; }
+	
+	/**
+	 * @return unknowns solved for by {@link TrimSolver}, in the order it defines them
+	 */
+	double[] getSolution() { return solution; }
+	
+	/**
+	 * @return angle of attack (rad)
+	 */
+	public double getAlpha() { return solution[TrimSolver.ALPHA]; }
+	
+	/**
+	 * @return angle of sideslip (rad)
+	 */
+	public double getBeta() { return solution[TrimSolver.BETA]; }
+	
+	/**
+	 * @param initialCondition
+	 * @return trimmed value of a 6DOF state
+	 */
+	public double getState(InitialConditions initialCondition) { return states[initialCondition.ordinal()]; }
+	
+	/**
+	 * @param control
+	 * @return trimmed value of a flight control
+	 */
+	public double getControl(FlightControl control) { return controls.get(control); }
+	
+	/**
+	 * @return a copy of the trimmed 6DOF states, keyed in the same manner as {@link SimulationConfiguration#getInitialConditions()}
+	 */
+	public EnumMap<InitialConditions, Double> getInitialConditions() {
+		EnumMap<InitialConditions, Double> initialConditions = new EnumMap<>(InitialConditions.class);
+		
+		for (InitialConditions initialCondition : INITIAL_CONDITIONS)
+			initialConditions.put(initialCondition, states[initialCondition.ordinal()]);
+		
+		return initialConditions;
+	}
+	
+	/**
+	 * @return a copy of the trimmed flight controls, keyed in the same manner as {@link SimulationConfiguration#getInitialControls()}
+	 */
+	public EnumMap<FlightControl, Double> getControls() { return new EnumMap<>(controls); }
+	
+	@Override
+	public String toString() {
+		return String.format("%s -> %s in %d iterations (residual %.2e): Alpha: %.4f rad, Beta: %.4f rad, Theta: %.4f rad, Phi: %.4f rad, "
+						   + "Elevator: %.4f rad, Aileron: %.4f rad, Rudder: %.4f rad, Throttle: %.4f", condition, 
+						   converged ? "trimmed" : "NOT trimmed", iterations, residual, getAlpha(), getBeta(), 
+						   getState(InitialConditions.INITTHETA), getState(InitialConditions.INITPHI), getControl(FlightControl.ELEVATOR),
+						   getControl(FlightControl.AILERON), getControl(FlightControl.RUDDER), getControl(FlightControl.THROTTLE_1));
+	}
+}
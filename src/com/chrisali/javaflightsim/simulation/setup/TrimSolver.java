@@ -0,0 +1,428 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.setup;
+
+import java.util.EnumMap;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.chrisali.javaflightsim.simulation.SimulationContext;
+import com.chrisali.javaflightsim.simulation.aircraft.Aircraft;
+import com.chrisali.javaflightsim.simulation.aircraft.MassProperties;
+import com.chrisali.javaflightsim.simulation.enviroment.Environment;
+import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControl;
+import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControlsSnapshot;
+import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControlsState;
+import com.chrisali.javaflightsim.simulation.integration.FlightDynamicsModel;
+import com.chrisali.javaflightsim.simulation.propulsion.Engine;
+import com.chrisali.javaflightsim.simulation.utilities.Dual;
+
+/**
+ * Trims an aircraft in any steady flight condition described by a {@link TrimCondition}, solving for the angles of attack, sideslip and bank, 
+ * and the elevator, aileron, rudder and throttle deflections, that together zero the linear and angular accelerations of the full 6DOF 
+ * equations evaluated by a {@link FlightDynamicsModel}. Pitch attitude is found from the flight path angle constraint, and body rates from the
+ * turn rate, so that climbs, descents, coordinated turns and steady sideslips can all be trimmed. A seventh equation either holds sideslip at the
+ * value given, or zeroes lateral specific force to coordinate the turn.
+ * 
+ * <p>The unknowns are found with the Levenberg-Marquardt method, using an exact Jacobian found by evaluating the model once with {@link Dual}s, 
+ * and keeping every unknown within 
+ * the limits of its control or a realistic attitude. The solver can be warm started from the {@link TrimResult} of a nearby condition, 
+ * which usually converges in a few iterations. A solver owns its own model, and like the {@link SimulationContext} it trims, 
+ * should only be used by one thread</p>
+ * 
+ * @author Christopher Ali
+ * @see Source: <i>Aircraft Control and Simulation by Stevens, B.L. and Lewis, F.L.</i>
+ */
+public class TrimSolver {
+	
+	private static final Logger logger = LogManager.getLogger(TrimSolver.class);
+	
+	public static final int MAX_ITERATIONS = 100;
+	public static final double TOLERANCE = 1e-6;
+	
+	// Indices of the unknowns
+	static final int ALPHA	  = 0;
+	static final int BETA	  = 1;
+	static final int PHI	  = 2;
+	static final int ELEVATOR = 3;
+	static final int AILERON  = 4;
+	static final int RUDDER	  = 5;
+	static final int THROTTLE = 6;
+	static final int UNKNOWNS = 7;
+	
+	// udot, vdot, wdot, pdot, qdot, rdot and the sideslip constraint
+	private static final int RESIDUALS = 7;
+	
+	private static final double[] LOWER_LIMITS = {Math.toRadians(-20), Math.toRadians(-30), Math.toRadians(-80), FlightControl.ELEVATOR.getMinimum(),
+												  FlightControl.AILERON.getMinimum(), FlightControl.RUDDER.getMinimum(), 0.0};
+	private static final double[] UPPER_LIMITS = {Math.toRadians(20),  Math.toRadians(30),  Math.toRadians(80),  FlightControl.ELEVATOR.getMaximum(),
+												  FlightControl.AILERON.getMaximum(), FlightControl.RUDDER.getMaximum(), 1.0};
+	private static final double[] COLD_START   = {0.05, 0.0, 0.0, 0.0, 0.0, 0.0, 0.5};
+	
+	private static final double INITIAL_DAMPING = 1e-3;
+	private static final double MAX_DAMPING = 1e12;
+	
+	// Relative reduction in the sum of squared residuals below which the solver has stalled, such as against the limit of a control
+	private static final double MIN_IMPROVEMENT = 1e-12;
+	
+	private final FlightDynamicsModel model;
+	private final Aircraft aircraft;
+	private final double aircraftMass;
+	// Throttles of the aircraft's engines, all set to the throttle unknown
+	private final FlightControl[] throttles;
+	
+	// North, east, heading, latitude and longitude are taken from the initial conditions of the configuration
+	private final double[] baseStates = new double[FlightDynamicsModel.STATES];
+	private final FlightControlsState controlsState;
+	private final FlightControlsSnapshot controls = new FlightControlsSnapshot();
+	
+	private final double[] y 				 = new double[FlightDynamicsModel.STATES];
+	private final double[] yDot 			 = new double[FlightDynamicsModel.STATES];
+	private final double[] residuals 		 = new double[RESIDUALS];
+	private final double[] trialResiduals	 = new double[RESIDUALS];
+	private final double[][] jacobian 		 = new double[RESIDUALS][UNKNOWNS];
+	private final double[][] normalMatrix	 = new double[UNKNOWNS][UNKNOWNS];
+	private final double[][] augmented		 = new double[UNKNOWNS][UNKNOWNS + 1];
+	private final double[] gradient			 = new double[UNKNOWNS];
+	private final double[] step				 = new double[UNKNOWNS];
+	private final double[] trial			 = new double[UNKNOWNS];
+	
+	private final Dual[] dualStates			 = new Dual[FlightDynamicsModel.STATES - 2];
+	private final Dual[] dualDerivatives	 = new Dual[FlightDynamicsModel.STATES - 2];
+	private final Dual[] dualControls		 = new Dual[FlightControl.values().length];
+	private final Dual[] dualResiduals		 = new Dual[RESIDUALS];
+	
+	/**
+	 * Creates a solver that trims the aircraft of a {@link SimulationContext} in its environment, starting from the initial conditions 
+	 * and initial controls of its configuration
+	 * 
+	 * @param context
+	 */
+	public TrimSolver(SimulationContext context) {
+		SimulationConfiguration configuration = context.getConfiguration();
+		
+		model 		  = new FlightDynamicsModel(context);
+		aircraft 	  = context.getAircraft();
+		aircraftMass  = aircraft.getMassProperty(MassProperties.TOTAL_MASS);
+		controlsState = new FlightControlsState(configuration);
+		throttles 	  = aircraft.getEngines().stream().map(Engine::throttleControl).distinct().toArray(FlightControl[]::new);
+		
+		for (InitialConditions initialCondition : InitialConditions.values())
+			baseStates[initialCondition.ordinal()] = configuration.getInitialConditions().get(initialCondition);
+	}
+	
+	/**
+	 * Trims the aircraft in a condition, starting from a generic guess
+	 * 
+	 * @param condition
+	 * @return trim states and controls
+	 */
+	public TrimResult trim(TrimCondition condition) {
+		return trim(condition, COLD_START);
+	}
+	
+	/**
+	 * Trims the aircraft in a condition, starting from the solution of a nearby condition if one is given
+	 * 
+	 * @param condition
+	 * @param warmStart result of a nearby condition, or null to start from a generic guess
+	 * @return trim states and controls
+	 */
+	public TrimResult trim(TrimCondition condition, TrimResult warmStart) {
+		return trim(condition, (warmStart != null) ? warmStart.getSolution() : COLD_START);
+	}
+	
+	/**
+	 * Trims the aircraft in a condition, starting from a solution such as one interpolated between nearby trim points
+	 * 
+	 * @param condition
+	 * @param start unknowns, in the order defined by this solver
+	 * @return trim states and controls
+	 */
+	TrimResult trim(TrimCondition condition, double[] start) {
+		setWeight(condition.getWeight());
+		
+		double[] x = start.clone();
+		if (!condition.isCoordinated())
+			x[BETA] = condition.getSideslip();
+		limit(x);
+		
+		double cost = evaluate(condition, x, residuals);
+		double damping = INITIAL_DAMPING;
+		boolean converged = false;
+		int iterations = 0;
+		
+		for (; iterations < MAX_ITERATIONS; iterations++) {
+			if (converged = (maxAbs(residuals) < TOLERANCE))
+				break;
+			
+			calculateJacobian(condition, x);
+			
+			// Normal equations of the linearized least squares problem: (J'J)dx = -J'r
+			for (int i = 0; i < UNKNOWNS; i++) {
+				gradient[i] = 0;
+				for (int k = 0; k < RESIDUALS; k++)
+					gradient[i] += jacobian[k][i] * residuals[k];
+				
+				for (int j = 0; j < UNKNOWNS; j++) {
+					normalMatrix[i][j] = 0;
+					for (int k = 0; k < RESIDUALS; k++)
+						normalMatrix[i][j] += jacobian[k][i] * jacobian[k][j];
+				}
+			}
+			
+			// Increase damping until a step reduces the sum of squared residuals, and relax it once one does
+			double previousCost = cost;
+			boolean improved = false;
+			while (!improved && damping < MAX_DAMPING) {
+				solveDamped(damping);
+				
+				for (int i = 0; i < UNKNOWNS; i++)
+					trial[i] = x[i] + step[i];
+				limit(trial);
+				
+				double trialCost = evaluate(condition, trial, trialResiduals);
+				if (trialCost < cost) {
+					System.arraycopy(trial, 0, x, 0, UNKNOWNS);
+					System.arraycopy(trialResiduals, 0, residuals, 0, RESIDUALS);
+					cost = trialCost;
+					damping = Math.max(damping / 10, 1e-12);
+					improved = true;
+				} else {
+					damping *= 10;
+				}
+			}
+			
+			if (!improved || (previousCost - cost) < MIN_IMPROVEMENT * previousCost)
+				break;
+		}
+		
+		// Leave the model, states and controls at the solution
+		evaluate(condition, x, residuals);
+		double residual = maxAbs(residuals);
+		
+		if (!converged)
+			logger.debug("Unable to trim for " + condition + ", residual is " + residual);
+		
+		return new TrimResult(condition, x, y.clone(), new EnumMap<>(controlsState.getFlightControls()), converged, iterations, residual);
+	}
+	
+	/**
+	 * @return model evaluated by this solver, left at the states and controls of the last trim
+	 */
+	public FlightDynamicsModel getModel() { return model; }
+	
+	/**
+	 * Sets the aircraft's total mass for a condition's weight, recompiling its model only if it has changed
+	 * 
+	 * @param weight (lbf), or NaN to use the aircraft's own
+	 */
+	private void setWeight(double weight) {
+		double mass = Double.isNaN(weight) ? aircraftMass : weight / Environment.getGravity();
+		
+		if (mass != aircraft.getMassProperty(MassProperties.TOTAL_MASS))
+			aircraft.setMassProperty(MassProperties.TOTAL_MASS, mass);
+	}
+	
+	/**
+	 * Sets the states and controls described by the unknowns in x for a condition, and calculates the residuals of the trim there
+	 * 
+	 * @param condition
+	 * @param x unknowns
+	 * @param r array to write residuals into
+	 * @return sum of squared residuals, or infinity if any is not a number
+	 */
+	private double evaluate(TrimCondition condition, double[] x, double[] r) {
+		final double airspeed = condition.getAirspeed();
+		final double alpha = x[ALPHA], beta = x[BETA], phi = x[PHI];
+		final double sinGamma = Math.sin(condition.getFlightPathAngle());
+		
+		// Pitch attitude satisfying the flight path angle constraint
+		double a = Math.cos(alpha) * Math.cos(beta);
+		double b = Math.sin(phi) * Math.sin(beta) + Math.cos(phi) * Math.sin(alpha) * Math.cos(beta);
+		double theta = Math.atan((a*b + sinGamma*Math.sqrt(a*a - sinGamma*sinGamma + b*b)) / (a*a - sinGamma*sinGamma));
+		
+		// Body rates of a steady turn
+		double turnRate = condition.getTurnRate();
+		
+		System.arraycopy(baseStates, 0, y, 0, y.length);
+		y[0]  = airspeed * Math.cos(alpha) * Math.cos(beta);
+		y[1]  = airspeed * Math.sin(beta);
+		y[2]  = airspeed * Math.sin(alpha) * Math.cos(beta);
+		y[5]  = condition.getAltitude();
+		y[6]  = phi;
+		y[7]  = theta;
+		y[9]  = -turnRate * Math.sin(theta);
+		y[10] =  turnRate * Math.sin(phi) * Math.cos(theta);
+		y[11] =  turnRate * Math.cos(phi) * Math.cos(theta);
+		
+		setControls(condition, x);
+		
+		model.calculateDerivatives(y, controls, 0.0, yDot);
+		
+		r[0] = yDot[0];
+		r[1] = yDot[1];
+		r[2] = yDot[2];
+		r[3] = yDot[9];
+		r[4] = yDot[10];
+		r[5] = yDot[11];
+		r[6] = condition.isCoordinated() ? model.getLinearAccelerations()[1] : beta - condition.getSideslip();
+		
+		double cost = 0;
+		for (double residual : r)
+			cost += residual * residual;
+		
+		return Double.isNaN(cost) ? Double.POSITIVE_INFINITY : cost;
+	}
+	
+	/**
+	 * Sets the controls described by the unknowns in x for a condition
+	 * 
+	 * @param condition
+	 * @param x unknowns
+	 */
+	private void setControls(TrimCondition condition, double[] x) {
+		controlsState.set(FlightControl.ELEVATOR, x[ELEVATOR]);
+		controlsState.set(FlightControl.AILERON,  x[AILERON]);
+		controlsState.set(FlightControl.RUDDER,   x[RUDDER]);
+		controlsState.set(FlightControl.FLAPS,    condition.getFlaps());
+		for (FlightControl throttle : throttles)
+			controlsState.set(throttle, x[THROTTLE]);
+		controls.update(controlsState);
+	}
+	
+	/**
+	 * Calculates the Jacobian of the residuals with respect to the unknowns at x exactly, by evaluating the residuals as 
+	 * {@link TrimSolver#evaluate(TrimCondition, double[], double[])} does with {@link Dual}s, whose variables are the unknowns
+	 * 
+	 * @param condition
+	 * @param x unknowns
+	 */
+	private void calculateJacobian(TrimCondition condition, double[] x) {
+		final double airspeed = condition.getAirspeed();
+		final Dual alpha = Dual.variable(x[ALPHA], ALPHA, UNKNOWNS);
+		final Dual beta  = Dual.variable(x[BETA],  BETA,  UNKNOWNS);
+		final Dual phi   = Dual.variable(x[PHI],   PHI,   UNKNOWNS);
+		final double sinGamma = Math.sin(condition.getFlightPathAngle());
+		
+		// Pitch attitude satisfying the flight path angle constraint
+		Dual a = alpha.cos().multiply(beta.cos());
+		Dual b = phi.sin().multiply(beta.sin()).add(phi.cos().multiply(alpha.sin()).multiply(beta.cos()));
+		Dual denominator = a.multiply(a).subtract(sinGamma*sinGamma);
+		Dual theta = a.multiply(b).add(denominator.add(b.multiply(b)).sqrt().multiply(sinGamma)).divide(denominator).atan();
+		
+		// Body rates of a steady turn
+		double turnRate = condition.getTurnRate();
+		
+		for (int i = 0; i < dualStates.length; i++)
+			dualStates[i] = Dual.constant(baseStates[i], UNKNOWNS);
+		dualStates[0]  = a.multiply(airspeed);
+		dualStates[1]  = beta.sin().multiply(airspeed);
+		dualStates[2]  = alpha.sin().multiply(beta.cos()).multiply(airspeed);
+		dualStates[5]  = Dual.constant(condition.getAltitude(), UNKNOWNS);
+		dualStates[6]  = phi;
+		dualStates[7]  = theta;
+		dualStates[9]  = theta.sin().multiply(-turnRate);
+		dualStates[10] = phi.sin().multiply(theta.cos()).multiply(turnRate);
+		dualStates[11] = phi.cos().multiply(theta.cos()).multiply(turnRate);
+		
+		setControls(condition, x);
+		for (FlightControl control : FlightControl.values())
+			dualControls[control.ordinal()] = Dual.constant(controls.get(control), UNKNOWNS);
+		dualControls[FlightControl.ELEVATOR.ordinal()] = Dual.variable(controls.get(FlightControl.ELEVATOR), ELEVATOR, UNKNOWNS);
+		dualControls[FlightControl.AILERON.ordinal()]  = Dual.variable(controls.get(FlightControl.AILERON),  AILERON,  UNKNOWNS);
+		dualControls[FlightControl.RUDDER.ordinal()]   = Dual.variable(controls.get(FlightControl.RUDDER),   RUDDER,   UNKNOWNS);
+		Dual throttle = Dual.variable(x[THROTTLE], THROTTLE, UNKNOWNS);
+		for (FlightControl control : throttles)
+			dualControls[control.ordinal()] = throttle;
+		
+		model.calculateDerivatives(dualStates, dualControls, Dual.constant(0.0, UNKNOWNS), dualDerivatives);
+		
+		dualResiduals[0] = dualDerivatives[0];
+		dualResiduals[1] = dualDerivatives[1];
+		dualResiduals[2] = dualDerivatives[2];
+		dualResiduals[3] = dualDerivatives[9];
+		dualResiduals[4] = dualDerivatives[10];
+		dualResiduals[5] = dualDerivatives[11];
+		dualResiduals[6] = condition.isCoordinated() ? model.getDualLinearAccelerations()[1] : beta;
+		
+		for (int i = 0; i < RESIDUALS; i++) {
+			for (int j = 0; j < UNKNOWNS; j++)
+				jacobian[i][j] = dualResiduals[i].getDerivative(j);
+		}
+	}
+	
+	/**
+	 * Solves the damped normal equations (J'J + damping*diag(J'J))dx = -J'r for the step dx by Gaussian elimination with partial pivoting
+	 * 
+	 * @param damping
+	 */
+	private void solveDamped(double damping) {
+		double[][] m = augmented;
+		
+		for (int i = 0; i < UNKNOWNS; i++) {
+			System.arraycopy(normalMatrix[i], 0, m[i], 0, UNKNOWNS);
+			m[i][i] += damping * Math.max(normalMatrix[i][i], 1e-12);
+			m[i][UNKNOWNS] = -gradient[i];
+		}
+		
+		for (int col = 0; col < UNKNOWNS; col++) {
+			int pivot = col;
+			for (int row = col + 1; row < UNKNOWNS; row++) {
+				if (Math.abs(m[row][col]) > Math.abs(m[pivot][col]))
+					pivot = row;
+			}
+			
+			double[] swap = m[col]; m[col] = m[pivot]; m[pivot] = swap;
+			
+			for (int row = col + 1; row < UNKNOWNS; row++) {
+				double factor = m[row][col] / m[col][col];
+				for (int k = col; k <= UNKNOWNS; k++)
+					m[row][k] -= factor * m[col][k];
+			}
+		}
+		
+		for (int row = UNKNOWNS - 1; row >= 0; row--) {
+			double sum = m[row][UNKNOWNS];
+			for (int k = row + 1; k < UNKNOWNS; k++)
+				sum -= m[row][k] * step[k];
+			step[row] = sum / m[row][row];
+		}
+	}
+	
+	/**
+	 * Keeps each unknown within the limits of its control or a realistic attitude
+	 * 
+	 * @param x unknowns
+	 */
+	private static void limit(double[] x) {
+		for (int i = 0; i < UNKNOWNS; i++)
+			x[i] = Math.max(LOWER_LIMITS[i], Math.min(UPPER_LIMITS[i], x[i]));
+	}
+	
+	private static double maxAbs(double[] values) {
+		double max = 0;
+		for (double value : values)
+			max = Math.max(max, Math.abs(value));
+		
+		return max;
+	}
+}
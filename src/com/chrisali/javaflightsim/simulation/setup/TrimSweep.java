@@ -0,0 +1,190 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.setup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.chrisali.javaflightsim.simulation.SimulationContext;
+
+/**
+ * Trims a grid of airspeed, altitude, weight and flap settings about a base {@link TrimCondition}, which supplies the flight path angle, 
+ * turn rate and sideslip of every point. The grid is split into lines of increasing airspeed, one for each combination of the other axes, 
+ * and each line is trimmed on an {@link ExecutorService} by a {@link TrimSolver} belonging to the thread running it. Every point of 
+ * a line is warm started from the last one trimmed before it, so that most points converge in only a few iterations. If given a 
+ * {@link TrimCache}, points already in it are not solved again, and the cache is saved once the sweep is complete
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class TrimSweep {
+	
+	private static final Logger logger = LogManager.getLogger(TrimSweep.class);
+	
+	private final SimulationConfiguration configuration;
+	private final TrimCondition baseCondition;
+	
+	private double[] airspeeds;
+	private double[] altitudes;
+	private double[] weights;
+	private double[] flaps;
+	
+	private ExecutorService executor;
+	private TrimCache cache;
+	
+	/**
+	 * Creates a sweep of a single point, the base condition, trimming the aircraft selected in configuration. Axes of the grid
+	 * are added with {@link TrimSweep#setAirspeeds(double...)}, {@link TrimSweep#setAltitudes(double...)}, 
+	 * {@link TrimSweep#setWeights(double...)} and {@link TrimSweep#setFlaps(double...)}
+	 * 
+	 * @param configuration
+	 * @param baseCondition
+	 */
+	public TrimSweep(SimulationConfiguration configuration, TrimCondition baseCondition) {
+		this.configuration = configuration;
+		this.baseCondition = baseCondition;
+		
+		airspeeds = new double[] {baseCondition.getAirspeed()};
+		altitudes = new double[] {baseCondition.getAltitude()};
+		weights   = new double[] {baseCondition.getWeight()};
+		flaps 	  = new double[] {baseCondition.getFlaps()};
+	}
+	
+	/**
+	 * @param airspeeds true airspeeds (ft/sec) to trim at, sorted so that neighbouring points warm start each other
+	 */
+	public void setAirspeeds(double... airspeeds) { this.airspeeds = airspeeds.clone(); Arrays.sort(this.airspeeds); }
+	
+	/**
+	 * @param altitudes (ft)
+	 */
+	public void setAltitudes(double... altitudes) { this.altitudes = altitudes.clone(); }
+	
+	/**
+	 * @param weights total weights of the aircraft (lbf)
+	 */
+	public void setWeights(double... weights) { this.weights = weights.clone(); }
+	
+	/**
+	 * @param flaps flap deflections (rad)
+	 */
+	public void setFlaps(double... flaps) { this.flaps = flaps.clone(); }
+	
+	/**
+	 * Sets the executor used to trim lines of the grid. It is not shut down by this sweep; if none is set, a {@link ForkJoinPool} 
+	 * using all available processors is created and shut down for each call of {@link TrimSweep#run()}
+	 * 
+	 * @param executor
+	 */
+	public void setExecutor(ExecutorService executor) { this.executor = executor; }
+	
+	/**
+	 * @param cache cache of the aircraft being swept, or null to solve every point
+	 */
+	public void setCache(TrimCache cache) { this.cache = cache; }
+	
+	/**
+	 * @return number of points in the grid
+	 */
+	public int size() { return airspeeds.length * altitudes.length * weights.length * flaps.length; }
+	
+	/**
+	 * Trims every point of the grid
+	 * 
+	 * @return result of each point, ordered by flaps, then weight, then altitude, then airspeed, which varies fastest; a point 
+	 * whose line could not be trimmed is null
+	 * @throws InterruptedException if interrupted while waiting for the grid to be trimmed
+	 */
+	public List<TrimResult> run() throws InterruptedException {
+		ExecutorService service = (executor != null) ? executor : new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+		TrimResult[] results = new TrimResult[size()];
+		
+		// Contexts are not thread-safe, so each thread trims with a solver of its own
+		ThreadLocal<TrimSolver> solvers = ThreadLocal.withInitial(() -> 
+			new TrimSolver(new SimulationContext(new SimulationConfiguration(configuration))));
+		
+		List<Callable<Void>> lines = new ArrayList<>();
+		for (int line = 0; line < results.length / airspeeds.length; line++) {
+			final int firstPoint = line * airspeeds.length;
+			
+			lines.add(() -> {
+				trimLine(solvers::get, firstPoint, results);
+				return null;
+			});
+		}
+		
+		logger.debug("Trimming " + results.length + " points in " + lines.size() + " lines...");
+		
+		try {
+			for (Future<Void> line : service.invokeAll(lines)) {
+				try {
+					line.get();
+				} catch (ExecutionException e) {
+					logger.error("Trim sweep line could not be completed!", e.getCause());
+				}
+			}
+		} finally {
+			if (executor == null)
+				service.shutdownNow();
+		}
+		
+		if (cache != null)
+			cache.save();
+		
+		logger.debug("...done!");
+		
+		return Arrays.asList(results);
+	}
+	
+	/**
+	 * Trims each airspeed of the line starting at firstPoint, warm starting each point from the last one that converged
+	 * 
+	 * @param solvers supplies the solver of the thread running the line, created only when a point is not cached
+	 * @param firstPoint index of the line's lowest airspeed in results
+	 * @param results
+	 */
+	private void trimLine(Supplier<TrimSolver> solvers, int firstPoint, TrimResult[] results) {
+		int line = firstPoint / airspeeds.length;
+		double altitude = altitudes[line % altitudes.length];
+		double weight 	= weights[(line / altitudes.length) % weights.length];
+		double flap 	= flaps[line / (altitudes.length * weights.length)];
+		
+		TrimResult warmStart = null;
+		for (int i = 0; i < airspeeds.length; i++) {
+			TrimCondition condition = new TrimCondition(airspeeds[i], altitude, baseCondition.getFlightPathAngle(), 
+														baseCondition.getTurnRate(), baseCondition.getSideslip(), weight, flap);
+			
+			TrimResult result = results[firstPoint + i] = (cache != null) ? cache.trim(solvers, condition, warmStart) 
+																		  : solvers.get().trim(condition, warmStart);
+			if (result.isConverged())
+				warmStart = result;
+		}
+	}
+}
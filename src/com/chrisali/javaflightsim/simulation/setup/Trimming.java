@@ -19,52 +19,110 @@
  ******************************************************************************/
 package com.chrisali.javaflightsim.simulation.setup;
 
+import java.io.File;
 import java.util.EnumMap;
-import java.util.Map;
-import java.util.Set;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import com.chrisali.javaflightsim.simulation.aircraft.Aerodynamics;
-import com.chrisali.javaflightsim.simulation.aircraft.Aircraft;
-import com.chrisali.javaflightsim.simulation.aircraft.MassProperties;
-import com.chrisali.javaflightsim.simulation.aircraft.StabilityDerivatives;
-import com.chrisali.javaflightsim.simulation.aircraft.WingGeometry;
-import com.chrisali.javaflightsim.simulation.enviroment.Environment;
-import com.chrisali.javaflightsim.simulation.enviroment.EnvironmentParameters;
+import com.chrisali.javaflightsim.simulation.SimulationContext;
 import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControl;
-import com.chrisali.javaflightsim.simulation.propulsion.Engine;
-import com.chrisali.javaflightsim.simulation.utilities.FileUtilities;
+import com.chrisali.javaflightsim.simulation.utilities.SimDirectories;
 
 /**
- * Simple rudimentary method of longitudinally trimming an aircraft by statically equating forces and moments.
- * This calculates trim deflections of throttle and elevator needed for level flight. For trim pitch, flight path
- * angle and angle of attack are considered by using the following equation:
- * 
- *  <p>Angle of Attack = Pitch Angle + Flight Path Angle</p>
+ * Trims an aircraft for the initial conditions of its {@link SimulationConfiguration}, or any other {@link TrimCondition}, and updates 
+ * the configuration's initial conditions and initial controls with the result. Trim states and controls are found by a {@link TrimSolver}, 
+ * which zeroes the accelerations of the full 6DOF equations, so that climbs, descents, turns and sideslips can be trimmed as well as 
+ * wings level cruise. If given a {@link TrimCache}, conditions trimmed before are looked up in it, and the aircraft is only read
+ * if the condition needs to be solved
  * 
  * @author Christopher Ali
- * @see Principles of Flight Simulation - David Allerton (pp 170-1)
+ * @see TrimSolver
  */
 public class Trimming {
 	
 	private static final Logger logger = LogManager.getLogger(Trimming.class);
 	
-	private static EnumMap<InitialConditions, Double> initialConditions;
-	private static EnumMap<FlightControl, Double> initialControls;
-	private static Map<EnvironmentParameters, Double> environmentParams;
-	private static Aircraft aircraft;
-	private static Aerodynamics aero;
+	// States set by a trim; position and heading are left as configured
+	private static final InitialConditions[] TRIMMED_STATES = {InitialConditions.INITU, InitialConditions.INITV, InitialConditions.INITW, 
+															   InitialConditions.INITD, InitialConditions.INITPHI, InitialConditions.INITTHETA, 
+															   InitialConditions.INITP, InitialConditions.INITQ, InitialConditions.INITR};
+	
+	private static final FlightControl[] TRIMMED_CONTROLS = {FlightControl.ELEVATOR, FlightControl.AILERON, FlightControl.RUDDER, 
+															 FlightControl.THROTTLE_1, FlightControl.THROTTLE_2, FlightControl.THROTTLE_3, 
+															 FlightControl.THROTTLE_4, FlightControl.FLAPS};
+	
+	private SimulationConfiguration configuration;
+	private EnumMap<InitialConditions, Double> initialConditions;
+	private EnumMap<FlightControl, Double> initialControls;
+	private SimulationContext context;
+	private TrimSolver solver;
+	private TrimCache cache;
+	
+	/**
+	 * Creates a Trimming object that trims the aircraft of a {@link SimulationContext} in its environment
+	 * 
+	 * @param context
+	 */
+	public Trimming(SimulationContext context) {
+		this.configuration = context.getConfiguration();
+		this.context = context;
+	}
+	
+	/**
+	 * Creates a Trimming object that trims the aircraft selected in a {@link SimulationConfiguration}, using a {@link TrimCache}
+	 * before solving a condition in a new {@link SimulationContext} of its own
+	 * 
+	 * @param configuration
+	 * @param cache
+	 */
+	public Trimming(SimulationConfiguration configuration, TrimCache cache) {
+		this.configuration = configuration;
+		this.cache = cache;
+	}
+	
+	/**
+	 * Trims the aircraft selected in a {@link SimulationConfiguration}. Outside of test mode, the trim is looked up in, or added to, 
+	 * the aircraft's {@link TrimCache} in the TrimCache directory; in test mode it is always solved in a new {@link SimulationContext}
+	 * 
+	 * @param configuration
+	 * @param testMode
+	 * @see Trimming#trim(boolean)
+	 */
+	public static void trimSim(SimulationConfiguration configuration, boolean testMode) {
+		if (testMode)
+			new Trimming(new SimulationContext(configuration)).trim(testMode);
+		else
+			new Trimming(configuration, new TrimCache(new File(SimDirectories.TRIM_CACHE.toString()), configuration)).trim(testMode);
+	}
 	
 	/**
-	 * Trims an aircraft longitudinally for a forward velocity and altitude specified in 
+	 * Trims an aircraft in wings level, unaccelerated flight at the airspeed, altitude and flap setting specified in 
 	 * 
 	 * <p> SimConfig/InitialConditions.txt </p>
 	 * 
-	 * by setting the elevator, throttle and pitch attitude. These values are calculated by statically equating forces and moments.
-	 * If unable to reach a given trim condition, the method will return the maximum values for each control and pitch attitude.
-	 * These values are then saved to 
+	 * @param testMode
+	 * @return trim states and controls
+	 * @see Trimming#trim(TrimCondition, boolean)
+	 */
+	public TrimResult trim(boolean testMode) {
+		EnumMap<InitialConditions, Double> currentConditions = configuration.getInitialConditions();
+		
+		double trueAirspeed = Math.sqrt(Math.pow(currentConditions.get(InitialConditions.INITU), 2) +
+										Math.pow(currentConditions.get(InitialConditions.INITV), 2) +
+				  			  			Math.pow(currentConditions.get(InitialConditions.INITW), 2));
+		
+		// Rounded so that the velocities of a previous trim give exactly the same condition, and it can be found in the cache
+		trueAirspeed = Math.round(trueAirspeed * 1e6) / 1e6;
+		
+		return trim(new TrimCondition(trueAirspeed, currentConditions.get(InitialConditions.INITD), 0.0, 0.0, 0.0, Double.NaN, 
+									  configuration.getInitialControls().get(FlightControl.FLAPS)), testMode);
+	}
+	
+	/**
+	 * Trims an aircraft in a {@link TrimCondition}, setting its velocities, altitude, attitude, body rates, elevator, aileron, rudder, 
+	 * throttle and flaps. If unable to reach the trim condition, the best estimate found is used. If any of these values have changed, 
+	 * they are then saved to 
 	 * 
 	 * <p> SimConfig/InitialConditions.txt </p>
 	 * and 
@@ -72,166 +130,80 @@ public class Trimming {
 	 * 
 	 * as long as the test mode boolean flag is false; otherwise the results will be displayed in the console
 	 * 
-	 * @param configuration
+	 * @param condition
 	 * @param testMode
+	 * @return trim states and controls
 	 */
-	public static void trimSim(SimulationConfiguration configuration, boolean testMode) {
-		Aircraft aircraft = FileUtilities.readAircraftConfiguration(configuration.getSelectedAircraft());
-		aero = new Aerodynamics(aircraft);
-		
-		initialConditions = configuration.getInitialConditions();
-		initialControls = configuration.getInitialControls();
-		
-		environmentParams = Environment.getAndUpdateEnvironmentParams(new double[]{0,0,initialConditions.get(InitialConditions.INITD)});
-		
-		double alphaMin = -0.18, alphaMax = 0.18, throttleMin = 0.0, throttleMax = 1.0,
-			   alphaTrim = 0.0, thetaTrim = 0.0, elevTrim = 0.0, throttleTrim = 0.0, wVelocityTrim = 0.0, 
-			   lift = 0.0, drag = 0.0, totalThrust = 0.0, zForce = 100.0;
-		
-		double trueAirspeed = Math.sqrt(Math.pow(initialConditions.get(InitialConditions.INITU), 2) +
-				  			  			Math.pow(initialConditions.get(InitialConditions.INITW), 2));
-		
-		double weight = aircraft.getMassProperty(MassProperties.TOTAL_MASS) * Environment.getGravity();
-		double q = environmentParams.get(EnvironmentParameters.RHO)*Math.pow(trueAirspeed, 2)/2;
-		double s = aircraft.getWingGeometry(WingGeometry.S_WING);
-		
-		int counter = 0;
-		
-		logger.debug("Finding trim pitch and elevator...");
-		
-		do {
-			alphaTrim = (alphaMin + alphaMax) / 2;
-			
-			// Break out of loop if trim condition not satisfied after 100 attempts
-			if(counter == 100) {
-				logger.error("Unable to trim elevator and pitch for given conditions!");
-				
-				break;
-			}
-		
-			//=============================================== Pitch ================================================================
-			
-			// Calculate trim pitch by using (theta = alpha + FPA)
-			thetaTrim = alphaTrim + 0; // FPA is zero in level flight
-			
-			double[] windParameters = new double[] {trueAirspeed, 0, alphaTrim};
-			
-			double CL_alpha = aero.calculateInterpStabDer(windParameters, initialControls, StabilityDerivatives.CL_ALPHA);
-			double CL_0 = aero.calculateInterpStabDer(windParameters, initialControls, StabilityDerivatives.CL_0);
-			
-			lift = q * s * ((CL_alpha * alphaTrim) + CL_0);
-			
-			double CD_alpha = aero.calculateInterpStabDer(windParameters, initialControls, StabilityDerivatives.CD_ALPHA);
-			double CD_0 = aero.calculateInterpStabDer(windParameters, initialControls, StabilityDerivatives.CD_0);
-			
-			drag = q * s * ((CD_alpha * alphaTrim) + CD_0);
-			
-			// Calculate zForce to find trim alpha to zero forces
-			zForce = (-lift * Math.cos(alphaTrim)) - (drag * Math.sin(alphaTrim)) + (weight * Math.cos(thetaTrim));
-			
-			if (zForce  > 0)
-				alphaMin = alphaTrim;
-			else
-				alphaMax = alphaTrim;
-					
-			// Recalculate w velocity for new angle of attack
-			wVelocityTrim = windParameters[0] * Math.sin(alphaTrim);
-			
-			//==================================================== Elevator ========================================================
-			
-			// Calculate trim elevator, limiting if necessary
-			double CM_alpha = aero.calculateInterpStabDer(windParameters, initialControls, StabilityDerivatives.CM_ALPHA);
-			double CM_d_elev = aircraft.getStabilityDerivative(StabilityDerivatives.CM_D_ELEV).getValue();
-			double CM_0 = aircraft.getStabilityDerivative(StabilityDerivatives.CM_0).getValue();
-			
-			elevTrim = (CM_0 + (CM_alpha * alphaTrim)) / CM_d_elev;
-			elevTrim = elevTrim > FlightControl.ELEVATOR.getMaximum() ? FlightControl.ELEVATOR.getMaximum() : 
-					   elevTrim < FlightControl.ELEVATOR.getMinimum() ? FlightControl.ELEVATOR.getMinimum() : elevTrim;
-					   
-			counter++;
-					   
-		} while (Math.abs(zForce) > 1);
-		
-		logger.debug("...done!");
-
-		//==================================================== Throttle ============================================================
-		
-		Set<Engine> engines = aircraft.getEngines();
-		
-		drag = (drag * Math.cos(alphaTrim)) - (lift * Math.sin(alphaTrim)) + (weight * Math.sin(thetaTrim));
+	public TrimResult trim(TrimCondition condition, boolean testMode) {
+		logger.debug("Trimming aircraft for " + condition + "...");
 		
-		counter = 0;
+		TrimResult result = (cache != null) ? cache.trim(this::getSolver, condition) : getSolver().trim(condition);
 		
-		logger.debug("Finding trim throttle...");
-		
-		do {
-			throttleTrim = (throttleMin + throttleMax) / 2;
-			
-			// Break out of loop if trim condition not satisfied after 100 attempts
-			if(counter == 100) {
-				logger.error("Unable to trim throttle for given conditions!");
-				
-				break;
-			}
-			
-			initialControls.put(FlightControl.THROTTLE_1, throttleTrim);
-			initialControls.put(FlightControl.THROTTLE_2, throttleTrim);
-			initialControls.put(FlightControl.THROTTLE_3, throttleTrim);
-			initialControls.put(FlightControl.THROTTLE_4, throttleTrim);
-			
-			// Get total thrust, equate it with drag of aircraft to find trim throttle
-			totalThrust = 0.0;
-			for (Engine engine : engines) {
-				engine.updateEngineState(initialControls, environmentParams, new double[]{trueAirspeed,0,0});
-				totalThrust += engine.getEngineThrust()[0];
-			}
-			
-			if (totalThrust < drag)
-				throttleMin = throttleTrim;
-			else
-				throttleMax = throttleTrim;
-			
-			counter++;
-			
-		} while (Math.abs(totalThrust - drag) > 1);
-		
-		logger.debug("...done!");
+		if (!result.isConverged())
+			logger.error("Unable to trim aircraft for given conditions! Largest residual is " + result.getResidual());
 		
 		// Update initialControls and initialConditions
-		initialConditions.put(InitialConditions.INITTHETA, thetaTrim);
-		initialConditions.put(InitialConditions.INITW, wVelocityTrim);
+		initialConditions = configuration.getInitialConditions();
+		initialControls = configuration.getInitialControls();
 		
-		initialControls.put(FlightControl.ELEVATOR, -elevTrim);
-		initialControls.put(FlightControl.AILERON, 0.0);
-		initialControls.put(FlightControl.RUDDER, 0.0);
+		boolean changed = false;
+		for (InitialConditions state : TRIMMED_STATES)
+			changed |= !Double.valueOf(result.getState(state)).equals(initialConditions.put(state, result.getState(state)));
+		for (FlightControl control : TRIMMED_CONTROLS)
+			changed |= !Double.valueOf(result.getControl(control)).equals(initialControls.put(control, result.getControl(control)));
 		
 		logger.debug("Finished trimming aircraft!");
-		logger.debug(String.format("Trim controls are: \nElevator: %.4f rad\nThrottle: %.4f", elevTrim, throttleTrim));
-		logger.debug(String.format("Trim states are: \nW Velocity: %3.4f ft/sec\nTheta: %.4f rad\nAlpha: %.4f rad", wVelocityTrim, thetaTrim, alphaTrim));
+		logger.debug(result);
 		
 		// In test mode do not write any config settings to files
 		if (!testMode) {
-			logger.debug("Updating initial conditions and initial flight controls...");
-			configuration.setInitialConditions(initialConditions);
-			configuration.setInitialControls(initialControls);
-			configuration.save();
+			if (changed) {
+				logger.debug("Updating initial conditions and initial flight controls...");
+				configuration.setInitialConditions(initialConditions);
+				configuration.setInitialControls(initialControls);
+				configuration.save();
+			}
+			
+			if (cache != null)
+				cache.save();
 		} else {
-			logger.debug(Trimming.outputTrimValues());
+			logger.debug(outputTrimValues());
 		}
+		
+		return result;
 	}
 	
-	public static String outputTrimValues() {
+	/**
+	 * @return solver of this object's context, created along with the context if needed
+	 */
+	private TrimSolver getSolver() {
+		if (solver == null) {
+			if (context == null)
+				context = new SimulationContext(configuration);
+			
+			solver = new TrimSolver(context);
+		}
+		
+		return solver;
+	}
+	
+	public String outputTrimValues() {
 		StringBuilder sb = new StringBuilder();
 		
 		sb.append("======================\n");
-		sb.append(aircraft.getName()).append(" Trim Values:\n");
+		sb.append(configuration.getSelectedAircraft()).append(" Trim Values:\n");
 		sb.append("======================\n\n");
 		
-		sb.append(InitialConditions.INITTHETA.toString()).append(": ").append(initialConditions.get(InitialConditions.INITTHETA)).append("\n\n");
-		
+		sb.append(InitialConditions.INITU.toString()).append(": ").append(initialConditions.get(InitialConditions.INITU)).append("\n");
+		sb.append(InitialConditions.INITV.toString()).append(": ").append(initialConditions.get(InitialConditions.INITV)).append("\n");
 		sb.append(InitialConditions.INITW.toString()).append(": ").append(initialConditions.get(InitialConditions.INITW)).append("\n\n");
+		
+		sb.append(InitialConditions.INITPHI.toString()).append(": ").append(initialConditions.get(InitialConditions.INITPHI)).append("\n");
+		sb.append(InitialConditions.INITTHETA.toString()).append(": ").append(initialConditions.get(InitialConditions.INITTHETA)).append("\n\n");
 	
-		sb.append(FlightControl.ELEVATOR.toString()).append(": ").append(initialControls.get(FlightControl.ELEVATOR)).append("\n\n");
+		sb.append(FlightControl.ELEVATOR.toString()).append(": ").append(initialControls.get(FlightControl.ELEVATOR)).append("\n");
+		sb.append(FlightControl.AILERON.toString()).append(": ").append(initialControls.get(FlightControl.AILERON)).append("\n");
+		sb.append(FlightControl.RUDDER.toString()).append(": ").append(initialControls.get(FlightControl.RUDDER)).append("\n\n");
 		sb.append(FlightControl.THROTTLE_1.toString()).append(": ").append(initialControls.get(FlightControl.THROTTLE_1)).append("\n");
 		sb.append(FlightControl.THROTTLE_2.toString()).append(": ").append(initialControls.get(FlightControl.THROTTLE_2)).append("\n");
 		sb.append(FlightControl.THROTTLE_3.toString()).append(": ").append(initialControls.get(FlightControl.THROTTLE_3)).append("\n");
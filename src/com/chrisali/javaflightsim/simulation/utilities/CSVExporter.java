@@ -0,0 +1,253 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.utilities;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.chrisali.javaflightsim.simulation.integration.SimOutRingBuffer;
+import com.chrisali.javaflightsim.simulation.integration.SimOuts;
+import com.chrisali.javaflightsim.simulation.recording.FlightRecording;
+
+/**
+ * Exports simulation output to CSV files. Rows are formatted with a {@link DoubleFormatter} straight into a large byte buffer that is 
+ * written out in chunks, so that exporting creates almost no garbage. Exports can be limited to a selection of {@link SimOuts} channels 
+ * and decimated to every n-th step, and can run on a background thread so that neither the UI nor the simulation wait on them; 
+ * progress is reported to an optional {@link ExportProgressListener}
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class CSVExporter {
+	
+	private static final Logger logger = LogManager.getLogger(CSVExporter.class);
+	
+	public static final int DEFAULT_SIGNIFICANT_DIGITS = 10;
+	
+	private static final int CHUNK_BYTES = 1 << 20;
+	
+	// Exports run one at a time on a daemon thread, so that they never keep the application open
+	private static final ExecutorService exportExecutor = Executors.newSingleThreadExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "CSV Export");
+		thread.setDaemon(true);
+		return thread;
+	});
+	
+	private SimOuts[] channels = SimOuts.values();
+	private int decimation = 1;
+	private DoubleFormatter formatter = new DoubleFormatter(DEFAULT_SIGNIFICANT_DIGITS);
+	private ExportProgressListener progressListener;
+	
+	/**
+	 * Source of rows of values to export
+	 */
+	private interface RowSource {
+		long getRows();
+		
+		int getColumns();
+		
+		double get(long row, int column);
+	}
+	
+	/**
+	 * @param channels channels to export, in {@link SimOuts} order; all are exported by default
+	 */
+	public void setChannels(Set<SimOuts> channels) {
+		if (channels.isEmpty())
+			throw new IllegalArgumentException("At least one channel must be exported!");
+		
+		this.channels = EnumSet.copyOf(channels).toArray(new SimOuts[channels.size()]);
+	}
+	
+	/**
+	 * @param decimation exports every decimation-th step, starting with the first; 1 by default
+	 */
+	public void setDecimation(int decimation) {
+		if (decimation < 1)
+			throw new IllegalArgumentException("Decimation must be at least 1!");
+		
+		this.decimation = decimation;
+	}
+	
+	/**
+	 * @param significantDigits significant digits of each value exported; {@link CSVExporter#DEFAULT_SIGNIFICANT_DIGITS} by default
+	 */
+	public void setSignificantDigits(int significantDigits) { formatter = new DoubleFormatter(significantDigits); }
+	
+	public void setProgressListener(ExportProgressListener progressListener) { this.progressListener = progressListener; }
+	
+	/**
+	 * Takes a consistent snapshot of logsOut on the calling thread, then writes it to file on a background thread
+	 * 
+	 * @param logsOut
+	 * @param file
+	 * @return Future that completes when the export does
+	 */
+	public Future<?> exportAsync(SimOutRingBuffer logsOut, File file) {
+		RowSource rows = snapshot(logsOut);
+		String header = createHeader();
+		DoubleFormatter formatter = this.formatter;
+		ExportProgressListener progressListener = this.progressListener;
+		
+		return exportExecutor.submit(() -> exportAndReport(header, rows, file, formatter, progressListener));
+	}
+	
+	/**
+	 * Writes a flight recording to file on a background thread, reading it straight from its segment files
+	 * 
+	 * @param recording
+	 * @param file
+	 * @return Future that completes when the export does
+	 */
+	public Future<?> exportAsync(FlightRecording recording, File file) {
+		RowSource rows = rowsOf(recording);
+		String header = createHeader();
+		DoubleFormatter formatter = this.formatter;
+		ExportProgressListener progressListener = this.progressListener;
+		
+		return exportExecutor.submit(() -> exportAndReport(header, rows, file, formatter, progressListener));
+	}
+	
+	/**
+	 * Takes a consistent snapshot of logsOut and writes it to file on the calling thread
+	 * 
+	 * @param logsOut
+	 * @param file
+	 * @throws IOException
+	 */
+	public void export(SimOutRingBuffer logsOut, File file) throws IOException {
+		write(createHeader(), snapshot(logsOut), file, formatter, progressListener);
+	}
+	
+	private void exportAndReport(String header, RowSource rows, File file, DoubleFormatter formatter, ExportProgressListener progressListener) {
+		IOException error = null;
+		
+		try {
+			write(header, rows, file, formatter, progressListener);
+		} catch (IOException e) {
+			logger.error("Unable to export CSV file!", e);
+			error = e;
+		}
+		
+		if (progressListener != null)
+			progressListener.onExportFinished(file, error);
+	}
+	
+	/**
+	 * @return header line naming each channel exported
+	 */
+	private String createHeader() {
+		StringBuilder sb = new StringBuilder();
+		
+		for (int i = 0; i < channels.length; i++)
+			sb.append(channels[i].toString()).append(i < channels.length - 1 ? "," : "\n");
+		
+		return sb.toString();
+	}
+	
+	private RowSource snapshot(SimOutRingBuffer logsOut) {
+		double[][] columns = logsOut.copyColumns(channels, decimation);
+		
+		return new RowSource() {
+			@Override
+			public long getRows() { return columns[0].length; }
+			
+			@Override
+			public int getColumns() { return columns.length; }
+
+			@Override
+			public double get(long row, int column) { return columns[column][(int) row]; }
+		};
+	}
+	
+	private RowSource rowsOf(FlightRecording recording) {
+		int[] channelIndices = new int[channels.length];
+		for (int i = 0; i < channels.length; i++) {
+			channelIndices[i] = recording.getChannelIndex(channels[i].name());
+			if (channelIndices[i] < 0)
+				throw new IllegalArgumentException(channels[i].name() + " was not recorded!");
+		}
+		
+		int decimation = this.decimation;
+		long rows = (recording.getSteps() + decimation - 1) / decimation;
+		
+		return new RowSource() {
+			@Override
+			public long getRows() { return rows; }
+			
+			@Override
+			public int getColumns() { return channelIndices.length; }
+
+			@Override
+			public double get(long row, int column) { return recording.get(row * decimation, channelIndices[column]); }
+		};
+	}
+	
+	/**
+	 * Formats rows into a buffer, writing it to file each time it fills
+	 */
+	private static void write(String header, RowSource rows, File file, DoubleFormatter formatter, ExportProgressListener progressListener) throws IOException {
+		logger.debug("Exporting CSV file to: " + file.getAbsolutePath());
+		
+		long totalRows = rows.getRows();
+		byte[] headerBytes = header.getBytes(StandardCharsets.UTF_8);
+		int columns = rows.getColumns();
+		
+		byte[] chunk = new byte[CHUNK_BYTES];
+		int position = 0;
+		
+		try (OutputStream out = new FileOutputStream(file)) {
+			out.write(headerBytes);
+			
+			for (long row = 0; row < totalRows; row++) {
+				if (position > CHUNK_BYTES - columns * (DoubleFormatter.MAX_LENGTH + 1)) {
+					out.write(chunk, 0, position);
+					position = 0;
+					
+					if (progressListener != null)
+						progressListener.onExportProgress(row, totalRows);
+				}
+				
+				for (int column = 0; column < columns; column++) {
+					position = formatter.format(rows.get(row, column), chunk, position);
+					chunk[position++] = (byte) (column < columns - 1 ? ',' : '\n');
+				}
+			}
+			
+			out.write(chunk, 0, position);
+		}
+		
+		if (progressListener != null)
+			progressListener.onExportProgress(totalRows, totalRows);
+		
+		logger.debug(file.getName() + " exported successfully!");
+	}
+}
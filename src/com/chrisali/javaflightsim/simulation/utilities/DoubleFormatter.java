@@ -0,0 +1,286 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.utilities;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+
+/**
+ * Formats doubles as ASCII text straight into a byte array, without creating any objects, for writing large amounts of numeric data 
+ * quickly. Values are rounded to a set number of significant digits and trailing zeros are dropped; like {@link Double#toString(double)}, 
+ * values of magnitude at least 10<sup>-3</sup> and less than 10<sup>7</sup> are written in plain decimal notation and all others in 
+ * computerized scientific notation (e.g. 1.5E-5)
+ * 
+ * <p>Rounding is exact (half up), so 17 significant digits always parse back to the same double. A value is scaled by an exactly 
+ * representable power of ten, and the rounding error of that product is recovered with Dekker's error-free product, so that digits 
+ * are never lost to double precision. Values too large or too small to be scaled that way, which are rare in simulation output, 
+ * are rounded with {@link BigDecimal} instead, which allocates</p>
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class DoubleFormatter {
+	
+	/**
+	 * Longest text a formatted value can take: sign, 17 digits, decimal point, exponent and padding zeros
+	 */
+	public static final int MAX_LENGTH = 32;
+	
+	private static final byte[] NAN 	 	= "NaN".getBytes();
+	private static final byte[] INFINITY 	= "Infinity".getBytes();
+	
+	private static final long[] POWERS_OF_TEN = new long[19];
+	
+	// Powers of ten that doubles represent exactly
+	private static final double[] EXACT_POWERS_OF_TEN = new double[23];
+	
+	// 2^27 + 1, which splits a double into two halves whose products are exact
+	private static final double SPLITTER = 134217729.0;
+	
+	static {
+		POWERS_OF_TEN[0] = 1;
+		for (int i = 1; i < POWERS_OF_TEN.length; i++)
+			POWERS_OF_TEN[i] = POWERS_OF_TEN[i-1] * 10;
+		
+		EXACT_POWERS_OF_TEN[0] = 1;
+		for (int i = 1; i < EXACT_POWERS_OF_TEN.length; i++)
+			EXACT_POWERS_OF_TEN[i] = EXACT_POWERS_OF_TEN[i-1] * 10;
+	}
+	
+	private final int significantDigits;
+	
+	private final MathContext mathContext;
+	
+	/**
+	 * @param significantDigits number of significant digits values are rounded to, from 1 to 17
+	 */
+	public DoubleFormatter(int significantDigits) {
+		if (significantDigits < 1 || significantDigits > 17)
+			throw new IllegalArgumentException("Significant digits must be between 1 and 17!");
+		
+		this.significantDigits = significantDigits;
+		this.mathContext = new MathContext(significantDigits, RoundingMode.HALF_UP);
+	}
+	
+	public int getSignificantDigits() { return significantDigits; }
+	
+	/**
+	 * Writes value as text into destination
+	 * 
+	 * @param value
+	 * @param destination
+	 * @param offset position in destination to start writing at; at least {@link DoubleFormatter#MAX_LENGTH} bytes must follow it
+	 * @return position in destination after the last byte written
+	 */
+	public int format(double value, byte[] destination, int offset) {
+		if (Double.isNaN(value))
+			return copy(NAN, destination, offset);
+		
+		if (value < 0 || (value == 0 && 1 / value < 0)) {
+			destination[offset++] = '-';
+			value = -value;
+		}
+		
+		if (Double.isInfinite(value))
+			return copy(INFINITY, destination, offset);
+		
+		if (value == 0) {
+			destination[offset++] = '0';
+			destination[offset++] = '.';
+			destination[offset++] = '0';
+			return offset;
+		}
+		
+		// Only an estimate, which may be one off near powers of ten; the rounded digits are checked against it 
+		int exponent = (int) Math.floor(Math.log10(value));
+		
+		if (value >= 1e-3 && value < 1e7)
+			return formatDecimal(value, exponent, destination, offset);
+		else
+			return formatScientific(value, exponent, destination, offset);
+	}
+	
+	/**
+	 * Writes a positive value in plain decimal notation
+	 */
+	private int formatDecimal(double value, int exponent, byte[] destination, int offset) {
+		int decimals = Math.max(0, significantDigits - 1 - exponent);
+		long scaled = roundScaled(value, decimals);
+		
+		// Correct an exponent that was estimated one too small, or one too large; a value just below a power of ten that was 
+		// estimated one too large rounds up to that power, so a single leading digit calls for a check with one more decimal
+		if (decimals > 0 && scaled >= POWERS_OF_TEN[significantDigits]) {
+			scaled = roundScaled(value, --decimals);
+		} else if (scaled <= POWERS_OF_TEN[significantDigits - 1]) {
+			long moreDecimals = roundScaled(value, decimals + 1);
+			if (moreDecimals < POWERS_OF_TEN[significantDigits]) {
+				scaled = moreDecimals;
+				decimals++;
+			}
+		}
+		
+		if (decimals >= POWERS_OF_TEN.length) {
+			destination[offset++] = '0';
+			return writeFraction(scaled, decimals, destination, offset);
+		}
+		
+		offset = writeDigits(scaled / POWERS_OF_TEN[decimals], destination, offset);
+		
+		return writeFraction(scaled % POWERS_OF_TEN[decimals], decimals, destination, offset);
+	}
+	
+	/**
+	 * Writes a positive value in scientific notation
+	 */
+	private int formatScientific(double value, int exponent, byte[] destination, int offset) {
+		int decimals = significantDigits - 1;
+		long scaled = roundScaled(value, decimals - exponent);
+		
+		// Correct an exponent that was estimated one too small, which also covers rounding up to an extra digit, or one too large 
+		if (scaled >= POWERS_OF_TEN[significantDigits]) {
+			scaled = roundScaled(value, decimals - ++exponent);
+		} else if (scaled >= 0 && scaled <= POWERS_OF_TEN[decimals]) {
+			long smallerExponent = roundScaled(value, decimals - exponent + 1);
+			if (smallerExponent < POWERS_OF_TEN[significantDigits]) {
+				scaled = smallerExponent;
+				exponent--;
+			}
+		}
+		
+		if (scaled < 0)
+			return formatExact(value, destination, offset);
+		
+		return writeScientific(scaled, exponent, destination, offset);
+	}
+	
+	/**
+	 * Writes a positive value in scientific notation, rounded with {@link BigDecimal}
+	 */
+	private int formatExact(double value, byte[] destination, int offset) {
+		BigDecimal rounded = new BigDecimal(value).round(mathContext);
+		
+		int exponent = rounded.precision() - rounded.scale() - 1;
+		long scaled = rounded.unscaledValue().longValue() * POWERS_OF_TEN[significantDigits - rounded.precision()];
+		
+		return writeScientific(scaled, exponent, destination, offset);
+	}
+	
+	/**
+	 * Rounds value multiplied by 10<sup>power</sup> to the nearest integer, with ties rounded up. The product is split by Dekker's 
+	 * algorithm into its double approximation and the exact error of that approximation, so that rounding is exact
+	 * 
+	 * @param value positive value
+	 * @param power 
+	 * @return rounded product, or -1 if 10<sup>power</sup> is not exactly representable
+	 */
+	private static long roundScaled(double value, int power) {
+		if (power < 0 || power >= EXACT_POWERS_OF_TEN.length)
+			return -1;
+		
+		double scale = EXACT_POWERS_OF_TEN[power];
+		double product = value * scale;
+		
+		double c = SPLITTER * value;
+		double valueHigh = c - (c - value);
+		double valueLow = value - valueHigh;
+		
+		c = SPLITTER * scale;
+		double scaleHigh = c - (c - scale);
+		double scaleLow = scale - scaleHigh;
+		
+		double error = ((valueHigh * scaleHigh - product) + valueHigh * scaleLow + valueLow * scaleHigh) + valueLow * scaleLow;
+		
+		double floor = Math.floor(product);
+		double fraction = product - floor;
+		
+		// The error is within half a unit in the last place of the product, so it only decides the rounding when the product is an 
+		// integer, which may be large enough for the error to exceed one, or exactly halfway between two
+		if (fraction == 0)
+			return (long) floor + Math.round(error);
+		else if (fraction > 0.5 || (fraction == 0.5 && error >= 0))
+			return (long) floor + 1;
+		else
+			return (long) floor;
+	}
+	
+	/**
+	 * Writes a mantissa of {@link #significantDigits} digits and an exponent in scientific notation
+	 */
+	private int writeScientific(long scaled, int exponent, byte[] destination, int offset) {
+		int decimals = significantDigits - 1;
+		
+		destination[offset++] = (byte) ('0' + scaled / POWERS_OF_TEN[decimals]);
+		offset = writeFraction(scaled % POWERS_OF_TEN[decimals], decimals, destination, offset);
+		
+		destination[offset++] = 'E';
+		if (exponent < 0) {
+			destination[offset++] = '-';
+			exponent = -exponent;
+		}
+		
+		return writeDigits(exponent, destination, offset);
+	}
+	
+	/**
+	 * Writes a decimal point followed by fraction as a number of decimals, dropping trailing zeros but leaving at least one digit 
+	 */
+	private static int writeFraction(long fraction, int decimals, byte[] destination, int offset) {
+		destination[offset++] = '.';
+		
+		if (decimals == 0) {
+			destination[offset++] = '0';
+			return offset;
+		}
+		
+		while (decimals > 1 && fraction % 10 == 0) {
+			fraction /= 10;
+			decimals--;
+		}
+		
+		for (int i = offset + decimals - 1; i >= offset; i--) {
+			destination[i] = (byte) ('0' + fraction % 10);
+			fraction /= 10;
+		}
+		
+		return offset + decimals;
+	}
+	
+	/**
+	 * Writes a non-negative integer
+	 */
+	private static int writeDigits(long value, byte[] destination, int offset) {
+		int length = 1;
+		for (long remaining = value / 10; remaining > 0; remaining /= 10)
+			length++;
+		
+		for (int i = offset + length - 1; i >= offset; i--) {
+			destination[i] = (byte) ('0' + value % 10);
+			value /= 10;
+		}
+		
+		return offset + length;
+	}
+	
+	private static int copy(byte[] source, byte[] destination, int offset) {
+		System.arraycopy(source, 0, destination, offset, source.length);
+		return offset + source.length;
+	}
+}
@@ -0,0 +1,224 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.utilities;
+
+import java.util.Arrays;
+
+/**
+ * Dual number for forward mode automatic differentiation, holding a value and its gradient with respect to a fixed number of 
+ * independent variables. Evaluating a function with Duals in place of doubles propagates the exact derivatives of its result with 
+ * respect to every variable at once, alongside its value, by applying the chain rule to each operation. 
+ * 
+ * <p>Duals are immutable; each operation returns a new Dual with a gradient of the same size as its operands. Operands must have 
+ * gradients of the same size, which is not checked</p>
+ * 
+ * @author Christopher Ali
+ *
+ */
+public final class Dual {
+	
+	private final double value;
+	private final double[] gradient;
+	
+	private Dual(double value, double[] gradient) {
+		this.value = value;
+		this.gradient = gradient;
+	}
+	
+	/**
+	 * @param value
+	 * @param variables number of independent variables
+	 * @return a Dual that does not depend on any variable
+	 */
+	public static Dual constant(double value, int variables) {
+		return new Dual(value, new double[variables]);
+	}
+	
+	/**
+	 * @param value
+	 * @param index index of the variable, whose derivative with respect to itself is 1
+	 * @param variables number of independent variables
+	 * @return independent variable
+	 */
+	public static Dual variable(double value, int index, int variables) {
+		double[] gradient = new double[variables];
+		gradient[index] = 1.0;
+		
+		return new Dual(value, gradient);
+	}
+	
+	/**
+	 * Creates the result of a function of several Duals whose value and partial derivatives are already known, such as an interpolated 
+	 * table, by the chain rule
+	 * 
+	 * @param value value of the function
+	 * @param partials partial derivative of the function with respect to each argument
+	 * @param arguments
+	 * @return function of arguments
+	 */
+	public static Dual chain(double value, double[] partials, Dual... arguments) {
+		double[] gradient = new double[arguments[0].gradient.length];
+		
+		for (int k = 0; k < arguments.length; k++) {
+			final double partial = partials[k];
+			if (partial == 0)
+				continue;
+			
+			final double[] argument = arguments[k].gradient;
+			for (int i = 0; i < gradient.length; i++)
+				gradient[i] += partial * argument[i];
+		}
+		
+		return new Dual(value, gradient);
+	}
+	
+	public double getValue() { return value; }
+	
+	/**
+	 * @param index index of the variable
+	 * @return partial derivative with respect to the variable
+	 */
+	public double getDerivative(int index) { return gradient[index]; }
+	
+	/**
+	 * @return number of independent variables
+	 */
+	public int getVariables() { return gradient.length; }
+	
+	/**
+	 * Applies a function whose value and derivative at this Dual's value are already known
+	 * 
+	 * @param value value of the function
+	 * @param derivative derivative of the function
+	 * @return function of this Dual
+	 */
+	public Dual compose(double value, double derivative) {
+		double[] result = new double[gradient.length];
+		for (int i = 0; i < result.length; i++)
+			result[i] = derivative * gradient[i];
+		
+		return new Dual(value, result);
+	}
+	
+	/**
+	 * @param offset
+	 * @return this Dual with a constant added to its value
+	 */
+	public Dual add(double offset) { return new Dual(value + offset, gradient); }
+	
+	public Dual add(Dual other) {
+		double[] result = new double[gradient.length];
+		for (int i = 0; i < result.length; i++)
+			result[i] = gradient[i] + other.gradient[i];
+		
+		return new Dual(value + other.value, result);
+	}
+	
+	public Dual subtract(double offset) { return new Dual(value - offset, gradient); }
+	
+	public Dual subtract(Dual other) {
+		double[] result = new double[gradient.length];
+		for (int i = 0; i < result.length; i++)
+			result[i] = gradient[i] - other.gradient[i];
+		
+		return new Dual(value - other.value, result);
+	}
+	
+	public Dual negate() { return multiply(-1.0); }
+	
+	public Dual multiply(double factor) {
+		double[] result = new double[gradient.length];
+		for (int i = 0; i < result.length; i++)
+			result[i] = factor * gradient[i];
+		
+		return new Dual(value * factor, result);
+	}
+	
+	public Dual multiply(Dual other) {
+		double[] result = new double[gradient.length];
+		for (int i = 0; i < result.length; i++)
+			result[i] = gradient[i] * other.value + value * other.gradient[i];
+		
+		return new Dual(value * other.value, result);
+	}
+	
+	public Dual divide(double divisor) { return multiply(1.0 / divisor); }
+	
+	public Dual divide(Dual other) {
+		final double quotient = value / other.value;
+		final double inverse = 1.0 / other.value;
+		
+		double[] result = new double[gradient.length];
+		for (int i = 0; i < result.length; i++)
+			result[i] = (gradient[i] - quotient * other.gradient[i]) * inverse;
+		
+		return new Dual(quotient, result);
+	}
+	
+	/**
+	 * @param numerator
+	 * @return numerator / this
+	 */
+	public Dual reciprocal(double numerator) {
+		final double quotient = numerator / value;
+		
+		return compose(quotient, -quotient / value);
+	}
+	
+	public Dual sin() { return compose(Math.sin(value), Math.cos(value)); }
+	
+	public Dual cos() { return compose(Math.cos(value), -Math.sin(value)); }
+	
+	public Dual tan() {
+		final double tan = Math.tan(value);
+		
+		return compose(tan, 1 + tan * tan);
+	}
+	
+	public Dual asin() { return compose(Math.asin(value), 1 / Math.sqrt(1 - value * value)); }
+	
+	public Dual atan() { return compose(Math.atan(value), 1 / (1 + value * value)); }
+	
+	public Dual sqrt() {
+		final double sqrt = Math.sqrt(value);
+		
+		return compose(sqrt, 0.5 / sqrt);
+	}
+	
+	/**
+	 * @param exponent
+	 * @return this raised to a constant power, whose derivative at zero is taken to be zero, rather than the infinity of a fractional power
+	 */
+	public Dual pow(double exponent) {
+		final double power = Math.pow(value, exponent);
+		
+		return compose(power, (value == 0) ? 0.0 : exponent * power / value);
+	}
+	
+	/**
+	 * @return absolute value, whose derivative at zero is taken to be that of the positive side
+	 */
+	public Dual abs() { return (value < 0) ? negate() : this; }
+	
+	@Override
+	public String toString() {
+		return value + " " + Arrays.toString(gradient);
+	}
+}
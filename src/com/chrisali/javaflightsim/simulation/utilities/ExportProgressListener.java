@@ -0,0 +1,45 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.utilities;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Interface for objects that follow the progress of a {@link CSVExporter} export. Methods are called on the exporter's background 
+ * thread, so Swing components should be updated through SwingUtilities.invokeLater()
+ * 
+ * @author Christopher Ali
+ *
+ */
+public interface ExportProgressListener {
+	
+	/**
+	 * @param rowsWritten number of data rows written so far
+	 * @param totalRows number of data rows being exported
+	 */
+	public void onExportProgress(long rowsWritten, long totalRows);
+	
+	/**
+	 * @param file file exported to
+	 * @param error exception that stopped the export, or null if it succeeded
+	 */
+	public void onExportFinished(File file, IOException error);
+}
@@ -34,6 +34,7 @@ import org.apache.logging.log4j.Logger;
 
 import com.chrisali.javaflightsim.lwjgl.interfaces.gauges.InstrumentPanel;
 import com.chrisali.javaflightsim.simulation.aircraft.Aircraft;
+import com.chrisali.javaflightsim.simulation.aircraft.AircraftModel;
 import com.chrisali.javaflightsim.simulation.flightcontrols.analysis.AnalysisControls;
 import com.chrisali.javaflightsim.simulation.integration.SimOuts;
 import com.chrisali.javaflightsim.simulation.setup.ControlsConfiguration;
@@ -59,16 +60,21 @@ public class FileUtilities {
 	
 	/**
 	 * Creates an {@link Aircraft} object by deserializing a JSON file in the Aircraft/{aircraftName} directory 
-	 * called Aircraft.json 
+	 * called Aircraft.json. Its {@link AircraftModel} is compiled straight away, so that an invalid aircraft is rejected
+	 * when it is read rather than when a simulation starts
 	 * 
 	 * @param aircraftName
 	 * @return desrialized {@link Aircraft}
+	 * @throws IllegalArgumentException if a stability derivative that can only be constant is defined as a table
 	 */
 	public static Aircraft readAircraftConfiguration(String aircraftName) {
 		Aircraft aircraft = deserializeJson(Aircraft.class.getSimpleName(), 
 											SimDirectories.AIRCRAFT.toString() + File.separator + aircraftName, 
 											Aircraft.class);
 		
+		if (aircraft != null)
+			aircraft.getAircraftModel();
+		
 		return aircraft;
 	}
 	
@@ -94,9 +100,20 @@ public class FileUtilities {
 	 * @return deserialized {@link SimulationConfiguration}
 	 */
 	public static SimulationConfiguration readSimulationConfiguration() {
+		return readSimulationConfiguration(SimDirectories.SIM_CONFIG.toString());
+	}
+	
+	/**
+	 * Creates a {@link SimulationConfiguration} object by deserializing a JSON file in the directory given 
+	 * called SimulationConfiguration.json
+	 * 
+	 * @param configDirectory
+	 * @return deserialized {@link SimulationConfiguration}
+	 */
+	public static SimulationConfiguration readSimulationConfiguration(String configDirectory) {
 		SimulationConfiguration configuration = new SimulationConfiguration();
 		configuration = deserializeJson(SimulationConfiguration.class.getSimpleName(), 
-										SimDirectories.SIM_CONFIG.toString(), 
+										configDirectory, 
 										SimulationConfiguration.class);
 		
 		return configuration;
@@ -124,9 +141,20 @@ public class FileUtilities {
 	 * @return deserialized {@link AnalysisControls}
 	 */
 	public static AnalysisControls readAnalysisControls() {
+		return readAnalysisControls(SimDirectories.SIM_CONFIG.toString());
+	}
+	
+	/**
+	 * Creates a {@link AnalysisControls} object by deserializing a JSON file in the directory given 
+	 * called AnalysisControls.json
+	 * 
+	 * @param configDirectory
+	 * @return deserialized {@link AnalysisControls}
+	 */
+	public static AnalysisControls readAnalysisControls(String configDirectory) {
 		AnalysisControls controls = new AnalysisControls();
 		controls = deserializeJson(AnalysisControls.class.getSimpleName(), 
-								   SimDirectories.SIM_CONFIG.toString(), 
+								   configDirectory, 
 								   AnalysisControls.class);
 		
 		return controls;
@@ -0,0 +1,120 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.simulation.utilities;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-width histogram of durations recorded in nanoseconds, used to publish timing metrics such as step latency without 
+ * storing every sample. Durations beyond the last bucket are counted in it, while the exact minimum, maximum and mean 
+ * are kept separately. Recording and reading are synchronized so that metrics recorded by a simulation thread can be 
+ * read from any other
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class LatencyHistogram {
+	
+	private final long bucketWidthNanos;
+	private final long[] counts;
+	
+	private long count;
+	private long sumNanos;
+	private long minNanos = Long.MAX_VALUE;
+	private long maxNanos = Long.MIN_VALUE;
+	
+	/**
+	 * @param bucketWidthNanos width of each bucket (ns)
+	 * @param buckets number of buckets
+	 */
+	public LatencyHistogram(long bucketWidthNanos, int buckets) {
+		if (bucketWidthNanos <= 0 || buckets <= 0)
+			throw new IllegalArgumentException("Bucket width and number of buckets must be positive!");
+		
+		this.bucketWidthNanos = bucketWidthNanos;
+		this.counts = new long[buckets];
+	}
+	
+	/**
+	 * Records a duration; negative durations are counted as 0
+	 * 
+	 * @param nanos
+	 */
+	public synchronized void record(long nanos) {
+		nanos = Math.max(0, nanos);
+		
+		counts[(int) Math.min(nanos / bucketWidthNanos, counts.length - 1)]++;
+		
+		count++;
+		sumNanos += nanos;
+		minNanos = Math.min(minNanos, nanos);
+		maxNanos = Math.max(maxNanos, nanos);
+	}
+	
+	public synchronized void reset() {
+		Arrays.fill(counts, 0);
+		count = 0;
+		sumNanos = 0;
+		minNanos = Long.MAX_VALUE;
+		maxNanos = Long.MIN_VALUE;
+	}
+	
+	public synchronized long getCount() { return count; }
+	
+	public synchronized long getMinNanos() { return count > 0 ? minNanos : 0; }
+	
+	public synchronized long getMaxNanos() { return count > 0 ? maxNanos : 0; }
+	
+	public synchronized double getMeanNanos() { return count > 0 ? (double) sumNanos / count : 0; }
+	
+	/**
+	 * @param percentile (0.0 - 100.0)
+	 * @return upper bound (ns) of the bucket containing the given percentile of recorded durations, no greater than the maximum recorded
+	 */
+	public synchronized long getPercentileNanos(double percentile) {
+		if (count == 0)
+			return 0;
+		
+		long rank = (long) Math.ceil(count * SaturationUtilities.saturatePercentage(percentile / 100));
+		long cumulative = 0;
+		
+		for (int bucket = 0; bucket < counts.length; bucket++) {
+			cumulative += counts[bucket];
+			if (cumulative >= rank)
+				return Math.min((bucket + 1) * bucketWidthNanos, maxNanos);
+		}
+		
+		return maxNanos;
+	}
+	
+	/**
+	 * @return copy of the counts in each bucket
+	 */
+	public synchronized long[] getCounts() { return counts.clone(); }
+	
+	public long getBucketWidthNanos() { return bucketWidthNanos; }
+	
+	@Override
+	public synchronized String toString() {
+		return String.format("count: %d, mean: %.1f us, p50: %.1f us, p99: %.1f us, p99.9: %.1f us, max: %.1f us", 
+							 count, getMeanNanos() / 1e3, getPercentileNanos(50) / 1e3, getPercentileNanos(99) / 1e3, 
+							 getPercentileNanos(99.9) / 1e3, getMaxNanos() / 1e3);
+	}
+}
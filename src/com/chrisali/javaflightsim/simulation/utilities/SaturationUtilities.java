@@ -269,6 +269,40 @@ public class SaturationUtilities {
 		return NEDPosition;
 	}
 
+	/**
+	 * Applies limits calculated by one of the methods above on the values of an array of {@link Dual}s to the Duals themselves. 
+	 * A value that was clamped no longer changes with anything, so it becomes a constant
+	 * 
+	 * @param values
+	 * @param limited values after limiting
+	 * @return values
+	 */
+	public static Dual[] limit(Dual[] values, double[] limited) {
+		for (int i = 0; i < values.length; i++) {
+			if (limited[i] != values[i].getValue())
+				values[i] = Dual.constant(limited[i], values[i].getVariables());
+		}
+		
+		return values;
+	}
+	
+	/**
+	 * Applies the bounds calculated by {@link SaturationUtilities#piBounding(double[], double[])} on the values of an array of {@link Dual}s 
+	 * to the Duals themselves. A value that was wrapped changes just as it did before, so it is only offset
+	 * 
+	 * @param values
+	 * @param bounded values after bounding
+	 * @return values
+	 */
+	public static Dual[] bound(Dual[] values, double[] bounded) {
+		for (int i = 0; i < values.length; i++) {
+			if (bounded[i] != values[i].getValue())
+				values[i] = values[i].add(bounded[i] - values[i].getValue());
+		}
+		
+		return values;
+	}
+
 	/**
 	 * @param percent
 	 * @return double limited from 0.0 to 1.0
@@ -11,7 +11,9 @@ package com.chrisali.javaflightsim.simulation.utilities;
  */
 public enum SimDirectories {
 	AIRCRAFT      ("Aircraft"),
-	SIM_CONFIG	  ("SimConfig");
+	SIM_CONFIG	  ("SimConfig"),
+	RECORDINGS	  ("Recordings"),
+	TRIM_CACHE	  ("TrimCache");
 	
 	private String directory;
 	
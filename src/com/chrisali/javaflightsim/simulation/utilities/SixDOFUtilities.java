@@ -19,10 +19,9 @@
  ******************************************************************************/
 package com.chrisali.javaflightsim.simulation.utilities;
 
-import java.util.Map;
-
 import com.chrisali.javaflightsim.simulation.aircraft.Aircraft;
-import com.chrisali.javaflightsim.simulation.enviroment.EnvironmentParameters;
+import com.chrisali.javaflightsim.simulation.enviroment.AtmosphereState;
+import com.chrisali.javaflightsim.simulation.enviroment.Environment;
 import com.chrisali.javaflightsim.simulation.integration.Integrate6DOFEquations;
 
 /**
@@ -38,19 +37,36 @@ public class SixDOFUtilities {
 	 * @see <i>Source Small Unmanned Aircraft: Theory and Practice by Beard, R.W. and McLain, T.W.</i>
 	 */
 	public static double[][] body2Ned(double[] eulerAngles) {
-		double body2NedDCM[][] = new double[3][3]; //[column][row]
+		return body2Ned(eulerAngles[0], eulerAngles[1], eulerAngles[2], new double[3][3]);
+	}
+	
+	/**
+	 * Calculates the direction cosine matrix needed to convert from body to NED coordinate axes, writing the result
+	 * into the preallocated body2NedDCM array ([column][row]) instead of creating a new one
+	 * 
+	 * @param phi
+	 * @param theta
+	 * @param psi
+	 * @param body2NedDCM 3x3 array to write into
+	 * @return body2NedDCM
+	 * @see <i>Source Small Unmanned Aircraft: Theory and Practice by Beard, R.W. and McLain, T.W.</i>
+	 */
+	public static double[][] body2Ned(double phi, double theta, double psi, double[][] body2NedDCM) {
+		final double sinPhi   = Math.sin(phi),   cosPhi   = Math.cos(phi);
+		final double sinTheta = Math.sin(theta), cosTheta = Math.cos(theta);
+		final double sinPsi   = Math.sin(psi),   cosPsi   = Math.cos(psi);
 		
-		body2NedDCM[0][0] =  Math.cos(eulerAngles[1])*Math.cos(eulerAngles[2]);
-		body2NedDCM[1][0] =  Math.cos(eulerAngles[1])*Math.sin(eulerAngles[2]);
-		body2NedDCM[2][0] = -Math.sin(eulerAngles[1]);
+		body2NedDCM[0][0] =  cosTheta*cosPsi;
+		body2NedDCM[1][0] =  cosTheta*sinPsi;
+		body2NedDCM[2][0] = -sinTheta;
 		
-		body2NedDCM[0][1] =  Math.sin(eulerAngles[0])*Math.sin(eulerAngles[1])*Math.cos(eulerAngles[2]) - Math.cos(eulerAngles[0])*Math.sin(eulerAngles[2]);
-		body2NedDCM[1][1] =  Math.sin(eulerAngles[0])*Math.sin(eulerAngles[1])*Math.sin(eulerAngles[2]) + Math.cos(eulerAngles[0])*Math.cos(eulerAngles[2]);
-		body2NedDCM[2][1] =  Math.sin(eulerAngles[0])*Math.cos(eulerAngles[1]);
+		body2NedDCM[0][1] =  sinPhi*sinTheta*cosPsi - cosPhi*sinPsi;
+		body2NedDCM[1][1] =  sinPhi*sinTheta*sinPsi + cosPhi*cosPsi;
+		body2NedDCM[2][1] =  sinPhi*cosTheta;
 		
-		body2NedDCM[0][2] =  Math.cos(eulerAngles[0])*Math.sin(eulerAngles[1])*Math.cos(eulerAngles[2]) + Math.sin(eulerAngles[0])*Math.sin(eulerAngles[2]);
-		body2NedDCM[1][2] =  Math.cos(eulerAngles[0])*Math.sin(eulerAngles[1])*Math.sin(eulerAngles[2]) - Math.sin(eulerAngles[0])*Math.cos(eulerAngles[2]);
-		body2NedDCM[2][2] =  Math.cos(eulerAngles[0])*Math.cos(eulerAngles[1]);
+		body2NedDCM[0][2] =  cosPhi*sinTheta*cosPsi + sinPhi*sinPsi;
+		body2NedDCM[1][2] =  cosPhi*sinTheta*sinPsi - sinPhi*cosPsi;
+		body2NedDCM[2][2] =  cosPhi*cosTheta;
 				
 		return body2NedDCM;
 	}
@@ -61,8 +77,18 @@ public class SixDOFUtilities {
 	 *  @see <i>Source Small Unmanned Aircraft: Theory and Practice by Beard, R.W. and McLain, T.W.</i>
 	 */
 	public static double[] calculateInertiaCoeffs(double[] inertiaVals) { //inertiaVals[]{Ix,Iy,Iz,Ixz}
-		double[] inertiaCoeffs = new double[9];
-		
+		return calculateInertiaCoeffs(inertiaVals, new double[9]);
+	}
+	
+	/**
+	 *  Calculates the inertia coefficients used in the calculation of p, q and r dot in {@link Integrate6DOFEquations}, 
+	 *  writing them into the preallocated inertiaCoeffs array
+	 *  
+	 *  @param inertiaVals {Ix,Iy,Iz,Ixz}
+	 *  @param inertiaCoeffs array of length 9 to write into
+	 *  @return inertiaCoeffs
+	 */
+	public static double[] calculateInertiaCoeffs(double[] inertiaVals, double[] inertiaCoeffs) {
 		double gamma = (inertiaVals[0]*inertiaVals[2])-(Math.pow(inertiaVals[3], 2));
 		
 		inertiaCoeffs[0] = (((inertiaVals[1]-inertiaVals[2])*inertiaVals[2])-(Math.pow(inertiaVals[3], 2)))/gamma;
@@ -83,19 +109,32 @@ public class SixDOFUtilities {
 	 * @see <i>Source Small Unmanned Aircraft: Theory and Practice by Beard, R.W. and McLain, T.W.</i>
 	 */
 	public static double[][] wind2Body(double[] windParameters) {
-		double wind2BodyDCM[][] = new double[3][3]; //[row][column]
+		return wind2Body(windParameters, new double[3][3]);
+	}
+	
+	/**
+	 * Calculates the direction cosine matrix needed to convert from wind to body coordinate axes, writing the result
+	 * into the preallocated wind2BodyDCM array ([row][column]) instead of creating a new one
+	 * 
+	 * @param windParameters {vTrue,beta,alpha}
+	 * @param wind2BodyDCM 3x3 array to write into
+	 * @return wind2BodyDCM
+	 */
+	public static double[][] wind2Body(double[] windParameters, double[][] wind2BodyDCM) {
+		final double sinBeta  = Math.sin(windParameters[1]), cosBeta  = Math.cos(windParameters[1]);
+		final double sinAlpha = Math.sin(windParameters[2]), cosAlpha = Math.cos(windParameters[2]);
 		
-		wind2BodyDCM[0][0] =  Math.cos(windParameters[1])*Math.cos(windParameters[2]);
-		wind2BodyDCM[1][0] =  Math.sin(windParameters[1]);  
-		wind2BodyDCM[2][0] =  Math.cos(windParameters[1])*Math.sin(windParameters[2]);
+		wind2BodyDCM[0][0] =  cosBeta*cosAlpha;
+		wind2BodyDCM[1][0] =  sinBeta;  
+		wind2BodyDCM[2][0] =  cosBeta*sinAlpha;
 		
-		wind2BodyDCM[0][1] = -Math.sin(windParameters[1])*Math.cos(windParameters[2]);										
-		wind2BodyDCM[1][1] =  Math.cos(windParameters[1]);
-		wind2BodyDCM[2][1] = -Math.sin(windParameters[1])*Math.sin(windParameters[2]);
+		wind2BodyDCM[0][1] = -sinBeta*cosAlpha;										
+		wind2BodyDCM[1][1] =  cosBeta;
+		wind2BodyDCM[2][1] = -sinBeta*sinAlpha;
 		
-		wind2BodyDCM[0][2] = -Math.sin(windParameters[2]);
+		wind2BodyDCM[0][2] = -sinAlpha;
 		wind2BodyDCM[1][2] =  0; 
-		wind2BodyDCM[2][2] =  Math.cos(windParameters[2]);
+		wind2BodyDCM[2][2] =  cosAlpha;
 				
 		return wind2BodyDCM;
 	}
@@ -105,15 +144,26 @@ public class SixDOFUtilities {
 	 * @see Source: <i>G. Cai et al., Unmanned Rotorcraft Systems</i>
 	 */
 	public static double[] ned2LLA(double[] y) {
-		double[] ned2LLA = new double[2]; // Conversion factors for latitude (lambda), longitude (phi) and altitude (h)
-		
+		return ned2LLA(y, new double[2]);
+	}
+	
+	/**
+	 * Calculates the conversion factors needed to convert between lat/lon dot and N/E dot, writing them into the 
+	 * preallocated ned2LLA array
+	 * 
+	 * @param y 6DOF states
+	 * @param ned2LLA array of length 2 to write into
+	 * @return ned2LLA
+	 */
+	public static double[] ned2LLA(double[] y, double[] ned2LLA) { // Conversion factors for latitude (lambda), longitude (phi) and altitude (h)
 		// WGS84 Parameters
 		double rEarth = 6378137; // Earth's radius [m]
 		double e = 0.08181919; // Earth's eccentricity (e)
 		
-		double eSqSinSq = Math.pow(e, 2.0)*Math.pow(Math.sin(y[4]),2.0); //(e^2)sin^2(phi)
+		double sinPhi = Math.sin(y[4]);
+		double eSqSinSq = e*e*sinPhi*sinPhi; //(e^2)sin^2(phi)
 		
-		double meridianRadiusCurvature = (rEarth*(1-Math.pow(e, 2.0)))/(Math.pow((1-eSqSinSq), 1.50));
+		double meridianRadiusCurvature = (rEarth*(1-e*e))/((1-eSqSinSq)*Math.sqrt(1-eSqSinSq));
 		double verticalRadiusCurvature = rEarth/Math.sqrt(1-eSqSinSq);
 		
 		ned2LLA[0] = 1/(meridianRadiusCurvature+y[5]); 				    // phi_dot/N_dot
@@ -122,16 +172,166 @@ public class SixDOFUtilities {
 		return ned2LLA;		
 	}
 	
+	/**
+	 * Calculates the 14 (12 6DOF + 2 lat/lon) state derivatives at the states in y[] from the total linear accelerations and moments 
+	 * acting on the aircraft there, writing them into the preallocated yDot array
+	 * 
+	 * @param y 6DOF states plus latitude and longitude
+	 * @param linearAccelerations {ax,ay,az} (ft/sec^2)
+	 * @param totalMoments {L,M,N} (lb ft)
+	 * @param inertiaCoeffs calculated by {@link SixDOFUtilities#calculateInertiaCoeffs(double[], double[])}
+	 * @param atmosphereState supplying the wind speed components
+	 * @param dirCosMat 3x3 scratch array for the body to NED direction cosine matrix
+	 * @param ned2LLA scratch array of length 2 for the NED to lat/lon conversion factors
+	 * @param yDot array of length 14 to write into
+	 * @return yDot
+	 * @see <i>Source Small Unmanned Aircraft: Theory and Practice by Beard, R.W. and McLain, T.W.</i>
+	 */
+	public static double[] calculateSixDOFDerivatives(double[] y,
+													  double[] linearAccelerations,
+													  double[] totalMoments,
+													  double[] inertiaCoeffs,
+													  AtmosphereState atmosphereState,
+													  double[][] dirCosMat,
+													  double[] ned2LLA,
+													  double[] yDot) {
+		final double gravity = Environment.getGravity();
+		
+		body2Ned(y[6], y[7], y[8], dirCosMat);      // create DCM for NED equations ([column][row])
+		ned2LLA(y, ned2LLA);
+		
+		double windSpdN = atmosphereState.getWindSpeedN();
+		double windSpdE = atmosphereState.getWindSpeedE();
+		double windSpdD = atmosphereState.getWindSpeedD();
+		
+		yDot[0]  = (y[11]*y[1])-(y[10]*y[2])-(gravity*Math.sin(y[7]))               +linearAccelerations[0];    // u (ft/sec)
+		yDot[1]  = (y[9]* y[2])-(y[11]*y[0])+(gravity*Math.sin(y[6])*Math.cos(y[7]))+linearAccelerations[1];    // v (ft/sec)
+		yDot[2]  = (y[10]*y[0])-(y[9]* y[1])+(gravity*Math.cos(y[6])*Math.cos(y[7]))+linearAccelerations[2];    // w (ft/sec)
+		
+		yDot[3]  =    (y[0]*dirCosMat[0][0]+y[1]*dirCosMat[0][1]+y[2]*dirCosMat[0][2])+windSpdN;    // N (ft)
+		yDot[4]  =    (y[0]*dirCosMat[1][0]+y[1]*dirCosMat[1][1]+y[2]*dirCosMat[1][2])+windSpdE;    // E (ft)
+		yDot[5]  = -1*(y[0]*dirCosMat[2][0]+y[1]*dirCosMat[2][1]+y[2]*dirCosMat[2][2])+windSpdD;    // D (ft)
+		
+		yDot[6]  =   y[9]+(Math.tan(y[7])*((y[10]*Math.sin(y[6]))+(y[11]*Math.cos(y[6])))); // phi (rad)
+		yDot[7]  =  (y[10]*Math.cos(y[6]))-(y[11]*Math.sin(y[6]));     			         // theta (rad)
+		yDot[8]  = ((y[10]*Math.sin(y[6]))+(y[11]*Math.cos(y[6])))/Math.cos(y[7]);          // psi (rad)
+		
+		yDot[9]  = ((inertiaCoeffs[1]*y[9]*y[10]) - (inertiaCoeffs[0]*y[10])*y[11]) + (inertiaCoeffs[2]*totalMoments[0])+(inertiaCoeffs[3]*totalMoments[2]);     // p (rad/sec)
+		yDot[10] =  (inertiaCoeffs[4]*y[9]*y[11]) - (inertiaCoeffs[5]*((y[9]*y[9])-(y[11]*y[11])))                      +(inertiaCoeffs[6]*totalMoments[1]);     // q (rad/sec)
+		yDot[11] = ((inertiaCoeffs[7]*y[9]*y[10]) - (inertiaCoeffs[1]*y[10]*y[11])) + (inertiaCoeffs[3]*totalMoments[0])+(inertiaCoeffs[8]*totalMoments[2]);     // r (rad/sec)
+		
+		yDot[12] = yDot[3]*ned2LLA[0]; // Latitude  (rad)
+		yDot[13] = yDot[4]*ned2LLA[1]; // Longitude (rad)
+		
+		return yDot;
+	}
+	
+	/**
+	 * Calculates the 12 6DOF state derivatives with the same equations as {@link SixDOFUtilities#calculateSixDOFDerivatives(double[], double[], 
+	 * double[], double[], AtmosphereState, double[][], double[], double[])}, along with their derivatives
+	 * 
+	 * @param y 6DOF states
+	 * @param linearAccelerations {ax,ay,az} (ft/sec^2)
+	 * @param totalMoments {L,M,N} (lb ft)
+	 * @param inertiaCoeffs calculated by {@link SixDOFUtilities#calculateInertiaCoeffs(double[], double[])}
+	 * @param atmosphereState supplying the wind speed components
+	 * @param yDot array of length 12 to write into
+	 * @return yDot
+	 */
+	public static Dual[] calculateSixDOFDerivatives(Dual[] y,
+													Dual[] linearAccelerations,
+													Dual[] totalMoments,
+													double[] inertiaCoeffs,
+													AtmosphereState atmosphereState,
+													Dual[] yDot) {
+		final double gravity = Environment.getGravity();
+		
+		final Dual u = y[0], v = y[1], w = y[2];
+		final Dual p = y[9], q = y[10], r = y[11];
+		
+		final Dual sinPhi   = y[6].sin(), cosPhi   = y[6].cos();
+		final Dual sinTheta = y[7].sin(), cosTheta = y[7].cos();
+		final Dual sinPsi   = y[8].sin(), cosPsi   = y[8].cos();
+		
+		yDot[0]  = r.multiply(v).subtract(q.multiply(w)).subtract(sinTheta.multiply(gravity)).add(linearAccelerations[0]);                // u (ft/sec)
+		yDot[1]  = p.multiply(w).subtract(r.multiply(u)).add(sinPhi.multiply(cosTheta).multiply(gravity)).add(linearAccelerations[1]);    // v (ft/sec)
+		yDot[2]  = q.multiply(u).subtract(p.multiply(v)).add(cosPhi.multiply(cosTheta).multiply(gravity)).add(linearAccelerations[2]);    // w (ft/sec)
+		
+		yDot[3]  = u.multiply(cosTheta.multiply(cosPsi))
+				   .add(v.multiply(sinPhi.multiply(sinTheta).multiply(cosPsi).subtract(cosPhi.multiply(sinPsi))))
+				   .add(w.multiply(cosPhi.multiply(sinTheta).multiply(cosPsi).add(sinPhi.multiply(sinPsi))))
+				   .add(atmosphereState.getWindSpeedN());                                                                                 // N (ft)
+		yDot[4]  = u.multiply(cosTheta.multiply(sinPsi))
+				   .add(v.multiply(sinPhi.multiply(sinTheta).multiply(sinPsi).add(cosPhi.multiply(cosPsi))))
+				   .add(w.multiply(cosPhi.multiply(sinTheta).multiply(sinPsi).subtract(sinPhi.multiply(cosPsi))))
+				   .add(atmosphereState.getWindSpeedE());                                                                                 // E (ft)
+		yDot[5]  = u.multiply(sinTheta)
+				   .subtract(v.multiply(sinPhi.multiply(cosTheta)))
+				   .subtract(w.multiply(cosPhi.multiply(cosTheta)))
+				   .add(atmosphereState.getWindSpeedD());                                                                                 // D (ft)
+		
+		final Dual qSinPhiRCosPhi = q.multiply(sinPhi).add(r.multiply(cosPhi));
+		
+		yDot[6]  = p.add(sinTheta.divide(cosTheta).multiply(qSinPhiRCosPhi));                                                            // phi (rad)
+		yDot[7]  = q.multiply(cosPhi).subtract(r.multiply(sinPhi));                                                                       // theta (rad)
+		yDot[8]  = qSinPhiRCosPhi.divide(cosTheta);                                                                                       // psi (rad)
+		
+		yDot[9]  = p.multiply(q).multiply(inertiaCoeffs[1]).subtract(q.multiply(r).multiply(inertiaCoeffs[0]))
+				   .add(totalMoments[0].multiply(inertiaCoeffs[2])).add(totalMoments[2].multiply(inertiaCoeffs[3]));                      // p (rad/sec)
+		yDot[10] = p.multiply(r).multiply(inertiaCoeffs[4]).subtract(p.multiply(p).subtract(r.multiply(r)).multiply(inertiaCoeffs[5]))
+				   .add(totalMoments[1].multiply(inertiaCoeffs[6]));                                                                      // q (rad/sec)
+		yDot[11] = p.multiply(q).multiply(inertiaCoeffs[7]).subtract(q.multiply(r).multiply(inertiaCoeffs[1]))
+				   .add(totalMoments[0].multiply(inertiaCoeffs[3])).add(totalMoments[2].multiply(inertiaCoeffs[8]));                      // r (rad/sec)
+		
+		return yDot;
+	}
+	
 	/**
 	 * Calculates true airspeed, angle of sideslip and angle of attack 
 	 * @see <i>Source Small Unmanned Aircraft: Theory and Practice by Beard, R.W. and McLain, T.W.</i>
 	 */
 	public static double[] calculateWindParameters(double[] linearVelocities) {
-		double vTrue = Math.sqrt(Math.pow(linearVelocities[0],2) + Math.pow(linearVelocities[1],2) + Math.pow(linearVelocities[2],2));
-		double beta = Math.asin(linearVelocities[1]/vTrue);
-		double alpha = Math.atan(linearVelocities[2]/linearVelocities[0]);
+		return calculateWindParameters(linearVelocities, new double[3]);
+	}
+	
+	/**
+	 * Calculates true airspeed, angle of sideslip and angle of attack, writing them into the preallocated 
+	 * windParameters array
+	 * 
+	 * @param linearVelocities {u,v,w}
+	 * @param windParameters array of length 3 to write into
+	 * @return windParameters {vTrue,beta,alpha}
+	 */
+	public static double[] calculateWindParameters(double[] linearVelocities, double[] windParameters) {
+		double vTrue = Math.sqrt(linearVelocities[0]*linearVelocities[0] + linearVelocities[1]*linearVelocities[1] + linearVelocities[2]*linearVelocities[2]);
+		
+		windParameters[0] = vTrue;
+		windParameters[1] = Math.asin(linearVelocities[1]/vTrue);
+		windParameters[2] = Math.atan(linearVelocities[2]/linearVelocities[0]);
+		
+		return SaturationUtilities.limitWindParameters(windParameters);
+	}
+	
+	/**
+	 * Calculates true airspeed, angle of sideslip and angle of attack along with their derivatives, applying the same limits as 
+	 * {@link SixDOFUtilities#calculateWindParameters(double[], double[])}
+	 * 
+	 * @param linearVelocities {u,v,w}
+	 * @param windParameters array of length 3 to write into
+	 * @return windParameters {vTrue,beta,alpha}
+	 */
+	public static Dual[] calculateWindParameters(Dual[] linearVelocities, Dual[] windParameters) {
+		Dual vTrue = linearVelocities[0].multiply(linearVelocities[0])
+					 .add(linearVelocities[1].multiply(linearVelocities[1]))
+					 .add(linearVelocities[2].multiply(linearVelocities[2])).sqrt();
+		
+		windParameters[0] = vTrue;
+		windParameters[1] = linearVelocities[1].divide(vTrue).asin();
+		windParameters[2] = linearVelocities[2].divide(linearVelocities[0]).atan();
+		
+		double[] limited = {windParameters[0].getValue(), windParameters[1].getValue(), windParameters[2].getValue()};
 		
-		return SaturationUtilities.limitWindParameters(new double[] {vTrue,beta,alpha});
+		return SaturationUtilities.limit(windParameters, SaturationUtilities.limitWindParameters(limited));
 	}
 	
 	/**
@@ -140,15 +340,15 @@ public class SixDOFUtilities {
 	 */
 	public static double calculateAlphaDot(double[] linearVelocities, double[] sixDOFDerivatives) {
 		return ((linearVelocities[0]*sixDOFDerivatives[2])-(linearVelocities[2]*sixDOFDerivatives[0]))
-				/((Math.pow(linearVelocities[0], 2)+(Math.pow(linearVelocities[2], 2))));// = u*w_dot-w*u_dot/(u^2+w^2)
+				/((linearVelocities[0]*linearVelocities[0])+(linearVelocities[2]*linearVelocities[2]));// = u*w_dot-w*u_dot/(u^2+w^2)
 	}
 	
 	/**
 	 * Calculates Mach number
 	 * @see <i>Source Small Unmanned Aircraft: Theory and Practice by Beard, R.W. and McLain, T.W.</i>
 	 */
-	public static double calculateMach(double[] windParameters, Map<EnvironmentParameters, Double> environmentParameters) {
-		return windParameters[0]/environmentParameters.get(EnvironmentParameters.A);
+	public static double calculateMach(double[] windParameters, AtmosphereState atmosphereState) {
+		return windParameters[0]/atmosphereState.getSpeedOfSound();
 	}
 	
 	/**
@@ -24,20 +24,26 @@ import java.awt.CardLayout;
 import java.awt.Dimension;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
+import java.io.File;
+import java.io.IOException;
 import java.util.EnumSet;
 
+import javax.swing.JFileChooser;
 import javax.swing.JFrame;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
+import javax.swing.filechooser.FileNameExtensionFilter;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import com.chrisali.javaflightsim.initializer.LWJGLSwingSimulationController;
 import com.chrisali.javaflightsim.simulation.aircraft.Aircraft;
+import com.chrisali.javaflightsim.simulation.recording.FlightRecording;
 import com.chrisali.javaflightsim.simulation.setup.Options;
 import com.chrisali.javaflightsim.simulation.setup.SimulationConfiguration;
 import com.chrisali.javaflightsim.simulation.utilities.FileUtilities;
+import com.chrisali.javaflightsim.simulation.utilities.SimDirectories;
 import com.chrisali.javaflightsim.swing.aircraftpanel.AircraftConfigurationListener;
 import com.chrisali.javaflightsim.swing.aircraftpanel.AircraftDropDownListener;
 import com.chrisali.javaflightsim.swing.aircraftpanel.AircraftPanel;
@@ -220,6 +226,15 @@ public class GuiFrame extends JFrame {
 				GuiFrame.this.setVisible(configuration.getSimulationOptions().contains(Options.ANALYSIS_MODE) ? true : false);
 			}
 		});
+		buttonPanel.setReplayFlightButtonListener(new ReplayFlightButtonListener() {
+			@Override
+			public void buttonEventOccurred() {
+				setSize(dims);
+				cardPanel.setVisible(false);
+				
+				replayFlight();
+			}
+		});
 		add(buttonPanel, BorderLayout.CENTER);
 		
 		//============================ Miscellaneous ===============================================
@@ -249,6 +264,30 @@ public class GuiFrame extends JFrame {
 		setDefaultCloseOperation(DO_NOTHING_ON_CLOSE);
 	}
 	
+	/**
+	 * Lets the user choose a segment of a flight recording in the recordings directory, and replays the recording it belongs to
+	 */
+	private void replayFlight() {
+		JFileChooser fileChooser = new JFileChooser(new File(SimDirectories.RECORDINGS.toString()));
+		fileChooser.setFileFilter(new FileNameExtensionFilter("Flight Recordings (*.jfsr)", "jfsr"));
+		
+		if (fileChooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION)
+			return;
+		
+		File segmentFile = fileChooser.getSelectedFile();
+		
+		try {
+			FlightRecording recording = new FlightRecording(segmentFile.getParentFile(), FlightRecording.getRecordingName(segmentFile));
+			
+			simulationController.startReplay(recording);
+			setVisible(false);
+		} catch (IOException | IllegalArgumentException e) {
+			logger.error("Unable to open flight recording!", e);
+			JOptionPane.showMessageDialog(this, "Unable to open " + segmentFile.getName() + " as a flight recording!", 
+					"Error Reading File", JOptionPane.ERROR_MESSAGE);
+		}
+	}
+	
 	/**
 	 * 	Sets all options and text on panels by rereading values saved in {@link SimulationConfiguration} as a json file 
 	 */
@@ -20,23 +20,21 @@
 package com.chrisali.javaflightsim.swing.consoletable;
 
 import java.text.DecimalFormat;
-import java.util.List;
-import java.util.Map;
 
 import javax.swing.table.AbstractTableModel;
 
+import com.chrisali.javaflightsim.simulation.integration.SimOutRingBuffer;
 import com.chrisali.javaflightsim.simulation.integration.SimOuts;
 
 public class ConsoleTableModel extends AbstractTableModel {
 
 	private static final long serialVersionUID = 4210192628630933689L;
 	
-	private List<Map<SimOuts, Double>> logsOut;
-	private Map<SimOuts, Double> simOut;
+	private SimOutRingBuffer logsOut;
 	private SimOuts[] columnNames = SimOuts.values();
 	
-	protected void setData(List<Map<SimOuts, Double>> list) {
-		this.logsOut = list;
+	protected void setData(SimOutRingBuffer logsOut) {
+		this.logsOut = logsOut;
 	}
 
 	@Override
@@ -51,159 +49,158 @@ public class ConsoleTableModel extends AbstractTableModel {
 
 	@Override
 	public Object getValueAt(int row, int col) {
-		simOut = logsOut.get(row);
-		
 		DecimalFormat df6 = new DecimalFormat("#.######");
 		DecimalFormat df4 = new DecimalFormat("#.####");
 		DecimalFormat df2 = new DecimalFormat("#.##");
 		DecimalFormat df1 = new DecimalFormat("#.#");
 		
+		// Each cell reads its single value straight from the ring buffer's columns, without copying its row
 		try {
 		switch (col) {
 		case 0:
-			return df2.format(simOut.get(SimOuts.TIME));
+			return df2.format(logsOut.get(row, SimOuts.TIME));
 		case 1:
-			return df4.format(simOut.get(SimOuts.U));
+			return df4.format(logsOut.get(row, SimOuts.U));
 		case 2:
-			return df4.format(simOut.get(SimOuts.U_DOT));
+			return df4.format(logsOut.get(row, SimOuts.U_DOT));
 		case 3:
-			return df4.format(simOut.get(SimOuts.V));
+			return df4.format(logsOut.get(row, SimOuts.V));
 		case 4:
-			return df4.format(simOut.get(SimOuts.V_DOT));
+			return df4.format(logsOut.get(row, SimOuts.V_DOT));
 		case 5:
-			return df4.format(simOut.get(SimOuts.W));
+			return df4.format(logsOut.get(row, SimOuts.W));
 		case 6:
-			return df4.format(simOut.get(SimOuts.W_DOT));
+			return df4.format(logsOut.get(row, SimOuts.W_DOT));
 		case 7:
-			return df1.format(simOut.get(SimOuts.NORTH));
+			return df1.format(logsOut.get(row, SimOuts.NORTH));
 		case 8:
-			return df4.format(simOut.get(SimOuts.NORTH_DOT));
+			return df4.format(logsOut.get(row, SimOuts.NORTH_DOT));
 		case 9:
-			return df1.format(simOut.get(SimOuts.EAST));
+			return df1.format(logsOut.get(row, SimOuts.EAST));
 		case 10:
-			return df4.format(simOut.get(SimOuts.EAST_DOT));
+			return df4.format(logsOut.get(row, SimOuts.EAST_DOT));
 		case 11:
-			return df1.format(simOut.get(SimOuts.ALT));
+			return df1.format(logsOut.get(row, SimOuts.ALT));
 		case 12:
-			return df2.format(simOut.get(SimOuts.ALT_DOT));
+			return df2.format(logsOut.get(row, SimOuts.ALT_DOT));
 		case 13:
-			return df4.format(simOut.get(SimOuts.PHI));
+			return df4.format(logsOut.get(row, SimOuts.PHI));
 		case 14:
-			return df4.format(simOut.get(SimOuts.PHI_DOT));
+			return df4.format(logsOut.get(row, SimOuts.PHI_DOT));
 		case 15:
-			return df4.format(simOut.get(SimOuts.THETA));
+			return df4.format(logsOut.get(row, SimOuts.THETA));
 		case 16:
-			return df4.format(simOut.get(SimOuts.THETA_DOT));
+			return df4.format(logsOut.get(row, SimOuts.THETA_DOT));
 		case 17:
-			return df4.format(simOut.get(SimOuts.PSI));
+			return df4.format(logsOut.get(row, SimOuts.PSI));
 		case 18:
-			return df4.format(simOut.get(SimOuts.PSI_DOT));
+			return df4.format(logsOut.get(row, SimOuts.PSI_DOT));
 		case 19:
-			return df4.format(simOut.get(SimOuts.P));
+			return df4.format(logsOut.get(row, SimOuts.P));
 		case 20:
-			return df4.format(simOut.get(SimOuts.P_DOT));
+			return df4.format(logsOut.get(row, SimOuts.P_DOT));
 		case 21:
-			return df4.format(simOut.get(SimOuts.Q));
+			return df4.format(logsOut.get(row, SimOuts.Q));
 		case 22:
-			return df4.format(simOut.get(SimOuts.Q_DOT));
+			return df4.format(logsOut.get(row, SimOuts.Q_DOT));
 		case 23:
-			return df4.format(simOut.get(SimOuts.R));
+			return df4.format(logsOut.get(row, SimOuts.R));
 		case 24:
-			return df4.format(simOut.get(SimOuts.R_DOT));
+			return df4.format(logsOut.get(row, SimOuts.R_DOT));
 		case 25:
-			return df2.format(simOut.get(SimOuts.TAS));
+			return df2.format(logsOut.get(row, SimOuts.TAS));
 		case 26:
-			return df4.format(simOut.get(SimOuts.BETA));
+			return df4.format(logsOut.get(row, SimOuts.BETA));
 		case 27:
-			return df4.format(simOut.get(SimOuts.ALPHA));
+			return df4.format(logsOut.get(row, SimOuts.ALPHA));
 		case 28:
-			return df4.format(simOut.get(SimOuts.ALPHA_DOT));
+			return df4.format(logsOut.get(row, SimOuts.ALPHA_DOT));
 		case 29:
-			return df4.format(simOut.get(SimOuts.MACH));
+			return df4.format(logsOut.get(row, SimOuts.MACH));
 		case 30:
-			return df4.format(simOut.get(SimOuts.LAT));
+			return df4.format(logsOut.get(row, SimOuts.LAT));
 		case 31:
-			return df6.format(simOut.get(SimOuts.LAT_DOT));
+			return df6.format(logsOut.get(row, SimOuts.LAT_DOT));
 		case 32:
-			return df4.format(simOut.get(SimOuts.LON));
+			return df4.format(logsOut.get(row, SimOuts.LON));
 		case 33:
-			return df6.format(simOut.get(SimOuts.LON_DOT));
+			return df6.format(logsOut.get(row, SimOuts.LON_DOT));
 		case 34:
-			return df4.format(simOut.get(SimOuts.A_X));
+			return df4.format(logsOut.get(row, SimOuts.A_X));
 		case 35:
-			return df4.format(simOut.get(SimOuts.AN_X));
+			return df4.format(logsOut.get(row, SimOuts.AN_X));
 		case 36:
-			return df4.format(simOut.get(SimOuts.A_Y));
+			return df4.format(logsOut.get(row, SimOuts.A_Y));
 		case 37:
-			return df4.format(simOut.get(SimOuts.AN_Y));
+			return df4.format(logsOut.get(row, SimOuts.AN_Y));
 		case 38:
-			return df4.format(simOut.get(SimOuts.A_Z));
+			return df4.format(logsOut.get(row, SimOuts.A_Z));
 		case 39:
-			return df4.format(simOut.get(SimOuts.AN_Z));
+			return df4.format(logsOut.get(row, SimOuts.AN_Z));
 		case 40:
-			return df4.format(simOut.get(SimOuts.L));
+			return df4.format(logsOut.get(row, SimOuts.L));
 		case 41:
-			return df4.format(simOut.get(SimOuts.M));
+			return df4.format(logsOut.get(row, SimOuts.M));
 		case 42:
-			return df4.format(simOut.get(SimOuts.N));
+			return df4.format(logsOut.get(row, SimOuts.N));
 		case 43:
-			return df2.format(simOut.get(SimOuts.THRUST_1));
+			return df2.format(logsOut.get(row, SimOuts.THRUST_1));
 		case 44:
-			return df2.format(simOut.get(SimOuts.RPM_1));
+			return df2.format(logsOut.get(row, SimOuts.RPM_1));
 		case 45:
-			return df2.format(simOut.get(SimOuts.FUEL_FLOW_1));
+			return df2.format(logsOut.get(row, SimOuts.FUEL_FLOW_1));
 		case 46:
-			return df2.format(simOut.get(SimOuts.THRUST_2));
+			return df2.format(logsOut.get(row, SimOuts.THRUST_2));
 		case 47:
-			return df2.format(simOut.get(SimOuts.RPM_2));
+			return df2.format(logsOut.get(row, SimOuts.RPM_2));
 		case 48:
-			return df2.format(simOut.get(SimOuts.FUEL_FLOW_2));
+			return df2.format(logsOut.get(row, SimOuts.FUEL_FLOW_2));
 		case 49:
-			return df2.format(simOut.get(SimOuts.THRUST_3));
+			return df2.format(logsOut.get(row, SimOuts.THRUST_3));
 		case 50:
-			return df2.format(simOut.get(SimOuts.RPM_3));
+			return df2.format(logsOut.get(row, SimOuts.RPM_3));
 		case 51:
-			return df2.format(simOut.get(SimOuts.FUEL_FLOW_3));
+			return df2.format(logsOut.get(row, SimOuts.FUEL_FLOW_3));
 		case 52:
-			return df2.format(simOut.get(SimOuts.THRUST_4));
+			return df2.format(logsOut.get(row, SimOuts.THRUST_4));
 		case 53:
-			return df2.format(simOut.get(SimOuts.RPM_4));
+			return df2.format(logsOut.get(row, SimOuts.RPM_4));
 		case 54:
-			return df2.format(simOut.get(SimOuts.FUEL_FLOW_4));
+			return df2.format(logsOut.get(row, SimOuts.FUEL_FLOW_4));
 		case 55:
-			return df2.format(simOut.get(SimOuts.ELEVATOR));
+			return df2.format(logsOut.get(row, SimOuts.ELEVATOR));
 		case 56:
-			return df2.format(simOut.get(SimOuts.AILERON));
+			return df2.format(logsOut.get(row, SimOuts.AILERON));
 		case 57:
-			return df2.format(simOut.get(SimOuts.RUDDER));
+			return df2.format(logsOut.get(row, SimOuts.RUDDER));
 		case 58:
-			return df1.format(simOut.get(SimOuts.THROTTLE_1));
+			return df1.format(logsOut.get(row, SimOuts.THROTTLE_1));
 		case 59:
-			return df1.format(simOut.get(SimOuts.THROTTLE_2));
+			return df1.format(logsOut.get(row, SimOuts.THROTTLE_2));
 		case 60:
-			return df1.format(simOut.get(SimOuts.THROTTLE_3));
+			return df1.format(logsOut.get(row, SimOuts.THROTTLE_3));
 		case 61:
-			return df1.format(simOut.get(SimOuts.THROTTLE_4));
+			return df1.format(logsOut.get(row, SimOuts.THROTTLE_4));
 		case 62:
-			return df1.format(simOut.get(SimOuts.PROPELLER_1));
+			return df1.format(logsOut.get(row, SimOuts.PROPELLER_1));
 		case 63:
-			return df1.format(simOut.get(SimOuts.PROPELLER_2));
+			return df1.format(logsOut.get(row, SimOuts.PROPELLER_2));
 		case 64:
-			return df1.format(simOut.get(SimOuts.PROPELLER_3));
+			return df1.format(logsOut.get(row, SimOuts.PROPELLER_3));
 		case 65:
-			return df1.format(simOut.get(SimOuts.PROPELLER_4));
+			return df1.format(logsOut.get(row, SimOuts.PROPELLER_4));
 		case 66:
-			return df1.format(simOut.get(SimOuts.MIXTURE_1));
+			return df1.format(logsOut.get(row, SimOuts.MIXTURE_1));
 		case 67:
-			return df1.format(simOut.get(SimOuts.MIXTURE_2));
+			return df1.format(logsOut.get(row, SimOuts.MIXTURE_2));
 		case 68:
-			return df1.format(simOut.get(SimOuts.MIXTURE_3));
+			return df1.format(logsOut.get(row, SimOuts.MIXTURE_3));
 		case 69:
-			return df1.format(simOut.get(SimOuts.MIXTURE_4));
+			return df1.format(logsOut.get(row, SimOuts.MIXTURE_4));
 		case 70:
-			return df1.format(simOut.get(SimOuts.GEAR));
+			return df1.format(logsOut.get(row, SimOuts.GEAR));
 		case 71:
-			return df1.format(simOut.get(SimOuts.FLAPS));
+			return df1.format(logsOut.get(row, SimOuts.FLAPS));
 		}
 		} catch (IllegalArgumentException e) {return "-";}
 		
@@ -26,6 +26,7 @@ import java.awt.event.ActionListener;
 import java.awt.event.KeyEvent;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
+import java.io.File;
 import java.io.IOException;
 
 import javax.swing.JFileChooser;
@@ -37,6 +38,8 @@ import javax.swing.JOptionPane;
 import javax.swing.JScrollPane;
 import javax.swing.JTable;
 import javax.swing.KeyStroke;
+import javax.swing.ProgressMonitor;
+import javax.swing.SwingUtilities;
 import javax.swing.SwingWorker;
 
 import org.apache.logging.log4j.LogManager;
@@ -45,6 +48,7 @@ import org.apache.logging.log4j.Logger;
 import com.chrisali.javaflightsim.initializer.LWJGLSwingSimulationController;
 import com.chrisali.javaflightsim.simulation.SimulationRunner;
 import com.chrisali.javaflightsim.simulation.datatransfer.EnvironmentData;
+import com.chrisali.javaflightsim.simulation.utilities.ExportProgressListener;
 
 public class ConsoleTablePanel extends JFrame {
 
@@ -67,7 +71,7 @@ public class ConsoleTablePanel extends JFrame {
 		//-------------- Table Panel ------------------------
 		
 		consoleTableModel = new ConsoleTableModel();
-		consoleTableModel.setData(runner.getSimulation().getLogsOut());
+		consoleTableModel.setData(runner.getSimulation().getLogsOutBuffer());
 		table = new JTable(consoleTableModel);
 		table.setAutoResizeMode(JTable.AUTO_RESIZE_OFF);
 		table.setColumnSelectionAllowed(true);
@@ -129,13 +133,28 @@ public class ConsoleTablePanel extends JFrame {
 			@Override
 			public void actionPerformed(ActionEvent ev) {
 				if (fileChooser.showSaveDialog(ConsoleTablePanel.this) == JFileChooser.APPROVE_OPTION) {
-					try {
-						controller.saveConsoleOutput(fileChooser.getSelectedFile());
-					} catch (IOException ex) {
-						JOptionPane.showMessageDialog(ConsoleTablePanel.this, 
-								"Could not save data to file", "Error", JOptionPane.ERROR_MESSAGE);
-						logger.error("Unable to save CSV file!", ex);
-					}
+					ProgressMonitor progressMonitor = new ProgressMonitor(ConsoleTablePanel.this, "Exporting as CSV...", null, 0, 100);
+					
+					controller.saveConsoleOutput(fileChooser.getSelectedFile(), new ExportProgressListener() {
+						@Override
+						public void onExportProgress(long rowsWritten, long totalRows) {
+							int percent = (totalRows == 0) ? 100 : (int) (100 * rowsWritten / totalRows);
+							SwingUtilities.invokeLater(() -> progressMonitor.setProgress(percent));
+						}
+						
+						@Override
+						public void onExportFinished(File file, IOException error) {
+							SwingUtilities.invokeLater(() -> {
+								progressMonitor.close();
+								
+								if (error != null) {
+									JOptionPane.showMessageDialog(ConsoleTablePanel.this, 
+											"Could not save data to file", "Error", JOptionPane.ERROR_MESSAGE);
+									logger.error("Unable to save CSV file!", error);
+								}
+							});
+						}
+					});
 				}
 			}
 		});
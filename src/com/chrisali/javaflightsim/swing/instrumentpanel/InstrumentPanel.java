@@ -23,7 +23,6 @@ import java.awt.Color;
 import java.awt.GridBagConstraints;
 import java.awt.GridBagLayout;
 import java.text.DecimalFormat;
-import java.util.Map;
 
 import javax.swing.BorderFactory;
 import javax.swing.JLabel;
@@ -257,34 +256,31 @@ public class InstrumentPanel extends JPanel implements FlightDataListener {
 	}
 
 	/**
-	 * When the instrument panel receives the event that data was received, use the values stored
-	 * in {@link FlightData}'s EnumMap flightData to set gauge values
+	 * When the instrument panel receives the event that data was received, use the values delivered
+	 * by {@link FlightData} to set gauge values
 	 */
 	@Override
-	public void onFlightDataReceived(FlightData flightData) {
-		Map<FlightDataType, Double> receivedFlightData = flightData.getFlightData();
+	public void onFlightDataReceived(double[] flightData) {
 		DecimalFormat df = new DecimalFormat("#");
 		
-		if (!receivedFlightData.containsValue(null)) {
-			artificalHorizon.setPitch(receivedFlightData.get(FlightDataType.PITCH));
-			artificalHorizon.setRoll(receivedFlightData.get(FlightDataType.ROLL));
-			
-			altimeter.setValue(receivedFlightData.get(FlightDataType.ALTITUDE));
-			
-			airspeedIndicator.setValue(receivedFlightData.get(FlightDataType.IAS));
-			
-			directionalGyro.setValue(receivedFlightData.get(FlightDataType.HEADING));
-			
-			verticalSpeed.setValue(receivedFlightData.get(FlightDataType.VERT_SPEED));
-			
-			turnCoordinator.setInclinoValue(receivedFlightData.get(FlightDataType.TURN_RATE));
-			turnCoordinator.setCoordValue(receivedFlightData.get(FlightDataType.TURN_COORD));
-			
-			tachometer.setLeftValue(receivedFlightData.get(FlightDataType.RPM_1));
-			tachometer.setRightValue(receivedFlightData.get(FlightDataType.RPM_2));
-			
-			flapsIndicator.setText(String.valueOf(df.format(receivedFlightData.get(FlightDataType.FLAPS))));
-			gearIndicator.setLedOn(receivedFlightData.get(FlightDataType.GEAR) == 1.0);
-		}
+		artificalHorizon.setPitch(flightData[FlightDataType.PITCH.ordinal()]);
+		artificalHorizon.setRoll(flightData[FlightDataType.ROLL.ordinal()]);
+		
+		altimeter.setValue(flightData[FlightDataType.ALTITUDE.ordinal()]);
+		
+		airspeedIndicator.setValue(flightData[FlightDataType.IAS.ordinal()]);
+		
+		directionalGyro.setValue(flightData[FlightDataType.HEADING.ordinal()]);
+		
+		verticalSpeed.setValue(flightData[FlightDataType.VERT_SPEED.ordinal()]);
+		
+		turnCoordinator.setInclinoValue(flightData[FlightDataType.TURN_RATE.ordinal()]);
+		turnCoordinator.setCoordValue(flightData[FlightDataType.TURN_COORD.ordinal()]);
+		
+		tachometer.setLeftValue(flightData[FlightDataType.RPM_1.ordinal()]);
+		tachometer.setRightValue(flightData[FlightDataType.RPM_2.ordinal()]);
+		
+		flapsIndicator.setText(String.valueOf(df.format(flightData[FlightDataType.FLAPS.ordinal()])));
+		gearIndicator.setLedOn(flightData[FlightDataType.GEAR.ordinal()] == 1.0);
 	}
 }
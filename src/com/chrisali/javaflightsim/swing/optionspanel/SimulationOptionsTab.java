@@ -55,6 +55,7 @@ public class SimulationOptionsTab extends JPanel {
 	private JLabel headerLabel;
 	private JCheckBox analysisMode;
 	private JCheckBox consoleDisplay;
+	private JCheckBox flightRecorder;
 	private JList<String> controllers;
 	private JSpinner stepSizeSpinner;
 	private StepSizeValueChangedListener stepSizeValueChangedListener;
@@ -118,7 +119,7 @@ public class SimulationOptionsTab extends JPanel {
 			@Override
 			public void actionPerformed(ActionEvent e) {
 				if(((JCheckBox)e.getSource()).isSelected()) {
-					simulationOptions.removeIf(p -> (p != Options.CONSOLE_DISPLAY));
+					simulationOptions.removeIf(p -> (p != Options.CONSOLE_DISPLAY && p != Options.FLIGHT_RECORDER));
 					simulationOptions.add(Options.ANALYSIS_MODE);
 					controllers.setEnabled(false);
 				} else {
@@ -153,6 +154,28 @@ public class SimulationOptionsTab extends JPanel {
 		});
 		controlsPanel.add(consoleDisplay, gc);
 		
+		//---------- Flight Recorder Checkbox ------------------- 
+		gc.gridy++;
+		
+		gc.gridx = 0;
+		gc.anchor = GridBagConstraints.EAST;
+		controlsPanel.add(new JLabel("Flight Recorder:"), gc);
+		
+		gc.gridx = 1;
+		gc.anchor = GridBagConstraints.WEST;
+		flightRecorder = new JCheckBox("Record Entire Flight");
+		flightRecorder.setToolTipText("Records every step of the simulation to files in the Recordings folder, no matter how long the flight");
+		flightRecorder.addActionListener(new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				if(((JCheckBox)e.getSource()).isSelected())
+					simulationOptions.add(Options.FLIGHT_RECORDER);
+				else
+					simulationOptions.remove(Options.FLIGHT_RECORDER);
+			}
+		});
+		controlsPanel.add(flightRecorder, gc);
+		
 		//-------------- Controllers List  ------------------------ 
 		gc.gridy++;
 		
@@ -239,6 +262,7 @@ public class SimulationOptionsTab extends JPanel {
 		
 		analysisMode.setSelected(simulationOptions.contains(Options.ANALYSIS_MODE) ? true : false);
 		consoleDisplay.setSelected(simulationOptions.contains(Options.CONSOLE_DISPLAY) ? true : false);
+		flightRecorder.setSelected(simulationOptions.contains(Options.FLIGHT_RECORDER) ? true : false);
 		
 		if (simulationOptions.contains(Options.USE_MOUSE))
 			controllers.setSelectedIndex(1);
@@ -218,7 +218,7 @@ public class PlotWindow extends JFrame implements ProgressDialogListener {
 					
 					Map<String, SubPlotBundle> subPlotBundles = plotConfiguration.getSubPlotBundles();
 					
-					// Copy to thread-safe ArrayList
+					// Copy to thread-safe ArrayList; steps are copied as snapshots of their values, so they outlive eviction from the ring buffer
 					CopyOnWriteArrayList<Map<SimOuts, Double>> cowLogsOut = new CopyOnWriteArrayList<>(logsOut);
 					
 					for (Map.Entry<String, SubPlotBundle> entry : subPlotBundles.entrySet()) {
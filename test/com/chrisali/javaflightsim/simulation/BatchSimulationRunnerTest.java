@@ -0,0 +1,52 @@
+package com.chrisali.javaflightsim.simulation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.EnumSet;
+
+import org.junit.Test;
+
+import com.chrisali.javaflightsim.simulation.setup.IntegratorConfig;
+import com.chrisali.javaflightsim.simulation.setup.Options;
+import com.chrisali.javaflightsim.simulation.setup.SimulationConfiguration;
+import com.chrisali.javaflightsim.simulation.utilities.FileUtilities;
+
+public class BatchSimulationRunnerTest {
+	
+	private static final double END_TIME = 2.0;
+	
+	private static SimulationContext createContext(Options option) {
+		SimulationConfiguration configuration = FileUtilities.readSimulationConfiguration();
+		configuration.getIntegratorConfig().put(IntegratorConfig.ENDTIME, END_TIME);
+		configuration.updateOptions(EnumSet.of(option));
+		
+		return new SimulationContext(configuration);
+	}
+	
+	@Test
+	public void RunsToEndTimeTest() {
+		SimulationContext context = createContext(Options.ANALYSIS_MODE);
+		BatchSimulationRunner runner = new BatchSimulationRunner(context, BatchSimulationRunner.UNLIMITED);
+		runner.run();
+		
+		double dt = context.getConfiguration().getIntegratorConfig().get(IntegratorConfig.DT);
+		
+		assertTrue("Runner should reach end time", runner.getTimeMS().get() >= END_TIME * 1000);
+		assertEquals("Every step should be logged", Math.round(END_TIME / dt), runner.getLogsOut().size());
+	}
+	
+	@Test
+	public void TimeCompressionTest() {
+		double timeCompression = 10.0;
+		BatchSimulationRunner runner = new BatchSimulationRunner(createContext(Options.ANALYSIS_MODE), timeCompression);
+		runner.run();
+		
+		assertTrue("Runner should be paced to " + timeCompression + "x real time", runner.getWallTimeSec() >= 0.95 * END_TIME / timeCompression);
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void AnalysisModeRequiredTest() {
+		new BatchSimulationRunner(createContext(Options.UNLIMITED_FLIGHT), BatchSimulationRunner.UNLIMITED);
+	}
+}
@@ -0,0 +1,91 @@
+package com.chrisali.javaflightsim.simulation;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.chrisali.javaflightsim.interfaces.Steppable;
+
+public class RateGroupSchedulerTest {
+	
+	private static final double DT = 1.0 / 120.0;
+	
+	/**
+	 * Counts its own steps and records the order of steps among all components
+	 */
+	private static class CountingComponent implements Steppable {
+		private final RateGroup rateGroup;
+		private final List<RateGroup> stepOrder;
+		private int steps;
+		
+		public CountingComponent(RateGroup rateGroup, List<RateGroup> stepOrder) {
+			this.rateGroup = rateGroup;
+			this.stepOrder = stepOrder;
+		}
+		
+		@Override
+		public void step() { 
+			steps++;
+			stepOrder.add(rateGroup);
+		}
+		
+		@Override
+		public RateGroup getRateGroup() { return rateGroup; }
+	}
+	
+	@Test
+	public void DividerTest() {
+		assertEquals("Physics should step every frame", 1, RateGroup.PHYSICS.getDivider(DT));
+		assertEquals("Controls should step every second frame", 2, RateGroup.CONTROLS.getDivider(DT));
+		assertEquals("Environment should step every twelfth frame", 12, RateGroup.ENVIRONMENT.getDivider(DT));
+		assertEquals("Groups faster than the simulation should step every frame", 1, RateGroup.PHYSICS.getDivider(1.0 / 50.0));
+		assertEquals("Actual rate should be the simulation rate divided", 50.0, RateGroup.CONTROLS.getActualRateHz(1.0 / 100.0), 1e-9);
+	}
+	
+	@Test
+	public void GroupRatesTest() {
+		List<RateGroup> stepOrder = new ArrayList<>();
+		Map<RateGroup, CountingComponent> components = new EnumMap<>(RateGroup.class);
+		RateGroupScheduler scheduler = new RateGroupScheduler(DT);
+		
+		for (RateGroup rateGroup : RateGroup.values()) {
+			components.put(rateGroup, new CountingComponent(rateGroup, stepOrder));
+			scheduler.add(components.get(rateGroup));
+		}
+		
+		for (long frame = 0; frame < 120; frame++)
+			scheduler.step(frame);
+		
+		for (RateGroup rateGroup : RateGroup.values())
+			assertEquals(rateGroup + " should step at its rate for one second", rateGroup.getRateHz(), components.get(rateGroup).steps);
+		
+		assertEquals("Components should step in the order added", RateGroup.values()[0], stepOrder.get(0));
+		assertEquals("Components should step in the order added", RateGroup.values()[RateGroup.values().length - 1], stepOrder.get(3));
+	}
+	
+	@Test
+	public void HighSimulationRatePhysicsTest() {
+		for (double rateHz : new double[] {240, 500}) {
+			double dt = 1.0 / rateHz;
+			List<RateGroup> stepOrder = new ArrayList<>();
+			CountingComponent physics = new CountingComponent(RateGroup.PHYSICS, stepOrder);
+			CountingComponent controls = new CountingComponent(RateGroup.CONTROLS, stepOrder);
+			
+			RateGroupScheduler scheduler = new RateGroupScheduler(dt);
+			scheduler.add(physics);
+			scheduler.add(controls);
+			
+			for (long frame = 0; frame < rateHz; frame++)
+				scheduler.step(frame);
+			
+			assertEquals("Physics should step once per frame at " + rateHz + " Hz", (int) rateHz, physics.steps);
+			assertEquals("Physics should run at the simulation rate at " + rateHz + " Hz", rateHz, RateGroup.PHYSICS.getActualRateHz(dt), 1e-9);
+			assertEquals("Other groups should still be divided at " + rateHz + " Hz", Math.ceil(rateHz / RateGroup.CONTROLS.getDivider(dt)), controls.steps, 0);
+		}
+	}
+}
@@ -0,0 +1,71 @@
+package com.chrisali.javaflightsim.simulation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class RealTimeSchedulerTest {
+	
+	private static final double PERIOD = 0.02;
+	private static final int FRAMES = 10;
+	
+	/**
+	 * Runs frames on a scheduler, the first of which takes longer than three frame periods to step
+	 */
+	private static RealTimeScheduler runWithOverrun(OverrunPolicy policy) throws InterruptedException {
+		RealTimeScheduler scheduler = new RealTimeScheduler(PERIOD);
+		scheduler.setOverrunPolicy(policy);
+		scheduler.start();
+		
+		for (int i = 0; i < FRAMES; i++) {
+			scheduler.awaitFrame();
+			if (i == 0)
+				Thread.sleep((long) (3.5 * PERIOD * 1000));
+			scheduler.completeFrame();
+		}
+		
+		return scheduler;
+	}
+	
+	@Test
+	public void SimulationClockTest() {
+		RealTimeScheduler scheduler = new RealTimeScheduler(1.0 / 120.0);
+		scheduler.setOverrunPolicy(OverrunPolicy.REBASE);
+		scheduler.start();
+		
+		for (int i = 0; i < 1200; i++)
+			scheduler.completeFrame();
+		
+		assertEquals("Simulation time should not drift from frames times period", 10000, scheduler.getSimTimeMS());
+		assertEquals("Simulation clock should have sub-millisecond resolution", 10e9, scheduler.getSimTimeNanos(), 1e3);
+	}
+	
+	@Test
+	public void DeadlinePacingTest() {
+		RealTimeScheduler scheduler = new RealTimeScheduler(PERIOD);
+		
+		long startTime = System.nanoTime();
+		scheduler.start();
+		for (int i = 0; i < FRAMES; i++) {
+			scheduler.awaitFrame();
+			scheduler.completeFrame();
+		}
+		scheduler.awaitFrame();
+		
+		assertTrue("Frames should be paced to their deadlines", System.nanoTime() - startTime >= TimeUnit.MILLISECONDS.toNanos((long) (FRAMES * PERIOD * 1000)));
+		assertEquals("Latency of every frame should be recorded", FRAMES, scheduler.getLatencyHistogram().getCount());
+	}
+	
+	@Test
+	public void OverrunPolicyTest() throws InterruptedException {
+		RealTimeScheduler catchUp = runWithOverrun(OverrunPolicy.CATCH_UP);
+		RealTimeScheduler rebase = runWithOverrun(OverrunPolicy.REBASE);
+		
+		assertTrue("Catching up should overrun until back on schedule", catchUp.getOverruns() >= 3);
+		assertTrue("Rebasing should overrun fewer frames than catching up", rebase.getOverruns() < catchUp.getOverruns());
+		assertEquals("Every overrun should be recorded", catchUp.getOverruns(), catchUp.getOverrunHistogram().getCount());
+	}
+}
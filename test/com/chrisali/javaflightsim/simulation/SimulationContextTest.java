@@ -0,0 +1,81 @@
+package com.chrisali.javaflightsim.simulation;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControlsState;
+import com.chrisali.javaflightsim.simulation.integration.Integrate6DOFEquations;
+import com.chrisali.javaflightsim.simulation.integration.SimOuts;
+import com.chrisali.javaflightsim.simulation.setup.Options;
+import com.chrisali.javaflightsim.simulation.setup.SimulationConfiguration;
+import com.chrisali.javaflightsim.simulation.utilities.FileUtilities;
+
+public class SimulationContextTest {
+	
+	private static final int STEPS = 600;
+	
+	private static SimulationContext createContext() {
+		SimulationConfiguration configuration = FileUtilities.readSimulationConfiguration();
+		configuration.getSimulationOptions().clear();
+		configuration.getSimulationOptions().add(Options.ANALYSIS_MODE);
+		
+		return new SimulationContext(configuration);
+	}
+	
+	/**
+	 * Runs a simulation in its own context with the weather given, and returns its final states
+	 */
+	private static double[] runSimulation(double windSpeed, double windDir, double temperature) {
+		SimulationContext context = createContext();
+		Integrate6DOFEquations simulation = new Integrate6DOFEquations(new FlightControlsState(context.getConfiguration()), context);
+		simulation.setWeather(windSpeed, windDir, temperature);
+		
+		for (int i = 0; i < STEPS; i++)
+			simulation.step();
+		
+		Map<SimOuts, Double> simOut = simulation.getSimOut();
+		
+		return new double[] {simOut.get(SimOuts.U), simOut.get(SimOuts.W), simOut.get(SimOuts.NORTH), simOut.get(SimOuts.EAST), 
+							 simOut.get(SimOuts.ALT), simOut.get(SimOuts.THETA), simOut.get(SimOuts.PSI)};
+	}
+	
+	@Test
+	public void ConcurrentSimulationsTest() throws Exception {
+		double[] calmAlone  = runSimulation(0, 0, 15);
+		double[] windyAlone = runSimulation(30, 90, 35);
+		
+		assertNotEquals("Weather should change the outcome of a simulation", calmAlone[3], windyAlone[3], 1e-6);
+		
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			Future<double[]> calm  = executor.submit(() -> runSimulation(0, 0, 15));
+			Future<double[]> windy = executor.submit(() -> runSimulation(30, 90, 35));
+			
+			assertArrayEquals("Calm simulation should not be affected by one running alongside it", calmAlone, calm.get(), 0);
+			assertArrayEquals("Windy simulation should not be affected by one running alongside it", windyAlone, windy.get(), 0);
+		} finally {
+			executor.shutdown();
+		}
+	}
+	
+	@Test
+	public void SimEventsIsolationTest() {
+		SimulationContext paused  = createContext();
+		SimulationContext running = createContext();
+		
+		paused.getSimEvents().pauseUnpauseSimulation(true);
+		running.getSimEvents().pauseUnpauseSimulation(false);
+		
+		assertTrue("Simulation should be paused by its own events", paused.getConfiguration().getSimulationOptions().contains(Options.PAUSED));
+		assertFalse("Simulation should not be paused by another's events", running.getConfiguration().getSimulationOptions().contains(Options.PAUSED));
+	}
+}
@@ -0,0 +1,302 @@
+package com.chrisali.javaflightsim.simulation.aircraft;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.ToDoubleFunction;
+
+import org.apache.commons.math3.analysis.interpolation.PiecewiseBicubicSplineInterpolatingFunction;
+import org.junit.Test;
+
+import com.chrisali.javaflightsim.simulation.utilities.FileUtilities;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class LookupTableTest {
+	
+	private static final double TOLERANCE = 1e-12;
+	
+	private Aircraft aircraft = FileUtilities.readAircraftConfiguration("Navion");
+	
+	private LookupTable createTable(InterpolationType interpolationType, Extrapolation extrapolation) {
+		double[] breakPointAngle = {-0.2, -0.1, 0.0, 0.1, 0.2, 0.3};
+		double[] breakPointFlap  = {0.0, 0.2, 0.4};
+		double[][] lookupValues  = {{1.0, 2.0, 3.0}, {1.5, 2.5, 3.5}, {2.0, 3.5, 4.0}, {2.5, 3.0, 5.0}, {2.0, 2.5, 4.5}, {1.0, 2.0, 3.0}};
+		
+		return new LookupTable(breakPointAngle, breakPointFlap, lookupValues, 0.0, "Test", interpolationType, extrapolation);
+	}
+	
+	private static final TableAxis[] AXES = {TableAxis.ALPHA, TableAxis.BETA, TableAxis.MACH, TableAxis.FLAP, TableAxis.GEAR};
+	
+	private static final double[][] BREAK_POINTS = {{-0.2, -0.1, 0.0, 0.05, 0.1, 0.2, 0.3},
+													{-0.1, 0.0, 0.1},
+													{0.1, 0.3, 0.6, 0.8},
+													{0.0, 0.3, 0.5},
+													{0.0, 1.0}};
+	
+	private LookupTable createGridTable(InterpolationType interpolationType, ToDoubleFunction<TablePoint> function) {
+		double[] values = new double[7 * 3 * 4 * 3 * 2];
+		TablePoint point = new TablePoint();
+		int index = 0;
+		
+		for (double alpha : BREAK_POINTS[0])
+			for (double beta : BREAK_POINTS[1])
+				for (double mach : BREAK_POINTS[2])
+					for (double flap : BREAK_POINTS[3])
+						for (double gear : BREAK_POINTS[4])
+							values[index++] = function.applyAsDouble(createPoint(point, alpha, beta, mach, flap, gear));
+		
+		return new LookupTable(AXES, BREAK_POINTS, values, "Test", interpolationType, null);
+	}
+	
+	private TablePoint createPoint(TablePoint point, double alpha, double beta, double mach, double flap, double gear) {
+		return point.set(TableAxis.ALPHA, alpha).set(TableAxis.BETA, beta).set(TableAxis.MACH, mach).set(TableAxis.FLAP, flap).set(TableAxis.GEAR, gear);
+	}
+	
+	private void assertReproduces(String message, LookupTable table, ToDoubleFunction<TablePoint> function) {
+		Random random = new Random(2);
+		TablePoint point = new TablePoint();
+		
+		for (int i = 0; i < 2000; i++) {
+			createPoint(point, -0.2 + 0.5 * random.nextDouble(), -0.1 + 0.2 * random.nextDouble(), 0.1 + 0.7 * random.nextDouble(), 
+						0.5 * random.nextDouble(), random.nextDouble());
+			
+			assertEquals(message, function.applyAsDouble(point), table.interpolate(point), 1e-10);
+		}
+	}
+	
+	@Test
+	public void MultilinearInterpolationTest() {
+		// Linear along each axis, so that multilinear interpolation is exact
+		ToDoubleFunction<TablePoint> function = p -> 1.0 + 2.0 * p.get(TableAxis.ALPHA) * (1 - p.get(TableAxis.MACH))
+												   - 0.5 * p.get(TableAxis.BETA) * p.get(TableAxis.FLAP) 
+												   + 0.1 * p.get(TableAxis.GEAR) * p.get(TableAxis.ALPHA);
+		
+		assertReproduces("Multilinear table should reproduce multilinear function", createGridTable(InterpolationType.LINEAR, function), function);
+	}
+	
+	@Test
+	public void CubicInterpolationTest() {
+		// Quadratic along each axis, so that cubic interpolation with three point slopes is exact
+		ToDoubleFunction<TablePoint> function = p -> 1.0 + 3.0 * p.get(TableAxis.ALPHA) * p.get(TableAxis.ALPHA) * p.get(TableAxis.MACH)
+												   - p.get(TableAxis.BETA) * p.get(TableAxis.BETA) 
+												   + 0.5 * p.get(TableAxis.FLAP) * p.get(TableAxis.FLAP) * p.get(TableAxis.MACH) * p.get(TableAxis.MACH)
+												   + 0.1 * p.get(TableAxis.GEAR);
+		
+		assertReproduces("Cubic table should reproduce quadratic function", createGridTable(InterpolationType.BICUBIC, function), function);
+	}
+	
+	private void assertGradient(String message, LookupTable table, TablePoint point) {
+		double[] gradient = new double[TableAxis.values().length];
+		double value = table.interpolate(point, gradient);
+		
+		assertEquals(message + " should interpolate the same value with its gradient", table.interpolate(point), value, 0.0);
+		
+		for (TableAxis axis : TableAxis.values()) {
+			double original = point.get(axis), step = 1e-6;
+			double plus  = table.interpolate(point.set(axis, original + step));
+			double minus = table.interpolate(point.set(axis, original - step));
+			point.set(axis, original);
+			
+			assertEquals(message + " should be differentiated along " + axis, (plus - minus) / (2 * step), gradient[axis.ordinal()], 1e-6);
+		}
+	}
+	
+	@Test
+	public void GradientTest() {
+		ToDoubleFunction<TablePoint> function = p -> Math.sin(3 * p.get(TableAxis.ALPHA)) * p.get(TableAxis.MACH) 
+												   + Math.exp(p.get(TableAxis.BETA) * p.get(TableAxis.FLAP)) + 0.2 * p.get(TableAxis.GEAR);
+		Random random = new Random(3);
+		TablePoint point = new TablePoint();
+		
+		for (InterpolationType interpolationType : InterpolationType.values()) {
+			LookupTable gridTable = createGridTable(interpolationType, function);
+			LookupTable table = createTable(interpolationType, null);
+			
+			for (int i = 0; i < 200; i++) {
+				createPoint(point, -0.3 + 0.7 * random.nextDouble(), -0.15 + 0.3 * random.nextDouble(), 0.8 * random.nextDouble(), 
+							-0.1 + 0.7 * random.nextDouble(), random.nextDouble());
+				
+				assertGradient(interpolationType + " grid table", gridTable, point);
+				assertGradient(interpolationType + " table", table, point);
+			}
+		}
+		
+		for (StabilityDerivatives stabDer : new StabilityDerivatives[] {StabilityDerivatives.CL_ALPHA, StabilityDerivatives.CM_ALPHA}) {
+			for (int i = 0; i < 200; i++)
+				assertGradient(stabDer.toString(), aircraft.getStabilityDerivative(stabDer), 
+							   createPoint(point, -0.4 + 0.8 * random.nextDouble(), 0.0, 0.2, 0.7 * random.nextDouble(), 0.0));
+		}
+	}
+	
+	@Test
+	public void MultiDimensionalClampTest() {
+		ToDoubleFunction<TablePoint> function = p -> p.get(TableAxis.ALPHA) + p.get(TableAxis.MACH);
+		LookupTable table = createGridTable(InterpolationType.LINEAR, function);
+		TablePoint point = new TablePoint();
+		
+		assertEquals("Value outside table should be clamped", 0.3 + 0.8, table.interpolate(createPoint(point, 1.0, 0.0, 2.0, 0.0, 0.0)), 1e-12);
+		assertEquals("Value outside table should be clamped", -0.2 + 0.1, table.interpolate(createPoint(point, -1.0, 0.0, 0.0, 0.0, 0.0)), 1e-12);
+	}
+	
+	@Test
+	public void MultiDimensionalJsonTest() throws Exception {
+		LookupTable table = createGridTable(InterpolationType.LINEAR, p -> p.get(TableAxis.ALPHA) * p.get(TableAxis.BETA));
+		ObjectMapper mapper = new ObjectMapper();
+		
+		LookupTable readTable = mapper.readValue(mapper.writeValueAsString(table), LookupTable.class);
+		TablePoint point = createPoint(new TablePoint(), 0.15, 0.05, 0.5, 0.1, 0.5);
+		
+		assertEquals("Deserialized table should interpolate the same value", table.interpolate(point), readTable.interpolate(point), 0.0);
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void MultiDimensionalSizeTest() {
+		new LookupTable(AXES, BREAK_POINTS, new double[10], "Test", null, null);
+	}
+	
+	@Test
+	public void BicubicMatchesSplineTest() {
+		for (StabilityDerivatives stabDer : new StabilityDerivatives[] {StabilityDerivatives.CL_ALPHA, StabilityDerivatives.CM_ALPHA}) {
+			LookupTable table = aircraft.getStabilityDerivative(stabDer);
+			double[] breakPointAngle = table.getBreakPointAngle();
+			double[] breakPointFlap = table.getBreakPointFlap();
+			PiecewiseBicubicSplineInterpolatingFunction pbsif = new PiecewiseBicubicSplineInterpolatingFunction(breakPointAngle, 
+																												breakPointFlap, 
+																												table.getLookupValues());
+			
+			for (int i = 0; i <= 300; i++) {
+				for (int j = 0; j <= 60; j++) {
+					double angle = breakPointAngle[0] + (breakPointAngle[breakPointAngle.length-1] - breakPointAngle[0]) * i / 300.0;
+					double flap  = breakPointFlap[0]  + (breakPointFlap[breakPointFlap.length-1] - breakPointFlap[0]) * j / 60.0;
+					
+					assertEquals(stabDer + " should match spline at " + angle + ", " + flap, pbsif.value(angle, flap), table.interpolate(angle, flap), TOLERANCE);
+				}
+			}
+		}
+	}
+	
+	@Test
+	public void BreakPointValuesTest() {
+		for (InterpolationType interpolationType : InterpolationType.values()) {
+			LookupTable table = createTable(interpolationType, null);
+			
+			for (int i = 0; i < table.getBreakPointAngle().length; i++) {
+				for (int j = 0; j < table.getBreakPointFlap().length; j++) {
+					assertEquals(interpolationType + " table should return lookup value at breakpoint", table.getLookupValues()[i][j], 
+								 table.interpolate(table.getBreakPointAngle()[i], table.getBreakPointFlap()[j]), TOLERANCE);
+				}
+			}
+		}
+	}
+	
+	@Test
+	public void LinearInterpolationTest() {
+		LookupTable table = createTable(InterpolationType.LINEAR, null);
+		
+		assertEquals("Midpoint of cell should be average of corners", (2.0 + 3.5 + 2.5 + 3.0) / 4, table.interpolate(0.05, 0.1), TOLERANCE);
+		assertEquals("Midpoint of edge should be average of ends", (1.5 + 2.0) / 2, table.interpolate(-0.05, 0.0), TOLERANCE);
+	}
+	
+	@Test
+	public void ClampTest() {
+		for (InterpolationType interpolationType : InterpolationType.values()) {
+			LookupTable table = createTable(interpolationType, Extrapolation.CLAMP);
+			
+			assertEquals("Value below table should be clamped", table.interpolate(-0.2, 0.0), table.interpolate(-1.0, -1.0), TOLERANCE);
+			assertEquals("Value above table should be clamped", table.interpolate(0.3, 0.4), table.interpolate(1.0, 1.0), TOLERANCE);
+			assertEquals("Value outside flaps should be clamped", table.interpolate(0.05, 0.4), table.interpolate(0.05, 2.0), TOLERANCE);
+		}
+	}
+	
+	@Test
+	public void ExtrapolateTest() {
+		LookupTable table = createTable(InterpolationType.LINEAR, Extrapolation.EXTRAPOLATE);
+		
+		assertEquals("Value below table should continue first cell", 1.0 - 0.5, table.interpolate(-0.3, 0.0), TOLERANCE);
+		assertEquals("Value above table should continue last cell", 2.5 + (2.0 - 2.5)*2 + (4.5 - 2.5)*2 + (3.0 - 2.0 - 4.5 + 2.5)*4, table.interpolate(0.4, 0.6), TOLERANCE);
+	}
+	
+	@Test
+	public void ConstantValueTest() {
+		LookupTable table = new LookupTable(0.41, "CL_0");
+		
+		assertEquals("Constant table should return its value", 0.41, table.interpolate(0.1, 0.2), 0.0);
+		assertEquals("Table without a value should return 0", 0.0, new LookupTable().interpolate(0.1, 0.2), 0.0);
+	}
+	
+	@Test
+	public void HuntSearchOrderTest() {
+		LookupTable table = aircraft.getStabilityDerivative(StabilityDerivatives.CL_ALPHA);
+		LookupTable sequentialTable = new LookupTable(table.getBreakPointAngle(), table.getBreakPointFlap(), table.getLookupValues(), 0.0, "CL_ALPHA");
+		LookupTable randomTable = new LookupTable(table.getBreakPointAngle(), table.getBreakPointFlap(), table.getLookupValues(), 0.0, "CL_ALPHA");
+		
+		Random random = new Random(1);
+		double[] angles = new double[2000];
+		double[] flaps = new double[angles.length];
+		for (int i = 0; i < angles.length; i++) {
+			angles[i] = -0.35 + 0.7 * i / angles.length;
+			flaps[i] = 0.7 * random.nextDouble();
+		}
+		
+		double[] sequential = new double[angles.length];
+		for (int i = 0; i < angles.length; i++)
+			sequential[i] = sequentialTable.interpolate(angles[i], flaps[i]);
+		
+		for (int n = 0; n < angles.length; n++) {
+			int i = random.nextInt(angles.length);
+			assertEquals("Result should not depend on order of calls", sequential[i], randomTable.interpolate(angles[i], flaps[i]), 0.0);
+		}
+	}
+	
+	@Test
+	public void HuntIndexTest() {
+		double[] breakPoints = {0, 1, 2, 3, 4, 5, 6, 7, 8, 9};
+		
+		for (int last = -1; last <= breakPoints.length; last++) {
+			assertEquals("Value below breakpoints should be in first cell", 0, LookupTable.huntIndex(breakPoints, -5, last));
+			assertEquals("Value above breakpoints should be in last cell", 8, LookupTable.huntIndex(breakPoints, 50, last));
+			assertEquals("Last breakpoint should be in last cell", 8, LookupTable.huntIndex(breakPoints, 9, last));
+			
+			for (int i = 0; i < breakPoints.length - 1; i++)
+				assertEquals("Value should be found in its cell", i, LookupTable.huntIndex(breakPoints, i + 0.5, last));
+		}
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void ConstantOnlyDerivativeTableTest() {
+		Map<StabilityDerivatives, LookupTable> stabDerivs = new EnumMap<>(aircraft.getStabDerivs());
+		stabDerivs.put(StabilityDerivatives.CL_Q, createGridTable(InterpolationType.LINEAR, point -> 1.0));
+		aircraft.setStabDerivs(stabDerivs);
+		
+		aircraft.getAircraftModel();
+	}
+	
+	@Test
+	public void AlphaDerivativeTableTest() {
+		Map<StabilityDerivatives, LookupTable> stabDerivs = new EnumMap<>(aircraft.getStabDerivs());
+		stabDerivs.put(StabilityDerivatives.CM_ALPHA, createGridTable(InterpolationType.LINEAR, point -> 1.0));
+		aircraft.setStabDerivs(stabDerivs);
+		
+		assertNotNull("Alpha derivatives can be tables", aircraft.getAircraftModel());
+	}
+	
+	@Test
+	public void MassPropertiesRecompileTest() {
+		AircraftModel model = aircraft.getAircraftModel();
+		
+		try {
+			aircraft.getMassProps().put(MassProperties.TOTAL_MASS, 1.0);
+			fail("Mass properties should only be changed through the aircraft's setters");
+		} catch (UnsupportedOperationException e) {}
+		
+		assertSame("Model should not be recompiled while nothing has changed", model, aircraft.getAircraftModel());
+		
+		aircraft.setMassProperty(MassProperties.TOTAL_MASS, 2 * model.getTotalMass());
+		assertEquals("Changing a mass property should recompile the model", 2 * model.getTotalMass(), aircraft.getAircraftModel().getTotalMass(), 0);
+	}
+}
@@ -0,0 +1,181 @@
+package com.chrisali.javaflightsim.simulation.datatransfer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.chrisali.javaflightsim.simulation.integration.SimOuts;
+
+public class FanOutBufferTest {
+	
+	private FanOutBuffer<FlightDataType> buffer;
+	
+	@After
+	public void tearDown() {
+		if (buffer != null)
+			buffer.stop();
+	}
+	
+	private static void publish(FanOutBuffer<FlightDataType> buffer, double[] values, long sequence) {
+		for (int i = 0; i < values.length; i++)
+			values[i] = sequence;
+		buffer.publish(values);
+	}
+	
+	private static void awaitSequence(FanOutBuffer<FlightDataType>.Consumer consumer, long sequence) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (consumer.getSequence() < sequence && System.nanoTime() < deadline)
+			Thread.sleep(1);
+		
+		assertEquals("Consumer should catch up with the publisher", sequence, consumer.getSequence());
+	}
+	
+	/**
+	 * Records the sequence of each event handled, and whether any event was torn or handled out of order
+	 */
+	private static class RecordingHandler implements FanOutHandler {
+		private final List<Long> sequences = Collections.synchronizedList(new ArrayList<>());
+		private final AtomicBoolean inconsistent = new AtomicBoolean(false);
+		private long last = 0;
+		
+		@Override
+		public void onEvent(long sequence, double[] values) {
+			for (double value : values) {
+				if (value != sequence)
+					inconsistent.set(true);
+			}
+			if (sequence <= last)
+				inconsistent.set(true);
+			
+			last = sequence;
+			sequences.add(sequence);
+		}
+	}
+	
+	@Test
+	public void LatestEventTest() {
+		buffer = new FanOutBuffer<>(FlightDataType.class, 4);
+		assertEquals("Nothing should be published yet", 0, buffer.getCursor());
+		assertTrue("Map should be empty before anything is published", buffer.toMap().isEmpty());
+		
+		double[] values = new double[buffer.size()];
+		for (long sequence = 1; sequence <= 10; sequence++)
+			publish(buffer, values, sequence);
+		
+		assertEquals("Cursor should count publishes", 10, buffer.getCursor());
+		assertEquals("Latest event should be read after the ring wraps", 10, buffer.toMap().get(FlightDataType.ALTITUDE), 0);
+	}
+	
+	@Test
+	public void DropPolicyDeliversEveryEventTest() throws InterruptedException {
+		final int events = 5000;
+		buffer = new FanOutBuffer<>(FlightDataType.class, 8192);
+		RecordingHandler first = new RecordingHandler(), second = new RecordingHandler();
+		FanOutBuffer<FlightDataType>.Consumer firstConsumer = buffer.addConsumer("First", 0, SlowConsumerPolicy.DROP, first);
+		FanOutBuffer<FlightDataType>.Consumer secondConsumer = buffer.addConsumer("Second", 0, SlowConsumerPolicy.DROP, second);
+		
+		double[] values = new double[buffer.size()];
+		for (long sequence = 1; sequence <= events; sequence++)
+			publish(buffer, values, sequence);
+		
+		awaitSequence(firstConsumer, events);
+		awaitSequence(secondConsumer, events);
+		
+		for (RecordingHandler handler : new RecordingHandler[] {first, second}) {
+			assertFalse("Events should be handled whole and in order", handler.inconsistent.get());
+			assertEquals("Every event held in the ring should be handled by each consumer", events, handler.sequences.size());
+		}
+		assertEquals("No events should be dropped", 0, firstConsumer.getDropped());
+	}
+	
+	@Test
+	public void OverwrittenEventsDroppedTest() throws InterruptedException {
+		final int events = 1000;
+		buffer = new FanOutBuffer<>(FlightDataType.class, 16);
+		CountDownLatch release = new CountDownLatch(1);
+		RecordingHandler recorder = new RecordingHandler();
+		
+		// Stalls on the first event while the publisher laps the ring
+		FanOutBuffer<FlightDataType>.Consumer consumer = buffer.addConsumer("Stalled", 0, SlowConsumerPolicy.DROP, (sequence, values) -> {
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			recorder.onEvent(sequence, values);
+		});
+		
+		double[] values = new double[buffer.size()];
+		publish(buffer, values, 1);
+		Thread.sleep(50);
+		for (long sequence = 2; sequence <= events; sequence++)
+			publish(buffer, values, sequence);
+		release.countDown();
+		
+		awaitSequence(consumer, events);
+		
+		assertFalse("Events copied while being overwritten should never be handled", recorder.inconsistent.get());
+		assertEquals("Every event should be either handled or dropped", events, consumer.getDelivered() + consumer.getDropped());
+		assertTrue("Only the stalled event and those still held in the ring should be handled", consumer.getDelivered() <= 1 + 16);
+		assertEquals("The latest event should be handled", events, (long) recorder.sequences.get(recorder.sequences.size() - 1));
+	}
+	
+	@Test
+	public void CoalesceRateLimitTest() throws InterruptedException {
+		final double maxRateHz = 20;
+		buffer = new FanOutBuffer<>(FlightDataType.class, 64);
+		RecordingHandler recorder = new RecordingHandler();
+		FanOutBuffer<FlightDataType>.Consumer consumer = buffer.addConsumer("Coalesced", maxRateHz, SlowConsumerPolicy.COALESCE, recorder);
+		
+		// Publish at about 1 kHz for half a second
+		double[] values = new double[buffer.size()];
+		long sequence = 0;
+		long start = System.nanoTime();
+		while (System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(500)) {
+			publish(buffer, values, ++sequence);
+			Thread.sleep(1);
+		}
+		double elapsedSec = (System.nanoTime() - start) / 1e9;
+		
+		awaitSequence(consumer, sequence);
+		
+		assertFalse("Events should be handled whole and in order", recorder.inconsistent.get());
+		assertTrue("Consumer should not run faster than its maximum rate: " + recorder.sequences.size(), 
+				   recorder.sequences.size() <= elapsedSec * maxRateHz + 3);
+		assertEquals("The latest event should always be handled", sequence, (long) recorder.sequences.get(recorder.sequences.size() - 1));
+		assertEquals("Every event should be either handled or coalesced", sequence, consumer.getDelivered() + consumer.getDropped());
+	}
+	
+	@Test
+	public void FlightDataListenerDeliveredEventTest() throws InterruptedException {
+		FlightData flightData = new FlightData(new SeqLockBuffer<>(SimOuts.class));
+		CountDownLatch received = new CountDownLatch(1);
+		double[] altitude = new double[1];
+		
+		flightData.addFlightDataListener(delivered -> {
+			altitude[0] = delivered[FlightDataType.ALTITUDE.ordinal()];
+			received.countDown();
+		});
+		
+		try {
+			double[] simOut = new double[SimOuts.values().length];
+			simOut[SimOuts.ALT.ordinal()] = 5000;
+			flightData.updateData(simOut);
+			
+			assertTrue("Listener should be called", received.await(5, TimeUnit.SECONDS));
+			assertEquals("Listener should be given the values of the delivered event", 5000, altitude[0], 0);
+		} finally {
+			flightData.stop();
+		}
+	}
+}
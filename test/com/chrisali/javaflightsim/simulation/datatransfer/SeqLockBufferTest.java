@@ -0,0 +1,65 @@
+package com.chrisali.javaflightsim.simulation.datatransfer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+
+public class SeqLockBufferTest {
+	
+	@Test
+	public void TypedAccessTest() {
+		SeqLockBuffer<FlightDataType> buffer = new SeqLockBuffer<>(FlightDataType.class);
+		
+		assertEquals("Nothing should be published yet", 0, buffer.getVersion());
+		assertTrue("Map should be empty before anything is published", buffer.toMap().isEmpty());
+		
+		double[] values = new double[buffer.size()];
+		values[FlightDataType.ALTITUDE.ordinal()] = 5000;
+		buffer.publish(values);
+		values[FlightDataType.ALTITUDE.ordinal()] = 6000;
+		
+		assertEquals("Version should count publishes", 1, buffer.getVersion());
+		assertEquals("Published value should be copied, not referenced", 5000, buffer.get(FlightDataType.ALTITUDE), 0);
+		
+		Map<FlightDataType, Double> map = buffer.toMap();
+		assertEquals("Map should hold every value", FlightDataType.values().length, map.size());
+		assertEquals("Map should hold published values", 5000, map.get(FlightDataType.ALTITUDE), 0);
+	}
+	
+	@Test
+	public void ConcurrentConsistentReadTest() throws InterruptedException {
+		final long publishes = 200_000;
+		SeqLockBuffer<FlightDataType> buffer = new SeqLockBuffer<>(FlightDataType.class);
+		AtomicBoolean done = new AtomicBoolean(false);
+		
+		Thread writer = new Thread(() -> {
+			double[] values = new double[buffer.size()];
+			for (long i = 1; i <= publishes; i++) {
+				for (int j = 0; j < values.length; j++)
+					values[j] = i;
+				buffer.publish(values);
+			}
+			done.set(true);
+		});
+		writer.start();
+		
+		double[] copy = new double[buffer.size()];
+		long lastVersion = 0;
+		while (!done.get()) {
+			long version = buffer.read(copy);
+			
+			for (int j = 0; j < copy.length; j++)
+				assertEquals("Copy should never mix values of different publishes", copy[0], copy[j], 0);
+			assertEquals("Version should match the publish copied", version, (long) copy[0]);
+			assertTrue("Versions read should never go back in time", version >= lastVersion);
+			lastVersion = version;
+		}
+		writer.join();
+		
+		assertEquals("Reader should end on the last publish", publishes, buffer.read(copy));
+	}
+}
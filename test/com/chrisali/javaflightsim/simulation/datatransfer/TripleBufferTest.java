@@ -0,0 +1,91 @@
+package com.chrisali.javaflightsim.simulation.datatransfer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+
+public class TripleBufferTest {
+	
+	@Test
+	public void LatestPublishedTest() {
+		TripleBuffer<long[]> buffer = new TripleBuffer<>(() -> new long[1]);
+		
+		assertFalse("Nothing should be read before anything is published", buffer.update());
+		
+		for (long i = 1; i <= 3; i++) {
+			buffer.getWriteBuffer()[0] = i;
+			buffer.publish();
+		}
+		
+		assertTrue("Update should take the published buffer", buffer.update());
+		assertEquals("Reader should skip to the latest published value", 3, buffer.getReadBuffer()[0]);
+		assertNotSame("Writer should never write the read buffer", buffer.getReadBuffer(), buffer.getWriteBuffer());
+		assertFalse("Update should not change the read buffer until something new is published", buffer.update());
+		assertEquals("Read buffer should be kept", 3, buffer.getReadBuffer()[0]);
+	}
+	
+	@Test
+	public void ConcurrentTornReadTest() throws InterruptedException {
+		final int length = 64;
+		final long publishes = 200_000;
+		TripleBuffer<long[]> buffer = new TripleBuffer<>(() -> new long[length]);
+		AtomicBoolean done = new AtomicBoolean(false);
+		
+		Thread writer = new Thread(() -> {
+			for (long i = 1; i <= publishes; i++) {
+				long[] values = buffer.getWriteBuffer();
+				for (int j = 0; j < length; j++)
+					values[j] = i;
+				buffer.publish();
+			}
+			done.set(true);
+		});
+		writer.start();
+		
+		long last = 0;
+		while (true) {
+			boolean finished = done.get();
+			
+			if (!buffer.update()) {
+				if (finished)
+					break;
+				continue;
+			}
+			
+			long[] values = buffer.getReadBuffer();
+			for (int j = 0; j < length; j++)
+				assertEquals("Read buffer should never be partially written", values[0], values[j]);
+			assertTrue("Values read should never go back in time", values[0] > last);
+			last = values[0];
+		}
+		writer.join();
+		
+		assertEquals("Reader should end on the last value published", publishes, last);
+	}
+	
+	@Test
+	public void SnapshotInterpolationTest() {
+		FlightDataSnapshot previous = new FlightDataSnapshot();
+		FlightDataSnapshot latest = new FlightDataSnapshot();
+		Map<FlightDataType, Double> flightData = new EnumMap<>(FlightDataType.class);
+		
+		previous.set(FlightDataType.ALTITUDE, 1000);
+		latest.set(FlightDataType.ALTITUDE, 1100);
+		previous.set(FlightDataType.HEADING, 170);
+		latest.set(FlightDataType.HEADING, -170);
+		
+		FlightDataSnapshot.interpolate(previous, latest, 0.5, flightData);
+		assertEquals("Altitude should be interpolated linearly", 1050, flightData.get(FlightDataType.ALTITUDE), 1e-9);
+		assertEquals("Heading should be interpolated the shorter way around", 180, flightData.get(FlightDataType.HEADING), 1e-9);
+		
+		FlightDataSnapshot.interpolate(previous, latest, 1.5, flightData);
+		assertEquals("Altitude should be extrapolated past the latest snapshot", 1150, flightData.get(FlightDataType.ALTITUDE), 1e-9);
+	}
+}
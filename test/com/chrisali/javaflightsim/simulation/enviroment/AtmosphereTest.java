@@ -0,0 +1,134 @@
+package com.chrisali.javaflightsim.simulation.enviroment;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class AtmosphereTest {
+	
+	// Largest errors occur within a row of a change in lapse rate, where the closed form has a corner
+	private static final double TABLE_TOLERANCE = 1e-4;
+	
+	// Conversions from SI units used in the published 1976 tables
+	private static final double KELVIN_TO_RANKINE = 1.8;
+	private static final double PASCAL_TO_PSF = 0.0208854342;
+	private static final double METER_TO_FEET = 1/0.3048;
+	
+	private static void assertRelativeEquals(String message, double expected, double actual, double tolerance) {
+		assertEquals(message, 0.0, (actual - expected)/expected, tolerance);
+	}
+	
+	/**
+	 * Closed-form troposphere and stratosphere equations that Environment used before the table was introduced
+	 */
+	private static double[] legacyEquations(double altitude) {
+		if (altitude < 36089)
+			return new double[] {518.67 - 0.003566*altitude, 
+								 2116.22*Math.pow(1 - 0.0000068755*altitude, 5.2559),
+								 0.002377*Math.pow(1 - 0.0000068755*altitude, 4.2559)};
+		else
+			return new double[] {389.97, 
+								 472.6758*Math.exp(-0.0000480637*(altitude - 36089)),
+								 0.000706115*Math.exp(-0.0000480637*(altitude - 36089))};
+	}
+	
+	@Test
+	public void TableMatchesClosedFormTest() {
+		AtmosphereState table = new AtmosphereState();
+		AtmosphereState closedForm = new AtmosphereState();
+		
+		for (double deltaIsa : new double[] {-30, 0, 25}) {
+			Atmosphere atmosphere = Atmosphere.forDeltaIsa(deltaIsa);
+			
+			// Spacing is not a multiple of the table's, so that points fall between rows 
+			for (double altitude = Atmosphere.MIN_ALTITUDE; altitude <= Atmosphere.MAX_ALTITUDE; altitude += 7.3) {
+				atmosphere.update(altitude, table);
+				Atmosphere.calculate(altitude, deltaIsa, closedForm);
+				
+				String at = " at " + altitude + " ft, deltaIsa " + deltaIsa;
+				assertRelativeEquals("Temperature" + at, closedForm.getTemperature(), table.getTemperature(), TABLE_TOLERANCE);
+				assertRelativeEquals("Pressure" + at, closedForm.getPressure(), table.getPressure(), TABLE_TOLERANCE);
+				assertRelativeEquals("Density" + at, closedForm.getDensity(), table.getDensity(), TABLE_TOLERANCE);
+				assertRelativeEquals("Speed of sound" + at, closedForm.getSpeedOfSound(), table.getSpeedOfSound(), TABLE_TOLERANCE);
+				assertRelativeEquals("Gravity" + at, closedForm.getGravity(), table.getGravity(), TABLE_TOLERANCE);
+			}
+		}
+	}
+	
+	@Test
+	public void ClosedFormMatchesLegacyEquationsTest() {
+		AtmosphereState state = new AtmosphereState();
+		
+		// The legacy equations used geometric, rather than geopotential, altitude, so they drift apart with height
+		for (double altitude = 0; altitude <= 65000; altitude += 100) {
+			Atmosphere.calculate(altitude, 0, state);
+			double[] legacy = legacyEquations(altitude);
+			
+			String at = " at " + altitude + " ft";
+			assertEquals("Temperature" + at, legacy[0], state.getTemperature(), 0.5);
+			assertRelativeEquals("Pressure" + at, legacy[1], state.getPressure(), 1.5e-2);
+			assertRelativeEquals("Density" + at, legacy[2], state.getDensity(), 1.5e-2);
+		}
+	}
+	
+	@Test
+	public void PublishedLayerValuesTest() {
+		AtmosphereState state = new AtmosphereState();
+		
+		// Geometric altitude (m), temperature (K) and pressure (Pa) from the 1976 tables 
+		double[][] published = {{0,     288.15, 101325},
+								{11019, 216.65, 22632.1},
+								{20063, 216.65, 5474.89},
+								{32162, 228.65, 868.019},
+								{47350, 270.65, 110.906},
+								{51413, 270.65, 66.9389},
+								{71802, 214.65, 3.95642},
+								{86000, 186.87, 0.37338}};
+		
+		for (double[] row : published) {
+			Atmosphere.forDeltaIsa(0).update(row[0]*METER_TO_FEET, state);
+			
+			String at = " at " + row[0] + " m";
+			assertRelativeEquals("Temperature" + at, row[1]*KELVIN_TO_RANKINE, state.getTemperature(), 1e-3);
+			assertRelativeEquals("Pressure" + at, row[2]*PASCAL_TO_PSF, state.getPressure(), 2e-3);
+		}
+		
+		Atmosphere.calculate(0, 0, state);
+		assertRelativeEquals("Sea level density", 0.0023769, state.getDensity(), 1e-4);
+		assertRelativeEquals("Sea level speed of sound", 1116.4, state.getSpeedOfSound(), 1e-4);
+		assertEquals("Sea level gravity", 32.174, state.getGravity(), 1e-9);
+	}
+	
+	@Test
+	public void ClampOutsideRangeTest() {
+		Atmosphere atmosphere = Atmosphere.forDeltaIsa(0);
+		AtmosphereState clamped = new AtmosphereState();
+		AtmosphereState limit = new AtmosphereState();
+		
+		atmosphere.update(Atmosphere.MAX_ALTITUDE + 50000, clamped);
+		atmosphere.update(Atmosphere.MAX_ALTITUDE, limit);
+		assertEquals("Density above the model should be clamped", limit.getDensity(), clamped.getDensity(), 0);
+		
+		atmosphere.update(Atmosphere.MIN_ALTITUDE - 50000, clamped);
+		atmosphere.update(Atmosphere.MIN_ALTITUDE, limit);
+		assertEquals("Density below the model should be clamped", limit.getDensity(), clamped.getDensity(), 0);
+	}
+	
+	@Test
+	public void DeltaIsaCacheTest() {
+		assertSame("Tables should be shared for the same deltaIsa", Atmosphere.forDeltaIsa(10), Atmosphere.forDeltaIsa(10));
+		assertSame("Tables should be shared for 0.0 and -0.0", Atmosphere.forDeltaIsa(0.0), Atmosphere.forDeltaIsa(-0.0));
+		
+		AtmosphereState standard = new AtmosphereState();
+		AtmosphereState hot = new AtmosphereState();
+		
+		Atmosphere.forDeltaIsa(0).update(5000, standard);
+		Atmosphere.forDeltaIsa(36).update(5000, hot);
+		
+		assertEquals("Temperature should be offset by deltaIsa", standard.getTemperature() + 36, hot.getTemperature(), 1e-9);
+		assertEquals("Pressure should not depend on deltaIsa", standard.getPressure(), hot.getPressure(), 1e-9);
+		assertTrue("Density should be lower on a hot day", hot.getDensity() < standard.getDensity());
+	}
+}
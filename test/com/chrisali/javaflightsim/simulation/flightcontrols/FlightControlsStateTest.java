@@ -0,0 +1,84 @@
+package com.chrisali.javaflightsim.simulation.flightcontrols;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.chrisali.javaflightsim.simulation.setup.SimulationConfiguration;
+import com.chrisali.javaflightsim.simulation.utilities.FileUtilities;
+
+public class FlightControlsStateTest {
+	
+	private SimulationConfiguration configuration = FileUtilities.readSimulationConfiguration();
+	
+	@Test
+	public void VersionTest() {
+		FlightControlsState state = new FlightControlsState(configuration);
+		assertEquals("Initial controls should be copied", configuration.getInitialControls().get(FlightControl.THROTTLE_1), 
+					 state.get(FlightControl.THROTTLE_1), 0);
+		
+		long version = state.getVersion();
+		state.set(FlightControl.ELEVATOR, state.get(FlightControl.ELEVATOR));
+		assertEquals("Setting an unchanged value should not change the version", version, state.getVersion());
+		
+		state.set(FlightControl.ELEVATOR, 0.1);
+		assertEquals("Changing a value should change the version", version + 1, state.getVersion());
+		
+		state.limit();
+		assertEquals("Limiting controls already within limits should not change the version", version + 1, state.getVersion());
+		
+		state.reset();
+		assertEquals("Resetting should restore trim values", state.getTrimValue(FlightControl.ELEVATOR), state.get(FlightControl.ELEVATOR), 0);
+		assertEquals("Resetting should change the version", version + 2, state.getVersion());
+	}
+	
+	@Test
+	public void LimitTest() {
+		FlightControlsState state = new FlightControlsState(configuration);
+		state.set(FlightControl.ELEVATOR, 10.0);
+		state.set(FlightControl.THROTTLE_2, -1.0);
+		state.set(FlightControl.FLAPS, 0.1);
+		long version = state.getVersion();
+		
+		state.limit();
+		
+		assertEquals("Controls above their maximum should be limited", FlightControl.ELEVATOR.getMaximum(), state.get(FlightControl.ELEVATOR), 0);
+		assertEquals("Controls below their minimum should be limited", FlightControl.THROTTLE_2.getMinimum(), state.get(FlightControl.THROTTLE_2), 0);
+		assertEquals("Controls within limits should not change", 0.1, state.get(FlightControl.FLAPS), 0);
+		assertEquals("Limiting controls should change the version once", version + 1, state.getVersion());
+	}
+	
+	@Test
+	public void SnapshotTest() {
+		FlightControlsState state = new FlightControlsState(configuration);
+		FlightControlsSnapshot snapshot = new FlightControlsSnapshot();
+		
+		assertTrue("First update should copy the state", snapshot.update(state));
+		assertFalse("Update should be skipped while the state is unchanged", snapshot.update(state));
+		
+		state.set(FlightControl.RUDDER, 0.2);
+		assertEquals("Snapshot should not see changes until updated", state.getTrimValue(FlightControl.RUDDER), snapshot.get(FlightControl.RUDDER), 0);
+		
+		assertTrue("Update should copy a changed state", snapshot.update(state));
+		assertEquals("Snapshot should hold the changed value", 0.2, snapshot.get(FlightControl.RUDDER), 0);
+		assertEquals("Snapshot should track the version copied", state.getVersion(), snapshot.getVersion());
+		assertEquals("Snapshot should convert to a map of every control", FlightControl.values().length, snapshot.toMap().size());
+	}
+	
+	@Test
+	public void MapSnapshotUpdateTest() {
+		FlightControlsState state = new FlightControlsState(configuration);
+		
+		Map<FlightControl, Double> controls = new EnumMap<>(configuration.getInitialControls());
+		controls.put(FlightControl.ELEVATOR, state.get(FlightControl.ELEVATOR) - 0.1);
+		FlightControlsSnapshot snapshot = new FlightControlsSnapshot(controls);
+		
+		assertTrue("Snapshot of a map should copy a state that has never been changed", snapshot.update(state));
+		assertEquals("Snapshot should hold the state's values", state.get(FlightControl.ELEVATOR), snapshot.get(FlightControl.ELEVATOR), 0);
+	}
+}
@@ -0,0 +1,107 @@
+package com.chrisali.javaflightsim.simulation.integration;
+
+import static org.junit.Assert.assertEquals;
+
+import java.lang.management.ManagementFactory;
+import java.util.EnumSet;
+
+import org.junit.Test;
+
+import com.chrisali.javaflightsim.simulation.SimulationContext;
+import com.chrisali.javaflightsim.simulation.aircraft.Aircraft;
+import com.chrisali.javaflightsim.simulation.enviroment.AtmosphereState;
+import com.chrisali.javaflightsim.simulation.enviroment.Environment;
+import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControlsSnapshot;
+import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControlsState;
+import com.chrisali.javaflightsim.simulation.propulsion.Engine;
+import com.chrisali.javaflightsim.simulation.setup.Options;
+import com.chrisali.javaflightsim.simulation.setup.SimulationConfiguration;
+import com.chrisali.javaflightsim.simulation.utilities.FileUtilities;
+
+public class AllocationFreeStepTest {
+	
+	private static final int WARMUP_STEPS = 20000;
+	private static final int MEASURED_STEPS = 10000;
+	private static final int MEASUREMENT_ROUNDS = 5;
+	
+	private static final com.sun.management.ThreadMXBean threadBean = 
+			(com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+	
+	/**
+	 * Runs step until the JIT has had a chance to compile it, then returns the smallest number of bytes allocated
+	 * by this thread while running it for {@link #MEASURED_STEPS} more steps, out of {@link #MEASUREMENT_ROUNDS} rounds.
+	 * Taking the smallest round filters out one-off allocations made by the JVM itself (deoptimization, class loading, etc.) 
+	 * 
+	 * @param step
+	 * @return bytes allocated in steady state
+	 */
+	private static long measureSteadyStateAllocation(Runnable step) {
+		long threadId = Thread.currentThread().getId();
+		long minAllocatedBytes = Long.MAX_VALUE;
+		
+		for (int i = 0; i < WARMUP_STEPS; i++)
+			step.run();
+		
+		for (int round = 0; round < MEASUREMENT_ROUNDS; round++) {
+			// Calibrate for any allocation made by the measurement itself
+			long calibration = threadBean.getThreadAllocatedBytes(threadId);
+			calibration = threadBean.getThreadAllocatedBytes(threadId) - calibration;
+			
+			long start = threadBean.getThreadAllocatedBytes(threadId);
+			for (int i = 0; i < MEASURED_STEPS; i++)
+				step.run();
+			long end = threadBean.getThreadAllocatedBytes(threadId);
+			
+			minAllocatedBytes = Math.min(minAllocatedBytes, end - start - calibration);
+		}
+		
+		return minAllocatedBytes;
+	}
+	
+	@Test
+	public void Integrate6DOFEquationsStepAllocationTest() {
+		SimulationConfiguration configuration = FileUtilities.readSimulationConfiguration();
+		configuration.updateOptions(EnumSet.of(Options.ANALYSIS_MODE, Options.NO_LOGGING));
+		
+		final Integrate6DOFEquations simulation = new Integrate6DOFEquations(new FlightControlsState(configuration), 
+																			 new SimulationContext(configuration));
+		
+		long allocatedBytes = measureSteadyStateAllocation(simulation::step);
+		
+		assertEquals("A step of the 6DOF equations of motion should not allocate", 0, allocatedBytes);
+	}
+	
+	@Test
+	public void GroundReactionEnvironmentAndEngineStepAllocationTest() {
+		SimulationConfiguration configuration = FileUtilities.readSimulationConfiguration();
+		final Aircraft aircraft = FileUtilities.readAircraftConfiguration(configuration.getSelectedAircraft());
+		final FlightControlsSnapshot controls = new FlightControlsSnapshot(configuration.getInitialControls());
+		
+		final Environment environment = new Environment();
+		final AtmosphereState atmosphereState = new AtmosphereState();
+		
+		final double[] linearVelocities = {100, 0, 0};
+		final double[] NEDPosition = {0, 0, 0};
+		final double[] eulerAngles = {0, 0.05, 0};
+		final double[] angularRates = {0, 0, 0};
+		final double[] windParameters = {100, 0, 0.05};
+		final double[] sixDOFDerivatives = new double[14];
+		final double[] integratorConfig = {0, 1.0/120.0, 100};
+		
+		final IntegrateGroundReaction groundReaction = new IntegrateGroundReaction(linearVelocities, NEDPosition, eulerAngles, 
+																				   angularRates, windParameters, sixDOFDerivatives, 
+																				   integratorConfig, aircraft, controls);
+		
+		final Engine[] engines = aircraft.getEngines().toArray(new Engine[aircraft.getEngines().size()]);
+		long allocatedBytes = measureSteadyStateAllocation(() -> {
+			groundReaction.integrateStep(0.0);
+			
+			environment.updateAtmosphereState(NEDPosition, atmosphereState);
+			
+			for (Engine engine : engines)
+				engine.updateEngineState(controls, atmosphereState, windParameters);
+		});
+		
+		assertEquals("A step of ground reaction, environment and engines should not allocate", 0, allocatedBytes);
+	}
+}
@@ -0,0 +1,92 @@
+package com.chrisali.javaflightsim.simulation.integration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.Test;
+
+public class SimOutRingBufferTest {
+	
+	private static void appendSteps(SimOutRingBuffer buffer, int from, int to) {
+		double[] simOut = new double[SimOuts.values().length];
+		
+		for (int step = from; step < to; step++) {
+			simOut[SimOuts.TIME.ordinal()] = step;
+			simOut[SimOuts.ALT.ordinal()] = step * 10;
+			buffer.append(simOut);
+		}
+	}
+	
+	@Test
+	public void EvictionTest() {
+		SimOutRingBuffer buffer = new SimOutRingBuffer(5);
+		appendSteps(buffer, 0, 3);
+		
+		assertEquals("Buffer should hold every step before it fills", 3, buffer.size());
+		assertEquals("Oldest step should be first", 0, buffer.get(0, SimOuts.TIME), 0);
+		
+		appendSteps(buffer, 3, 12);
+		
+		assertEquals("Buffer should hold no more than its capacity", 5, buffer.size());
+		assertEquals("All appended steps should be counted", 12, buffer.getAppended());
+		
+		for (int row = 0; row < buffer.size(); row++) {
+			assertEquals("Oldest steps should be evicted first", 7 + row, buffer.get(row, SimOuts.TIME), 0);
+			assertEquals("Map view should match primitive values", buffer.get(row, SimOuts.ALT), buffer.get(row).get(SimOuts.ALT), 0);
+		}
+		
+		double[] column = new double[buffer.size()];
+		assertEquals("Whole column should be copied", 5, buffer.copyColumn(SimOuts.ALT, column));
+		for (int row = 0; row < column.length; row++)
+			assertEquals("Column should be copied oldest first across the wrap", (7 + row) * 10, column[row], 0);
+	}
+	
+	@Test
+	public void StepViewTest() {
+		SimOutRingBuffer buffer = new SimOutRingBuffer(3);
+		appendSteps(buffer, 0, 3);
+		
+		Map<SimOuts, Double> oldest = buffer.get(0);
+		assertEquals("View should hold every channel", SimOuts.values().length, oldest.size());
+		assertEquals("Entries should iterate in channel order", SimOuts.TIME, oldest.entrySet().iterator().next().getKey());
+		
+		appendSteps(buffer, 3, 4);
+		assertNull("Values of an evicted step should be null", oldest.get(SimOuts.TIME));
+		assertEquals("Views should refer to the step, not the row", 1, buffer.get(0).get(SimOuts.TIME), 0);
+		
+		buffer.clear();
+		assertEquals("Clearing should discard all steps", 0, buffer.size());
+		appendSteps(buffer, 4, 5);
+		assertEquals("Steps appended after clearing should be retained", 4, buffer.get(0, SimOuts.TIME), 0);
+	}
+	
+	@Test
+	public void CopyAfterWrapTest() {
+		SimOutRingBuffer buffer = new SimOutRingBuffer(4);
+		appendSteps(buffer, 0, 6);
+		
+		List<Map<SimOuts, Double>> copy = new CopyOnWriteArrayList<>(Collections.unmodifiableList(buffer));
+		Map<SimOuts, Double> snapshot = buffer.getSnapshot(0);
+		
+		// Wrap the ring again, evicting every step that was copied
+		appendSteps(buffer, 6, 14);
+		
+		assertEquals("Copy should hold every retained step", 4, copy.size());
+		for (int row = 0; row < copy.size(); row++) {
+			assertEquals("Copied steps should keep their values after eviction", 2 + row, copy.get(row).get(SimOuts.TIME), 0);
+			assertEquals("Copied steps should keep every channel", (2 + row) * 10, copy.get(row).get(SimOuts.ALT), 0);
+		}
+		
+		assertEquals("Snapshot should keep its values after eviction", 2, snapshot.get(SimOuts.TIME), 0);
+		assertEquals("Snapshot should equal the step it was taken from", copy.get(0), snapshot);
+		
+		Map<?, ?>[] array = buffer.toArray(new Map<?, ?>[0]);
+		assertEquals("Typed array should hold every retained step", 4, array.length);
+		assertEquals("Typed array should be oldest first", 10.0, array[0].get(SimOuts.TIME));
+	}
+}
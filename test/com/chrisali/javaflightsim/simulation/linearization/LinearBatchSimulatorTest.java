@@ -0,0 +1,200 @@
+package com.chrisali.javaflightsim.simulation.linearization;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.chrisali.javaflightsim.simulation.SimulationContext;
+import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControl;
+import com.chrisali.javaflightsim.simulation.flightcontrols.analysis.AnalysisControlInput;
+import com.chrisali.javaflightsim.simulation.flightcontrols.analysis.Doublet;
+import com.chrisali.javaflightsim.simulation.flightcontrols.analysis.Singlet;
+import com.chrisali.javaflightsim.simulation.integration.SimOuts;
+import com.chrisali.javaflightsim.simulation.setup.SimulationConfiguration;
+import com.chrisali.javaflightsim.simulation.setup.TrimCondition;
+import com.chrisali.javaflightsim.simulation.setup.TrimSolver;
+import com.chrisali.javaflightsim.simulation.utilities.FileUtilities;
+
+public class LinearBatchSimulatorTest {
+	
+	private static final double TIME_STEP = 0.01;
+	private static final double DURATION = 20.0;
+	
+	private static LinearModel model;
+	
+	@BeforeClass
+	public static void linearize() throws Exception {
+		SimulationConfiguration configuration = FileUtilities.readSimulationConfiguration();
+		model = new Linearizer(configuration).linearize(new TrimSolver(new SimulationContext(configuration)).trim(new TrimCondition(200.0, 5000.0)));
+	}
+	
+	private static LinearCase singlet(FlightControl control, double amplitude) {
+		return new LinearCase(Collections.<AnalysisControlInput>singletonList(new Singlet(control, 1000, 500, amplitude)));
+	}
+	
+	/**
+	 * Integrates x_dot = Ax + Bu with small RK4 steps, holding u constant over each time step of the simulator
+	 */
+	private static double[][] integrate(LinearCase linearCase, int steps) {
+		final int states = Linearizer.STATES.length, substeps = 20;
+		double[][] a = model.getA(), b = model.getB();
+		double[][] history = new double[steps + 1][];
+		double[] x = linearCase.getInitialStates();
+		double h = TIME_STEP / substeps;
+		
+		history[0] = x.clone();
+		for (int step = 0; step < steps; step++) {
+			double[] u = new double[Linearizer.INPUTS.length];
+			for (AnalysisControlInput input : linearCase.getInputs())
+				u[Arrays.asList(Linearizer.INPUTS).indexOf(input.getControlType())] += input.calculateDeflection((int) Math.round(step * TIME_STEP * 1000));
+			
+			for (int substep = 0; substep < substeps; substep++) {
+				double[] k1 = derivative(a, b, x, u, null, 0);
+				double[] k2 = derivative(a, b, x, u, k1, h / 2);
+				double[] k3 = derivative(a, b, x, u, k2, h / 2);
+				double[] k4 = derivative(a, b, x, u, k3, h);
+				
+				for (int i = 0; i < states; i++)
+					x[i] += h / 6 * (k1[i] + 2 * k2[i] + 2 * k3[i] + k4[i]);
+			}
+			
+			history[step + 1] = x.clone();
+		}
+		
+		return history;
+	}
+	
+	private static double[] derivative(double[][] a, double[][] b, double[] x, double[] u, double[] k, double h) {
+		double[] xDot = new double[x.length];
+		
+		for (int i = 0; i < x.length; i++) {
+			for (int j = 0; j < x.length; j++)
+				xDot[i] += a[i][j] * (x[j] + ((k != null) ? h * k[j] : 0.0));
+			for (int j = 0; j < u.length; j++)
+				xDot[i] += b[i][j] * u[j];
+		}
+		
+		return xDot;
+	}
+	
+	@Test
+	public void DiscretizationTest() throws Exception {
+		LinearBatchSimulator simulator = new LinearBatchSimulator(model, TIME_STEP);
+		LinearCase elevatorSinglet = singlet(FlightControl.ELEVATOR, 0.02);
+		
+		int steps = (int) Math.round(DURATION / TIME_STEP);
+		double[][] history = integrate(elevatorSinglet, steps);
+		
+		// Pitch attitude (7) and altitude (5) outputs follow their states directly
+		double maxTheta = Double.NEGATIVE_INFINITY, minAltitude = Double.POSITIVE_INFINITY;
+		for (double[] x : history) {
+			maxTheta = Math.max(maxTheta, x[7]);
+			minAltitude = Math.min(minAltitude, x[5]);
+		}
+		
+		LinearBatchResult result = simulator.simulate(Collections.singletonList(elevatorSinglet), DURATION);
+		
+		assertEquals("Maximum pitch attitude should match continuous model", maxTheta, result.getMaximum(SimOuts.THETA, 0), 1e-8);
+		assertEquals("Minimum altitude should match continuous model", minAltitude, result.getMinimum(SimOuts.ALT, 0), 1e-6);
+		assertEquals("Final u should match continuous model", history[steps][0], result.getFinal(SimOuts.U, 0), 1e-8);
+		assertEquals("Final pitch rate should match continuous model", history[steps][10], result.getFinal(SimOuts.Q, 0), 1e-10);
+		
+		double[][] discreteA = simulator.getDiscreteA();
+		assertEquals("Discretized A should be identity for north position", 1.0, discreteA[3][3], 1e-12);
+	}
+	
+	@Test
+	public void ChunkingTest() throws Exception {
+		List<LinearCase> cases = new ArrayList<>();
+		for (int i = 0; i < 1300; i++) {
+			double amplitude = 0.001 * (i % 50 - 25);
+			AnalysisControlInput input = (i % 2 == 0) ? new Doublet(FlightControl.AILERON, 500 + 10 * (i % 7), 300, amplitude)
+													  : new Singlet(FlightControl.RUDDER, 500, 200 + 10 * (i % 11), amplitude);
+			double[] initialStates = new double[Linearizer.STATES.length];
+			initialStates[0] = 0.01 * (i % 13);
+			
+			cases.add(new LinearCase(Collections.singletonList(input), initialStates));
+		}
+		
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		LinearBatchSimulator simulator = new LinearBatchSimulator(model, TIME_STEP);
+		simulator.setExecutor(executor);
+		
+		try {
+			LinearBatchResult batch = simulator.simulate(cases, 5.0);
+			
+			assertEquals("Every case should have a result", cases.size(), batch.getCases());
+			
+			for (int caseNumber : new int[] {0, 1, 511, 512, 1024, 1299}) {
+				LinearBatchResult single = simulator.simulate(Collections.singletonList(cases.get(caseNumber)), 5.0);
+				
+				for (SimOuts output : Linearizer.OUTPUTS) {
+					assertEquals(output + " of case " + caseNumber + " should not depend on its chunk", 
+								 single.getMaximum(output, 0), batch.getMaximum(output, caseNumber), 0.0);
+					assertEquals(output + " of case " + caseNumber + " should not depend on its chunk", 
+								 single.getFinal(output, 0), batch.getFinal(output, caseNumber), 0.0);
+				}
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+	
+	@Test
+	public void ScreeningTest() throws Exception {
+		List<LinearCase> cases = new ArrayList<>();
+		for (int i = 0; i < 10; i++)
+			cases.add(singlet(FlightControl.ELEVATOR, -0.005 * i));
+		
+		LinearBatchResult result = new LinearBatchSimulator(model, TIME_STEP).simulate(cases, 5.0);
+		
+		// Response is linear, so larger inputs give proportionally larger excursions
+		double unit = result.getMaximum(SimOuts.ALPHA, 1);
+		assertTrue("Nose up elevator should increase angle of attack", unit > 0);
+		for (int i = 2; i < cases.size(); i++)
+			assertEquals("Excursion should scale with amplitude", i * unit, result.getMaximum(SimOuts.ALPHA, i), 1e-12);
+		
+		assertArrayEquals("Cases exceeding the excursion of the fifth should be screened", new int[] {6, 7, 8, 9}, 
+						  result.screen(SimOuts.ALPHA, -1.0, 5.5 * unit));
+	}
+	
+	@Test
+	public void FailedChunkScreenedTest() throws Exception {
+		List<LinearCase> cases = new ArrayList<>();
+		for (int i = 0; i < 1100; i++)
+			cases.add(singlet(FlightControl.ELEVATOR, -0.001));
+		
+		// Fails the second chunk of cases
+		cases.set(600, new LinearCase(Collections.<AnalysisControlInput>singletonList(new Singlet(FlightControl.ELEVATOR, 1000, 500, -0.001) {
+			@Override
+			public double calculateDeflection(int timeMS) {
+				throw new IllegalStateException("Input could not be calculated");
+			}
+		})));
+		
+		LinearBatchResult result = new LinearBatchSimulator(model, TIME_STEP).simulate(cases, 1.0);
+		
+		int[] expected = new int[512];
+		for (int i = 0; i < expected.length; i++)
+			expected[i] = 512 + i;
+		
+		assertTrue("Cases of a failed chunk should not have outcomes", Double.isNaN(result.getMaximum(SimOuts.ALPHA, 600)));
+		assertArrayEquals("Every case of the failed chunk, and only those, should be screened", expected, 
+						  result.screen(SimOuts.ALPHA, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY));
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void UnsupportedInputTest() {
+		singlet(FlightControl.FLAPS, 0.1);
+	}
+}
@@ -0,0 +1,264 @@
+package com.chrisali.javaflightsim.simulation.linearization;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RunnableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+
+import com.chrisali.javaflightsim.simulation.SimulationContext;
+import com.chrisali.javaflightsim.simulation.enviroment.Environment;
+import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControl;
+import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControlsSnapshot;
+import com.chrisali.javaflightsim.simulation.integration.FlightDynamicsModel;
+import com.chrisali.javaflightsim.simulation.setup.InitialConditions;
+import com.chrisali.javaflightsim.simulation.setup.SimulationConfiguration;
+import com.chrisali.javaflightsim.simulation.setup.TrimCondition;
+import com.chrisali.javaflightsim.simulation.setup.TrimResult;
+import com.chrisali.javaflightsim.simulation.setup.TrimSolver;
+import com.chrisali.javaflightsim.simulation.utilities.FileUtilities;
+import com.chrisali.javaflightsim.simulation.utilities.SixDOFUtilities;
+
+public class LinearizerTest {
+	
+	private static final double AIRSPEED = 200.0;
+	private static final double ALTITUDE = 5000.0;
+	
+	private static SimulationConfiguration configuration = FileUtilities.readSimulationConfiguration();
+	
+	private static TrimResult trim(double airspeed) {
+		return new TrimSolver(new SimulationContext(configuration)).trim(new TrimCondition(airspeed, ALTITUDE));
+	}
+	
+	/**
+	 * Evaluates the change in nonlinear state derivatives of a trim point with one state or input perturbed, iterating on alphaDot 
+	 * until it is consistent with u_dot and w_dot
+	 */
+	private static double[] nonlinearChange(TrimResult trim, int state, FlightControl input, double delta) {
+		double[] trimmed = nonlinearDerivatives(trim, state, input, 0.0);
+		double[] perturbed = nonlinearDerivatives(trim, state, input, delta);
+		
+		for (int i = 0; i < perturbed.length; i++)
+			perturbed[i] -= trimmed[i];
+		
+		return perturbed;
+	}
+	
+	private static double[] nonlinearDerivatives(TrimResult trim, int state, FlightControl input, double delta) {
+		FlightDynamicsModel model = new FlightDynamicsModel(new SimulationContext(configuration));
+		double[] y = new double[FlightDynamicsModel.STATES];
+		double[] yDot = new double[FlightDynamicsModel.STATES];
+		
+		for (InitialConditions initialCondition : InitialConditions.values())
+			y[initialCondition.ordinal()] = trim.getState(initialCondition);
+		
+		Map<FlightControl, Double> controls = trim.getControls();
+		if (input != null)
+			controls.put(input, controls.get(input) + delta);
+		else
+			y[state] += delta;
+		
+		double alphaDot = 0.0;
+		for (int i = 0; i < 20; i++) {
+			model.calculateDerivatives(y, new FlightControlsSnapshot(controls), alphaDot, yDot);
+			alphaDot = SixDOFUtilities.calculateAlphaDot(y, yDot);
+		}
+		
+		return yDot;
+	}
+	
+	private static void assertPredicts(double[][] matrix, int column, double delta, double[] nonlinear) {
+		double largest = 0.0;
+		for (int i = 0; i < Linearizer.STATES.length; i++)
+			largest = Math.max(largest, Math.abs(matrix[i][column] * delta));
+		
+		for (int i = 0; i < Linearizer.STATES.length; i++)
+			assertEquals("Linear model should predict derivative of " + Linearizer.STATES[i] + " perturbed by column " + column, 
+						 nonlinear[i], matrix[i][column] * delta, 1e-3 * largest + 1e-9);
+	}
+	
+	@Test
+	public void LinearPredictionTest() throws Exception {
+		TrimResult trim = trim(AIRSPEED);
+		LinearModel model = new Linearizer(configuration).linearize(trim);
+		
+		assertNotNull("Trim point should be linearized", model);
+		
+		// States are u, v, w, N, E, D, phi, theta, psi, p, q, r
+		for (int state : new int[] {0, 1, 2, 5, 7, 9, 10, 11}) {
+			double delta = (state < 6) ? 0.1 : 1e-3;
+			assertPredicts(model.getA(), state, delta, nonlinearChange(trim, state, null, delta));
+		}
+		
+		for (int input = 0; input < 4; input++)
+			assertPredicts(model.getB(), input, 1e-3, nonlinearChange(trim, 0, Linearizer.INPUTS[input], 1e-3));
+		
+		double[][] c = model.getC();
+		assertEquals("Airspeed should follow u in level flight", Math.cos(trim.getAlpha()), c[12][0], 1e-6);
+		assertEquals("Angle of attack should follow w in level flight", Math.cos(trim.getAlpha()) / AIRSPEED, c[14][2], 1e-6);
+	}
+	
+	@Test
+	public void ModesTest() throws Exception {
+		LinearModel model = new Linearizer(configuration).linearize(trim(AIRSPEED));
+		
+		for (ModeType type : ModeType.values())
+			assertNotNull(type + " should be identified in " + model, model.getMode(type));
+		
+		DynamicMode shortPeriod = model.getMode(ModeType.SHORT_PERIOD);
+		DynamicMode phugoid = model.getMode(ModeType.PHUGOID);
+		
+		assertTrue("Short period should be stable and oscillatory", shortPeriod.isStable() && shortPeriod.isOscillatory());
+		assertTrue("Dutch roll should be stable and oscillatory", model.getMode(ModeType.DUTCH_ROLL).isStable() 
+																 && model.getMode(ModeType.DUTCH_ROLL).isOscillatory());
+		assertTrue("Roll subsidence should be stable", model.getMode(ModeType.ROLL).isStable());
+		assertTrue("Short period should be faster than phugoid", shortPeriod.getNaturalFrequency() > 5 * phugoid.getNaturalFrequency());
+		
+		// Lanchester's approximation of the phugoid's period
+		double lanchester = Math.PI * Math.sqrt(2) * AIRSPEED / Environment.getGravity();
+		assertEquals("Phugoid period should be near Lanchester's approximation", lanchester, phugoid.getPeriod(), 0.25 * lanchester);
+		
+		double distance = Double.POSITIVE_INFINITY;
+		double[] real = model.getRealEigenvalues(), imaginary = model.getImaginaryEigenvalues();
+		for (int i = 0; i < real.length; i++)
+			distance = Math.min(distance, Math.hypot(real[i] - shortPeriod.getReal(), imaginary[i] - shortPeriod.getImaginary()));
+		
+		assertEquals("Short period of longitudinal subsystem should be near an eigenvalue of A", 0.0, distance, 0.05);
+	}
+	
+	@Test
+	public void AutomaticDifferentiationTest() throws Exception {
+		TrimResult trim = trim(AIRSPEED);
+		
+		Linearizer differences = new Linearizer(configuration);
+		differences.setDifferentiationMethod(DifferentiationMethod.CENTRAL_DIFFERENCES);
+		
+		LinearModel automatic = new Linearizer(configuration).linearize(trim);
+		LinearModel central = differences.linearize(trim);
+		
+		double[][][] expected = {central.getA(), central.getB(), central.getC(), central.getD()};
+		double[][][] actual = {automatic.getA(), automatic.getB(), automatic.getC(), automatic.getD()};
+		
+		for (int matrix = 0; matrix < expected.length; matrix++) {
+			for (int row = 0; row < expected[matrix].length; row++) {
+				for (int column = 0; column < expected[matrix][row].length; column++) {
+					double value = expected[matrix][row][column];
+					assertEquals("Automatic differentiation should agree with central differences in matrix " + matrix 
+								 + " at " + row + ", " + column, value, actual[matrix][row][column], 1e-4 * Math.abs(value) + 1e-6);
+				}
+			}
+		}
+	}
+	
+	@Test
+	public void CacheTest() throws Exception {
+		TrimResult trim = trim(AIRSPEED);
+		Linearizer linearizer = new Linearizer(configuration);
+		
+		LinearModel model = linearizer.linearize(trim);
+		
+		assertEquals("Converged trim point should be cached", 1, linearizer.getCacheSize());
+		assertSame("Cached model should be returned for the same trim point", model, linearizer.linearize(trim));
+		assertSame("Cached model should be found by condition", model, linearizer.getCached(trim.getCondition()));
+	}
+	
+	@Test
+	public void FailedPerturbationTest() throws Exception {
+		List<TrimResult> trims = Arrays.asList(trim(150), trim(250));
+		
+		Linearizer linearizer = new Linearizer(configuration);
+		linearizer.setDifferentiationMethod(DifferentiationMethod.CENTRAL_DIFFERENCES);
+		linearizer.setExecutor(new FailingExecutor());
+		
+		try {
+			linearizer.linearize(trims);
+			fail("Failed perturbation should be thrown");
+		} catch (ExecutionException e) {
+			assertTrue("Failure should be caused by what the perturbation threw", e.getCause() instanceof IllegalStateException);
+		}
+		
+		assertNull("Point with a failed perturbation should not be cached", linearizer.getCached(trims.get(0).getCondition()));
+		assertNotNull("Other points should still be cached", linearizer.getCached(trims.get(1).getCondition()));
+		assertEquals("Only the other point should be cached", 1, linearizer.getCacheSize());
+	}
+	
+	/**
+	 * Runs tasks on the calling thread, failing the first one as if its perturbation had thrown
+	 */
+	private static class FailingExecutor extends AbstractExecutorService {
+		
+		private final AtomicBoolean failed = new AtomicBoolean();
+		
+		@Override
+		protected <T> RunnableFuture<T> newTaskFor(Callable<T> callable) {
+			return new FutureTask<>(() -> {
+				if (failed.compareAndSet(false, true))
+					throw new IllegalStateException("Perturbation could not be evaluated");
+				
+				return callable.call();
+			});
+		}
+		
+		@Override
+		public void execute(Runnable command) { command.run(); }
+		
+		@Override
+		public void shutdown() {}
+		
+		@Override
+		public List<Runnable> shutdownNow() { return Collections.emptyList(); }
+		
+		@Override
+		public boolean isShutdown() { return false; }
+		
+		@Override
+		public boolean isTerminated() { return false; }
+		
+		@Override
+		public boolean awaitTermination(long timeout, TimeUnit unit) { return true; }
+	}
+	
+	@Test
+	public void ParallelLinearizationTest() throws Exception {
+		List<TrimResult> trims = Arrays.asList(trim(150), trim(200), trim(250));
+		
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		Linearizer parallel = new Linearizer(configuration);
+		parallel.setExecutor(executor);
+		
+		try {
+			List<LinearModel> models = parallel.linearize(trims);
+			
+			for (int i = 0; i < trims.size(); i++) {
+				LinearModel sequential = new Linearizer(configuration).linearize(trims.get(i));
+				double[][] a = models.get(i).getA(), b = models.get(i).getB();
+				
+				assertSame("Models should be in the order of their trim points", trims.get(i).getCondition(), models.get(i).getCondition());
+				for (int row = 0; row < a.length; row++) {
+					assertArrayEquals("A should not depend on how perturbations are scheduled", sequential.getA()[row], a[row], 0.0);
+					assertArrayEquals("B should not depend on how perturbations are scheduled", sequential.getB()[row], b[row], 0.0);
+				}
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+}
@@ -0,0 +1,99 @@
+package com.chrisali.javaflightsim.simulation.montecarlo;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Test;
+
+import com.chrisali.javaflightsim.simulation.integration.SimOuts;
+import com.chrisali.javaflightsim.simulation.setup.InitialConditions;
+import com.chrisali.javaflightsim.simulation.setup.IntegratorConfig;
+import com.chrisali.javaflightsim.simulation.setup.SimulationConfiguration;
+import com.chrisali.javaflightsim.simulation.utilities.FileUtilities;
+
+public class MonteCarloRunnerTest {
+	
+	private static final int CASES = 4;
+	private static final double END_TIME = 2.0;
+	
+	private static MonteCarloRunner createRunner(long seed) {
+		SimulationConfiguration configuration = FileUtilities.readSimulationConfiguration();
+		configuration.getIntegratorConfig().put(IntegratorConfig.ENDTIME, END_TIME);
+		
+		MonteCarloConfiguration monteCarloConfiguration = new MonteCarloConfiguration();
+		monteCarloConfiguration.setCases(CASES);
+		monteCarloConfiguration.setSeed(seed);
+		
+		return new MonteCarloRunner(configuration, monteCarloConfiguration);
+	}
+	
+	private static double[] dispersions(DispersedCase dispersedCase) {
+		return new double[] {dispersedCase.getInitialConditions().get(InitialConditions.INITU), 
+							 dispersedCase.getFuelWeightPercent(), dispersedCase.getPayloadWeightPercent(), dispersedCase.getWindSpeed(), 
+							 dispersedCase.getWindDir(), dispersedCase.getTemperature()};
+	}
+	
+	private static double[] finalStates(CaseSummary summary) {
+		return new double[] {summary.getFinal(SimOuts.U), summary.getFinal(SimOuts.W), summary.getFinal(SimOuts.NORTH), 
+							 summary.getFinal(SimOuts.EAST), summary.getFinal(SimOuts.ALT), summary.getFinal(SimOuts.THETA),
+							 summary.getMinimum(SimOuts.ALT), summary.getMaximum(SimOuts.AN_Z)};
+	}
+	
+	@Test
+	public void ReproducibleDispersionsTest() {
+		List<DispersedCase> cases = createRunner(42).generateCases();
+		List<DispersedCase> sameSeed = createRunner(42).generateCases();
+		List<DispersedCase> otherSeed = createRunner(43).generateCases();
+		
+		assertEquals("Runner should generate one dispersion per case", CASES, cases.size());
+		
+		for (int i = 0; i < CASES; i++) {
+			assertArrayEquals("Case " + i + " should be dispersed the same with the same seed", dispersions(cases.get(i)), dispersions(sameSeed.get(i)), 0);
+			assertArrayEquals("Case " + i + " timing should be dispersed the same with the same seed", 
+							  cases.get(i).getInputTimingOffsetsMS(), sameSeed.get(i).getInputTimingOffsetsMS());
+			assertArrayEquals("Case " + i + " should be regenerated the same on its own", dispersions(cases.get(i)), 
+							  dispersions(createRunner(42).generateCase(i)), 0);
+			assertNotEquals("Case " + i + " should be dispersed differently with another seed", 
+							cases.get(i).getWindSpeed(), otherSeed.get(i).getWindSpeed(), 0);
+		}
+		
+		assertNotEquals("Cases should be dispersed differently from each other", cases.get(0).getWindDir(), cases.get(1).getWindDir(), 0);
+	}
+	
+	@Test
+	public void ParallelMatchesSequentialTest() throws Exception {
+		MonteCarloRunner runner = createRunner(7);
+		Map<Integer, CaseSummary> parallel = new ConcurrentHashMap<>();
+		
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			runner.setExecutor(executor);
+			runner.run(summary -> parallel.put(summary.getCaseNumber(), summary));
+		} finally {
+			executor.shutdown();
+		}
+		
+		assertEquals("Every case should be summarized", CASES, parallel.size());
+		
+		double dt = FileUtilities.readSimulationConfiguration().getIntegratorConfig().get(IntegratorConfig.DT);
+		int expectedSteps = (int) Math.round(END_TIME / dt);
+		
+		for (DispersedCase dispersedCase : runner.generateCases()) {
+			CaseSummary sequential = runner.runCase(dispersedCase);
+			CaseSummary concurrent = parallel.get(dispersedCase.getCaseNumber());
+			
+			assertFalse("Case " + dispersedCase.getCaseNumber() + " should not fail", sequential.isFailed());
+			assertEquals("Case should run from start to end time", expectedSteps, sequential.getSteps());
+			assertArrayEquals("Case " + dispersedCase.getCaseNumber() + " should have the same outcome run sequentially or in parallel", 
+							  finalStates(sequential), finalStates(concurrent), 0);
+		}
+	}
+}
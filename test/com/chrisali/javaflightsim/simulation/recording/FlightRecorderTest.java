@@ -0,0 +1,111 @@
+package com.chrisali.javaflightsim.simulation.recording;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.chrisali.javaflightsim.simulation.integration.SimOuts;
+
+public class FlightRecorderTest {
+	
+	private static final int STEPS = 250;
+	private static final int SEGMENT_STEPS = 100;
+	
+	private File directory;
+	
+	@Before
+	public void setUp() throws IOException {
+		directory = Files.createTempDirectory("recording").toFile();
+	}
+	
+	@After
+	public void tearDown() {
+		for (File file : directory.listFiles())
+			file.delete();
+		directory.delete();
+	}
+	
+	private void record() throws IOException {
+		FlightRecorder recorder = new FlightRecorder(null, directory, "test", SEGMENT_STEPS);
+		double[] simOut = new double[SimOuts.values().length];
+		
+		for (int step = 0; step < STEPS; step++) {
+			simOut[SimOuts.TIME.ordinal()] = step;
+			simOut[SimOuts.ALT.ordinal()] = 1000 + step;
+			recorder.record(simOut);
+		}
+		recorder.close();
+		
+		assertEquals("Every step should be recorded", STEPS, recorder.getStepsRecorded());
+		assertEquals("Segments should roll when full", 3, recorder.getSegmentCount());
+	}
+	
+	@Test
+	public void SegmentRollingReadBackTest() throws IOException {
+		record();
+		
+		FlightRecording recording = new FlightRecording(directory, "test");
+		assertEquals("Steps should be read back from every segment", STEPS, recording.getSteps());
+		assertEquals("Every channel should be described in the header", SimOuts.values().length, recording.getChannels().size());
+		assertEquals("Recording should be found by the name of any of its segments", "test", 
+					 FlightRecording.getRecordingName(FlightRecorder.getSegmentFile(directory, "test", 2)));
+		
+		double[] time = recording.readColumn(SimOuts.TIME);
+		double[] altitude = recording.readColumn(SimOuts.ALT);
+		for (int step = 0; step < STEPS; step++) {
+			assertEquals("Steps should be read back in order", step, time[step], 0);
+			assertEquals("Channels should be read back from their own columns", 1000 + step, altitude[step], 0);
+		}
+	}
+	
+	@Test
+	public void ColumnarExportTest() throws IOException {
+		record();
+		
+		FlightRecording recording = new FlightRecording(directory, "test");
+		File exported = new File(directory, "test" + FlightRecording.COLUMNAR_EXTENSION);
+		recording.exportColumnar(exported);
+		
+		byte[] bytes = new byte[(int) exported.length()];
+		try (DataInputStream in = new DataInputStream(new FileInputStream(exported))) {
+			in.readFully(bytes);
+		}
+		ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+		
+		assertEquals("Export should start with its magic number", FlightRecording.COLUMNAR_MAGIC, buffer.getInt(0));
+		assertEquals("Export should describe its steps", STEPS, buffer.getLong(16));
+		
+		int dataOffset = buffer.getInt(8);
+		int channels = buffer.getInt(12);
+		assertEquals("Export should hold a column of every channel", dataOffset + (long) channels * STEPS * Double.BYTES, exported.length());
+		
+		double[] altitude = new double[STEPS];
+		buffer.position(dataOffset + SimOuts.ALT.ordinal() * STEPS * Double.BYTES);
+		buffer.asDoubleBuffer().get(altitude);
+		assertArrayEquals("Each channel should be exported as a contiguous column", recording.readColumn(SimOuts.ALT), altitude, 0);
+	}
+	
+	@Test
+	public void PreparedSegmentDiscardedOnCloseTest() throws IOException {
+		record();
+		
+		for (int segmentNumber = 0; segmentNumber < 3; segmentNumber++)
+			assertTrue("Every segment written to should be kept", FlightRecorder.getSegmentFile(directory, "test", segmentNumber).isFile());
+		
+		assertFalse("Segment prepared in the background but never written to should be deleted on close", 
+					FlightRecorder.getSegmentFile(directory, "test", 3).exists());
+	}
+}
@@ -0,0 +1,123 @@
+package com.chrisali.javaflightsim.simulation.recording;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.chrisali.javaflightsim.simulation.integration.SimOuts;
+
+public class FlightReplayTest {
+	
+	private static final int STEPS = 1000;
+	private static final int SEGMENT_STEPS = 300;
+	private static final double DT = 0.01;
+	
+	private File directory;
+	private FlightRecording recording;
+	
+	@Before
+	public void setUp() throws IOException {
+		directory = Files.createTempDirectory("replay").toFile();
+		
+		FlightRecorder recorder = new FlightRecorder(null, directory, "test", SEGMENT_STEPS);
+		double[] simOut = new double[SimOuts.values().length];
+		
+		// Recorded from a start time other than zero
+		for (int step = 0; step < STEPS; step++) {
+			simOut[SimOuts.TIME.ordinal()] = 5 + step * DT;
+			simOut[SimOuts.ALT.ordinal()] = 1000 + step;
+			recorder.record(simOut);
+		}
+		recorder.close();
+		
+		recording = new FlightRecording(directory, "test");
+	}
+	
+	@After
+	public void tearDown() {
+		recording = null;
+		for (File file : directory.listFiles())
+			file.delete();
+		directory.delete();
+	}
+	
+	private static double replayedStep(FlightReplay replay) {
+		return replay.getSimOutBuffer().get(SimOuts.ALT) - 1000;
+	}
+	
+	@Test
+	public void TimeIndexTest() {
+		assertEquals("Times before the recording should find its first step", 0, recording.getStep(0));
+		assertEquals("Times between steps should find the step before", 567, recording.getStep(5 + 567.5 * DT));
+		assertEquals("Times after a segment boundary should be found in the next segment", SEGMENT_STEPS, recording.getStep(5 + SEGMENT_STEPS * DT + 1e-9));
+		assertEquals("Times after the recording should find its last step", STEPS - 1, recording.getStep(1e6));
+	}
+	
+	@Test
+	public void PlaybackSpeedTest() {
+		FlightReplay replay = new FlightReplay(recording, DT);
+		replay.step();
+		assertEquals("Replay should start at the first recorded step", 0, replayedStep(replay), 0);
+		
+		for (int i = 0; i < 10; i++)
+			replay.step();
+		assertEquals("Real time playback should replay one recorded step per step", 10, replayedStep(replay), 1);
+		
+		replay.setSpeed(4.0);
+		for (int i = 0; i < 10; i++)
+			replay.step();
+		assertEquals("Faster playback should skip recorded steps", 50, replayedStep(replay), 1);
+		
+		replay.setSpeed(100.0);
+		assertEquals("Playback speed should be limited", FlightReplay.MAX_SPEED, replay.getSpeed(), 0);
+		
+		replay.setSpeed(FlightReplay.MIN_SPEED);
+		for (int i = 0; i < 20; i++)
+			replay.step();
+		assertEquals("Slower playback should hold recorded steps", 55, replayedStep(replay), 1);
+	}
+	
+	@Test
+	public void PauseSeekTest() {
+		FlightReplay replay = new FlightReplay(recording, DT);
+		replay.step();
+		
+		replay.setPaused(true);
+		replay.seek(5 + 800 * DT + 1e-9);
+		replay.step();
+		assertEquals("Seeking should replay the step recorded at the time sought", 800, replayedStep(replay), 0);
+		
+		replay.step();
+		assertEquals("Paused playback should hold its step", 800, replayedStep(replay), 0);
+		
+		replay.seek(-100);
+		replay.step();
+		assertEquals("Seeking before the recording should move to its start", replay.getStartTime(), replay.getTime(), 0);
+		assertEquals("Seeking before the recording should replay its first step", 0, replayedStep(replay), 0);
+		
+		replay.seek(1e6);
+		replay.setPaused(false);
+		replay.step();
+		replay.step();
+		assertEquals("Seeking past the recording should replay its last step", STEPS - 1, replayedStep(replay), 0);
+		assertTrue("Reaching the end of the recording should pause playback", replay.isPaused());
+	}
+	
+	@Test
+	public void LongJumpTest() {
+		FlightReplay replay = new FlightReplay(recording, 2.0);
+		replay.step();
+		assertFalse("Replay should not start paused", replay.isPaused());
+		
+		replay.step();
+		assertEquals("Steps further apart than a scan should be found by searching", 200, replayedStep(replay), 1);
+	}
+}
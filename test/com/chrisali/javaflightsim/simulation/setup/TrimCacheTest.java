@@ -0,0 +1,140 @@
+package com.chrisali.javaflightsim.simulation.setup;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.function.Supplier;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.chrisali.javaflightsim.simulation.SimulationContext;
+import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControl;
+import com.chrisali.javaflightsim.simulation.utilities.FileUtilities;
+
+public class TrimCacheTest {
+	
+	private static final double ALTITUDE = 5000.0;
+	
+	private static SimulationConfiguration configuration = FileUtilities.readSimulationConfiguration();
+	
+	private File directory;
+	private TrimSolver solver;
+	
+	// Supplies the solver, counting how many times one was needed
+	private int solverRequests;
+	private Supplier<TrimSolver> solvers = () -> { solverRequests++; return solver; };
+	
+	@Before
+	public void setUp() throws IOException {
+		directory = Files.createTempDirectory("trimcache").toFile();
+		solver = new TrimSolver(new SimulationContext(configuration));
+		solverRequests = 0;
+	}
+	
+	@After
+	public void tearDown() {
+		for (File file : directory.listFiles())
+			file.delete();
+		directory.delete();
+	}
+	
+	@Test
+	public void PersistenceTest() {
+		TrimCondition level = new TrimCondition(200, ALTITUDE);
+		TrimCondition turn = new TrimCondition(200, ALTITUDE, 0.0, Math.toRadians(3), Double.NaN, Double.NaN, 0.0);
+		
+		TrimCache cache = new TrimCache(directory, configuration);
+		TrimResult solved = cache.trim(solvers, level);
+		cache.trim(solvers, turn);
+		cache.save();
+		
+		assertEquals("Both conditions should be solved", 2, cache.getMisses());
+		assertTrue("Cache should be saved to its file", cache.getFile().exists());
+		
+		TrimCache reopened = new TrimCache(directory, configuration);
+		solverRequests = 0;
+		
+		TrimResult cached = reopened.trim(solvers, level);
+		assertEquals("Both conditions should be read back", 2, reopened.size());
+		assertNotNull("Coordinated turn should be read back", reopened.get(turn));
+		assertEquals("Condition should be served from the cache", 1, reopened.getHits());
+		assertEquals("No solver should be needed for a cached condition", 0, solverRequests);
+		assertEquals("Cached throttle should match the solved one", solved.getControl(FlightControl.THROTTLE_1), 
+					 cached.getControl(FlightControl.THROTTLE_1), 0);
+		assertEquals("Cached pitch should match the solved one", solved.getState(InitialConditions.INITTHETA), 
+					 cached.getState(InitialConditions.INITTHETA), 0);
+	}
+	
+	@Test
+	public void InterpolationTest() {
+		TrimCache cache = new TrimCache(directory, configuration);
+		cache.trim(solvers, new TrimCondition(195, ALTITUDE));
+		cache.trim(solvers, new TrimCondition(205, ALTITUDE));
+		cache.trim(solvers, new TrimCondition(195, ALTITUDE + 1000));
+		cache.trim(solvers, new TrimCondition(205, ALTITUDE + 1000));
+		
+		TrimResult betweenAirspeeds = cache.trim(solvers, new TrimCondition(200, ALTITUDE));
+		TrimResult betweenAltitudes = cache.trim(solvers, new TrimCondition(200, ALTITUDE + 500));
+		
+		TrimResult coldStarted = solver.trim(new TrimCondition(200, ALTITUDE + 500));
+		
+		assertEquals("Both conditions should be started from an interpolated solution", 2, cache.getInterpolations());
+		assertEquals("Interpolated solutions should still be solved", 6, cache.getMisses());
+		assertTrue("Trim started from an interpolated solution should converge", betweenAirspeeds.isConverged() && betweenAltitudes.isConverged());
+		assertTrue("Trim served from an interpolated solution should be within the solver's tolerance", 
+				   betweenAirspeeds.getResidual() < TrimSolver.TOLERANCE && betweenAltitudes.getResidual() < TrimSolver.TOLERANCE);
+		assertTrue("Interpolated solution should take fewer iterations than a cold start", 
+				   betweenAltitudes.getIterations() < coldStarted.getIterations());
+		assertEquals("Throttle should match the one solved from a cold start", coldStarted.getControl(FlightControl.THROTTLE_1), 
+					 betweenAltitudes.getControl(FlightControl.THROTTLE_1), 1e-4);
+		
+		cache.trim(solvers, new TrimCondition(250, ALTITUDE));
+		assertEquals("Condition outside of cached points should be solved", 7, cache.getMisses());
+		assertEquals("Condition outside of cached points should not be interpolated", 2, cache.getInterpolations());
+	}
+	
+	@Test
+	public void AircraftChangeInvalidatesCacheTest() throws IOException {
+		String staleName = configuration.getSelectedAircraft() + "-" + String.join("", Collections.nCopies(64, "0")) + FileUtilities.CONFIG_EXT;
+		File staleFile = new File(directory, staleName);
+		Files.write(staleFile.toPath(), "[[1.0]]".getBytes());
+		
+		TrimCache cache = new TrimCache(directory, configuration);
+		assertEquals("Cache of another version of the aircraft should not be read", 0, cache.size());
+		assertTrue("Cache file should be named after the aircraft's hash", 
+				   cache.getFile().getName().contains(TrimCache.hashAircraft(configuration.getSelectedAircraft())));
+		
+		cache.trim(solvers, new TrimCondition(200, ALTITUDE));
+		cache.save();
+		
+		assertFalse("Cache of another version of the aircraft should be deleted", staleFile.exists());
+		assertTrue("Cache of this version should be saved", cache.getFile().exists());
+	}
+	
+	@Test
+	public void SweepSkipsCachedPointsTest() throws Exception {
+		TrimSweep sweep = new TrimSweep(configuration, new TrimCondition(200, ALTITUDE));
+		sweep.setAirspeeds(180, 200, 220);
+		sweep.setAltitudes(2000, 6000);
+		
+		TrimCache cache = new TrimCache(directory, configuration);
+		sweep.setCache(cache);
+		sweep.run();
+		
+		TrimCache reopened = new TrimCache(directory, configuration);
+		sweep.setCache(reopened);
+		sweep.run();
+		
+		assertEquals("First sweep should solve every point", sweep.size(), cache.getMisses());
+		assertEquals("Repeated sweep should be served from the saved cache", sweep.size(), reopened.getHits());
+		assertEquals("Repeated sweep should solve nothing", 0, reopened.getMisses());
+	}
+}
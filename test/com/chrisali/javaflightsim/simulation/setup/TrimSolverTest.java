@@ -0,0 +1,149 @@
+package com.chrisali.javaflightsim.simulation.setup;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Test;
+
+import com.chrisali.javaflightsim.simulation.SimulationContext;
+import com.chrisali.javaflightsim.simulation.aircraft.MassProperties;
+import com.chrisali.javaflightsim.simulation.enviroment.Environment;
+import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControl;
+import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControlsSnapshot;
+import com.chrisali.javaflightsim.simulation.integration.FlightDynamicsModel;
+import com.chrisali.javaflightsim.simulation.utilities.FileUtilities;
+
+public class TrimSolverTest {
+	
+	private static final double AIRSPEED = 200.0;
+	private static final double ALTITUDE = 5000.0;
+	
+	private static SimulationConfiguration configuration = FileUtilities.readSimulationConfiguration();
+	
+	/**
+	 * Evaluates the state derivatives at the trimmed states, controls and weight of a result in a model of its own
+	 */
+	private static double[] derivatives(TrimResult result) {
+		SimulationContext context = new SimulationContext(configuration);
+		if (!Double.isNaN(result.getCondition().getWeight()))
+			context.getAircraft().setMassProperty(MassProperties.TOTAL_MASS, result.getCondition().getWeight() / Environment.getGravity());
+		
+		FlightDynamicsModel model = new FlightDynamicsModel(context);
+		double[] y = new double[FlightDynamicsModel.STATES];
+		
+		for (InitialConditions initialCondition : InitialConditions.values())
+			y[initialCondition.ordinal()] = result.getState(initialCondition);
+		
+		return model.calculateDerivatives(y, new FlightControlsSnapshot(result.getControls()), 0.0, new double[FlightDynamicsModel.STATES]);
+	}
+	
+	private static void assertTrimmed(TrimResult result) {
+		assertTrue("Solver should trim " + result, result.isConverged());
+		
+		double[] yDot = derivatives(result);
+		for (int i : new int[] {0, 1, 2, 9, 10, 11})
+			assertEquals("Derivative " + i + " should be zero in trim", 0.0, yDot[i], 1e-5);
+	}
+	
+	@Test
+	public void LevelTrimTest() {
+		TrimResult result = new TrimSolver(new SimulationContext(configuration)).trim(new TrimCondition(AIRSPEED, ALTITUDE));
+		
+		assertTrimmed(result);
+		assertEquals("Altitude should not change in level flight", 0.0, derivatives(result)[5], 1e-6);
+		assertEquals("Pitch should equal angle of attack in level flight", result.getAlpha(), result.getState(InitialConditions.INITTHETA), 1e-9);
+		assertEquals("Wings should be level", 0.0, result.getState(InitialConditions.INITPHI), 1e-6);
+		assertTrue("Throttle should be within its limits", result.getControl(FlightControl.THROTTLE_1) > 0 
+														   && result.getControl(FlightControl.THROTTLE_1) < 1);
+	}
+	
+	@Test
+	public void ClimbAndDescentTest() {
+		TrimSolver solver = new TrimSolver(new SimulationContext(configuration));
+		
+		for (double flightPathAngle : new double[] {Math.toRadians(3), Math.toRadians(-3)}) {
+			TrimResult result = solver.trim(new TrimCondition(AIRSPEED, ALTITUDE, flightPathAngle, 0.0, 0.0, Double.NaN, 0.0));
+			
+			assertTrimmed(result);
+			assertEquals("Altitude should change at the rate of the flight path angle", AIRSPEED * Math.sin(flightPathAngle), 
+						 derivatives(result)[5], 1e-6);
+		}
+	}
+	
+	@Test
+	public void CoordinatedTurnTest() {
+		double turnRate = Math.toRadians(3);
+		TrimSolver solver = new TrimSolver(new SimulationContext(configuration));
+		TrimResult result = solver.trim(new TrimCondition(AIRSPEED, ALTITUDE, 0.0, turnRate, Double.NaN, Double.NaN, 0.0));
+		
+		assertTrimmed(result);
+		assertEquals("Heading should change at the turn rate", turnRate, derivatives(result)[8], 1e-9);
+		assertEquals("Lateral specific force should be zero in a coordinated turn", 0.0, solver.getModel().getLinearAccelerations()[1], 1e-5);
+		assertTrue("Aircraft should bank into a right turn", result.getState(InitialConditions.INITPHI) > 0);
+	}
+	
+	@Test
+	public void SteadySideslipTest() {
+		double sideslip = Math.toRadians(5);
+		TrimResult result = new TrimSolver(new SimulationContext(configuration))
+				.trim(new TrimCondition(AIRSPEED, ALTITUDE, 0.0, 0.0, sideslip, Double.NaN, 0.0));
+		
+		assertTrimmed(result);
+		assertEquals("Sideslip should be held", sideslip, result.getBeta(), TrimSolver.TOLERANCE);
+		assertEquals("Heading should not change in a steady sideslip", 0.0, derivatives(result)[8], 1e-9);
+		assertTrue("Rudder should be deflected to hold sideslip", Math.abs(result.getControl(FlightControl.RUDDER)) > 1e-3);
+	}
+	
+	@Test
+	public void WarmStartTest() {
+		TrimSolver solver = new TrimSolver(new SimulationContext(configuration));
+		TrimResult neighbour = solver.trim(new TrimCondition(AIRSPEED, ALTITUDE));
+		
+		TrimCondition condition = new TrimCondition(AIRSPEED + 10, ALTITUDE);
+		TrimResult cold = solver.trim(condition);
+		TrimResult warm = solver.trim(condition, neighbour);
+		
+		assertTrimmed(warm);
+		assertTrue("Warm start should take no more iterations than a cold one", warm.getIterations() <= cold.getIterations());
+		assertEquals("Warm start should reach the same throttle", cold.getControl(FlightControl.THROTTLE_1), 
+					 warm.getControl(FlightControl.THROTTLE_1), 1e-6);
+	}
+	
+	@Test
+	public void SweepTest() throws Exception {
+		TrimSweep sweep = new TrimSweep(configuration, new TrimCondition(AIRSPEED, ALTITUDE));
+		sweep.setAirspeeds(200, 180, 160);
+		sweep.setAltitudes(2000, 6000);
+		sweep.setWeights(2600, 2900);
+		
+		List<TrimResult> results;
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			sweep.setExecutor(executor);
+			results = sweep.run();
+		} finally {
+			executor.shutdownNow();
+		}
+		
+		assertEquals("Sweep should trim every point of the grid", sweep.size(), results.size());
+		
+		// Airspeed varies fastest, then altitude, then weight
+		TrimCondition point = results.get(5).getCondition();
+		assertEquals("Airspeeds should be sorted", 200, point.getAirspeed(), 0);
+		assertEquals("Altitude should vary after airspeed", 6000, point.getAltitude(), 0);
+		assertEquals("Weight should vary after altitude", 2600, point.getWeight(), 0);
+		
+		TrimSolver solver = new TrimSolver(new SimulationContext(configuration));
+		for (TrimResult result : results) {
+			assertNotNull("Every point should be trimmed", result);
+			assertTrimmed(result);
+			assertEquals("Sweep should match a solve of the point on its own", solver.trim(result.getCondition()).getAlpha(), 
+						 result.getAlpha(), 1e-6);
+		}
+	}
+}
@@ -0,0 +1,144 @@
+package com.chrisali.javaflightsim.simulation.utilities;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+import com.chrisali.javaflightsim.simulation.integration.SimOutRingBuffer;
+import com.chrisali.javaflightsim.simulation.integration.SimOuts;
+
+public class CSVExporterTest {
+	
+	private static String format(DoubleFormatter formatter, double value) {
+		byte[] buffer = new byte[DoubleFormatter.MAX_LENGTH];
+		return new String(buffer, 0, formatter.format(value, buffer, 0), StandardCharsets.US_ASCII);
+	}
+	
+	@Test
+	public void DoubleFormatterTest() {
+		DoubleFormatter formatter = new DoubleFormatter(10);
+		
+		assertEquals("Integers should keep one decimal", "1500.0", format(formatter, 1500));
+		assertEquals("Negative values should be signed", "-0.25", format(formatter, -0.25));
+		assertEquals("Values should be rounded to significant digits", "3.141592654", format(formatter, Math.PI));
+		assertEquals("Rounding should carry into the integer part", "10.0", format(formatter, 9.99999999999));
+		assertEquals("Small values should use scientific notation", "1.5E-5", format(formatter, 1.5e-5));
+		assertEquals("Large values should use scientific notation", "1.234567891E10", format(formatter, 12345678912.0));
+		assertEquals("Zero should be formatted", "0.0", format(formatter, 0));
+		assertEquals("NaN should be formatted", "NaN", format(formatter, Double.NaN));
+		assertEquals("Infinity should be formatted", "-Infinity", format(formatter, Double.NEGATIVE_INFINITY));
+		assertEquals("Subnormal values should be formatted", "4.9E-324", format(new DoubleFormatter(2), Double.MIN_VALUE));
+	}
+	
+	/**
+	 * @return random doubles: uniform over [0, 1), across a range of magnitudes, adjacent to powers of ten, and of random bits 
+	 */
+	private static double[] createRandomValues(Random random) {
+		double[] values = new double[40000];
+		
+		for (int i = 0; i < values.length; i += 4) {
+			values[i]   = random.nextDouble();
+			values[i+1] = (random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(40) - 20);
+			
+			double powerOfTen = Double.parseDouble("1E" + (random.nextInt(60) - 30));
+			values[i+2] = random.nextBoolean() ? Math.nextDown(powerOfTen) - random.nextInt(3) * Math.ulp(powerOfTen) 
+											   : Math.nextUp(powerOfTen) + random.nextInt(3) * Math.ulp(powerOfTen);
+			
+			double bits = Double.longBitsToDouble(random.nextLong());
+			values[i+3] = (Double.isNaN(bits) || Double.isInfinite(bits)) ? Double.MIN_VALUE : bits;
+		}
+		
+		return values;
+	}
+	
+	@Test
+	public void RoundTripTest() {
+		DoubleFormatter fullPrecision = new DoubleFormatter(17);
+		
+		for (double value : new double[] {0.4651863105958687, 999.9999999999999, 9.999999999999998E-4, Double.MAX_VALUE, Double.MIN_NORMAL})
+			assertEquals("17 significant digits should round trip " + value, value, Double.parseDouble(format(fullPrecision, value)), 0);
+		
+		for (double value : createRandomValues(new Random(17))) {
+			String text = format(fullPrecision, value);
+			assertTrue("17 significant digits should round trip " + value + " written as " + text, value == Double.parseDouble(text));
+		}
+	}
+	
+	@Test
+	public void ExactRoundingTest() {
+		for (int significantDigits : new int[] {1, 6, 10, 15}) {
+			DoubleFormatter formatter = new DoubleFormatter(significantDigits);
+			MathContext mathContext = new MathContext(significantDigits, RoundingMode.HALF_UP);
+			
+			for (double value : createRandomValues(new Random(significantDigits))) {
+				BigDecimal exact = new BigDecimal(value);
+				
+				// Plain decimal notation keeps every integer digit of values with more integer digits than significant digits
+				boolean integerDigitsKept = Math.abs(value) >= Math.pow(10, significantDigits) && Math.abs(value) < 1e7;
+				BigDecimal expected = integerDigitsKept ? exact.setScale(0, RoundingMode.HALF_UP) : exact.round(mathContext);
+				
+				String text = format(formatter, value);
+				assertEquals("Value should be rounded exactly to " + significantDigits + " significant digits: " + value + " written as " + text, 
+							 0, expected.compareTo(new BigDecimal(text)));
+			}
+		}
+	}
+	
+	@Test
+	public void DecimatedChannelExportTest() throws IOException, InterruptedException, ExecutionException, TimeoutException {
+		SimOutRingBuffer logsOut = new SimOutRingBuffer(100);
+		double[] simOut = new double[SimOuts.values().length];
+		for (int step = 0; step < 150; step++) {
+			simOut[SimOuts.TIME.ordinal()] = step;
+			simOut[SimOuts.ALT.ordinal()] = step * 2;
+			logsOut.append(simOut);
+		}
+		
+		CSVExporter exporter = new CSVExporter();
+		exporter.setChannels(EnumSet.of(SimOuts.ALT, SimOuts.TIME));
+		exporter.setDecimation(10);
+		
+		AtomicLong progress = new AtomicLong();
+		AtomicReference<IOException> exportError = new AtomicReference<>();
+		exporter.setProgressListener(new ExportProgressListener() {
+			@Override
+			public void onExportProgress(long rowsWritten, long totalRows) { progress.set(rowsWritten); }
+			
+			@Override
+			public void onExportFinished(File file, IOException error) { exportError.set(error); }
+		});
+		
+		File file = File.createTempFile("export", ".csv");
+		try {
+			exporter.exportAsync(logsOut, file).get(10, TimeUnit.SECONDS);
+			
+			List<String> lines = Files.readAllLines(file.toPath());
+			assertNull("Export should succeed", exportError.get());
+			assertEquals("Progress should reach every row", 10, progress.get());
+			assertEquals("Header plus every tenth retained step should be exported", 11, lines.size());
+			assertEquals("Header should name channels in SimOuts order", SimOuts.TIME + "," + SimOuts.ALT, lines.get(0));
+			assertEquals("First row should be the oldest retained step", "50.0,100.0", lines.get(1));
+			assertEquals("Rows should be decimated", "140.0,280.0", lines.get(10));
+		} finally {
+			file.delete();
+		}
+	}
+}
@@ -0,0 +1,35 @@
+package com.chrisali.javaflightsim.simulation.utilities;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+	
+	@Test
+	public void PercentileTest() {
+		LatencyHistogram histogram = new LatencyHistogram(10, 100);
+		
+		for (long nanos = 0; nanos < 1000; nanos++)
+			histogram.record(nanos);
+		
+		assertEquals("All samples should be counted", 1000, histogram.getCount());
+		assertEquals("Mean should be exact", 499.5, histogram.getMeanNanos(), 1e-9);
+		assertEquals("Median should be the upper bound of its bucket", 500, histogram.getPercentileNanos(50));
+		assertEquals("99th percentile should be the upper bound of its bucket", 990, histogram.getPercentileNanos(99));
+		assertEquals("Largest percentile should be the maximum", 999, histogram.getPercentileNanos(100));
+	}
+	
+	@Test
+	public void OverflowTest() {
+		LatencyHistogram histogram = new LatencyHistogram(10, 10);
+		histogram.record(5);
+		histogram.record(1_000_000);
+		histogram.record(-5);
+		
+		assertEquals("Durations beyond the last bucket should be counted in it", 1, histogram.getCounts()[9]);
+		assertEquals("Negative durations should be counted as 0", 2, histogram.getCounts()[0]);
+		assertEquals("Maximum should be exact despite overflow", 1_000_000, histogram.getMaxNanos());
+		assertEquals("Minimum should be exact", 0, histogram.getMinNanos());
+	}
+}
@@ -0,0 +1,125 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.tests;
+
+import com.chrisali.javaflightsim.simulation.SimulationContext;
+import com.chrisali.javaflightsim.simulation.aircraft.AccelAndMoments;
+import com.chrisali.javaflightsim.simulation.aircraft.AeroState;
+import com.chrisali.javaflightsim.simulation.aircraft.Aerodynamics;
+import com.chrisali.javaflightsim.simulation.aircraft.Aircraft;
+import com.chrisali.javaflightsim.simulation.aircraft.AircraftModel;
+import com.chrisali.javaflightsim.simulation.enviroment.AtmosphereState;
+import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControlsSnapshot;
+import com.chrisali.javaflightsim.simulation.integration.Integrate6DOFEquations;
+import com.chrisali.javaflightsim.simulation.integration.IntegrateGroundReaction;
+import com.chrisali.javaflightsim.simulation.propulsion.Engine;
+import com.chrisali.javaflightsim.simulation.setup.SimulationConfiguration;
+import com.chrisali.javaflightsim.simulation.utilities.FileUtilities;
+
+/**
+ * Benchmarks a single evaluation of the aircraft's accelerations and moments by {@link AccelAndMoments}. The "shared" case 
+ * calculates the {@link AeroState} once and uses it for both accelerations and moments, as {@link Integrate6DOFEquations} does; 
+ * the "separate" case calculates the aerodynamics again for the moments, as was done before the AeroState was introduced, to show 
+ * the time saved per evaluation. Each integration step makes one evaluation per stage of its integrator
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class TestAccelAndMoments {
+	
+	private static final int WARMUP_EVALUATIONS   = 200000;
+	private static final int MEASURED_EVALUATIONS = 1000000;
+	private static final int MEASUREMENT_ROUNDS   = 5;
+	
+	private double[] windParameters 	 = {200, 0.01, 0.05};
+	private double[] angularRates 		 = {0.01, 0.02, 0.03};
+	private double[] linearAccelerations = new double[3];
+	private double[] totalMoments 		 = new double[3];
+	private double   alphaDot			 = 0.01;
+	private double   heightAGL			 = 5000;
+	
+	private AtmosphereState atmosphereState = new AtmosphereState();
+	private FlightControlsSnapshot controls;
+	private Aerodynamics aerodynamics;
+	private AeroState aeroState = new AeroState();
+	private AircraftModel model;
+	private Engine[] engines;
+	private IntegrateGroundReaction groundReaction;
+	
+	// Accumulated so that the JIT cannot remove the evaluations
+	private double sink;
+	
+	public TestAccelAndMoments() {
+		SimulationConfiguration configuration = FileUtilities.readSimulationConfiguration();
+		SimulationContext context = new SimulationContext(configuration);
+		Aircraft aircraft = context.getAircraft();
+		
+		controls = new FlightControlsSnapshot(configuration.getInitialControls());
+		context.getEnvironment().updateAtmosphereState(new double[] {0, 0, heightAGL}, atmosphereState);
+		aerodynamics = context.getAerodynamics();
+		model = aircraft.getAircraftModel();
+		engines = model.getEngines();
+		groundReaction = new IntegrateGroundReaction(new double[3], new double[3], new double[3], new double[3], windParameters, 
+													 new double[14], configuration.getIntegratorConfig().values().stream().mapToDouble(Double::doubleValue).toArray(), 
+													 aircraft, controls);
+		
+		for (Engine engine : engines)
+			engine.updateEngineState(controls, atmosphereState, windParameters);
+		
+		for (int i = 0; i < MEASUREMENT_ROUNDS; i++) {
+			System.out.printf("Round %d: shared %6.1f ns/evaluation, separate %6.1f ns/evaluation%n", 
+							  i+1, measure(true), measure(false));
+		}
+		
+		System.out.println("(" + sink + ")");
+	}
+	
+	/**
+	 * @param shared if aerodynamics should be calculated only once per evaluation
+	 * @return average time taken per evaluation (ns)
+	 */
+	private double measure(boolean shared) {
+		for (int i = 0; i < WARMUP_EVALUATIONS; i++)
+			evaluate(shared);
+		
+		long start = System.nanoTime();
+		for (int i = 0; i < MEASURED_EVALUATIONS; i++)
+			evaluate(shared);
+		
+		return (System.nanoTime() - start) / (double) MEASURED_EVALUATIONS;
+	}
+	
+	private void evaluate(boolean shared) {
+		// Vary alpha slightly so that each evaluation interpolates a new value
+		windParameters[2] = 0.05 + (sink % 1.0e-3) * 1.0e-3;
+		
+		aerodynamics.calculateAeroState(windParameters, angularRates, atmosphereState, controls, alphaDot, heightAGL, aeroState);
+		AccelAndMoments.calculateLinearAccelerations(aeroState, engines, model, groundReaction, linearAccelerations);
+		
+		if (!shared)
+			aerodynamics.calculateAeroState(windParameters, angularRates, atmosphereState, controls, alphaDot, heightAGL, aeroState);
+		
+		AccelAndMoments.calculateTotalMoments(aeroState, engines, model, groundReaction, totalMoments);
+		
+		sink += linearAccelerations[2] + totalMoments[1];
+	}
+	
+	public static void main(String[] args) {new TestAccelAndMoments();}
+}
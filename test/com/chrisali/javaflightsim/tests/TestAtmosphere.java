@@ -0,0 +1,140 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.tests;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import com.chrisali.javaflightsim.simulation.enviroment.Atmosphere;
+import com.chrisali.javaflightsim.simulation.enviroment.AtmosphereState;
+import com.chrisali.javaflightsim.simulation.enviroment.Environment;
+
+/**
+ * Benchmarks a lookup of the atmosphere from {@link Atmosphere}'s table against the closed-form 1976 equations it was built from, and 
+ * against the troposphere/stratosphere equations that {@link Environment} previously evaluated on every call, which also boxed 
+ * their results into an EnumMap. Altitudes sweep slowly through the lower atmosphere, as an aircraft does from one step to the next.
+ * The time taken to build the table for a new deltaIsa is shown afterwards
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class TestAtmosphere {
+	
+	private static final int QUERIES 			= 1 << 16;
+	private static final int WARMUP_PASSES 		= 50;
+	private static final int MEASURED_PASSES 	= 50;
+	private static final int MEASUREMENT_ROUNDS = 5;
+	
+	private enum LegacyParameters {T, P, RHO, A, GRAVITY, WIND_SPEED_N, WIND_SPEED_E, WIND_SPEED_D}
+	
+	private double[] altitudes = new double[QUERIES];
+	private Map<LegacyParameters, Double> legacyParameters = new EnumMap<>(LegacyParameters.class);
+	private AtmosphereState state = new AtmosphereState();
+	private Atmosphere atmosphere = Atmosphere.forDeltaIsa(0);
+	
+	// Accumulated so that the JIT cannot remove the calculations
+	private double sink;
+	
+	public TestAtmosphere() {
+		for (int i = 0; i < QUERIES; i++)
+			altitudes[i] = 20000 + 19000 * Math.sin(2 * Math.PI * i / QUERIES);
+		
+		for (int i = 0; i < MEASUREMENT_ROUNDS; i++) {
+			System.out.printf("Round %d: legacy %6.1f ns/call, closed form %6.1f ns/call, table %6.1f ns/call%n", 
+							  i+1, measure(0), measure(1), measure(2));
+		}
+		
+		long start = System.nanoTime();
+		Atmosphere.forDeltaIsa(12.34);
+		System.out.printf("Table built for a new deltaIsa in %.2f ms%n", (System.nanoTime() - start) / 1e6);
+		
+		System.out.println("(" + sink + ")");
+	}
+	
+	/**
+	 * @param method 0 for legacy equations, 1 for closed-form equations, 2 for table
+	 * @return average time taken per call (ns)
+	 */
+	private double measure(int method) {
+		for (int i = 0; i < WARMUP_PASSES; i++)
+			calculate(method);
+		
+		long start = System.nanoTime();
+		for (int i = 0; i < MEASURED_PASSES; i++)
+			calculate(method);
+		
+		return (System.nanoTime() - start) / ((double) MEASURED_PASSES * QUERIES);
+	}
+	
+	private void calculate(int method) {
+		double sum = 0;
+		
+		switch (method) {
+		case 0:
+			for (int i = 0; i < QUERIES; i++) {
+				legacyEquations(altitudes[i]);
+				sum += legacyParameters.get(LegacyParameters.RHO);
+			}
+			break;
+		case 1:
+			for (int i = 0; i < QUERIES; i++) {
+				Atmosphere.calculate(altitudes[i], 0, state);
+				sum += state.getDensity();
+			}
+			break;
+		default:
+			for (int i = 0; i < QUERIES; i++) {
+				atmosphere.update(altitudes[i], state);
+				sum += state.getDensity();
+			}
+			break;
+		}
+		
+		sink += sum;
+	}
+	
+	/**
+	 * Equations that {@link Environment} used before {@link Atmosphere} was introduced, with zero wind and deltaIsa
+	 */
+	private void legacyEquations(double altitude) {
+		double temp, p, rho;
+		
+		if (altitude < 36089) {
+			temp = 518.67 - 0.003566*altitude;
+			p = 2116.22*Math.pow(1 - 0.0000068755*altitude, 5.2559);
+			rho = 0.002377*Math.pow(1 - 0.0000068755*altitude, 4.2559);
+		} else {
+			temp = 389.97;
+			p = 472.6758*Math.exp(-0.0000480637*(altitude - 36089));
+			rho = 0.000706115*Math.exp(-0.0000480637*(altitude - 36089));
+		}
+		
+		legacyParameters.put(LegacyParameters.T,       temp);
+		legacyParameters.put(LegacyParameters.P,       p);
+		legacyParameters.put(LegacyParameters.RHO,     rho);
+		legacyParameters.put(LegacyParameters.A,       Math.sqrt(1.4*1716.49*temp));
+		legacyParameters.put(LegacyParameters.GRAVITY, 32.17*(20903520/(20903520 + altitude)));
+		legacyParameters.put(LegacyParameters.WIND_SPEED_N, 0.0*Math.cos(0.0));
+		legacyParameters.put(LegacyParameters.WIND_SPEED_E, 0.0*Math.sin(0.0));
+		legacyParameters.put(LegacyParameters.WIND_SPEED_D, 0.0);
+	}
+	
+	public static void main(String[] args) {new TestAtmosphere();}
+}
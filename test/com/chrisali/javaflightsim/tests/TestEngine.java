@@ -19,9 +19,6 @@
  ******************************************************************************/
 package com.chrisali.javaflightsim.tests;
 
-import java.util.EnumMap;
-import java.util.Map;
-
 import org.jfree.chart.ChartPanel;
 import org.jfree.chart.JFreeChart;
 import org.jfree.chart.axis.NumberAxis;
@@ -34,9 +31,11 @@ import org.jfree.data.xy.XYSeriesCollection;
 import org.jfree.ui.ApplicationFrame;
 import org.jfree.ui.RefineryUtilities;
 
+import com.chrisali.javaflightsim.simulation.enviroment.AtmosphereState;
 import com.chrisali.javaflightsim.simulation.enviroment.Environment;
-import com.chrisali.javaflightsim.simulation.enviroment.EnvironmentParameters;
 import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControl;
+import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControlsSnapshot;
+import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControlsState;
 import com.chrisali.javaflightsim.simulation.propulsion.Engine;
 import com.chrisali.javaflightsim.simulation.propulsion.FixedPitchPropEngine;
 import com.chrisali.javaflightsim.simulation.setup.SimulationConfiguration;
@@ -50,8 +49,11 @@ public class TestEngine extends ApplicationFrame {
 		
 		SimulationConfiguration configuration = FileUtilities.readSimulationConfiguration();
 		
-		EnumMap<FlightControl, Double> controls = configuration.getInitialControls();
-		Map<EnvironmentParameters, Double> environmentParameters = Environment.getAndUpdateEnvironmentParams(new double[] {0,0,0});
+		FlightControlsState controlsState = new FlightControlsState(configuration);
+		FlightControlsSnapshot controls = new FlightControlsSnapshot();
+		controls.update(controlsState);
+		Environment environment = new Environment();
+		AtmosphereState atmosphereState = environment.updateAtmosphereState(new double[] {0,0,0}, new AtmosphereState());
 		StringBuilder constraint = new StringBuilder();
 		
 		Engine defaultEngine  = new FixedPitchPropEngine();
@@ -80,7 +82,7 @@ public class TestEngine extends ApplicationFrame {
 				
 				for (double vTrue = 0; vTrue < 500; vTrue += 1) {
 					defaultEngine.updateEngineState(controls, 
-													environmentParameters,
+													atmosphereState,
 													new double[] {vTrue, 0, 0});
 					
 					
@@ -106,10 +108,11 @@ public class TestEngine extends ApplicationFrame {
 							  .append(" ft/sec) and Altitude (Sea Level)");
 				
 				for (double throttle = 0; throttle < 1.0; throttle += 0.01) {
-					controls.put(FlightControl.THROTTLE_1, throttle);
+					controlsState.set(FlightControl.THROTTLE_1, throttle);
+					controls.update(controlsState);
 					
 					defaultEngine.updateEngineState(controls, 
-													environmentParameters,
+													atmosphereState,
 													new double[] {vTrue, 0, 0});
 					
 					thrustXData.add(throttle, defaultEngine.getEngineThrust()[0]);
@@ -135,10 +138,10 @@ public class TestEngine extends ApplicationFrame {
 							  .append(" ft/sec)");
 				
 				for (double altitude = 0; altitude < 20000; altitude += 10) {
-					environmentParameters = Environment.getAndUpdateEnvironmentParams(new double[] {0, 0, altitude});
+					environment.updateAtmosphereState(new double[] {0, 0, altitude}, atmosphereState);
 					
 					defaultEngine.updateEngineState(controls, 
-													environmentParameters,
+													atmosphereState,
 													new double[] {vTrue, 0, 0});
 					
 					thrustXData.add(altitude, defaultEngine.getEngineThrust()[0]);
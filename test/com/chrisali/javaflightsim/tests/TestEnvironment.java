@@ -19,9 +19,6 @@
  ******************************************************************************/
 package com.chrisali.javaflightsim.tests;
 
-import java.util.EnumMap;
-import java.util.Map;
-
 import org.jfree.chart.ChartPanel;
 import org.jfree.chart.JFreeChart;
 import org.jfree.chart.axis.NumberAxis;
@@ -34,8 +31,9 @@ import org.jfree.data.xy.XYSeriesCollection;
 import org.jfree.ui.ApplicationFrame;
 import org.jfree.ui.RefineryUtilities;
 
+import com.chrisali.javaflightsim.simulation.enviroment.Atmosphere;
+import com.chrisali.javaflightsim.simulation.enviroment.AtmosphereState;
 import com.chrisali.javaflightsim.simulation.enviroment.Environment;
-import com.chrisali.javaflightsim.simulation.enviroment.EnvironmentParameters;
 
 public class TestEnvironment extends ApplicationFrame {
 	private static final long serialVersionUID = 1L;
@@ -43,7 +41,8 @@ public class TestEnvironment extends ApplicationFrame {
 	public TestEnvironment() {
 		super("Environment Test");
 		
-		Map<EnvironmentParameters, Double> envData = new EnumMap<EnvironmentParameters, Double>(EnvironmentParameters.class);
+		Environment environment = new Environment();
+		AtmosphereState envData = new AtmosphereState();
 		
 		XYSeries tData       = new XYSeries("T");
 		XYSeries pData       = new XYSeries("P");
@@ -63,22 +62,22 @@ public class TestEnvironment extends ApplicationFrame {
 		XYSeriesCollection gravSeries = new XYSeriesCollection();
 		XYSeriesCollection windSeries = new XYSeriesCollection();
 		
-		for (double alt=0; alt<60000; alt+=10) {
-			Environment.setWindDir(alt*6/1000);
-			Environment.setWindSpeed(alt/6000);
-			envData = Environment.getAndUpdateEnvironmentParams(new double[] {0, 0, alt});
+		for (double alt=0; alt<Atmosphere.MAX_ALTITUDE; alt+=50) {
+			environment.setWindDir(alt*6/1000);
+			environment.setWindSpeed(alt/6000);
+			environment.updateAtmosphereState(new double[] {0, 0, alt}, envData);
 			
 			// Add envData to each XYSeries
-			tData.add(alt,envData.get(EnvironmentParameters.T));
-			pData.add(alt,envData.get(EnvironmentParameters.P));
-			rhoData.add(alt,envData.get(EnvironmentParameters.RHO));
-			aData.add(alt,envData.get(EnvironmentParameters.A));
+			tData.add(alt,envData.getTemperature());
+			pData.add(alt,envData.getPressure());
+			rhoData.add(alt,envData.getDensity());
+			aData.add(alt,envData.getSpeedOfSound());
 			
-			gravData.add(alt,envData.get(EnvironmentParameters.GRAVITY));
+			gravData.add(alt,envData.getGravity());
 			
-			windSpdNData.add(alt,envData.get(EnvironmentParameters.WIND_SPEED_N));
-			windSpdEData.add(alt,envData.get(EnvironmentParameters.WIND_SPEED_E));
-			windSpdDData.add(alt,envData.get(EnvironmentParameters.WIND_SPEED_D));
+			windSpdNData.add(alt,envData.getWindSpeedN());
+			windSpdEData.add(alt,envData.getWindSpeedE());
+			windSpdDData.add(alt,envData.getWindSpeedD());
 		}
 		
 		// Add series data to XYSeriesCollections
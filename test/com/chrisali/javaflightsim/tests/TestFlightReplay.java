@@ -0,0 +1,112 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.tests;
+
+import java.awt.BorderLayout;
+import java.io.File;
+import java.io.IOException;
+
+import javax.swing.JButton;
+import javax.swing.JComboBox;
+import javax.swing.JFrame;
+import javax.swing.JPanel;
+import javax.swing.JSlider;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+
+import com.chrisali.javaflightsim.initializer.LWJGLSwingSimulationController;
+import com.chrisali.javaflightsim.simulation.SimulationRunner;
+import com.chrisali.javaflightsim.simulation.recording.FlightRecording;
+import com.chrisali.javaflightsim.simulation.recording.FlightReplay;
+import com.chrisali.javaflightsim.simulation.setup.SimulationConfiguration;
+import com.chrisali.javaflightsim.simulation.utilities.FileUtilities;
+import com.chrisali.javaflightsim.simulation.utilities.SimDirectories;
+import com.chrisali.javaflightsim.swing.instrumentpanel.InstrumentPanel;
+
+/**
+ * Replays a flight recorded in the recordings directory with a {@link FlightReplay}, showing it in the OTW display and an 
+ * {@link InstrumentPanel}, with controls to pause, seek and change the playback speed of the replay
+ * 
+ * <p>Usage: TestFlightReplay &lt;recording name&gt;</p>
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class TestFlightReplay {
+	
+	private static final Double[] SPEEDS = {0.25, 0.5, 1.0, 2.0, 4.0, 8.0, 16.0};
+	
+	public static void main(String[] args) throws IOException {
+		FlightRecording recording = new FlightRecording(new File(SimDirectories.RECORDINGS.toString()), args[0]);
+		
+		SwingUtilities.invokeLater(new Runnable() {
+			@Override
+			public void run() {runApp(recording);}
+		});
+	}
+
+	private static void runApp(FlightRecording recording) {
+		SimulationConfiguration configuration = FileUtilities.readSimulationConfiguration();
+		LWJGLSwingSimulationController controller = new LWJGLSwingSimulationController(configuration);
+		
+		SimulationRunner runner = new SimulationRunner(controller, recording);
+		FlightReplay replay = runner.getFlightReplay();
+		
+		InstrumentPanel panel = new InstrumentPanel();
+		runner.addFlightDataListener(panel);
+		
+		new Thread(runner).start();
+		
+		JButton pauseButton = new JButton("Pause");
+		pauseButton.addActionListener(e -> replay.setPaused(!replay.isPaused()));
+		
+		JComboBox<Double> speedBox = new JComboBox<>(SPEEDS);
+		speedBox.setSelectedItem(1.0);
+		speedBox.addActionListener(e -> replay.setSpeed((Double) speedBox.getSelectedItem()));
+		
+		// Slider is in tenths of a second
+		JSlider timeSlider = new JSlider((int) (replay.getStartTime() * 10), (int) (replay.getEndTime() * 10));
+		timeSlider.addChangeListener(e -> {
+			if (timeSlider.getValueIsAdjusting())
+				replay.seek(timeSlider.getValue() / 10.0);
+		});
+		
+		new Timer(100, e -> {
+			pauseButton.setText(replay.isPaused() ? "Play" : "Pause");
+			if (!timeSlider.getValueIsAdjusting())
+				timeSlider.setValue((int) (replay.getTime() * 10));
+		}).start();
+		
+		JPanel controls = new JPanel(new BorderLayout());
+		controls.add(pauseButton, BorderLayout.WEST);
+		controls.add(timeSlider, BorderLayout.CENTER);
+		controls.add(speedBox, BorderLayout.EAST);
+		
+		JFrame panelWindow = new JFrame("Flight Replay Test");
+		panelWindow.setLayout(new BorderLayout());
+		panelWindow.add(panel, BorderLayout.CENTER);
+		panelWindow.add(controls, BorderLayout.SOUTH);
+		
+		panelWindow.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+		panelWindow.setVisible(true);
+		panelWindow.setSize(950, 680);
+		panelWindow.setResizable(false);
+	}
+}
@@ -0,0 +1,115 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.tests;
+
+import java.util.Map;
+
+import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControl;
+import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControlsState;
+import com.chrisali.javaflightsim.simulation.integration.Integrate6DOFEquations;
+import com.chrisali.javaflightsim.simulation.integration.IntegratorType;
+import com.chrisali.javaflightsim.simulation.integration.SimOuts;
+import com.chrisali.javaflightsim.simulation.setup.Options;
+import com.chrisali.javaflightsim.simulation.setup.SimulationConfiguration;
+import com.chrisali.javaflightsim.simulation.utilities.FileUtilities;
+
+/**
+ * Benchmarks the accuracy against the cost of each {@link IntegratorType} by running {@link Integrate6DOFEquations} without any 
+ * other threads in Analysis mode for a range of simulation rates. Each run starts from the saved initial conditions and applies 
+ * the same elevator pulse; the final states of each run are compared to a reference run made with {@link IntegratorType#DORMAND_PRINCE} 
+ * at the highest simulation rate, and the error is printed alongside the wall clock time taken per step 
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class TestIntegrators {
+	
+	private static final double RUN_TIME 	 	= 10.0;
+	private static final double PULSE_START  	= 2.0;
+	private static final double PULSE_END 	 	= 3.0;
+	private static final double PULSE_ELEVATOR  = -0.05;
+	private static final int[] SIMULATION_RATES = {120, 60, 30, 20, 10};
+	private static final int WARMUP_RUNS 		= 3;
+	private static final SimOuts[] COMPARED_OUTS = {SimOuts.U, SimOuts.W, SimOuts.ALT, SimOuts.THETA, SimOuts.Q};
+	
+	private long runTimeNanos;
+	
+	/**
+	 * Runs the simulation with the integrator and rate specified, and returns the final values of {@link TestIntegrators#COMPARED_OUTS}
+	 * 
+	 * @param integratorType
+	 * @param simulationRateHz
+	 * @return final states of the simulation
+	 */
+	private double[] runSimulation(IntegratorType integratorType, int simulationRateHz) {
+		SimulationConfiguration configuration = FileUtilities.readSimulationConfiguration();
+		configuration.getSimulationOptions().clear();
+		configuration.getSimulationOptions().add(Options.ANALYSIS_MODE);
+		configuration.setIntegratorType(integratorType);
+		configuration.setSimulationRateHz(simulationRateHz);
+		
+		FlightControlsState flightControls = new FlightControlsState(configuration);
+		Integrate6DOFEquations simulation = new Integrate6DOFEquations(flightControls, configuration);
+		double trimElevator = flightControls.get(FlightControl.ELEVATOR);
+		
+		int steps      = (int) Math.round(RUN_TIME * simulationRateHz);
+		int pulseStart = (int) Math.round(PULSE_START * simulationRateHz);
+		int pulseEnd   = (int) Math.round(PULSE_END * simulationRateHz);
+		
+		long startTime = System.nanoTime();
+		for (int i = 0; i < steps; i++) {
+			flightControls.set(FlightControl.ELEVATOR, (i >= pulseStart && i < pulseEnd) ? trimElevator + PULSE_ELEVATOR : trimElevator);
+			simulation.step();
+		}
+		runTimeNanos = System.nanoTime() - startTime;
+		
+		Map<SimOuts, Double> simOut = simulation.getSimOut();
+		double[] finalStates = new double[COMPARED_OUTS.length];
+		for (int i = 0; i < COMPARED_OUTS.length; i++)
+			finalStates[i] = simOut.get(COMPARED_OUTS[i]);
+		
+		return finalStates;
+	}
+	
+	public TestIntegrators() {
+		System.out.println("Running reference simulation...");
+		double[] reference = runSimulation(IntegratorType.DORMAND_PRINCE, SIMULATION_RATES[0]);
+		
+		System.out.printf("%-15s %6s %12s %12s %12s %12s %12s %12s%n", 
+						  "Integrator", "Hz", "U err", "W err", "ALT err", "THETA err", "Q err", "us/step");
+		
+		for (IntegratorType integratorType : IntegratorType.values()) {
+			for (int simulationRateHz : SIMULATION_RATES) {
+				for (int i = 0; i < WARMUP_RUNS; i++)
+					runSimulation(integratorType, simulationRateHz);
+				
+				double[] finalStates = runSimulation(integratorType, simulationRateHz);
+				double microsPerStep = runTimeNanos / 1000.0 / Math.round(RUN_TIME * simulationRateHz);
+				
+				System.out.printf("%-15s %6d", integratorType, simulationRateHz);
+				for (int i = 0; i < finalStates.length; i++)
+					System.out.printf(" %12.3e", Math.abs(finalStates[i] - reference[i]));
+				System.out.printf(" %12.1f%n", microsPerStep);
+			}
+		}
+	}
+	
+	public static void main(String[] args) {new TestIntegrators();}
+}
@@ -0,0 +1,195 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.tests;
+
+import java.util.Random;
+
+import org.apache.commons.math3.analysis.interpolation.PiecewiseBicubicSplineInterpolatingFunction;
+
+import com.chrisali.javaflightsim.simulation.aircraft.Aircraft;
+import com.chrisali.javaflightsim.simulation.aircraft.InterpolationType;
+import com.chrisali.javaflightsim.simulation.aircraft.LookupTable;
+import com.chrisali.javaflightsim.simulation.aircraft.StabilityDerivatives;
+import com.chrisali.javaflightsim.simulation.aircraft.TableAxis;
+import com.chrisali.javaflightsim.simulation.aircraft.TablePoint;
+import com.chrisali.javaflightsim.simulation.utilities.FileUtilities;
+
+/**
+ * Benchmarks interpolation of the Navion's CL_alpha {@link LookupTable} against Apache Commons' 
+ * {@link PiecewiseBicubicSplineInterpolatingFunction}, which LookupTable previously wrapped. The "coherent" case sweeps 
+ * slowly through the table, as the simulation does from one step to the next; the "random" case jumps to random points,
+ * so that the hunt search in LookupTable cannot reuse the cell found in the previous call. 
+ * 
+ * <p>Afterwards, N-dimensional tables are benchmarked with an increasing number of axes and of breakpoints per axis, to
+ * show that the time taken per call depends on the number of axes but not on the size of the table</p>
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class TestInterpolation {
+	
+	private static final int QUERIES 			= 1 << 16;
+	private static final int WARMUP_PASSES 		= 50;
+	private static final int MEASURED_PASSES 	= 50;
+	private static final int MEASUREMENT_ROUNDS = 5;
+	private static final int GRID_PASSES 		= 10;
+	
+	private double[] coherentAngles = new double[QUERIES];
+	private double[] coherentFlaps  = new double[QUERIES];
+	private double[] randomAngles 	= new double[QUERIES];
+	private double[] randomFlaps 	= new double[QUERIES];
+	
+	private PiecewiseBicubicSplineInterpolatingFunction pbsif;
+	private LookupTable bicubic;
+	private LookupTable linear;
+	
+	// Accumulated so that the JIT cannot remove the interpolations
+	private double sink;
+	
+	public TestInterpolation() {
+		Aircraft aircraft = FileUtilities.readAircraftConfiguration("Navion");
+		LookupTable table = aircraft.getStabilityDerivative(StabilityDerivatives.CL_ALPHA);
+		
+		double[] breakPointAngle = table.getBreakPointAngle();
+		double[] breakPointFlap  = table.getBreakPointFlap();
+		double minAngle = breakPointAngle[0], maxAngle = breakPointAngle[breakPointAngle.length-1];
+		double minFlap  = breakPointFlap[0],  maxFlap  = breakPointFlap[breakPointFlap.length-1];
+		
+		pbsif = new PiecewiseBicubicSplineInterpolatingFunction(breakPointAngle, breakPointFlap, table.getLookupValues());
+		bicubic = new LookupTable(breakPointAngle, breakPointFlap, table.getLookupValues(), 0.0, "CL_ALPHA", InterpolationType.BICUBIC, null);
+		linear  = new LookupTable(breakPointAngle, breakPointFlap, table.getLookupValues(), 0.0, "CL_ALPHA", InterpolationType.LINEAR, null);
+		
+		Random random = new Random(1);
+		for (int i = 0; i < QUERIES; i++) {
+			double phase = 2 * Math.PI * i / QUERIES;
+			coherentAngles[i] = minAngle + (maxAngle - minAngle) * (0.5 + 0.49 * Math.sin(phase));
+			coherentFlaps[i]  = minFlap  + (maxFlap  - minFlap)  * (0.5 + 0.49 * Math.sin(3 * phase));
+			randomAngles[i]   = minAngle + (maxAngle - minAngle) * random.nextDouble();
+			randomFlaps[i]    = minFlap  + (maxFlap  - minFlap)  * random.nextDouble();
+		}
+		
+		for (int i = 0; i < MEASUREMENT_ROUNDS; i++) {
+			System.out.printf("Round %d:%n", i+1);
+			System.out.printf("  Coherent: spline %6.1f ns/call, bicubic %6.1f ns/call, linear %6.1f ns/call%n", 
+							  measure(0, coherentAngles, coherentFlaps), measure(1, coherentAngles, coherentFlaps), measure(2, coherentAngles, coherentFlaps));
+			System.out.printf("  Random:   spline %6.1f ns/call, bicubic %6.1f ns/call, linear %6.1f ns/call%n", 
+							  measure(0, randomAngles, randomFlaps), measure(1, randomAngles, randomFlaps), measure(2, randomAngles, randomFlaps));
+		}
+		
+		for (InterpolationType interpolationType : InterpolationType.values()) {
+			for (int dimensions = 2; dimensions <= TableAxis.values().length; dimensions++) {
+				StringBuilder line = new StringBuilder(String.format("%s, %d axes:", interpolationType, dimensions));
+				for (int breakPoints : new int[] {5, 10, 20}) {
+					if (Math.pow(breakPoints, dimensions) <= 1e7)
+						line.append(String.format(" %2d breakpoints %7.1f ns/call,", breakPoints, measureGrid(interpolationType, dimensions, breakPoints)));
+				}
+				System.out.println(line);
+			}
+		}
+		
+		System.out.println("(" + sink + ")");
+	}
+	
+	/**
+	 * @param interpolationType
+	 * @param dimensions number of axes of table
+	 * @param breakPoints number of breakpoints of each axis
+	 * @return average time taken per interpolation of an N-dimensional table (ns), sweeping slowly through it
+	 */
+	private double measureGrid(InterpolationType interpolationType, int dimensions, int breakPoints) {
+		TableAxis[] axes = new TableAxis[dimensions];
+		double[][] axisBreakPoints = new double[dimensions][breakPoints];
+		double[] values = new double[(int) Math.pow(breakPoints, dimensions)];
+		
+		for (int d = 0; d < dimensions; d++) {
+			axes[d] = TableAxis.values()[d];
+			for (int i = 0; i < breakPoints; i++)
+				axisBreakPoints[d][i] = i / (breakPoints - 1.0);
+		}
+		
+		Random random = new Random(1);
+		for (int i = 0; i < values.length; i++)
+			values[i] = random.nextDouble();
+		
+		LookupTable table = new LookupTable(axes, axisBreakPoints, values, "Grid", interpolationType, null);
+		TablePoint point = new TablePoint();
+		double[][] coordinates = new double[dimensions][QUERIES];
+		for (int d = 0; d < dimensions; d++) {
+			for (int i = 0; i < QUERIES; i++)
+				coordinates[d][i] = 0.5 + 0.49 * Math.sin(2 * Math.PI * (d + 1) * i / QUERIES);
+		}
+		
+		long start = 0;
+		for (int pass = 0; pass < 2 * GRID_PASSES; pass++) {
+			if (pass == GRID_PASSES)
+				start = System.nanoTime();
+			
+			double sum = 0;
+			for (int i = 0; i < QUERIES; i++) {
+				for (int d = 0; d < dimensions; d++)
+					point.set(axes[d], coordinates[d][i]);
+				sum += table.interpolate(point);
+			}
+			sink += sum;
+		}
+		
+		return (System.nanoTime() - start) / ((double) GRID_PASSES * QUERIES);
+	}
+	
+	/**
+	 * @param method 0 for spline, 1 for bicubic LookupTable, 2 for linear LookupTable
+	 * @param angles
+	 * @param flaps
+	 * @return average time taken per interpolation (ns)
+	 */
+	private double measure(int method, double[] angles, double[] flaps) {
+		for (int i = 0; i < WARMUP_PASSES; i++)
+			interpolate(method, angles, flaps);
+		
+		long start = System.nanoTime();
+		for (int i = 0; i < MEASURED_PASSES; i++)
+			interpolate(method, angles, flaps);
+		
+		return (System.nanoTime() - start) / ((double) MEASURED_PASSES * QUERIES);
+	}
+	
+	private void interpolate(int method, double[] angles, double[] flaps) {
+		double sum = 0;
+		
+		switch (method) {
+		case 0:
+			for (int i = 0; i < QUERIES; i++)
+				sum += pbsif.value(angles[i], flaps[i]);
+			break;
+		case 1:
+			for (int i = 0; i < QUERIES; i++)
+				sum += bicubic.interpolate(angles[i], flaps[i]);
+			break;
+		default:
+			for (int i = 0; i < QUERIES; i++)
+				sum += linear.interpolate(angles[i], flaps[i]);
+			break;
+		}
+		
+		sink += sum;
+	}
+	
+	public static void main(String[] args) {new TestInterpolation();}
+}
@@ -19,18 +19,19 @@
  ******************************************************************************/
 package com.chrisali.javaflightsim.tests;
 
-import java.util.EnumMap;
-
 import com.chrisali.javaflightsim.simulation.aircraft.Aerodynamics;
 import com.chrisali.javaflightsim.simulation.aircraft.Aircraft;
 import com.chrisali.javaflightsim.simulation.aircraft.StabilityDerivatives;
 import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControl;
+import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControlsSnapshot;
+import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControlsState;
 import com.chrisali.javaflightsim.simulation.setup.SimulationConfiguration;
 import com.chrisali.javaflightsim.simulation.utilities.FileUtilities;
 
 public class TestLookupTable {
 	private SimulationConfiguration configuration = FileUtilities.readSimulationConfiguration();
-	private EnumMap<FlightControl, Double> controls = configuration.getInitialControls();
+	private FlightControlsState controlsState = new FlightControlsState(configuration);
+	private FlightControlsSnapshot controls = new FlightControlsSnapshot();
 	private double[] alpha = new double[] {-14, -12, -10, -8, -6, -4, -2, 0, 2, 4, 6, 8, 10, 12, 14, 16};
 	private double[] dFlap = new double[] {0, 10, 20, 30, 40};
 	Aircraft aircraft;
@@ -42,7 +43,8 @@ public class TestLookupTable {
 		double clAlpha = 0.0;
 
 		for (int j=0; j<dFlap.length; j++) {
-			controls.put(FlightControl.FLAPS, Math.toRadians(dFlap[j]));
+			controlsState.set(FlightControl.FLAPS, Math.toRadians(dFlap[j]));
+			controls.update(controlsState);
 			
 			for (double aoa=alpha[0]; aoa<=alpha[alpha.length-1]; aoa+=1) {
 				clAlpha = aero.calculateInterpStabDer(new double[] {0.0, 0.0, Math.toRadians(aoa)}, controls, StabilityDerivatives.CM_ALPHA);
@@ -0,0 +1,87 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.tests;
+
+import com.chrisali.javaflightsim.simulation.integration.SimOuts;
+import com.chrisali.javaflightsim.simulation.montecarlo.CaseSummary;
+import com.chrisali.javaflightsim.simulation.montecarlo.MonteCarloConfiguration;
+import com.chrisali.javaflightsim.simulation.montecarlo.MonteCarloRunner;
+import com.chrisali.javaflightsim.simulation.setup.IntegratorConfig;
+import com.chrisali.javaflightsim.simulation.setup.SimulationConfiguration;
+import com.chrisali.javaflightsim.simulation.utilities.FileUtilities;
+
+/**
+ * Runs a Monte Carlo dispersion of the simulation configuration on all available processors, printing the summary of each 
+ * case as it completes, then the overall throughput and the worst cases seen
+ * 
+ * <p>Usage: TestMonteCarlo [cases] [end time (sec)] [seed]</p>
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class TestMonteCarlo {
+	
+	private double lowestAltitude = Double.POSITIVE_INFINITY;
+	private double highestLoadFactor = Double.NEGATIVE_INFINITY;
+	private int failedCases = 0;
+	private long totalSteps = 0;
+	
+	public TestMonteCarlo(int cases, double endTime, long seed) {
+		SimulationConfiguration configuration = FileUtilities.readSimulationConfiguration();
+		configuration.getIntegratorConfig().put(IntegratorConfig.ENDTIME, endTime);
+		
+		MonteCarloConfiguration monteCarloConfiguration = new MonteCarloConfiguration();
+		monteCarloConfiguration.setCases(cases);
+		monteCarloConfiguration.setSeed(seed);
+		
+		MonteCarloRunner runner = new MonteCarloRunner(configuration, monteCarloConfiguration);
+		
+		long startTime = System.nanoTime();
+		try {
+			runner.run(this::summarize);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		double elapsedSec = (System.nanoTime() - startTime) / 1e9;
+		
+		System.out.printf("%n%d cases in %.2f sec on %d processors: %.1f cases/sec, %.0f steps/sec%n", cases, elapsedSec, 
+						  Runtime.getRuntime().availableProcessors(), cases / elapsedSec, totalSteps / elapsedSec);
+		System.out.printf("Failed cases: %d, lowest altitude: %.0f ft, highest load factor: %.2f g%n", failedCases, lowestAltitude, highestLoadFactor);
+	}
+	
+	private void summarize(CaseSummary summary) {
+		System.out.println(summary);
+		
+		if (summary.isFailed())
+			failedCases++;
+		
+		lowestAltitude = Math.min(lowestAltitude, summary.getMinimum(SimOuts.ALT));
+		highestLoadFactor = Math.max(highestLoadFactor, summary.getMaximum(SimOuts.AN_Z));
+		totalSteps += summary.getSteps();
+	}
+	
+	public static void main(String[] args) {
+		int cases = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+		double endTime = args.length > 1 ? Double.parseDouble(args[1]) : 30.0;
+		long seed = args.length > 2 ? Long.parseLong(args[2]) : 0;
+		
+		new TestMonteCarlo(cases, endTime, seed);
+	}
+}
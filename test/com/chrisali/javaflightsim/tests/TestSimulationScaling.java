@@ -0,0 +1,117 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.tests;
+
+import java.util.concurrent.CountDownLatch;
+
+import com.chrisali.javaflightsim.simulation.SimulationContext;
+import com.chrisali.javaflightsim.simulation.flightcontrols.FlightControlsState;
+import com.chrisali.javaflightsim.simulation.integration.Integrate6DOFEquations;
+import com.chrisali.javaflightsim.simulation.setup.Options;
+import com.chrisali.javaflightsim.simulation.setup.SimulationConfiguration;
+import com.chrisali.javaflightsim.simulation.utilities.FileUtilities;
+
+/**
+ * Benchmarks the throughput of independent simulations, each in its own {@link SimulationContext}, running concurrently on 
+ * 1 to N threads, where N defaults to the number of available processors. As no state is shared between simulations, 
+ * throughput should increase nearly linearly with the number of threads until every core is busy. 
+ * 
+ * <p>Usage: TestSimulationScaling [max threads] [steps per simulation]</p>
+ * 
+ * @author Christopher Ali
+ *
+ */
+public class TestSimulationScaling {
+	
+	private static final int WARMUP_STEPS = 2400;
+	
+	public TestSimulationScaling(int maxThreads, int stepsPerSimulation) {
+		// Let the JIT compile the simulation before measuring
+		runSimulations(1, WARMUP_STEPS);
+		
+		double singleThroughput = 0;
+		StringBuilder results = new StringBuilder("Threads  Steps/sec  Speedup  Efficiency\n");
+		
+		for (int threads = 1; threads <= maxThreads; threads++) {
+			double throughput = runSimulations(threads, stepsPerSimulation);
+			if (threads == 1)
+				singleThroughput = throughput;
+			
+			double speedup = throughput / singleThroughput;
+			results.append(String.format("%7d  %9.0f  %7.2f  %9.0f%%%n", threads, throughput, speedup, 100 * speedup / threads));
+		}
+		
+		System.out.println(results);
+	}
+	
+	/**
+	 * Creates a simulation for each thread, then starts them all together and waits for them to finish
+	 * 
+	 * @param threads number of simulations to run concurrently
+	 * @param steps number of steps each simulation runs
+	 * @return total number of steps run per second over all threads
+	 */
+	private double runSimulations(int threads, int steps) {
+		Integrate6DOFEquations[] simulations = new Integrate6DOFEquations[threads];
+		for (int i = 0; i < threads; i++) {
+			SimulationConfiguration configuration = FileUtilities.readSimulationConfiguration();
+			configuration.getSimulationOptions().clear();
+			configuration.getSimulationOptions().add(Options.ANALYSIS_MODE);
+			
+			SimulationContext context = new SimulationContext(configuration);
+			simulations[i] = new Integrate6DOFEquations(new FlightControlsState(configuration), context);
+		}
+		
+		CountDownLatch start = new CountDownLatch(1);
+		CountDownLatch finish = new CountDownLatch(threads);
+		
+		for (Integrate6DOFEquations simulation : simulations) {
+			new Thread(() -> {
+				try {
+					start.await();
+					for (int step = 0; step < steps; step++)
+						simulation.step();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				} finally {
+					finish.countDown();
+				}
+			}).start();
+		}
+		
+		long startTime = System.nanoTime();
+		start.countDown();
+		
+		try {
+			finish.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		
+		return (double) threads * steps / ((System.nanoTime() - startTime) / 1e9);
+	}
+	
+	public static void main(String[] args) {
+		int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+		int steps = args.length > 1 ? Integer.parseInt(args[1]) : 6000;
+		
+		new TestSimulationScaling(maxThreads, steps);
+	}
+}
@@ -0,0 +1,60 @@
+/*******************************************************************************
+ * Copyright (C) 2016-2018 Christopher Ali
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ *  If you have any questions about this project, you can visit
+ *  the project's GitHub repository at: http://github.com/chris-ali/j6dof-flight-sim/
+ ******************************************************************************/
+package com.chrisali.javaflightsim.tests;
+
+import java.util.List;
+
+import com.chrisali.javaflightsim.simulation.setup.SimulationConfiguration;
+import com.chrisali.javaflightsim.simulation.setup.TrimCondition;
+import com.chrisali.javaflightsim.simulation.setup.TrimResult;
+import com.chrisali.javaflightsim.simulation.setup.TrimSweep;
+import com.chrisali.javaflightsim.simulation.utilities.FileUtilities;
+
+/**
+ * Trims a flight envelope of airspeed, altitude, weight and flap settings, then prints how long it took and any points that could not be trimmed
+ */
+public class TestTrimSweep {
+	
+	public static void main(String[] args) throws InterruptedException {
+		SimulationConfiguration configuration = FileUtilities.readSimulationConfiguration();
+		
+		TrimSweep sweep = new TrimSweep(configuration, new TrimCondition(200, 5000));
+		sweep.setAirspeeds(120, 130, 140, 150, 160, 170, 180, 190, 200, 210, 220, 230, 240);
+		sweep.setAltitudes(0, 2000, 4000, 6000, 8000, 10000, 12000);
+		sweep.setWeights(2400, 2600, 2800, 3000, 3200);
+		sweep.setFlaps(0, Math.toRadians(10), Math.toRadians(20), Math.toRadians(30));
+		
+		long startTime = System.nanoTime();
+		List<TrimResult> results = sweep.run();
+		long runTimeMS = (System.nanoTime() - startTime) / 1000000;
+		
+		int converged = 0, iterations = 0;
+		for (TrimResult result : results) {
+			if (result.isConverged())
+				converged++;
+			else
+				System.out.println(result);
+			
+			iterations += result.getIterations();
+		}
+		
+		System.out.println(String.format("Trimmed %d of %d points in %d ms (%d iterations)", converged, results.size(), runTimeMS, iterations));
+	}
+}
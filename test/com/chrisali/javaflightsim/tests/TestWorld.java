@@ -21,6 +21,8 @@ package com.chrisali.javaflightsim.tests;
 
 import com.chrisali.javaflightsim.initializer.LWJGLSwingSimulationController;
 import com.chrisali.javaflightsim.lwjgl.LWJGLWorld;
+import com.chrisali.javaflightsim.simulation.datatransfer.FlightDataSnapshot;
+import com.chrisali.javaflightsim.simulation.datatransfer.TripleBuffer;
 import com.chrisali.javaflightsim.simulation.setup.SimulationConfiguration;
 import com.chrisali.javaflightsim.simulation.utilities.FileUtilities;
 
@@ -29,10 +31,9 @@ public class TestWorld {
 	public static void main(String[] args) {
 		SimulationConfiguration configuration = FileUtilities.readSimulationConfiguration();
 		
-		LWJGLWorld world = new LWJGLWorld(new LWJGLSwingSimulationController(configuration));
+		LWJGLWorld world = new LWJGLWorld(new LWJGLSwingSimulationController(configuration), 
+										  new TripleBuffer<>(FlightDataSnapshot::new));
 		
-		while (true) {
-			world.step();
-		}
+		world.run();
 	}
 }